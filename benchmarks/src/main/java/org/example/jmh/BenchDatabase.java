@@ -0,0 +1,191 @@
+package org.example.jmh;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 벤치마크용 인메모리 DB (H2, MySQL 호환 모드)
+ *
+ * bench/schema.sql 로 스키마를 만들고 아래 규칙으로 데이터를 채웁니다.
+ *   - 사용자   : user_0 ~ user_{users-1}
+ *   - 친구     : 각 사용자마다 friendsPerUser 명 (다음 번호 사용자들, 단방향)
+ *   - 채팅방   : rooms 개, 방마다 membersPerRoom 명 (user_0 은 모든 방의 멤버)
+ *   - 메시지   : 방마다 messagesPerRoom 개 (멤버들이 번갈아 전송)
+ *
+ * 같은 크기 값이면 항상 같은 모양의 데이터가 만들어지므로 변경 전/후 결과를 비교할 수 있습니다.
+ */
+public class BenchDatabase implements AutoCloseable {
+
+    public static final String HOT_USER = "user_0";
+
+    private final HikariDataSource dataSource;
+    private final int users;
+    private final int rooms;
+
+    private BenchDatabase(HikariDataSource dataSource, int users, int rooms) {
+        this.dataSource = dataSource;
+        this.users = users;
+        this.rooms = rooms;
+    }
+
+    /**
+     * @param name 인메모리 DB 이름 (벤치마크 클래스마다 다르게)
+     */
+    public static BenchDatabase start(String name, int users, int friendsPerUser,
+                                      int rooms, int membersPerRoom, int messagesPerRoom) throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("bench-" + name);
+        // NON_KEYWORDS=USER : 운영 쿼리의 "FROM user" 를 그대로 실행하기 위해
+        config.setJdbcUrl("jdbc:h2:mem:" + name
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(16);
+
+        BenchDatabase db = new BenchDatabase(new HikariDataSource(config), users, rooms);
+        db.createSchema();
+        db.seed(friendsPerUser, membersPerRoom, messagesPerRoom);
+        return db;
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getRooms() {
+        return rooms;
+    }
+
+    public static String username(int i) {
+        return "user_" + i;
+    }
+
+    /**
+     * 1 ~ rooms 중 임의의 방 (room_id 는 1부터 순서대로 생성됨)
+     */
+    public long randomRoomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(rooms);
+    }
+
+    private void createSchema() throws SQLException {
+        String ddl;
+        try (InputStream in = BenchDatabase.class.getResourceAsStream("/bench/schema.sql")) {
+            if (in == null) {
+                throw new IllegalStateException("bench/schema.sql 을 찾을 수 없습니다.");
+            }
+            ddl = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("bench/schema.sql 로딩 실패", e);
+        }
+
+        try (Connection conn = dataSource.getConnection();
+             Statement st = conn.createStatement()) {
+            for (String sql : ddl.split(";")) {
+                String trimmed = sql.replaceAll("(?m)^--.*$", "").trim();
+                if (!trimmed.isEmpty()) {
+                    st.execute(trimmed);
+                }
+            }
+        }
+    }
+
+    private void seed(int friendsPerUser, int membersPerRoom, int messagesPerRoom) throws SQLException {
+        LocalDateTime joinedAt = LocalDateTime.now().minusDays(1);
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO user (name, username, password, status) VALUES (?, ?, 'bench', ?)")) {
+                for (int i = 0; i < users; i++) {
+                    ps.setString(1, "name" + i);
+                    ps.setString(2, username(i));
+                    ps.setBoolean(3, i % 3 == 0);
+                    ps.addBatch();
+                    flushEvery(ps, i);
+                }
+                ps.executeBatch();
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO user_friends (user_id, friend_id) VALUES (?, ?)")) {
+                int n = 0;
+                for (int i = 0; i < users; i++) {
+                    for (int f = 1; f <= Math.min(friendsPerUser, users - 1); f++) {
+                        ps.setLong(1, i + 1);
+                        ps.setLong(2, (i + f) % users + 1);
+                        ps.addBatch();
+                        flushEvery(ps, n++);
+                    }
+                }
+                ps.executeBatch();
+            }
+
+            try (PreparedStatement room = conn.prepareStatement(
+                         "INSERT INTO chat_room (roomname, room_type) VALUES (?, 'GROUP')");
+                 PreparedStatement member = conn.prepareStatement(
+                         "INSERT INTO chat_room_member (room_id, user_id, joined_at) VALUES (?, ?, ?)");
+                 PreparedStatement message = conn.prepareStatement(
+                         "INSERT INTO message (room_id, sender_id, contents, created_at) VALUES (?, ?, ?, ?)")) {
+
+                int n = 0;
+                for (int r = 1; r <= rooms; r++) {
+                    room.setString(1, "room" + r);
+                    room.executeUpdate();
+
+                    // user_0 + 방 번호 기준으로 연속된 사용자들
+                    long[] memberIds = new long[Math.min(membersPerRoom, users)];
+                    memberIds[0] = 1;
+                    for (int m = 1; m < memberIds.length; m++) {
+                        memberIds[m] = (r + m) % (users - 1) + 2;
+                    }
+                    for (long userId : memberIds) {
+                        member.setLong(1, r);
+                        member.setLong(2, userId);
+                        member.setTimestamp(3, Timestamp.valueOf(joinedAt));
+                        member.addBatch();
+                    }
+                    member.executeBatch();
+
+                    for (int k = 0; k < messagesPerRoom; k++) {
+                        message.setLong(1, r);
+                        message.setLong(2, memberIds[k % memberIds.length]);
+                        message.setString(3, "message " + k + " in room " + r);
+                        message.setTimestamp(4, Timestamp.valueOf(joinedAt.plusSeconds(k + 1)));
+                        message.addBatch();
+                        flushEvery(message, n++);
+                    }
+                    message.executeBatch();
+                }
+            }
+
+            conn.commit();
+        }
+    }
+
+    private static void flushEvery(PreparedStatement ps, int n) throws SQLException {
+        if (n % 1_000 == 999) {
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.jmh;
+
+import org.example.chat.dao.ChatDAO;
+import org.example.chat.dto.Info.RoomInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatDAO.selectRoomsByUsername (채팅방 목록)
+ *
+ * user_0 은 모든 방의 멤버이므로 rooms 값이 곧 "방이 많은 사용자"의 방 개수입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatDAOBench {
+
+    @Param({"500"})
+    public int rooms;
+
+    private BenchDatabase db;
+    private ChatDAO chatDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        db = BenchDatabase.start("chat" + rooms, 5_000, 0, rooms, 10, 0);
+        chatDAO = new ChatDAO(db.getDataSource());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public List<RoomInfo> selectRoomsByUsername_hotUser() throws SQLException {
+        return chatDAO.selectRoomsByUsername(BenchDatabase.HOT_USER);
+    }
+
+    @Benchmark
+    public List<RoomInfo> selectRoomsByUsername_randomUser() throws SQLException {
+        return chatDAO.selectRoomsByUsername(BenchDatabase.username(1 + ThreadLocalRandom.current().nextInt(db.getUsers() - 1)));
+    }
+}
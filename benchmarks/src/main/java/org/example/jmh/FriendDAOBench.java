@@ -0,0 +1,95 @@
+package org.example.jmh;
+
+import org.example.friend.dao.FriendDAO;
+import org.example.friend.dao.FriendGraphIndex;
+import org.example.friend.dao.FriendListCache;
+import org.example.friend.dto.FriendInfo;
+import org.example.user.common.dao.UserIdentityCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FriendDAO.getFriendList (친구 목록 폴링 경로) + 함께 아는 친구/추천 SQL vs FriendGraphIndex
+ *
+ * getFriendList 는 DB 조회 비용을 재기 위해 FriendListCache 를 끈 DAO 로 측정합니다.
+ * *Sql 은 인덱스가 준비되지 않았을 때의 SQL 경로, *Index 는 같은 데이터를 적재한 인덱스 경로입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendDAOBench {
+
+    @Param({"200"})
+    public int friendsPerUser;
+
+    private BenchDatabase db;
+    private FriendDAO friendDAO;     // 캐시/인덱스 없음 (SQL)
+    private FriendDAO indexedDAO;    // FriendGraphIndex 사용
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        db = BenchDatabase.start("friend" + friendsPerUser, 10_000, friendsPerUser, 1, 2, 0);
+        UserIdentityCache identities = UserIdentityCache.getInstance();
+        FriendListCache noCache = new FriendListCache(false, 0, 0);
+        friendDAO = new FriendDAO(db.getDataSource(), identities, noCache, new FriendGraphIndex(false, 1, 1));
+
+        // H2 는 Connector/J 스트리밍용 fetchSize(Integer.MIN_VALUE) 를 받지 않으므로 직접 읽어서 적재
+        FriendGraphIndex index = new FriendGraphIndex(true,
+                FriendGraphIndex.DEFAULT_MAX_FIRST_HOP, FriendGraphIndex.DEFAULT_MAX_EDGES);
+        index.load(consumer -> {
+            try (Connection conn = db.getDataSource().getConnection();
+                 PreparedStatement ps = conn.prepareStatement(
+                         "SELECT user_id, friend_id FROM user_friends ORDER BY user_id, friend_id");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(rs.getLong(1), rs.getLong(2));
+                }
+            }
+        });
+        indexedDAO = new FriendDAO(db.getDataSource(), identities, noCache, index);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    private String randomUser() {
+        return BenchDatabase.username(ThreadLocalRandom.current().nextInt(db.getUsers()));
+    }
+
+    @Benchmark
+    public List<FriendInfo> getFriendList() throws SQLException {
+        return friendDAO.getFriendList(randomUser());
+    }
+
+    @Benchmark
+    public long[] mutualFriendIdsSql() throws SQLException {
+        return friendDAO.findMutualFriendIds(randomUser(), randomUser());
+    }
+
+    @Benchmark
+    public long[] mutualFriendIdsIndex() throws SQLException {
+        return indexedDAO.findMutualFriendIds(randomUser(), randomUser());
+    }
+
+    @Benchmark
+    public List<FriendGraphIndex.Suggestion> suggestionsSql() throws SQLException {
+        return friendDAO.findSuggestions(randomUser(), 20);
+    }
+
+    @Benchmark
+    public List<FriendGraphIndex.Suggestion> suggestionsIndex() throws SQLException {
+        return indexedDAO.findSuggestions(randomUser(), 20);
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.jmh;
+
+import org.example.friend.dao.FriendGraphIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FriendGraphIndex: 함께 아는 친구 / 친구 추천 (기본 50,000명 × 20명 = 간선 약 1,000,000개)
+ *
+ * 친구는 무작위로 고르므로 2-hop 후보가 넓게 퍼집니다. (FriendDAOBench 의 연속 번호 친구보다 불리한 모양)
+ * 같은 seed 면 항상 같은 그래프가 만들어집니다.
+ *
+ * SQL 로 같은 값을 구하는 비용은 FriendDAOBench.mutualFriendIdsSql / suggestionsSql 참고
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendGraphIndexBench {
+
+    @Param({"50000"})
+    public int users;
+
+    @Param({"20"})
+    public int friendsPerUser;
+
+    private FriendGraphIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        index = newIndex();
+        index.load(this::randomEdges);
+        System.out.println("\nusers=" + index.getUserCount() + ", edges=" + index.getEdgeCount());
+    }
+
+    private FriendGraphIndex newIndex() {
+        return new FriendGraphIndex(true, FriendGraphIndex.DEFAULT_MAX_FIRST_HOP, FriendGraphIndex.DEFAULT_MAX_EDGES);
+    }
+
+    // user_id 순서로 (DB 의 ORDER BY user_id, friend_id 와 같은 순서는 아님: friend_id 는 섞여 있음)
+    private void randomEdges(FriendGraphIndex.EdgeConsumer consumer) {
+        Random random = new Random(42);
+        for (int u = 1; u <= users; u++) {
+            for (int f = 0; f < friendsPerUser; f++) {
+                long friend = 1 + random.nextInt(users);
+                if (friend != u) {
+                    consumer.accept(u, friend);
+                }
+            }
+        }
+    }
+
+    private long randomUser() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    @Benchmark
+    public int mutualCount() {
+        return index.mutualCount(randomUser(), randomUser());
+    }
+
+    /**
+     * 서로 친구인 두 사람 (함께 아는 친구가 실제로 있을 확률이 높은 경우)
+     */
+    @Benchmark
+    public long[] mutualFriendsOfFriend() {
+        long user = randomUser();
+        long[] friends = index.friendsOf(user);
+        long other = friends.length == 0 ? randomUser() : friends[ThreadLocalRandom.current().nextInt(friends.length)];
+        return index.mutualFriends(user, other, 20);
+    }
+
+    @Benchmark
+    public List<FriendGraphIndex.Suggestion> suggest() {
+        return index.suggest(randomUser(), 20);
+    }
+
+    /**
+     * 추가/삭제 한 쌍 (배열 복사 후 교체). 없는 id 를 더했다 빼므로 그래프 모양은 그대로
+     */
+    @Benchmark
+    public long addRemove() {
+        long user = randomUser();
+        long friend = users + randomUser();
+        index.added(user, friend);
+        index.removed(user, friend);
+        return index.getEdgeCount();
+    }
+
+    /**
+     * 전체 적재 (기동 시 1회 비용, DB 읽기 제외)
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public FriendGraphIndex load() throws SQLException {
+        FriendGraphIndex fresh = newIndex();
+        fresh.load(this::randomEdges);
+        return fresh;
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.config.JsonSupport;
+import org.example.chat.dto.Info.MemberInfo;
+import org.example.chat.dto.JoinChatResDto;
+import org.example.message.dto.MessageInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JoinChatResDto JSON 직렬화 (채팅방 입장 응답)
+ *
+ * ChatController 와 같은 JsonSupport 공용 설정을 사용합니다.
+ * serialize/deserialize 는 ObjectMapper 에 타입을 넘기는 방식, *Prebuilt 는 ChatController 가 쓰는 타입별 writer/reader 입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JoinChatResSerializationBench {
+
+    @Param({"20"})
+    public int members;
+
+    @Param({"50", "200"})
+    public int messages;
+
+    private static final ObjectWriter WRITER = JsonSupport.writer(JoinChatResDto.class);
+    private static final ObjectReader READER = JsonSupport.reader(JoinChatResDto.class);
+
+    private ObjectMapper objectMapper;
+    private JoinChatResDto dto;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        objectMapper = JsonSupport.mapper();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<MemberInfo> memberList = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            memberList.add(new MemberInfo((long) i + 1, BenchDatabase.username(i), "name" + i,
+                    "https://cdn.example.org/profile/" + i + ".png", now.minusDays(1)));
+        }
+        List<MessageInfo> messageList = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            messageList.add(new MessageInfo((long) i + 1, (long) (i % members) + 1,
+                    BenchDatabase.username(i % members), "메시지 본문 " + i + " — 평범한 길이의 채팅 한 줄",
+                    now.minusSeconds(messages - i), 1L));
+        }
+        dto = new JoinChatResDto(1L, "bench room", memberList, messageList);
+        dto.setJoinAt(now);
+        json = objectMapper.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public JoinChatResDto deserialize() throws Exception {
+        return objectMapper.readValue(json, JoinChatResDto.class);
+    }
+
+    @Benchmark
+    public byte[] serializePrebuilt() throws Exception {
+        return WRITER.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public JoinChatResDto deserializePrebuilt() throws Exception {
+        return READER.readValue(json);
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.config.JsonSupport;
+import org.example.message.dto.MessageInfo;
+import org.example.message.dto.SendMessageReq;
+import org.example.message.dto.SendMessageRes;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON (역)직렬화 방식 비교
+ *
+ *   mapper*   : ObjectMapper.writeValueAsString(value) / readValue(json, Class) — 예전 컨트롤러 방식
+ *   prebuilt* : JsonSupport 로 만든 타입별 ObjectWriter/ObjectReader — 지금 컨트롤러 방식
+ *   newMapper : 호출마다 new ObjectMapper() — 예전 MessageRestController 오류 응답 경로
+ *
+ * 대상은 WebSocket 브로드캐스트 한 건(SendMessageRes), 수신 한 건(SendMessageReq), 이력 한 페이지(List&lt;MessageInfo&gt;) 입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSupportBench {
+
+    private static final ObjectWriter RES_WRITER = JsonSupport.writer(SendMessageRes.class);
+    private static final ObjectReader REQ_READER = JsonSupport.reader(SendMessageReq.class);
+    private static final ObjectWriter MESSAGES_WRITER = JsonSupport.listWriter(MessageInfo.class);
+
+    @Param({"50"})
+    public int pageSize;
+
+    private ObjectMapper mapper;
+    private SendMessageRes res;
+    private byte[] reqJson;
+    private List<MessageInfo> page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        LocalDateTime now = LocalDateTime.of(2025, 6, 4, 21, 15, 3);
+        res = new SendMessageRes();
+        res.setMsgId(123_456_789L);
+        res.setChatRoomId(12_345L);
+        res.setSenderId(987L);
+        res.setContents("안녕! 오늘 저녁 7시에 봐요");
+        res.setCreatedAt(now);
+
+        SendMessageReq req = new SendMessageReq();
+        req.setRoomId(12_345L);
+        req.setSenderId(987L);
+        req.setContents("안녕! 오늘 저녁 7시에 봐요");
+        reqJson = mapper.writeValueAsBytes(req);
+
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(new MessageInfo((long) i + 1, (long) (i % 20) + 1, BenchDatabase.username(i % 20),
+                    "메시지 본문 " + i + " — 평범한 길이의 채팅 한 줄", now.minusSeconds(pageSize - i), 12_345L));
+        }
+    }
+
+    @Benchmark
+    public String mapperWriteMessage() throws Exception {
+        return mapper.writeValueAsString(res);
+    }
+
+    @Benchmark
+    public String prebuiltWriteMessage() throws Exception {
+        return RES_WRITER.writeValueAsString(res);
+    }
+
+    @Benchmark
+    public SendMessageReq mapperReadRequest() throws Exception {
+        return mapper.readValue(reqJson, SendMessageReq.class);
+    }
+
+    @Benchmark
+    public SendMessageReq prebuiltReadRequest() throws Exception {
+        return REQ_READER.readValue(reqJson);
+    }
+
+    @Benchmark
+    public String mapperWritePage() throws Exception {
+        return mapper.writeValueAsString(page);
+    }
+
+    @Benchmark
+    public String prebuiltWritePage() throws Exception {
+        return MESSAGES_WRITER.writeValueAsString(page);
+    }
+
+    @Benchmark
+    public String newMapperWriteError() throws Exception {
+        return new ObjectMapper().writeValueAsString(Map.of("error", "SQLException", "message", "timeout"));
+    }
+
+    @Benchmark
+    public String sharedWriteError() throws Exception {
+        return JsonSupport.writer().writeValueAsString(Map.of("error", "SQLException", "message", "timeout"));
+    }
+}
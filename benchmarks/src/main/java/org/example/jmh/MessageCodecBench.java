@@ -0,0 +1,87 @@
+package org.example.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.message.controller.BinaryMessageCodec;
+import org.example.message.dto.SendMessageReq;
+import org.example.message.dto.SendMessageRes;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket 메시지 프레임 인코딩/디코딩: JSON(tog.json.v1) vs 바이너리(tog.bin.v1)
+ *
+ * MessageController 와 같은 설정의 ObjectMapper 를 사용합니다.
+ * 프레임 크기는 setUp 에서 한 번 출력합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageCodecBench {
+
+    @Param({"안녕! 오늘 저녁 7시에 봐요", "A somewhat longer English chat line with a link https://example.org/a/b/c?x=1"})
+    public String contents;
+
+    private ObjectMapper objectMapper;
+    private SendMessageReq req;
+    private SendMessageRes res;
+    private byte[] reqJson;
+    private byte[] reqBinary;
+    private byte[] resJson;
+    private byte[] resBinary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        req = new SendMessageReq();
+        req.setRoomId(12_345L);
+        req.setSenderId(987L);
+        req.setContents(contents);
+
+        res = new SendMessageRes();
+        res.setMsgId(123_456_789L);
+        res.setChatRoomId(12_345L);
+        res.setSenderId(987L);
+        res.setContents(contents);
+        res.setCreatedAt(LocalDateTime.of(2025, 6, 4, 21, 15, 3));
+
+        reqJson = objectMapper.writeValueAsBytes(req);
+        reqBinary = BinaryMessageCodec.encodeRequest(req);
+        resJson = objectMapper.writeValueAsString(res).getBytes(StandardCharsets.UTF_8);
+        resBinary = BinaryMessageCodec.encodeResponse(res);
+        System.out.printf("%n[frame bytes] req json=%d bin=%d, res json=%d bin=%d%n",
+                reqJson.length, reqBinary.length, resJson.length, resBinary.length);
+    }
+
+    @Benchmark
+    public SendMessageReq decodeRequestJson() throws Exception {
+        return objectMapper.readValue(reqJson, SendMessageReq.class);
+    }
+
+    @Benchmark
+    public SendMessageReq decodeRequestBinary() throws Exception {
+        return BinaryMessageCodec.decodeRequest(ByteBuffer.wrap(reqBinary));
+    }
+
+    @Benchmark
+    public byte[] encodeResponseJson() throws Exception {
+        // 브로드캐스트 경로: writeValueAsString 후 UTF-8 인코딩 (RoomBroadcaster.OutboundFrame)
+        return objectMapper.writeValueAsString(res).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeResponseBinary() {
+        return BinaryMessageCodec.encodeResponse(res);
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.jmh;
+
+import org.example.message.dao.MessageDAO;
+import org.example.message.dto.MessageInfo;
+import org.example.message.dto.MessagePage;
+import org.example.message.entity.Message;
+import org.example.message.service.MessageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageDAO 핫패스: 메시지 저장 / 가입 이후 이력 조회
+ *
+ * messagesPerRoom 을 바꿔 가며 이력 길이에 따른 차이를 봅니다.
+ *   java -jar benchmarks.jar MessageDAOBench -p messagesPerRoom=100,5000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageDAOBench {
+
+    @Param({"1000"})
+    public int messagesPerRoom;
+
+    private BenchDatabase db;
+    private MessageDAO messageDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        db = BenchDatabase.start("message" + messagesPerRoom, 2_000, 20, 50, 20, messagesPerRoom);
+        messageDAO = new MessageDAO(db.getDataSource(), db.getDataSource());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public Message save() throws SQLException {
+        Message msg = new Message();
+        msg.setRoomId(db.randomRoomId());
+        msg.setSenderId(1L);
+        msg.setContents("bench " + ThreadLocalRandom.current().nextInt());
+        msg.setCreatedAt(LocalDateTime.now());
+        return messageDAO.save(msg);
+    }
+
+    /**
+     * 페이지 제한 없는 기존 조회 (이력 전체)
+     */
+    @Benchmark
+    public List<MessageInfo> selectChatHistorySinceJoin() throws SQLException {
+        return messageDAO.selectChatHistorySinceJoin(db.randomRoomId(), BenchDatabase.HOT_USER);
+    }
+
+    /**
+     * 최근 한 페이지 keyset 조회 (입장/REST 기본 경로)
+     */
+    @Benchmark
+    public MessagePage selectLatestPage() throws SQLException {
+        return messageDAO.selectChatHistoryPage(db.randomRoomId(), BenchDatabase.HOT_USER,
+                null, null, MessageService.DEFAULT_PAGE_SIZE);
+    }
+}
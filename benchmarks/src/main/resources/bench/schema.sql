@@ -0,0 +1,64 @@
+-- 벤치마크용 스키마 (H2 MODE=MySQL)
+-- 운영 MySQL 스키마와 컬럼/인덱스를 맞춰 둡니다. 인덱스 변경 시 db/migration 과 함께 수정하세요.
+
+CREATE TABLE `user` (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    name            VARCHAR(50)  NOT NULL,
+    username        VARCHAR(50)  NOT NULL,
+    password        VARCHAR(255) NOT NULL,
+    status          TINYINT(1)   NOT NULL DEFAULT 0,
+    profile_img_url VARCHAR(255),
+    PRIMARY KEY (id),
+    UNIQUE KEY uidx_user_username (username)
+);
+
+CREATE TABLE user_friends (
+    user_id   BIGINT NOT NULL,
+    friend_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE TABLE user_presence (
+    user_id BIGINT      NOT NULL,
+    node    VARCHAR(64) NOT NULL,
+    PRIMARY KEY (user_id, node),
+    KEY idx_user_presence_node (node)
+);
+
+CREATE TABLE chat_room (
+    room_id    BIGINT       NOT NULL AUTO_INCREMENT,
+    roomname   VARCHAR(100) NOT NULL,
+    room_type  VARCHAR(20)  NOT NULL,
+    created_at TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (room_id)
+);
+
+CREATE TABLE chat_room_member (
+    room_id   BIGINT    NOT NULL,
+    user_id   BIGINT    NOT NULL,
+    joined_at TIMESTAMP NOT NULL,
+    left_at   TIMESTAMP NULL,
+    PRIMARY KEY (room_id, user_id)
+);
+
+CREATE TABLE message (
+    msg_id     BIGINT    NOT NULL AUTO_INCREMENT,
+    room_id    BIGINT    NOT NULL,
+    sender_id  BIGINT    NOT NULL,
+    contents   TEXT      NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (msg_id)
+);
+
+-- V001__message_room_msg_index.sql
+CREATE INDEX idx_message_room_msg ON message (room_id, msg_id);
+
+CREATE TABLE memo (
+    memo_id      BIGINT NOT NULL AUTO_INCREMENT,
+    owner_id     BIGINT NOT NULL,
+    friend_id    BIGINT NOT NULL,
+    created_date DATE   NOT NULL,
+    content      TEXT,
+    PRIMARY KEY (memo_id),
+    UNIQUE KEY uk_memo_owner_friend_date (owner_id, friend_id, created_date)
+);
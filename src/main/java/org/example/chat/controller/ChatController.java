@@ -1,11 +1,7 @@
 package org.example.chat.controller;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,21 +13,17 @@ import org.example.chat.dto.Info.RoomInfo;
 import org.example.chat.dto.outDto.OutChatRoomReqDto;
 import org.example.chat.dto.outDto.OutChatRoomResDto;
 import org.example.chat.service.ChatService;
-import org.example.config.TestApiConfig;
+import org.example.config.DataSourceRegistry;
+import org.example.config.JsonSupport;
+import org.example.logging.Log;
 import org.example.message.dao.MessageDAO;
 import org.example.message.dto.MessageInfo;
 import org.example.message.service.MessageService;
 
 import javax.sql.DataSource;
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
-import java.util.Collections;
 import java.util.List;
-import java.util.Properties;
 
 /**
  * ChatController
@@ -46,39 +38,33 @@ import java.util.Properties;
  */
 public class ChatController extends HttpServlet {
 
+    private static final Log log = Log.get(ChatController.class);
+
+    private static final ObjectWriter ERROR_WRITER = JsonSupport.writer(ErrorResponse.class);
+    private static final ObjectReader ONE_TO_ONE_REQ_READER = JsonSupport.reader(CreateOneToOneChatReqDto.class);
+    private static final ObjectReader GROUP_REQ_READER = JsonSupport.reader(CreateGroupChatReqDto.class);
+    private static final ObjectReader JOIN_REQ_READER = JsonSupport.reader(JoinChatReqDto.class);
+    private static final ObjectWriter JOIN_RES_WRITER = JsonSupport.writer(JoinChatResDto.class);
+    private static final ObjectReader LEAVE_REQ_READER = JsonSupport.reader(OutChatRoomReqDto.class);
+    private static final ObjectWriter LEAVE_RES_WRITER = JsonSupport.writer(OutChatRoomResDto.class);
+    private static final ObjectWriter ROOMS_RES_WRITER = JsonSupport.writer(GetRoomsRes.class);
+    private static final ObjectWriter MESSAGES_WRITER = JsonSupport.listWriter(MessageInfo.class);
+
     private ChatService chatService;
-    private ObjectMapper objectMapper;
     private MessageService messageService;
 
     @Override
     public void init() throws ServletException {
         super.init();
-        // 1) db.properties 파일을 Resource Stream으로 읽어오기
-        Properties props = new Properties();
-        try (InputStream is = getClass().getClassLoader().getResourceAsStream("config/db.properties")) {
-            if (is == null) {
-                throw new ServletException("db.properties 파일을 찾을 수 없습니다.");
-            }
-            props.load(is);
-        } catch (IOException e) {
-            throw new ServletException("db.properties 로딩 실패", e);
-        }
-
-        // 2) HikariCP 설정
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(props.getProperty("jdbc.url"));
-        config.setUsername(props.getProperty("jdbc.username"));
-        config.setPassword(props.getProperty("jdbc.password"));
-        DataSource ds = new HikariDataSource(config);
+        // 1) 서버 공용 커넥션 풀 조회
+        DataSourceRegistry dataSources = DataSourceRegistry.from(getServletContext());
+        DataSource ds = dataSources.write();
 
-        // 3) DAO, Service, ObjectMapper 초기화
+        // 2) DAO, Service 초기화
         ChatDAO chatDAO = new ChatDAO(ds);
-        MessageDAO messageDAO = new MessageDAO(ds);
+        MessageDAO messageDAO = new MessageDAO(ds, dataSources.read());
         this.chatService = new ChatService(chatDAO);
         this.messageService = new MessageService(messageDAO, this.chatService);
-        this.objectMapper = new ObjectMapper()
-                .registerModule(new JavaTimeModule())
-                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     }
 
 
@@ -87,10 +73,9 @@ public class ChatController extends HttpServlet {
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         String path = request.getPathInfo();
-        System.out.println("path : " + path);// 예: "/one-to-one/create"
+        log.debug("doPost path={}", path); // 예: "/one-to-one/create"
         response.setContentType("application/json; charset=UTF-8");
         response.setCharacterEncoding("UTF-8");
-        System.out.println("분기문 진입");
         try {
             switch (path) {
                 case "/one-to-one/create":
@@ -98,7 +83,6 @@ public class ChatController extends HttpServlet {
                     break;
 
                 case "/rooms":
-                    System.out.println("룸 분기 진입");
                     handleGetJoinedRoom(request, response);
                     break;
 
@@ -107,7 +91,6 @@ public class ChatController extends HttpServlet {
                     break;
 
                 case "/join":
-                    System.out.println("join분기문 진입");
                     handleJoinChat(request, response);
                     break;
 
@@ -124,7 +107,7 @@ public class ChatController extends HttpServlet {
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             try (PrintWriter out = response.getWriter()) {
-                objectMapper.writeValue(out, new ErrorResponse("INTERNAL_ERROR", e.getMessage()));
+                ERROR_WRITER.writeValue(out, new ErrorResponse("INTERNAL_ERROR", e.getMessage()));
             }
         }
     }
@@ -144,7 +127,7 @@ public class ChatController extends HttpServlet {
                     handleFetchMessages(request, response);
                 } catch (SQLException e) {
                     response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                    objectMapper.writeValue(out, new ErrorResponse("DB_ERROR", e.getMessage()));
+                    ERROR_WRITER.writeValue(out, new ErrorResponse("DB_ERROR", e.getMessage()));
                 }
             }
             else {
@@ -158,64 +141,47 @@ public class ChatController extends HttpServlet {
     }
     private void handleCreateOneToOne(HttpServletRequest request, HttpServletResponse response) throws IOException {
         // 요청 JSON → CreateOneToOneChatReqDto
-        CreateOneToOneChatReqDto reqDto = objectMapper.readValue(request.getInputStream(), CreateOneToOneChatReqDto.class);
+        CreateOneToOneChatReqDto reqDto = ONE_TO_ONE_REQ_READER.readValue(request.getInputStream());
         // 서비스 호출
         JoinChatResDto resDto = chatService.createAndJoinOneToOne(reqDto);
         // 응답 JSON 쓰기
         response.setStatus(HttpServletResponse.SC_OK);
         try (PrintWriter out = response.getWriter()) {
-            objectMapper.writeValue(out, resDto);
+            JOIN_RES_WRITER.writeValue(out, resDto);
         }
     }
 
     private void handleCreateGroup(HttpServletRequest request, HttpServletResponse response) throws IOException {
         // 요청 JSON → CreateGroupChatReqDto
-        CreateGroupChatReqDto reqDto = objectMapper.readValue(request.getInputStream(), CreateGroupChatReqDto.class);
+        CreateGroupChatReqDto reqDto = GROUP_REQ_READER.readValue(request.getInputStream());
         // 서비스 호출
         JoinChatResDto resDto = chatService.createAndJoinGroup(reqDto);
         // 응답 JSON 쓰기
         response.setStatus(HttpServletResponse.SC_OK);
         try (PrintWriter out = response.getWriter()) {
-            objectMapper.writeValue(out, resDto);
+            JOIN_RES_WRITER.writeValue(out, resDto);
         }
     }
 
     private void handleJoinChat(HttpServletRequest request, HttpServletResponse response)
             throws IOException, SQLException {
-        JoinChatReqDto reqDto = objectMapper.readValue(request.getInputStream(), JoinChatReqDto.class);
+        JoinChatReqDto reqDto = JOIN_REQ_READER.readValue(request.getInputStream());
         if (reqDto.getChatRoomId() == null || reqDto.getUsername() == null) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             try (PrintWriter out = response.getWriter()) {
-                objectMapper.writeValue(out,
-                        new ErrorResponse("INVALID_REQUEST", "chatRoomId and username are required")
+                ERROR_WRITER.writeValue(out, new ErrorResponse("INVALID_REQUEST", "chatRoomId and username are required")
                 );
             }
             return;
         }
 
-        // 1) 가입 처리 (이때 JoinChatResDto.members가 채워져 반환됩니다)
-        JoinChatResDto resDto = chatService.joinChat(reqDto);
+        // 1) 방 정보 + 최근 메시지를 서버 안에서 한 번에 조립 (HTTP 재호출 없음)
+        JoinChatResDto resDto = messageService.joinChat(reqDto);
 
-        // 2) 메시지 이력 조회
-        String fetchUrl = TestApiConfig.get("api.baseUrl")
-                + TestApiConfig.get("api.messages.fetch")
-                + "?chatRoomId="  + reqDto.getChatRoomId()
-                + "&username="    + URLEncoder.encode(reqDto.getUsername(), StandardCharsets.UTF_8);
-        HttpResponse fetchRes = sendGet(fetchUrl);
-        System.out.println("[handleJoinChat] Fetch URL -> " + fetchUrl);
-        List<MessageInfo> history = Collections.emptyList();
-        if (fetchRes.statusCode == 200 && !fetchRes.body.isEmpty()) {
-            history = objectMapper.readValue(
-                    fetchRes.body,
-                    new TypeReference<List<MessageInfo>>() {}
-            );
-        }
-        resDto.setMessages(history);
-
-        // 3) 최종 응답
+        // 2) 최종 응답
         response.setStatus(HttpServletResponse.SC_OK);
         try (PrintWriter out = response.getWriter()) {
-            objectMapper.writeValue(out, resDto);
+            JOIN_RES_WRITER.writeValue(out, resDto);
         }
     }
 
@@ -223,17 +189,17 @@ public class ChatController extends HttpServlet {
     private void handleLeaveChat(HttpServletRequest request, HttpServletResponse response) throws IOException {
         // 요청 JSON → OutChatRoomReqDto
 
-        OutChatRoomReqDto reqDto = objectMapper.readValue(request.getInputStream(), OutChatRoomReqDto.class);
+        OutChatRoomReqDto reqDto = LEAVE_REQ_READER.readValue(request.getInputStream());
         // 서비스 호출
         OutChatRoomResDto resDto;
         try {
             resDto = chatService.leaveChatRoom(reqDto);
-            System.out.println("resDto(leaveChatRoom) = " + resDto);
+            log.debug("leaveChatRoom: {}", resDto);
         } catch (SQLException e) {
-            e.printStackTrace();
+            log.error("채팅방 나가기 실패 roomId=" + reqDto.getChatRoomId(), e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             try (PrintWriter out = response.getWriter()) {
-                objectMapper.writeValue(out, new ErrorResponse("DB_ERROR", e.getMessage()));
+                ERROR_WRITER.writeValue(out, new ErrorResponse("DB_ERROR", e.getMessage()));
             }
             return;
         }
@@ -241,7 +207,7 @@ public class ChatController extends HttpServlet {
         // 응답 JSON 쓰기
         response.setStatus(HttpServletResponse.SC_OK);
         try (PrintWriter out = response.getWriter()) {
-            objectMapper.writeValue(out, resDto);
+            LEAVE_RES_WRITER.writeValue(out, resDto);
         }
     }
 
@@ -260,7 +226,7 @@ public class ChatController extends HttpServlet {
 
         // 4) JSON 직렬화 및 응답
         response.setStatus(HttpServletResponse.SC_OK);
-        response.getWriter().write(objectMapper.writeValueAsString(resDto));
+        response.getWriter().write(ROOMS_RES_WRITER.writeValueAsString(resDto));
     }
     private void handleFetchMessages(HttpServletRequest request, HttpServletResponse response)
             throws IOException, SQLException {
@@ -269,48 +235,6 @@ public class ChatController extends HttpServlet {
 
         List<MessageInfo> messages = messageService.fetchMessages(roomId, username);
         response.setStatus(HttpServletResponse.SC_OK);
-        objectMapper.writeValue(response.getWriter(), messages);
-    }
-    // --------------------------------------------------
-// HTTP GET 요청 헬퍼
-// --------------------------------------------------
-    private static HttpResponse sendGet(String urlStr) throws IOException {
-        URL url = new URL(urlStr);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-
-        int status = conn.getResponseCode();
-        String body = readBody(conn, status);
-        return new HttpResponse(status, body);
-    }
-
-    private static String readBody(HttpURLConnection conn, int status) throws IOException {
-        InputStream is = (status >= 200 && status < 400)
-                ? conn.getInputStream()
-                : conn.getErrorStream();
-        if (is == null) return "";
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
-            }
-            return sb.toString();
-        }
-    }
-
-    private static class HttpResponse {
-        final int statusCode;
-        final String body;
-        HttpResponse(int statusCode, String body) {
-            this.statusCode = statusCode;
-            this.body       = body;
-        }
+        MESSAGES_WRITER.writeValue(response.getWriter(), messages);
     }
-
-
 }
-
-
-
-
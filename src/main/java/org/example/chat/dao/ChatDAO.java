@@ -2,38 +2,83 @@ package org.example.chat.dao;
 
 import org.example.chat.dto.Info.MemberInfo;
 import org.example.chat.dto.Info.RoomInfo;
+import org.example.logging.Log;
 import org.example.message.dto.MessageInfo;
+import org.example.user.common.dao.UserIdentityCache;
 
 import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class ChatDAO {
 
+    private static final Log log = Log.get(ChatDAO.class);
+
     private final DataSource dataSource;
+    private final RoomRegistry roomRegistry;
+    private final UserIdentityCache identities;
 
     public ChatDAO(DataSource dataSource) {
+        this(dataSource, RoomRegistry.getInstance(), UserIdentityCache.getInstance());
+    }
+
+    public ChatDAO(DataSource dataSource, RoomRegistry roomRegistry, UserIdentityCache identities) {
         this.dataSource = dataSource;
+        this.roomRegistry = roomRegistry;
+        this.identities = identities;
     }
 
     /**
-     * 헬퍼: username → user.id 조회
+     * 채팅방 메타데이터 + 활성 멤버 조회 (RoomRegistry 캐시 사용)
+     *
+     * @param chatRoomId 조회할 방의 room_id
+     * @return 캐시된 방 정보 (수정 불가)
+     * @throws SQLException 방이 없거나 DB 오류가 발생한 경우
      */
-    public Long getUserIdByUsername(String username) throws SQLException {
-        String sql = "SELECT id FROM user WHERE username = ?";
+    public RoomRegistry.RoomEntry findRoom(Long chatRoomId) throws SQLException {
+        return roomRegistry.get(chatRoomId, this::loadRoom);
+    }
+
+    /**
+     * findRoom 과 같지만 캐시 값이 오래됐으면(1초 이상) 다시 읽습니다.
+     * 다른 서버에서 들어온 멤버를 거절하지 않도록 멤버 확인 실패 시에만 사용합니다.
+     */
+    public RoomRegistry.RoomEntry reloadRoom(Long chatRoomId) throws SQLException {
+        return roomRegistry.reload(chatRoomId, this::loadRoom);
+    }
+
+    /**
+     * 캐시 미스 시 DB에서 방 정보를 읽어옵니다.
+     */
+    private RoomRegistry.RoomEntry loadRoom(long chatRoomId) throws SQLException {
+        String sql = "SELECT roomname, room_type FROM chat_room WHERE room_id = ?";
+        String roomName;
+        String roomType;
         try (Connection conn = dataSource.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, username);
+            pstmt.setLong(1, chatRoomId);
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getLong("id");
+                if (!rs.next()) {
+                    throw new SQLException("해당 room_id를 찾을 수 없습니다: " + chatRoomId);
                 }
-                throw new SQLException("해당 username을 가진 사용자가 없습니다: " + username);
+                roomName = rs.getString("roomname");
+                roomType = rs.getString("room_type");
             }
         }
+        return new RoomRegistry.RoomEntry(chatRoomId, roomName, roomType, selectActiveMembers(chatRoomId));
+    }
+
+    /**
+     * 헬퍼: username → user.id 조회
+     */
+    public Long getUserIdByUsername(String username) throws SQLException {
+        return requireIdentity(username).getId();
     }
     /**
      * username으로 조회해서 해당 사용자의 name을 반환합니다.
@@ -43,17 +88,18 @@ public class ChatDAO {
      * @throws SQLException 사용자가 없거나 DB 오류가 발생한 경우
      */
     public String getNameByUsername(String username) throws SQLException {
-        String sql = "SELECT name FROM user WHERE username = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("name");
-                }
-                throw new SQLException("해당 username을 가진 사용자가 없습니다: " + username);
-            }
+        return requireIdentity(username).getName();
+    }
+
+    /**
+     * 헬퍼: username → (id, name) 조회 (UserIdentityCache 공유 캐시)
+     */
+    private UserIdentityCache.Identity requireIdentity(String username) throws SQLException {
+        UserIdentityCache.Identity identity = identities.resolve(dataSource, username);
+        if (identity == null) {
+            throw new SQLException("해당 username을 가진 사용자가 없습니다: " + username);
         }
+        return identity;
     }
 
     /**
@@ -82,11 +128,20 @@ public class ChatDAO {
      * @throws SQLException
      */
     public Long insertOneToOneRoom(String creatorUsername, String friendUsername) throws SQLException {
-        Long creatorId = getUserIdByUsername(creatorUsername);
-        Long friendId  = getUserIdByUsername(friendUsername);
+        // id + name 을 한 번에 조회 (캐시에 없으면 IN 쿼리 한 번)
+        Map<String, UserIdentityCache.Identity> found =
+                identities.resolveAll(dataSource, Arrays.asList(creatorUsername, friendUsername));
+        UserIdentityCache.Identity creator = found.get(creatorUsername);
+        UserIdentityCache.Identity friend  = found.get(friendUsername);
+        if (creator == null || friend == null) {
+            throw new SQLException("해당 username을 가진 사용자가 없습니다: "
+                    + (creator == null ? creatorUsername : friendUsername));
+        }
+        Long creatorId = creator.getId();
+        Long friendId  = friend.getId();
 
-        String creatorName = getNameByUsername(creatorUsername);
-        String friendName  = getNameByUsername(friendUsername);
+        String creatorName = creator.getName();
+        String friendName  = friend.getName();
 
 
         // 3) 방 이름을 실제 이름(name)으로 구성
@@ -130,6 +185,8 @@ public class ChatDAO {
             pstmt.setLong(1, newRoomId);
             pstmt.setLong(2, friendId);
             pstmt.executeUpdate();
+        } finally {
+            roomRegistry.invalidate(newRoomId);
         }
 
         return newRoomId;
@@ -138,57 +195,78 @@ public class ChatDAO {
     /**
      * 그룹 채팅방 생성하기
      *
+     * 생성자와 멤버의 user.id 를 IN 쿼리 한 번(캐시 미스분만)으로 먼저 확인한 뒤,
+     * 커넥션 하나·트랜잭션 하나 안에서 방 INSERT + 멤버 배치 INSERT 를 수행합니다.
+     * (db.properties 의 rewriteBatchedStatements=true 로 멤버 INSERT 가 multi-row 한 문장이 됨)
+     * 중간에 실패하면 전체 롤백되어 멤버 없는 방이 남지 않습니다.
+     *
      * @param creatorUsername   방을 생성하는 사용자(username)
      * @param chatRoomName      생성할 방 이름
      * @param memberUsernames   초대할 친구(username) 리스트
      * @return 생성된 chat_room.room_id
-     * @throws SQLException
+     * @throws SQLException 존재하지 않는 username 이 있거나 DB 오류가 발생한 경우
      */
     public Long insertGroupRoom(String creatorUsername, String chatRoomName, List<String> memberUsernames) throws SQLException {
-        Long creatorId = getUserIdByUsername(creatorUsername);
+        // 0) 생성자 + 멤버 id 를 한 번에 조회 (생성자가 맨 앞, 중복 제거)
+        List<String> usernames = new ArrayList<>();
+        usernames.add(creatorUsername);
+        usernames.addAll(memberUsernames);
+        Map<String, UserIdentityCache.Identity> found = identities.resolveAll(dataSource, usernames);
+        for (String username : usernames) {
+            if (!found.containsKey(username)) {
+                throw new SQLException("해당 username을 가진 사용자가 없습니다: " + username);
+            }
+        }
 
-        // 1) chat_room에 INSERT
         String insertRoomSql = ""
                 + "INSERT INTO chat_room (roomname, room_type) "
                 + "VALUES (?, 'GROUP')";
-        Long newRoomId;
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(insertRoomSql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setString(1, chatRoomName);
-            int affected = pstmt.executeUpdate();
-            if (affected == 0) {
-                throw new SQLException("그룹 채팅방 생성 실패: 영향 받은 행이 없습니다.");
-            }
-            try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    newRoomId = rs.getLong(1);
-                } else {
-                    throw new SQLException("그룹 채팅방 room_id를 가져오지 못했습니다.");
-                }
-            }
-        }
-
-        // 2) chat_room_member에 creator 먼저 INSERT (joined_at은 최초 삽입 시 한 번만 기록)
+        // joined_at은 최초 삽입 시 한 번만 기록
         String insertMemberSql = ""
                 + "INSERT INTO chat_room_member (room_id, user_id, joined_at) "
                 + "VALUES (?, ?, NOW()) "
                 + "ON DUPLICATE KEY UPDATE room_id = room_id";
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(insertMemberSql)) {
+        Long newRoomId = null;
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // 1) chat_room에 INSERT
+                try (PreparedStatement pstmt = conn.prepareStatement(insertRoomSql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setString(1, chatRoomName);
+                    int affected = pstmt.executeUpdate();
+                    if (affected == 0) {
+                        throw new SQLException("그룹 채팅방 생성 실패: 영향 받은 행이 없습니다.");
+                    }
+                    try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            newRoomId = rs.getLong(1);
+                        } else {
+                            throw new SQLException("그룹 채팅방 room_id를 가져오지 못했습니다.");
+                        }
+                    }
+                }
 
-            // 2-1) 생성자 INSERT
-            pstmt.setLong(1, newRoomId);
-            pstmt.setLong(2, creatorId);
-            pstmt.executeUpdate();
+                // 2) chat_room_member에 생성자 + 멤버 배치 INSERT
+                try (PreparedStatement pstmt = conn.prepareStatement(insertMemberSql)) {
+                    for (UserIdentityCache.Identity member : found.values()) {
+                        pstmt.setLong(1, newRoomId);
+                        pstmt.setLong(2, member.getId());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
 
-            // 2-2) 다른 멤버들 INSERT
-            for (String memberUsername : memberUsernames) {
-                Long memberId = getUserIdByUsername(memberUsername);
-                pstmt.setLong(1, newRoomId);
-                pstmt.setLong(2, memberId);
-                pstmt.executeUpdate();
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            if (newRoomId != null) {
+                roomRegistry.invalidate(newRoomId);
             }
         }
 
@@ -266,6 +344,22 @@ public class ChatDAO {
      * @throws SQLException
      */
     public List<MessageInfo> selectChatHistorySinceJoin(Long chatRoomId, String username) throws SQLException {
+        return selectChatHistorySinceJoin(chatRoomId, username, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 채팅내역 읽어오기 (내 입장 시점 이후, 가장 최근 limit 개)
+     *
+     * msg_id 역순으로 limit 개만 읽은 뒤 오름차순으로 뒤집어 반환하므로
+     * (room_id, msg_id) 인덱스를 타고, 방이 오래될수록 느려지지 않습니다.
+     *
+     * @param chatRoomId 조회할 방의 room_id
+     * @param username   사용자(username)
+     * @param limit      최대 메시지 수
+     * @return MessageInfo 리스트 (msg_id 오름차순)
+     * @throws SQLException
+     */
+    public List<MessageInfo> selectChatHistorySinceJoin(Long chatRoomId, String username, int limit) throws SQLException {
         Long userId = getUserIdByUsername(username);
 
         // 1) joined_at 조회
@@ -287,7 +381,7 @@ public class ChatDAO {
             }
         }
 
-        // 2) 메시지 조회
+        // 2) 메시지 조회 (최신 limit 개)
         String sql =
                 "SELECT m.msg_id           AS msg_id, " +
                         "       m.sender_id        AS sender_id, " +
@@ -298,7 +392,8 @@ public class ChatDAO {
                         "  JOIN user u ON m.sender_id = u.id " +
                         " WHERE m.room_id = ? " +
                         "   AND m.created_at >= ? " +
-                        " ORDER BY m.created_at ASC";
+                        " ORDER BY m.msg_id DESC " +
+                        " LIMIT ?";
 
         List<MessageInfo> messages = new ArrayList<>();
         try (Connection conn = dataSource.getConnection();
@@ -306,6 +401,7 @@ public class ChatDAO {
 
             pstmt.setLong(1, chatRoomId);
             pstmt.setTimestamp(2, Timestamp.valueOf(joinedAt));
+            pstmt.setInt(3, limit);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     Long    msgId          = rs.getLong("msg_id");
@@ -328,6 +424,7 @@ public class ChatDAO {
                 }
             }
         }
+        Collections.reverse(messages);
         return messages;
     }
 
@@ -359,6 +456,14 @@ public class ChatDAO {
      * @throws SQLException
      */
     public void reviveMemberIfNeeded(Long chatRoomId, Long userId) throws SQLException {
+        try {
+            reviveMember(chatRoomId, userId);
+        } finally {
+            roomRegistry.invalidate(chatRoomId);
+        }
+    }
+
+    private void reviveMember(Long chatRoomId, Long userId) throws SQLException {
         // 1) 이미 soft‐deleted 된 row가 있는지 확인
         String checkSql = "SELECT COUNT(*) AS cnt "
                 + "  FROM chat_room_member "
@@ -412,6 +517,14 @@ public class ChatDAO {
      * @throws SQLException
      */
     public void markMemberLeft(Long chatRoomId, Long userId, boolean isOneToOne) throws SQLException {
+        try {
+            deleteOrSoftDeleteMember(chatRoomId, userId, isOneToOne);
+        } finally {
+            roomRegistry.invalidate(chatRoomId);
+        }
+    }
+
+    private void deleteOrSoftDeleteMember(Long chatRoomId, Long userId, boolean isOneToOne) throws SQLException {
         if (isOneToOne) {
             // 일대일 방: soft‐delete (left_at = NOW())
             String sql = ""
@@ -469,6 +582,7 @@ public class ChatDAO {
      */
     public void deleteEntireChatRoom(Long chatRoomId) throws SQLException {
         try (Connection conn = dataSource.getConnection()) {
+            boolean committed = false;
             conn.setAutoCommit(false);
             try {
                 // 1) chat_room_member 모든 행 삭제
@@ -493,10 +607,18 @@ public class ChatDAO {
                 }
 
                 conn.commit();
+                committed = true;
             } catch (SQLException ex) {
                 conn.rollback();
                 throw ex;
             } finally {
+                if (committed) {
+                    // 커밋된 뒤에만 다른 모듈(최근 메시지 캐시 등)에 삭제를 알림
+                    roomRegistry.roomDeleted(chatRoomId);
+                } else {
+                    // 롤백이면 방이 남아 있으므로 캐시만 비우고(다시 읽으면 됨) 삭제 알림은 보내지 않음
+                    roomRegistry.invalidate(chatRoomId);
+                }
                 conn.setAutoCommit(true);
             }
         }
@@ -515,7 +637,6 @@ public class ChatDAO {
 
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
-                System.out.println("rs = " + rs);
                 while (rs.next()) {
 
 
@@ -530,7 +651,7 @@ public class ChatDAO {
                 }
             }
             catch (SQLException ex) {
-                ex.printStackTrace();
+                log.error("참여 채팅방 조회 실패 username=" + username, ex);
             }
         }
         return list;
@@ -0,0 +1,279 @@
+package org.example.chat.dao;
+
+import org.example.chat.dto.Info.MemberInfo;
+import org.example.config.TestApiConfig;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * RoomRegistry
+ * ------------
+ * 채팅방 메타데이터(이름, 유형)와 활성 멤버 목록을 프로세스 안에 캐시합니다.
+ *
+ * - 처음 조회될 때 ChatDAO 가 DB에서 읽어 채웁니다. (lazy)
+ * - ChatDAO 의 멤버/방 변경 메서드가 해당 방을 invalidate 합니다.
+ *   (insertOneToOneRoom, insertGroupRoom, reviveMemberIfNeeded, markMemberLeft, deleteEntireChatRoom)
+ * - room.cache.maxRooms 를 넘으면 가장 오래 쓰이지 않은 방부터 제거합니다. (LRU)
+ * - room.cache.ttlSeconds 가 지난 항목은 다시 읽습니다.
+ * - hit/miss/eviction/invalidation 횟수를 기록합니다.
+ * - 방이 삭제되면 roomDeleted 로 등록된 리스너에 알립니다. (다른 모듈의 방별 캐시 정리용, 이 서버에서 삭제한 경우만)
+ *
+ * 모든 ChatDAO 가 같은 인스턴스(getInstance)를 공유하므로 한 서버 안에서는 항상 일관되지만,
+ * 여러 서버가 같은 DB를 쓰는 경우(message.bus.type=tcp) 다른 서버에서의 변경은 바로 보이지 않습니다.
+ * - 다른 서버에서 들어온 멤버: ChatService 가 멤버가 아니라고 판단하기 전에 reload 로 한 번 다시 읽음
+ *   (같은 방은 MIN_RELOAD_INTERVAL 에 한 번만 DB 조회)
+ * - 다른 서버에서 나간 멤버/삭제된 방: 최대 ttlSeconds 동안 캐시 값이 보일 수 있음
+ *
+ * config.properties:
+ *   room.cache.maxRooms=10000
+ *   room.cache.ttlSeconds=60
+ */
+public class RoomRegistry {
+
+    public static final int DEFAULT_MAX_ROOMS = 10_000;
+    public static final long DEFAULT_TTL_SECONDS = 60;
+
+    // 멤버 확인 실패 시 다시 읽는 최소 간격 (멤버가 아닌 사용자가 반복 요청해도 DB 를 두드리지 않도록)
+    private static final long MIN_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static RoomRegistry instance;
+
+    /**
+     * 캐시 미스 시 DB에서 방 정보를 읽어오는 함수 (ChatDAO 가 제공)
+     */
+    @FunctionalInterface
+    public interface Loader {
+        RoomEntry load(long roomId) throws SQLException;
+    }
+
+    /**
+     * 캐시 항목: 한 번 만들어지면 바뀌지 않습니다. (변경 시 통째로 invalidate)
+     */
+    public static class RoomEntry {
+        private final long roomId;
+        private final String roomName;
+        private final String roomType;
+        private final List<MemberInfo> members;
+        private final long[] memberIds;    // 정렬된 user_id (멤버 여부 확인용)
+
+        public RoomEntry(long roomId, String roomName, String roomType, List<MemberInfo> members) {
+            this.roomId = roomId;
+            this.roomName = roomName;
+            this.roomType = roomType;
+            this.members = Collections.unmodifiableList(members);
+            this.memberIds = members.stream().mapToLong(MemberInfo::getUserId).sorted().toArray();
+        }
+
+        public long getRoomId() {
+            return roomId;
+        }
+
+        public String getRoomName() {
+            return roomName;
+        }
+
+        public String getRoomType() {
+            return roomType;
+        }
+
+        public List<MemberInfo> getMembers() {
+            return members;
+        }
+
+        public boolean isOneToOne() {
+            return "ONE_TO_ONE".equals(roomType);
+        }
+
+        public boolean hasActiveMembers() {
+            return memberIds.length > 0;
+        }
+
+        public boolean isActiveMember(long userId) {
+            return Arrays.binarySearch(memberIds, userId) >= 0;
+        }
+
+        public boolean isActiveMember(String username) {
+            return findActiveMember(username) != null;
+        }
+
+        public MemberInfo findActiveMember(String username) {
+            for (MemberInfo member : members) {
+                if (member.getUsername().equals(username)) {
+                    return member;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 캐시에 넣은 시각과 함께 보관
+     */
+    private static final class Cached {
+        final RoomEntry entry;
+        final long loadedAtNanos;
+
+        Cached(RoomEntry entry, long loadedAtNanos) {
+            this.entry = entry;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+
+    private final int maxRooms;
+    private final long ttlNanos;
+    private final LinkedHashMap<Long, Cached> rooms;
+
+    // 로딩 도중 invalidate 가 일어났는지 확인하기 위한 세대 번호
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final List<LongConsumer> deleteListeners = new CopyOnWriteArrayList<>();
+
+    public RoomRegistry(int maxRooms) {
+        this(maxRooms, DEFAULT_TTL_SECONDS);
+    }
+
+    public RoomRegistry(int maxRooms, long ttlSeconds) {
+        this.maxRooms = maxRooms;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.rooms = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                if (size() > RoomRegistry.this.maxRooms) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 프로세스 공용 인스턴스 (config.properties 의 room.cache.maxRooms 사용)
+     */
+    public static synchronized RoomRegistry getInstance() {
+        if (instance == null) {
+            instance = fromProperties(new TestApiConfig().getProperties());
+        }
+        return instance;
+    }
+
+    public static RoomRegistry fromProperties(Properties props) {
+        String maxRooms = props.getProperty("room.cache.maxRooms", String.valueOf(DEFAULT_MAX_ROOMS));
+        String ttlSeconds = props.getProperty("room.cache.ttlSeconds", String.valueOf(DEFAULT_TTL_SECONDS));
+        return new RoomRegistry(Integer.parseInt(maxRooms.trim()), Long.parseLong(ttlSeconds.trim()));
+    }
+
+    /**
+     * 캐시에서 방 정보를 꺼내고, 없거나 ttl 이 지났으면 loader 로 읽어서 채웁니다.
+     * DB 조회는 락 밖에서 수행합니다.
+     */
+    public RoomEntry get(long roomId, Loader loader) throws SQLException {
+        return get(roomId, loader, ttlNanos);
+    }
+
+    /**
+     * 캐시 값이 MIN_RELOAD_INTERVAL 보다 오래됐으면 다시 읽습니다.
+     * 멤버가 아니라고 거절하기 전에 다른 서버에서의 입장을 반영하기 위해 사용합니다.
+     */
+    public RoomEntry reload(long roomId, Loader loader) throws SQLException {
+        return get(roomId, loader, Math.min(ttlNanos, MIN_RELOAD_INTERVAL_NANOS));
+    }
+
+    private RoomEntry get(long roomId, Loader loader, long maxAgeNanos) throws SQLException {
+        long startGeneration;
+        synchronized (this) {
+            Cached cached = rooms.get(roomId);
+            if (cached != null && System.nanoTime() - cached.loadedAtNanos < maxAgeNanos) {
+                hits.incrementAndGet();
+                return cached.entry;
+            }
+            startGeneration = generation;
+        }
+        misses.incrementAndGet();
+
+        RoomEntry loaded = loader.load(roomId);
+        synchronized (this) {
+            // 읽는 동안 변경이 있었다면 오래된 값일 수 있으므로 캐시에 넣지 않음
+            if (generation == startGeneration) {
+                rooms.put(roomId, new Cached(loaded, System.nanoTime()));
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void invalidate(long roomId) {
+        generation++;
+        invalidations.incrementAndGet();
+        rooms.remove(roomId);
+    }
+
+    /**
+     * 방이 삭제됐을 때 호출받을 리스너 등록 (room_id 를 받음)
+     */
+    public void addDeleteListener(LongConsumer listener) {
+        deleteListeners.add(listener);
+    }
+
+    /**
+     * 삭제된 방을 캐시에서 빼고 리스너에 알립니다. (ChatDAO.deleteEntireChatRoom)
+     */
+    public void roomDeleted(long roomId) {
+        invalidate(roomId);
+        for (LongConsumer listener : deleteListeners) {
+            listener.accept(roomId);
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        rooms.clear();
+    }
+
+    public synchronized int size() {
+        return rooms.size();
+    }
+
+    public int getMaxRooms() {
+        return maxRooms;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RoomRegistry{size=" + size() + "/" + maxRooms
+                + ", hits=" + hits.get()
+                + ", misses=" + misses.get()
+                + ", evictions=" + evictions.get()
+                + ", invalidations=" + invalidations.get() + "}";
+    }
+}
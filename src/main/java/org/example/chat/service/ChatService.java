@@ -1,6 +1,7 @@
 package org.example.chat.service;
 
 import org.example.chat.dao.ChatDAO;
+import org.example.chat.dao.RoomRegistry;
 import org.example.chat.dto.CreateGroupChatReqDto;
 import org.example.chat.dto.CreateOneToOneChatReqDto;
 import org.example.chat.dto.Info.RoomInfo;
@@ -9,7 +10,9 @@ import org.example.chat.dto.JoinChatResDto;
 import org.example.chat.dto.Info.MemberInfo;
 import org.example.chat.dto.outDto.OutChatRoomReqDto;
 import org.example.chat.dto.outDto.OutChatRoomResDto;
+import org.example.logging.Log;
 import org.example.message.dto.MessageInfo;
+import org.example.message.service.MessageService;
 
 import java.sql.SQLException;
 import java.time.LocalDateTime;
@@ -25,6 +28,8 @@ import java.util.stream.Collectors;
  */
 public class ChatService {
 
+    private static final Log log = Log.get(ChatService.class);
+
     private final ChatDAO chatDAO;
 
     public ChatService(ChatDAO chatDAO) {
@@ -42,14 +47,13 @@ public class ChatService {
                     req.getFriendUsername()
             );
 
-            // 2) 방 이름 조회
-            String roomName = chatDAO.selectRoomName(newRoomId);
-
-            // 3) 멤버 정보 조회 (joinedAt 포함, 생성자는 이미 참여되어 있음)
-            List<MemberInfo> members = chatDAO.selectActiveMembers(newRoomId);
+            // 2~3) 방 이름 + 멤버 정보 조회 (joinedAt 포함, 생성자는 이미 참여되어 있음) — 이후 입장은 캐시에서 응답
+            RoomRegistry.RoomEntry room = chatDAO.findRoom(newRoomId);
+            String roomName = room.getRoomName();
+            List<MemberInfo> members = room.getMembers();
 
             // 4) 메시지 내역 조회 (생성 직후라 메시지는 없겠지만, API 형태 통일)
-            List<MessageInfo> messages = chatDAO.selectChatHistorySinceJoin(newRoomId, req.getUsername());
+            List<MessageInfo> messages = chatDAO.selectChatHistorySinceJoin(newRoomId, req.getUsername(), MessageService.DEFAULT_PAGE_SIZE);
 
             // 5) JoinChatResDto 에 joinAt 필드를 설정
             JoinChatResDto dto = new JoinChatResDto(newRoomId, roomName, members, messages);
@@ -57,7 +61,7 @@ public class ChatService {
             return dto;
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            log.error("1:1 채팅방 생성 실패 username=" + req.getUsername(), e);
             return new JoinChatResDto(); // 빈 DTO 리턴
         }
     }
@@ -76,14 +80,13 @@ public class ChatService {
                             .collect(Collectors.toList())
             );
 
-            // 2) 방 이름 조회
-            String roomName = chatDAO.selectRoomName(newRoomId);
-
-            // 3) 멤버 정보 조회
-            List<MemberInfo> members = chatDAO.selectActiveMembers(newRoomId);
+            // 2~3) 방 이름 + 멤버 정보 조회
+            RoomRegistry.RoomEntry room = chatDAO.findRoom(newRoomId);
+            String roomName = room.getRoomName();
+            List<MemberInfo> members = room.getMembers();
 
             // 4) 메시지 내역 조회 (생성 직후이므로 빈 리스트)
-            List<MessageInfo> messages = chatDAO.selectChatHistorySinceJoin(newRoomId, req.getUsername());
+            List<MessageInfo> messages = chatDAO.selectChatHistorySinceJoin(newRoomId, req.getUsername(), MessageService.DEFAULT_PAGE_SIZE);
 
             // 5) JoinChatResDto 에 joinAt 필드를 설정
             JoinChatResDto dto = new JoinChatResDto(newRoomId, roomName, members, messages);
@@ -91,7 +94,7 @@ public class ChatService {
             return dto;
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            log.error("그룹 채팅방 생성 실패 username=" + req.getUsername(), e);
             return new JoinChatResDto();
         }
     }
@@ -100,8 +103,21 @@ public class ChatService {
      * 채팅방 입장 (클릭해서 방 들어가기) — 단순히 조회만 수행
      */
     public JoinChatResDto joinChat(JoinChatReqDto req) throws SQLException {
+        JoinChatResDto dto = enterRoom(req);
+        try {
+            // 메시지 내역 조회 (입장 시점 이후, 최근 한 페이지만 — 이전 내역은 GET /api/messages?before=)
+            dto.setMessages(chatDAO.selectChatHistorySinceJoin(req.getChatRoomId(), req.getUsername(), MessageService.DEFAULT_PAGE_SIZE));
+            return dto;
+        } catch (SQLException e) {
+            throw new RuntimeException("채팅방 입장 중 DB 오류", e);
+        }
+    }
 
-
+    /**
+     * 채팅방 입장 정보 중 메시지를 제외한 부분(방 이름, 멤버, 입장 시각)만 조립
+     * 메시지 내역은 호출자가 채웁니다. (MessageService.joinChat 참고)
+     */
+    public JoinChatResDto enterRoom(JoinChatReqDto req) throws SQLException {
         if (req.getChatRoomId() == null) {
             throw new SQLException("chatRoomId must not be null");
         }
@@ -111,19 +127,12 @@ public class ChatService {
 
         try {
             Long chatRoomId = req.getChatRoomId();
-            String username = req.getUsername();
-
-            // 1) 채팅방 이름 조회
-            String roomName = chatDAO.selectRoomName(chatRoomId);
-
-            // 2) 멤버 목록 조회 (joinedAt 포함)
-            List<MemberInfo> members = chatDAO.selectActiveMembers(chatRoomId);
 
-            // 3) 메시지 내역 조회 (입장 시점 이후)
-            List<MessageInfo> messages = chatDAO.selectChatHistorySinceJoin(chatRoomId, username);
+            // 1~2) 채팅방 이름 + 멤버 목록 조회 (joinedAt 포함, RoomRegistry 캐시)
+            RoomRegistry.RoomEntry room = chatDAO.findRoom(chatRoomId);
 
-            // 4) JoinChatResDto 에 joinAt 필드를 설정
-            JoinChatResDto dto = new JoinChatResDto(chatRoomId, roomName, members, messages);
+            // 3) JoinChatResDto 에 joinAt 필드를 설정
+            JoinChatResDto dto = new JoinChatResDto(chatRoomId, room.getRoomName(), room.getMembers(), Collections.emptyList());
             dto.setJoinAt(LocalDateTime.now());
             return dto;
 
@@ -143,14 +152,14 @@ public class ChatService {
         Long userId = chatDAO.getUserIdByUsername(username);
 
         // 2) 방 유형 조회 (ONE_TO_ONE vs GROUP)
-        String roomType = chatDAO.getRoomType(chatRoomId);
-        boolean isOneToOne = "ONE_TO_ONE".equals(roomType);
+        boolean isOneToOne = chatDAO.findRoom(chatRoomId).isOneToOne();
 
-        // 3) 멤버 나가기 처리 (ONE_TO_ONE: soft-delete / GROUP: delete row)
+        // 3) 멤버 나가기 처리 (ONE_TO_ONE: soft-delete / GROUP: delete row) → 캐시 invalidate
         chatDAO.markMemberLeft(chatRoomId, userId, isOneToOne);
 
-        // 4) 나간 후 남아 있는 활성 멤버 여부 확인
-        boolean anyActive = chatDAO.hasActiveMembers(chatRoomId);
+        // 4) 나간 후 남아 있는 활성 멤버 조회 (다시 읽어서 캐시를 채움)
+        RoomRegistry.RoomEntry after = chatDAO.findRoom(chatRoomId);
+        boolean anyActive = after.hasActiveMembers();
 
         // 5) 응답 DTO 생성
         OutChatRoomResDto res = new OutChatRoomResDto();
@@ -158,8 +167,6 @@ public class ChatService {
         res.setUsername(username);
         res.setLeftAt(LocalDateTime.now());
 
-        System.out.println("res"+res);
-
         if (!anyActive) {
             // 5-A) 마지막 멤버가 떠난 경우 → 방 전체 삭제
             chatDAO.deleteEntireChatRoom(chatRoomId);
@@ -168,15 +175,46 @@ public class ChatService {
         } else {
             // 5-B) 남은 멤버가 있는 경우 → 남은 멤버 목록 조회
 
-            List<MemberInfo> remaining = chatDAO.selectActiveMembers(chatRoomId);
-            System.out.println("remaining "+remaining);
+            List<MemberInfo> remaining = after.getMembers();
             res.setMembers(remaining);
             res.setDeleted(false);
         }
 
+        log.debug("leaveChatRoom: {}", res);
         return res;
     }
 
+    /**
+     * 사용자가 해당 방의 활성 멤버인지 확인 (메시지 전송 경로에서 사용, 캐시 조회)
+     * 캐시에서 멤버가 아니면, 다른 서버에서 방금 들어왔을 수 있으므로 한 번 다시 읽고 판단합니다.
+     */
+    public boolean isActiveMember(Long chatRoomId, Long userId) throws SQLException {
+        if (chatRoomId == null || userId == null) {
+            return false;
+        }
+        return chatDAO.findRoom(chatRoomId).isActiveMember(userId)
+                || chatDAO.reloadRoom(chatRoomId).isActiveMember(userId);
+    }
+
+    public boolean isActiveMember(Long chatRoomId, String username) throws SQLException {
+        if (chatRoomId == null || username == null) {
+            return false;
+        }
+        return chatDAO.findRoom(chatRoomId).isActiveMember(username)
+                || chatDAO.reloadRoom(chatRoomId).isActiveMember(username);
+    }
+
+    /**
+     * 활성 멤버 정보 (가입 시점 포함, 캐시 조회). 멤버가 아니면 null
+     */
+    public MemberInfo findActiveMember(Long chatRoomId, String username) throws SQLException {
+        if (chatRoomId == null || username == null) {
+            return null;
+        }
+        MemberInfo member = chatDAO.findRoom(chatRoomId).findActiveMember(username);
+        return member != null ? member : chatDAO.reloadRoom(chatRoomId).findActiveMember(username);
+    }
+
     public boolean exsistChatRoom(JoinChatReqDto reqDto) throws SQLException {
         Long chatRoomId = reqDto.getChatRoomId();
         String username = reqDto.getUsername();
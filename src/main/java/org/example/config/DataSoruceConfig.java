@@ -2,6 +2,7 @@ package org.example.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.example.logging.Log;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -15,14 +16,13 @@ import java.util.Properties;
  *
  * 주요 역할:
  * 1. src/main/resources/config/db.properties 파일로부터
- *    JDBC URL, 사용자명, 비밀번호를 읽어온다.
+ *    JDBC URL, 사용자명, 비밀번호, 풀 크기 옵션을 읽어온다.
  * 2. HikariConfig에 위 정보를 세팅하여 HikariCP 커넥션 풀을 초기화한다.
- * 3. 초기화된 HikariDataSource 객체를 반환하여 DAO나 서비스 레이어에서
- *    getConnection() 호출 시 동일한 풀을 재사용하도록 한다.
+ * 3. 풀 자체의 보관/공유는 DataSourceRegistry가 담당하며,
+ *    이 클래스는 "어떻게 만들지"만 책임진다.
  *
  * 사용 방법:
- *    HikariDataSource ds = DataSoruceConfig.getDataSource();
- *    Connection conn = ds.getConnection();
+ *    DataSource ds = DataSourceRegistry.from(getServletContext()).write();
  *
  * 장점:
  * - 설정 중복 제거: 여러 DAO/서비스에서 공통 설정 코드를 공유
@@ -34,7 +34,22 @@ import java.util.Properties;
 
 public class DataSoruceConfig {
 
+    private static final Log log = Log.get(DataSoruceConfig.class);
+
+    private static final String DRIVER_CLASS_NAME = "com.mysql.cj.jdbc.Driver";
+
+    /**
+     * 공유 레지스트리의 쓰기 풀을 반환합니다.
+     * (예전처럼 호출할 때마다 새 풀을 만들지 않습니다.)
+     */
     public static HikariDataSource getDataSource() {
+        return DataSourceRegistry.getInstance().get(DataSourceRegistry.WRITE);
+    }
+
+    /**
+     * classpath:config/db.properties 로딩
+     */
+    public static Properties loadProperties() {
         Properties props = new Properties();
         try (InputStream in = DataSoruceConfig.class.getClassLoader().getResourceAsStream("config/db.properties")) {
             if (in == null) throw new RuntimeException(" db.properties 파일을 찾을 수 없습니다!");
@@ -42,18 +57,64 @@ public class DataSoruceConfig {
         } catch (IOException e) {
             throw new RuntimeException("⚠ db.properties 로딩 실패", e);
         }
+        return props;
+    }
 
-        String url = props.getProperty("jdbc.url");
-        System.out.println("JDBC URL 로딩됨: " + url); // 디버깅용
+    /**
+     * 이름 붙은 풀 하나를 생성합니다.
+     *
+     * 풀 이름별 키(jdbc.{name}.url, pool.{name}.maximumPoolSize ...)가 있으면 우선 사용하고,
+     * 없으면 공통 키(jdbc.url, pool.maximumPoolSize ...)로 대체합니다.
+     *
+     * @param props    db.properties 내용
+     * @param poolName 풀 이름 (예: "write", "read")
+     */
+    public static HikariDataSource createDataSource(Properties props, String poolName) {
+        String url = property(props, poolName, "jdbc", "url", null);
+        log.info("JDBC URL 로딩됨({}): {}", poolName, url);
 
         HikariConfig config = new HikariConfig();
+        config.setPoolName("tog-" + poolName);
         config.setJdbcUrl(url);
-        System.out.println("url: " + url);
-        config.setUsername(props.getProperty("jdbc.username"));
-        config.setPassword(props.getProperty("jdbc.password"));
-        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setUsername(property(props, poolName, "jdbc", "username", null));
+        config.setPassword(property(props, poolName, "jdbc", "password", null));
+        config.setDriverClassName(DRIVER_CLASS_NAME);
+
+        config.setMaximumPoolSize(intProperty(props, poolName, "maximumPoolSize", 10));
+        config.setMinimumIdle(intProperty(props, poolName, "minimumIdle", 2));
+        config.setConnectionTimeout(intProperty(props, poolName, "connectionTimeoutMs", 30_000));
+        config.setIdleTimeout(intProperty(props, poolName, "idleTimeoutMs", 600_000));
+        config.setMaxLifetime(intProperty(props, poolName, "maxLifetimeMs", 1_800_000));
+        if ("read".equals(poolName)) {
+            config.setReadOnly(true);
+        }
+
+        // Connector/J 가 addBatch 한 INSERT 를 multi-row INSERT 한 문장으로 보내도록 (끄려면 jdbc.rewriteBatchedStatements=false)
+        config.addDataSourceProperty("rewriteBatchedStatements",
+                property(props, poolName, "jdbc", "rewriteBatchedStatements", "true"));
 
         return new HikariDataSource(config);
     }
 
+    // jdbc.{pool}.{key} → jdbc.{key} 순으로 조회
+    static String property(Properties props, String poolName, String prefix, String key, String defaultValue) {
+        String value = props.getProperty(prefix + "." + poolName + "." + key);
+        if (value == null) {
+            value = props.getProperty(prefix + "." + key, defaultValue);
+        }
+        return value == null ? null : value.trim();
+    }
+
+    private static int intProperty(Properties props, String poolName, String key, int defaultValue) {
+        String value = property(props, poolName, "pool", key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("db.properties 숫자 형식 오류: pool." + key + "=" + value, e);
+        }
+    }
+
 }
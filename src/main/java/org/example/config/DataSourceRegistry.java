@@ -0,0 +1,181 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.ServletContext;
+import org.example.metrics.MetricsRegistry;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * DataSourceRegistry
+ * ------------------
+ * 프로세스 전체에서 공유하는 커넥션 풀 보관소입니다.
+ * EmbeddedServer가 생성/종료를 책임지고, 각 서블릿과 WebSocket 엔드포인트는
+ * 풀을 직접 만들지 않고 여기서 꺼내 씁니다.
+ *
+ * 풀 종류:
+ * - write : 기본 풀. INSERT/UPDATE/DELETE 와 일반 조회
+ * - read  : 이력 조회처럼 무거운 읽기 전용 쿼리.
+ *           db.properties 에 jdbc.read.url 이 없으면 write 풀을 그대로 공유합니다.
+ *
+ * db.properties 예시:
+ *   jdbc.url=jdbc:mysql://localhost:3306/tog
+ *   jdbc.username=...
+ *   jdbc.password=...
+ *   pool.maximumPoolSize=10           # 공통
+ *   pool.minimumIdle=2
+ *   pool.write.maximumPoolSize=16     # 풀별로 덮어쓰기
+ *   jdbc.read.url=jdbc:mysql://replica:3306/tog
+ *   pool.read.maximumPoolSize=8
+ *
+ * 풀은 처음 요청될 때 생성되므로, DB 없이 서버 객체만 만드는 경우에도 안전합니다.
+ *
+ * enableConnectionLimiter() 후에는 write()/read() 가 PoolLimitedDataSource 로 감싼 풀을 돌려줍니다.
+ * (가상 스레드 모드에서 EmbeddedServer 가 켬, 원본 풀은 get(name) 으로 조회)
+ * enableInstrumentation() 후에는 그 바깥을 InstrumentedDataSource 로 한 번 더 감싸고,
+ * Hikari 풀 상태(활성/유휴/대기 커넥션 수)를 게이지로 등록합니다.
+ * 감싼 풀에서 PoolLimitedDataSource 가 필요하면 unwrap(PoolLimitedDataSource.class) 을 쓰세요.
+ */
+public class DataSourceRegistry implements AutoCloseable {
+
+    public static final String CONTEXT_ATTRIBUTE = DataSourceRegistry.class.getName();
+
+    public static final String WRITE = "write";
+    public static final String READ  = "read";
+
+    private static DataSourceRegistry instance;
+
+    private final Properties props;
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+    private final Map<String, PoolLimitedDataSource> limitedPools = new LinkedHashMap<>();
+    private final Map<String, InstrumentedDataSource> instrumentedPools = new LinkedHashMap<>();
+    private volatile boolean connectionLimiter;
+    private volatile MetricsRegistry metrics;
+    private boolean closed;
+
+    public DataSourceRegistry(Properties props) {
+        this.props = props;
+    }
+
+    /**
+     * 프로세스 공용 인스턴스 (db.properties 기반, 최초 호출 시 생성)
+     */
+    public static synchronized DataSourceRegistry getInstance() {
+        if (instance == null || instance.isClosed()) {
+            instance = new DataSourceRegistry(DataSoruceConfig.loadProperties());
+        }
+        return instance;
+    }
+
+    /**
+     * 서블릿 컨텍스트에 등록된 레지스트리를 반환합니다.
+     * 등록되어 있지 않으면(단독 실행 등) 프로세스 공용 인스턴스를 사용합니다.
+     */
+    public static DataSourceRegistry from(ServletContext context) {
+        Object attr = context == null ? null : context.getAttribute(CONTEXT_ATTRIBUTE);
+        if (attr instanceof DataSourceRegistry) {
+            return (DataSourceRegistry) attr;
+        }
+        return getInstance();
+    }
+
+    public DataSource write() {
+        return pool(WRITE);
+    }
+
+    public DataSource read() {
+        // 별도 읽기 DB가 설정되지 않았다면 쓰기 풀을 공유 (풀 개수를 늘리지 않음)
+        if (props.getProperty("jdbc." + READ + ".url") == null) {
+            return write();
+        }
+        return pool(READ);
+    }
+
+    /**
+     * 이후 write()/read() 가 풀 크기만큼만 동시에 커넥션을 내주도록 합니다.
+     * 서블릿/DAO 가 DataSource 를 꺼내기 전(서버 시작 전)에 호출해야 합니다.
+     */
+    public void enableConnectionLimiter() {
+        connectionLimiter = true;
+    }
+
+    public boolean isConnectionLimiterEnabled() {
+        return connectionLimiter;
+    }
+
+    /**
+     * 이후 write()/read() 가 쿼리/커넥션 대기 시간을 metrics 에 기록하도록 합니다.
+     * enableConnectionLimiter 와 마찬가지로 DataSource 를 꺼내기 전에 호출해야 합니다.
+     */
+    public void enableInstrumentation(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    private synchronized DataSource pool(String poolName) {
+        HikariDataSource pool = get(poolName);
+        DataSource ds = pool;
+        if (connectionLimiter) {
+            ds = limitedPools.computeIfAbsent(poolName, name -> new PoolLimitedDataSource(pool));
+        }
+        if (metrics == null) {
+            return ds;
+        }
+        DataSource inner = ds;
+        return instrumentedPools.computeIfAbsent(poolName, name -> {
+            registerPoolGauges(name, pool, limitedPools.get(name));
+            return new InstrumentedDataSource(inner, name, metrics);
+        });
+    }
+
+    private void registerPoolGauges(String poolName, HikariDataSource pool, PoolLimitedDataSource limited) {
+        metrics.gauge("hikari_connections_active", "사용 중인 커넥션 수",
+                () -> pool.getHikariPoolMXBean().getActiveConnections(), "pool", poolName);
+        metrics.gauge("hikari_connections_idle", "유휴 커넥션 수",
+                () -> pool.getHikariPoolMXBean().getIdleConnections(), "pool", poolName);
+        metrics.gauge("hikari_connections_total", "열려 있는 커넥션 수",
+                () -> pool.getHikariPoolMXBean().getTotalConnections(), "pool", poolName);
+        metrics.gauge("hikari_connections_pending", "커넥션을 기다리는 스레드 수",
+                () -> pool.getHikariPoolMXBean().getThreadsAwaitingConnection(), "pool", poolName);
+        metrics.gauge("hikari_connections_max", "최대 풀 크기", pool::getMaximumPoolSize, "pool", poolName);
+        if (limited != null) {
+            metrics.gauge("pool_limiter_waiting", "풀 앞(PoolLimitedDataSource)에서 기다리는 스레드 수",
+                    limited::getWaiting, "pool", poolName);
+            metrics.counter("pool_limiter_timeouts_total", "PoolLimitedDataSource 대기 시간 초과 수",
+                    limited::getTimeouts, "pool", poolName);
+        }
+    }
+
+    /**
+     * 이름으로 풀 조회 (없으면 생성)
+     */
+    public synchronized HikariDataSource get(String poolName) {
+        if (closed) {
+            throw new IllegalStateException("DataSourceRegistry가 이미 종료되었습니다.");
+        }
+        return pools.computeIfAbsent(poolName, name -> DataSoruceConfig.createDataSource(props, name));
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 생성된 모든 풀을 닫습니다. (EmbeddedServer.stop 에서 호출)
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (HikariDataSource ds : pools.values()) {
+            ds.close();
+        }
+        pools.clear();
+        limitedPools.clear();
+        instrumentedPools.clear();
+    }
+}
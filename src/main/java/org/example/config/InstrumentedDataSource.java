@@ -0,0 +1,220 @@
+package org.example.config;
+
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.RequestMetrics;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * InstrumentedDataSource
+ * ----------------------
+ * DAO 메서드별 쿼리 시간과 커넥션 대기 시간을 기록하는 DataSource 래퍼입니다.
+ *
+ * DAO 코드는 그대로 두고, 커넥션을 꺼낼 때 호출 스택에서 가장 가까운 *DAO 클래스의 메서드를 찾아
+ * "MessageDAO.selectPage" 같은 라벨로 그 커넥션의 execute* 시간을 기록합니다.
+ * (같은 패키지의 캐시(RoomRegistry, UserIdentityCache 등)는 건너뛰고 그 캐시를 부른 DAO 메서드로 묶음,
+ *  람다 안에서 꺼낸 커넥션은 람다를 감싼 메서드 이름으로 기록)
+ * (커넥션 대여당 스택 조회 1회, 라벨별 히스토그램/카운터는 한 번 찾아서 재사용)
+ * 커넥션을 받아 여러 메서드가 나눠 쓰는 경우에는 커넥션을 꺼낸 메서드로 묶입니다.
+ *
+ *   db_connection_acquire_seconds{pool}   getConnection 대기 시간 (PoolLimitedDataSource 대기 포함)
+ *   db_query_duration_seconds{pool,dao}   execute/executeQuery/executeUpdate/executeBatch 시간
+ *   db_query_errors_total{pool,dao}       SQLException 으로 끝난 실행 수
+ *
+ * 스트리밍 조회(fetchSize=Integer.MIN_VALUE)는 executeQuery 가 첫 행에서 돌아오므로 행을 읽는 시간은 포함되지 않습니다.
+ * 요청 범위(RequestMetrics)가 열려 있으면 쿼리 시간을 그 요청에도 더합니다.
+ */
+public class InstrumentedDataSource implements DataSource {
+
+    private static final StackWalker STACK = StackWalker.getInstance();
+
+    private final DataSource delegate;
+    private final String poolName;
+    private final MetricsRegistry metrics;
+    private final LatencyHistogram acquire;
+    private final ConcurrentHashMap<String, QueryMetrics> byDao = new ConcurrentHashMap<>();
+
+    /**
+     * DAO 라벨 하나의 쿼리 시간/실패 수
+     */
+    private record QueryMetrics(LatencyHistogram duration, LongAdder errors) {
+    }
+
+    public InstrumentedDataSource(DataSource delegate, String poolName, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.poolName = poolName;
+        this.metrics = metrics;
+        this.acquire = metrics.histogram("db_connection_acquire_seconds", "커넥션 획득 대기 시간", "pool", poolName);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection();
+        acquire.recordSince(start);
+        return instrumented(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection(username, password);
+        acquire.recordSince(start);
+        return instrumented(connection);
+    }
+
+    /**
+     * prepareStatement/prepareCall/createStatement 가 돌려주는 Statement 만 감싸는 Connection 프록시
+     */
+    private Connection instrumented(Connection connection) {
+        QueryMetrics query = byDao.computeIfAbsent(callerDao(), dao -> new QueryMetrics(
+                metrics.histogram("db_query_duration_seconds", "DAO 메서드별 쿼리 실행 시간",
+                        "pool", poolName, "dao", dao),
+                metrics.counter("db_query_errors_total", "DAO 메서드별 쿼리 실패 수",
+                        "pool", poolName, "dao", dao)));
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    String name = method.getName();
+                    if (result instanceof Statement && (name.startsWith("prepare") || name.equals("createStatement"))) {
+                        return timed((Statement) result, query);
+                    }
+                    return result;
+                });
+    }
+
+    private static Statement timed(Statement statement, QueryMetrics query) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } catch (SQLException e) {
+                        query.errors().increment();
+                        throw e;
+                    } finally {
+                        long elapsed = System.nanoTime() - start;
+                        query.duration().record(elapsed);
+                        RequestMetrics.recordDb(elapsed);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 호출 스택에서 가장 가까운 DAO 클래스.메서드 (없으면 "other")
+     */
+    private static String callerDao() {
+        return STACK.walk(frames -> frames
+                .filter(f -> daoName(f.getClassName()) != null)
+                .findFirst()
+                .map(f -> daoName(f.getClassName()) + "." + enclosingMethod(f.getMethodName()))
+                .orElse("other"));
+    }
+
+    /**
+     * 이름이 DAO 로 끝나는 클래스의 단순 이름 (내부 클래스면 바깥 클래스), 아니면 null
+     */
+    private static String daoName(String className) {
+        String simple = className.substring(className.lastIndexOf('.') + 1);
+        int inner = simple.indexOf('$');
+        if (inner > 0) {
+            simple = simple.substring(0, inner);
+        }
+        return simple.endsWith("DAO") ? simple : null;
+    }
+
+    /**
+     * 람다 본문 메서드(lambda$streamFriendList$0)는 람다를 감싼 메서드 이름으로
+     */
+    private static String enclosingMethod(String methodName) {
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', "lambda$".length());
+            if (end > "lambda$".length()) {
+                return methodName.substring("lambda$".length(), end);
+            }
+        }
+        return methodName;
+    }
+
+    public DataSource getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        if (iface.isInstance(delegate)) {
+            return iface.cast(delegate);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentedDataSource{" + delegate + "}";
+    }
+}
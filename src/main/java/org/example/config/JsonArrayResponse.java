@@ -0,0 +1,64 @@
+package org.example.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.logging.Log;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * JSON 배열 스트리밍 응답 (메시지 이력 stream=true, 친구 목록 내보내기 공용)
+ *
+ * 200 과 배열 시작을 먼저 쓰고, 행을 받는 대로 JsonGenerator 로 씁니다.
+ * 도중에 DB 오류가 나면:
+ * - 아직 아무것도 나가지 않았으면 버퍼를 버리고 500
+ * - 이미 일부를 보냈으면 상태 코드를 바꿀 수 없으므로 배열을 닫지 않고 끝냄 → 잘린 JSON 으로 클라이언트가 실패를 인지
+ */
+public final class JsonArrayResponse {
+
+    private static final Log log = Log.get(JsonArrayResponse.class);
+
+    /**
+     * 배열 원소를 gen 에 쓰는 작업 (보통 DAO 의 행 콜백에서 ObjectWriter.writeValue(gen, row))
+     */
+    @FunctionalInterface
+    public interface RowsWriter {
+        int write(JsonGenerator gen) throws SQLException, IOException;
+    }
+
+    private JsonArrayResponse() {
+    }
+
+    /**
+     * @param what 로그에 남길 요청 설명
+     * @return 쓴 원소 수, DB 오류로 중단했으면 -1 (응답 처리는 끝난 상태)
+     */
+    public static int stream(HttpServletResponse resp, String what, RowsWriter rows) throws IOException {
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("application/json; charset=UTF-8");
+
+        JsonGenerator gen = JsonSupport.mapper().getFactory()
+                .createGenerator(resp.getOutputStream(), JsonEncoding.UTF8);
+        // close() 가 열린 배열을 자동으로 닫지 않도록 끔: 오류 시 배열을 일부러 닫지 않은 채 끝내야
+        // 잘린 응답이 "정상 응답"처럼 보이지 않음
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        try {
+            gen.writeStartArray();
+            int count = rows.write(gen);
+            gen.writeEndArray();
+            gen.close();
+            return count;
+        } catch (SQLException e) {
+            log.error(what + " 스트리밍 중 DB 오류", e);
+            if (!resp.isCommitted()) {
+                resp.reset();
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+            } else {
+                gen.close();
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.util.List;
+
+/**
+ * 공용 JSON 설정
+ *
+ * 컨트롤러마다 ObjectMapper 를 만들면 타입별 (역)직렬화기 캐시도 따로 쌓이고,
+ * writeValue(out, dto) 는 호출마다 런타임 타입으로 직렬화기를 다시 찾습니다.
+ * 여기서는 프로세스에 ObjectMapper 하나만 두고, 호출하는 쪽은 DTO 타입별로 만든 ObjectReader/ObjectWriter 를
+ * static final 필드에 들고 씁니다. (둘 다 불변이라 스레드 간 공유 가능, 루트 직렬화기를 미리 찾아 둠)
+ *
+ *   private static final ObjectReader REQ_READER = JsonSupport.reader(SendMessageReq.class);
+ *   private static final ObjectWriter RES_WRITER = JsonSupport.writer(SendMessageRes.class);
+ *   private static final ObjectWriter LIST_WRITER = JsonSupport.listWriter(MessageInfo.class);
+ *
+ * 설정: JavaTimeModule, 날짜는 ISO-8601 문자열 (WRITE_DATES_AS_TIMESTAMPS 끔)
+ */
+public final class JsonSupport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    // 타입이 정해지지 않은 값(Map, 에러 응답 등)용
+    private static final ObjectWriter GENERIC_WRITER = MAPPER.writer();
+
+    private JsonSupport() {
+    }
+
+    /**
+     * 공용 ObjectMapper. 설정을 바꾸지 말고 읽기 전용으로만 쓰세요. (getFactory() 등)
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static ObjectReader reader(Class<?> type) {
+        return MAPPER.readerFor(type);
+    }
+
+    public static ObjectWriter writer(Class<?> type) {
+        return MAPPER.writerFor(type);
+    }
+
+    /**
+     * List&lt;elementType&gt; 전용 writer. 원소마다 직렬화기를 찾지 않고 원소 타입 직렬화기를 바로 씁니다.
+     */
+    public static ObjectWriter listWriter(Class<?> elementType) {
+        JavaType listType = MAPPER.getTypeFactory().constructCollectionType(List.class, elementType);
+        return MAPPER.writerFor(listType);
+    }
+
+    /**
+     * 타입을 미리 알 수 없는 값용 writer (에러 응답, 한 번 쓰고 마는 Map 등)
+     */
+    public static ObjectWriter writer() {
+        return GENERIC_WRITER;
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * PoolLimitedDataSource
+ * ---------------------
+ * 커넥션 풀 크기만큼만 동시에 getConnection 을 통과시키는 DataSource 래퍼입니다.
+ *
+ * 가상 스레드 모드(server.threads.mode=virtual)에서는 요청마다 스레드가 생기므로 수천 개가 동시에
+ * 풀에 몰릴 수 있습니다. 풀 앞에서 fair Semaphore 로 줄을 세우면
+ *   - 대기는 가상 스레드 park 로 처리되고 (캐리어 스레드를 잡지 않음)
+ *   - 실제 JDBC 구간(Connector/J 의 synchronized 포함)에 들어가는 스레드 수는 풀 크기로 제한되며
+ *   - 대기 순서가 FIFO 라서 p99 가 한쪽으로 몰리지 않습니다.
+ * 대기 시간이 풀의 connectionTimeout 을 넘으면 Hikari 와 같은 SQLTransientConnectionException 을 던집니다.
+ *
+ * 받은 Connection 의 close() 에서 permit 을 돌려줍니다. (try-with-resources 그대로 사용)
+ */
+public class PoolLimitedDataSource implements DataSource {
+
+    private final HikariDataSource pool;
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long acquireTimeoutMs;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public PoolLimitedDataSource(HikariDataSource pool) {
+        this(pool, pool.getMaximumPoolSize(), pool.getConnectionTimeout());
+    }
+
+    public PoolLimitedDataSource(HikariDataSource pool, int maxPermits, long acquireTimeoutMs) {
+        this.pool = pool;
+        this.maxPermits = maxPermits;
+        this.permits = new Semaphore(maxPermits, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return limited(pool.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(pool.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLTransientConnectionException(pool.getPoolName()
+                        + " - 커넥션 대기 시간 초과 (" + acquireTimeoutMs + "ms, 대기 " + permits.getQueueLength() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException(pool.getPoolName() + " - 커넥션 대기 중 인터럽트", e);
+        }
+        acquired.incrementAndGet();
+    }
+
+    /**
+     * close() 시 permit 을 한 번만 반환하는 Connection 프록시
+     */
+    private Connection limited(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    public HikariDataSource getPool() {
+        return pool;
+    }
+
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    /**
+     * 지금 커넥션을 쓰고 있는 스레드 수
+     */
+    public int getInUse() {
+        return maxPermits - permits.availablePermits();
+    }
+
+    /**
+     * permit 을 기다리는 스레드 수
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    public long getAcquired() {
+        return acquired.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return pool.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        pool.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        pool.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return pool.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return pool.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return pool.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || pool.isWrapperFor(iface);
+    }
+
+    @Override
+    public String toString() {
+        return "PoolLimitedDataSource{" + pool.getPoolName() + ", permits=" + maxPermits + "}";
+    }
+}
@@ -1,15 +1,23 @@
 package org.example.config;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServlet;
+import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.example.chat.controller.ChatController;
 import org.example.friend.controller.FriendController;
 import org.example.memo.controller.MemoController;
 import org.example.message.controller.MessageRestController;
+import org.example.metrics.MetricsFilter;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.controller.MetricsController;
 import org.example.user.authentication.controller.SignInController;
 import org.example.user.registration.controller.SignUpController;
 import org.example.user.session.controller.SignOutController;
 
+import java.util.EnumSet;
+
 public class ServletRegistrar {
     private final ServletContextHandler context;
 
@@ -31,4 +39,12 @@ public class ServletRegistrar {
         register(MemoController.class,     paths.getMemoPath());
         register(MessageRestController.class, paths.getMessagePath());
     }
+
+    /**
+     * 모든 요청에 MetricsFilter 를 걸고, path 에 Prometheus 조회 서블릿을 등록합니다.
+     */
+    public void registerMetrics(MetricsRegistry metrics, String path, String token) {
+        context.addFilter(new FilterHolder(new MetricsFilter(metrics)), "/*", EnumSet.of(DispatcherType.REQUEST));
+        context.addServlet(new ServletHolder(new MetricsController(metrics, token)), path);
+    }
 }
@@ -1,5 +1,7 @@
 package org.example.config;
 
+import org.example.logging.Log;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -11,6 +13,9 @@ import java.util.Properties;
  * and server configuration (config.properties) for EmbeddedServer in tests.
  */
 public class TestApiConfig {
+
+    private static final Log log = Log.get(TestApiConfig.class);
+
     private static final Properties apiProps = new Properties();
     private static final Properties configProps = new Properties();
     private final Properties instanceProps;
@@ -62,10 +67,9 @@ public class TestApiConfig {
 
     public String getHost() {
         String baseUrl = configProps.getProperty("ws.baseUrl");
-        System.out.println("baseUrl: " + baseUrl);
+        log.debug("baseUrl: {}", baseUrl);
         try {
             URI uri = new URI(baseUrl);
-            System.out.println("baseUrl: " + baseUrl);
             return uri.getHost();
         } catch (URISyntaxException e) {
             throw new IllegalStateException("ws.baseUrl 형식 오류: " + baseUrl, e);
@@ -1,19 +1,79 @@
 package org.example.config;
 
+import jakarta.websocket.server.ServerEndpoint;
 import jakarta.websocket.server.ServerEndpointConfig;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.websocket.jakarta.server.config.JakartaWebSocketServletContainerInitializer;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
 public class WebSocketRegistrar {
     public static void register(ServletContextHandler context,
                                 String wsPath,
                                 Class<?> endpointClass) {
+        register(context, wsPath, endpointClass, new ServerEndpointConfig.Configurator());
+    }
+
+    /**
+     * 엔드포인트 인스턴스를 컨테이너가 아닌 endpointFactory가 만들도록 등록합니다.
+     * (커넥션마다 새 인스턴스가 생기는 건 같지만, 서비스/커넥션 풀은 미리 만든 것을 주입)
+     */
+    public static <T> void register(ServletContextHandler context,
+                                    String wsPath,
+                                    Class<T> endpointClass,
+                                    Supplier<? extends T> endpointFactory) {
+        register(context, wsPath, endpointClass, new SharedServiceConfigurator(endpointClass, endpointFactory));
+    }
+
+    private static void register(ServletContextHandler context,
+                                 String wsPath,
+                                 Class<?> endpointClass,
+                                 ServerEndpointConfig.Configurator configurator) {
         JakartaWebSocketServletContainerInitializer.configure(context, (servletContext, container) -> {
             ServerEndpointConfig cfg = ServerEndpointConfig.Builder
                     .create(endpointClass, wsPath)
-                    .configurator(new ServerEndpointConfig.Configurator())
+                    .subprotocols(subprotocolsOf(endpointClass))
+                    .configurator(configurator)
                     .build();
             container.addEndpoint(cfg);
         });
     }
+
+    /**
+     * 경로는 wsPath 를 쓰지만, 협상할 서브프로토콜은 @ServerEndpoint 에 선언된 것을 그대로 사용
+     */
+    private static List<String> subprotocolsOf(Class<?> endpointClass) {
+        ServerEndpoint annotation = endpointClass.getAnnotation(ServerEndpoint.class);
+        return annotation == null ? Collections.emptyList() : Arrays.asList(annotation.subprotocols());
+    }
+
+    /**
+     * getEndpointInstance 를 가로채서 공유 서비스가 주입된 엔드포인트를 돌려주는 Configurator
+     */
+    static class SharedServiceConfigurator extends ServerEndpointConfig.Configurator {
+        private final Class<?> endpointClass;
+        private final Supplier<?> endpointFactory;
+
+        SharedServiceConfigurator(Class<?> endpointClass, Supplier<?> endpointFactory) {
+            this.endpointClass = endpointClass;
+            this.endpointFactory = endpointFactory;
+        }
+
+        @Override
+        public <T> T getEndpointInstance(Class<T> clazz) throws InstantiationException {
+            if (!clazz.equals(endpointClass)) {
+                return super.getEndpointInstance(clazz);
+            }
+            try {
+                return clazz.cast(endpointFactory.get());
+            } catch (RuntimeException e) {
+                InstantiationException ie = new InstantiationException("엔드포인트 생성 실패: " + clazz.getName());
+                ie.initCause(e);
+                throw ie;
+            }
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package org.example.friend.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,63 +9,71 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.example.friend.dao.FriendDAO;
 import org.example.friend.dto.*;
 import org.example.friend.service.FriendService;
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import org.example.config.DataSourceRegistry;
+import org.example.config.JsonArrayResponse;
+import org.example.config.JsonSupport;
+import org.example.logging.Log;
 
+import javax.sql.DataSource;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Properties;
+import java.sql.SQLException;
+import java.util.List;
 
 /**
  * FriendController: "/api/friends/*" 로 매핑되어,
  * - POST   /api/friends          → 친구 추가 (JSON body: { "username":"...", "friendUsername":"..." })
  * - GET    /api/friends?username=xxx → 친구 목록 조회
  * - DELETE /api/friends          → 친구 삭제 (JSON body: { "username":"...", "friendUsername":"..." })
+ * - GET    /api/friends/mutual?username=xxx&other=yyy[&limit=20] → 함께 아는 친구
+ * - GET    /api/friends/suggestions?username=xxx[&limit=20]     → 친구 추천 (알 수도 있는 사람)
+ * - POST   /api/friends/bulk     → 친구 일괄 추가 (JSON body: { "username":"...", "friendUsernames":["...", ...] })
+ * - GET    /api/friends/export?username=xxx → 친구 목록 전체를 JSON 배열로 스트리밍 (없는 사용자면 404)
+ *
+ * 친구 목록 응답에는 ETag(목록 내용 + online 값의 해시)를 붙입니다.
+ * 클라이언트가 If-None-Match 로 같은 값을 보내면 본문 없이 304 를 돌려줍니다. (폴링용)
  */
 public class FriendController extends HttpServlet {
 
+    private static final Log log = Log.get(FriendController.class);
+
+    private static final ObjectWriter ERROR_WRITER = JsonSupport.writer(ErrorResponse.class);
+    private static final ObjectWriter LIST_RES_WRITER = JsonSupport.writer(GetFriendsListResDto.class);
+    private static final ObjectReader ADD_REQ_READER = JsonSupport.reader(AddFriendReqDto.class);
+    private static final ObjectWriter ADD_RES_WRITER = JsonSupport.writer(AddFriendResDto.class);
+    private static final ObjectReader REMOVE_REQ_READER = JsonSupport.reader(RemoveFriendReqDto.class);
+    private static final ObjectWriter REMOVE_RES_WRITER = JsonSupport.writer(RemoveFriendResDto.class);
+    private static final ObjectWriter MUTUAL_RES_WRITER = JsonSupport.writer(MutualFriendsResDto.class);
+    private static final ObjectWriter SUGGESTIONS_RES_WRITER = JsonSupport.writer(FriendSuggestionsResDto.class);
+    private static final ObjectReader BULK_REQ_READER = JsonSupport.reader(BulkAddFriendsReqDto.class);
+    private static final ObjectWriter BULK_RES_WRITER = JsonSupport.writer(BulkAddFriendsResDto.class);
+    private static final ObjectWriter FRIEND_WRITER = JsonSupport.writer(FriendInfo.class);
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
     private FriendService friendService;
-    private ObjectMapper objectMapper;
 
     @Override
     public void init() throws ServletException {
         super.init();
-        System.out.println("FriendController.init 진입 성공");
-
-        // 1) db.properties 파일 로딩
-        Properties props = new Properties();
-        try (InputStream is = getClass().getClassLoader().getResourceAsStream("config/db.properties")) {
-            if (is == null) {
-                throw new ServletException("db.properties 파일을 찾을 수 없습니다.");
-            }
-            props.load(is);
-        } catch (IOException e) {
-            throw new ServletException("db.properties 로딩 실패", e);
-        }
 
-        System.out.println("▶ FriendController에서 읽은 jdbc.url = " + props.getProperty("jdbc.url"));
-        System.out.println("▶ FriendController에서 읽은 jdbc.username = " + props.getProperty("jdbc.username"));
-
-        HikariDataSource ds;
+        // 서버 공용 커넥션 풀 조회
+        DataSource ds;
+        DataSource readDs;
         try {
-            HikariConfig config = new HikariConfig();
-            config.setJdbcUrl(props.getProperty("jdbc.url"));
-            config.setUsername(props.getProperty("jdbc.username"));
-            config.setPassword(props.getProperty("jdbc.password"));
-            ds = new HikariDataSource(config);
+            DataSourceRegistry registry = DataSourceRegistry.from(getServletContext());
+            ds = registry.write();
+            readDs = registry.read();
         } catch (Exception e) {
             throw new ServletException("HikariDataSource 초기화 중 예외 발생", e);
         }
 
-        System.out.println(">>> 예외문 통과");
-
-        FriendDAO friendDAO = new FriendDAO(ds);
+        FriendDAO friendDAO = new FriendDAO(ds, readDs);
         this.friendService = new FriendService(friendDAO);
-        this.objectMapper = new ObjectMapper();
 
-        System.out.println(">>> FriendController.init() 호출됨");
+        log.debug("init");
     }
 
     /**
@@ -73,7 +82,7 @@ public class FriendController extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
-        System.out.println(">>> FriendController.doGet() 진입: pathInfo=" + req.getPathInfo());
+        log.debug("doGet pathInfo={}", req.getPathInfo());
 
         // pathInfo가 null 또는 "/" 일 때만 처리
         String path = req.getPathInfo(); // /api/friends 로 요청하면 pathInfo == null
@@ -83,7 +92,7 @@ public class FriendController extends HttpServlet {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("MISSING_FIELD", "username 파라미터가 필요합니다.");
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
@@ -95,13 +104,35 @@ public class FriendController extends HttpServlet {
                 resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("SERVER_ERROR", e.getMessage());
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
+            if (resDto.getFriendsList() != null) {
+                String etag = etagOf(username, resDto.getFriendsList());
+                resp.setHeader("ETag", etag);
+                resp.setHeader("Cache-Control", "no-cache");
+                if (matchesIfNoneMatch(req.getHeader("If-None-Match"), etag)) {
+                    resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+
             resp.setStatus(HttpServletResponse.SC_OK);
             resp.setContentType("application/json; charset=UTF-8");
-            objectMapper.writeValue(resp.getWriter(), resDto);
+            LIST_RES_WRITER.writeValue(resp.getWriter(), resDto);
+            return;
+        }
+        if ("/mutual".equals(path)) {
+            handleGetMutualFriends(req, resp);
+            return;
+        }
+        if ("/suggestions".equals(path)) {
+            handleGetSuggestions(req, resp);
+            return;
+        }
+        if ("/export".equals(path)) {
+            handleExport(req, resp);
             return;
         }
 
@@ -109,7 +140,135 @@ public class FriendController extends HttpServlet {
         resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
         resp.setContentType("application/json; charset=UTF-8");
         ErrorResponse err = new ErrorResponse("Not Found", "지원하지 않는 GET 경로입니다: " + path);
-        objectMapper.writeValue(resp.getWriter(), err);
+        ERROR_WRITER.writeValue(resp.getWriter(), err);
+    }
+
+    /**
+     * 함께 아는 친구: GET /api/friends/mutual?username={username}&other={otherUsername}&limit={n}
+     */
+    private void handleGetMutualFriends(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String username = req.getParameter("username");
+        String other    = req.getParameter("other");
+        if (username == null || username.trim().isEmpty() || other == null || other.trim().isEmpty()) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "MISSING_FIELD", "username, other 파라미터가 필요합니다.");
+            return;
+        }
+        Integer limit = parseLimit(req, resp);
+        if (limit == null) {
+            return;
+        }
+
+        MutualFriendsResDto resDto = friendService.getMutualFriends(username, other, limit);
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("application/json; charset=UTF-8");
+        MUTUAL_RES_WRITER.writeValue(resp.getWriter(), resDto);
+    }
+
+    /**
+     * 친구 추천: GET /api/friends/suggestions?username={username}&limit={n}
+     */
+    private void handleGetSuggestions(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String username = req.getParameter("username");
+        if (username == null || username.trim().isEmpty()) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "MISSING_FIELD", "username 파라미터가 필요합니다.");
+            return;
+        }
+        Integer limit = parseLimit(req, resp);
+        if (limit == null) {
+            return;
+        }
+
+        FriendSuggestionsResDto resDto = friendService.getSuggestions(username, limit);
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("application/json; charset=UTF-8");
+        SUGGESTIONS_RES_WRITER.writeValue(resp.getWriter(), resDto);
+    }
+
+    /**
+     * 친구 일괄 추가: POST /api/friends/bulk
+     * JSON 바디 형식: { "username": "...", "friendUsernames": ["...", ...] } (최대 FriendService.MAX_BULK_ITEMS 개)
+     */
+    private void handleBulkAdd(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String contentType = req.getContentType();
+        if (contentType == null || !contentType.startsWith("application/json")) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "INVALID_CONTENT_TYPE", "Content-Type must be application/json");
+            return;
+        }
+
+        BulkAddFriendsReqDto requestDto;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(req.getInputStream(), "UTF-8"))) {
+            requestDto = BULK_REQ_READER.readValue(reader);
+        } catch (Exception e) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "INVALID_JSON", "JSON 형식이 잘못되었습니다.");
+            return;
+        }
+
+        if (requestDto.getUsername() == null || requestDto.getFriendUsernames() == null) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "MISSING_FIELD", "username 및 friendUsernames 필드가 필요합니다.");
+            return;
+        }
+        if (requestDto.getFriendUsernames().size() > FriendService.MAX_BULK_ITEMS) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "TOO_MANY_ITEMS",
+                    "friendUsernames 는 최대 " + FriendService.MAX_BULK_ITEMS + "개까지 보낼 수 있습니다.");
+            return;
+        }
+
+        BulkAddFriendsResDto responseDto = friendService.bulkAddFriends(requestDto);
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("application/json; charset=UTF-8");
+        BULK_RES_WRITER.writeValue(resp.getWriter(), responseDto);
+    }
+
+    /**
+     * 친구 목록 내보내기: GET /api/friends/export?username={username}
+     * DB 에서는 500 행씩 friend_id keyset 으로 읽고(FriendDAO.streamFriendList), 배치마다 커넥션을 돌려준 뒤 JSON 으로 씁니다.
+     * → 친구 수와 무관하게 힙에는 한 배치만 올라가고, 느린 클라이언트가 커넥션을 잡고 있지 않습니다.
+     * 도중에 DB 오류가 나면 배열을 일부러 닫지 않고 끝냅니다. (JsonArrayResponse)
+     */
+    private void handleExport(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String username = req.getParameter("username");
+        if (username == null || username.trim().isEmpty()) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "MISSING_FIELD", "username 파라미터가 필요합니다.");
+            return;
+        }
+
+        // 응답을 시작하기 전에 사용자부터 확인 (없으면 404)
+        Long userId;
+        try {
+            userId = friendService.findUserId(username);
+        } catch (SQLException e) {
+            log.error("친구 목록 내보내기 사용자 조회 실패 username=" + username, e);
+            writeError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "SERVER_ERROR", "사용자를 조회하지 못했습니다.");
+            return;
+        }
+        if (userId == null) {
+            writeError(resp, HttpServletResponse.SC_NOT_FOUND, "ERROR_NOT_FOUND", "사용자를 찾을 수 없습니다: " + username);
+            return;
+        }
+
+        int count = JsonArrayResponse.stream(resp, "친구 목록 내보내기 username=" + username,
+                gen -> friendService.exportFriends(userId, row -> FRIEND_WRITER.writeValue(gen, row)));
+        log.debug("export username={}, rows={}", username, count);
+    }
+
+    // limit 파라미터 (기본 DEFAULT_LIMIT, 1 ~ MAX_LIMIT). 잘못된 값이면 400 을 쓰고 null
+    private static Integer parseLimit(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String value = req.getParameter("limit");
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(value.trim())));
+        } catch (NumberFormatException e) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "INVALID_PARAM", "limit 는 숫자여야 합니다.");
+            return null;
+        }
+    }
+
+    private static void writeError(HttpServletResponse resp, int status, String code, String message) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json; charset=UTF-8");
+        ERROR_WRITER.writeValue(resp.getWriter(), new ErrorResponse(code, message));
     }
 
     /**
@@ -119,7 +278,7 @@ public class FriendController extends HttpServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
-        System.out.println(">>> FriendController.doPost() 진입: pathInfo=" + req.getPathInfo());
+        log.debug("doPost pathInfo={}", req.getPathInfo());
 
         String path = req.getPathInfo();
         if (path == null || "/".equals(path)) {
@@ -129,19 +288,19 @@ public class FriendController extends HttpServlet {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("INVALID_CONTENT_TYPE", "Content-Type must be application/json");
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
             // 2) JSON 바디 파싱
             AddFriendReqDto requestDto;
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(req.getInputStream(), "UTF-8"))) {
-                requestDto = objectMapper.readValue(reader, AddFriendReqDto.class);
+                requestDto = ADD_REQ_READER.readValue(reader);
             } catch (Exception e) {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("INVALID_JSON", "JSON 형식이 잘못되었습니다.");
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
@@ -150,7 +309,7 @@ public class FriendController extends HttpServlet {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("MISSING_FIELD", "username 및 friendUsername 필드가 필요합니다.");
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
@@ -162,14 +321,18 @@ public class FriendController extends HttpServlet {
                 resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("SERVER_ERROR", e.getMessage());
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
             // 5) 성공 응답
             resp.setStatus(HttpServletResponse.SC_OK);
             resp.setContentType("application/json; charset=UTF-8");
-            objectMapper.writeValue(resp.getWriter(), responseDto);
+            ADD_RES_WRITER.writeValue(resp.getWriter(), responseDto);
+            return;
+        }
+        if ("/bulk".equals(path)) {
+            handleBulkAdd(req, resp);
             return;
         }
 
@@ -177,7 +340,7 @@ public class FriendController extends HttpServlet {
         resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
         resp.setContentType("application/json; charset=UTF-8");
         ErrorResponse err = new ErrorResponse("Not Found", "지원하지 않는 POST 경로입니다: " + path);
-        objectMapper.writeValue(resp.getWriter(), err);
+        ERROR_WRITER.writeValue(resp.getWriter(), err);
     }
 
     /**
@@ -187,7 +350,7 @@ public class FriendController extends HttpServlet {
     @Override
     protected void doDelete(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
-        System.out.println(">>> FriendController.doDelete() 진입: pathInfo=" + req.getPathInfo());
+        log.debug("doDelete pathInfo={}", req.getPathInfo());
 
         String path = req.getPathInfo();
         if (path == null || "/".equals(path)) {
@@ -197,19 +360,19 @@ public class FriendController extends HttpServlet {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("INVALID_CONTENT_TYPE", "Content-Type must be application/json");
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
             // 2) JSON 바디 파싱
             RemoveFriendReqDto requestDto;
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(req.getInputStream(), "UTF-8"))) {
-                requestDto = objectMapper.readValue(reader, RemoveFriendReqDto.class);
+                requestDto = REMOVE_REQ_READER.readValue(reader);
             } catch (Exception e) {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("INVALID_JSON", "JSON 형식이 잘못되었습니다.");
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
@@ -218,7 +381,7 @@ public class FriendController extends HttpServlet {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("MISSING_FIELD", "username 및 friendUsername 필드가 필요합니다.");
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
@@ -230,14 +393,14 @@ public class FriendController extends HttpServlet {
                 resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 resp.setContentType("application/json; charset=UTF-8");
                 ErrorResponse err = new ErrorResponse("SERVER_ERROR", e.getMessage());
-                objectMapper.writeValue(resp.getWriter(), err);
+                ERROR_WRITER.writeValue(resp.getWriter(), err);
                 return;
             }
 
             // 5) 성공 응답
             resp.setStatus(HttpServletResponse.SC_OK);
             resp.setContentType("application/json; charset=UTF-8");
-            objectMapper.writeValue(resp.getWriter(), responseDto);
+            REMOVE_RES_WRITER.writeValue(resp.getWriter(), responseDto);
             return;
         }
 
@@ -245,6 +408,61 @@ public class FriendController extends HttpServlet {
         resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
         resp.setContentType("application/json; charset=UTF-8");
         ErrorResponse err = new ErrorResponse("Not Found", "지원하지 않는 DELETE 경로입니다: " + path);
-        objectMapper.writeValue(resp.getWriter(), err);
+        ERROR_WRITER.writeValue(resp.getWriter(), err);
+    }
+
+    /**
+     * 응답에 들어가는 값 전체(친구별 id/username/name/프로필/online)의 64비트 FNV-1a 해시
+     * 같은 목록이면 서버가 재시작되거나 캐시가 비워져도 같은 값이 나옵니다.
+     */
+    static String etagOf(String username, List<FriendInfo> friends) {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, username);
+        for (FriendInfo f : friends) {
+            h = mix(h, f.getUserId() == null ? -1L : f.getUserId());
+            h = mix(h, f.getUsername());
+            h = mix(h, f.getName());
+            h = mix(h, f.getProfileImgUrl());
+            h = mix(h, f.isOnline() ? 1L : 0L);
+        }
+        return "\"" + Long.toHexString(h) + "\"";
+    }
+
+    private static long mix(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h ^= (value >>> (i * 8)) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long mix(long h, String value) {
+        if (value == null) {
+            return mix(h, -1L);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h, value.length());   // 필드 경계 구분
+    }
+
+    /**
+     * If-None-Match: "a", W/"b" 또는 * 형식
+     */
+    static boolean matchesIfNoneMatch(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
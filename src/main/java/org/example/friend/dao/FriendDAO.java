@@ -1,11 +1,20 @@
 package org.example.friend.dao;
 
 
+import org.example.friend.dto.BulkAddFriendResult;
 import org.example.friend.dto.FriendInfo;
+import org.example.user.common.dao.UserIdentityCache;
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -15,10 +24,57 @@ import java.util.List;
  */
 public class FriendDAO {
 
+    private static final String FRIEND_COLUMNS =
+            "SELECT u.id                 AS user_id, " +
+                    "       u.username           AS username, " +
+                    "       u.name               AS name, " +
+                    "       u.profile_img_url    AS profile_img_url, " +
+                    "       u.status             AS status ";    // status 컬럼을 boolean로 읽어서 online 여부로 사용
+
+    // IN (...) 한 번에 넣을 최대 개수
+    private static final int IN_CHUNK_SIZE = 500;
+
+    // MySQL Connector/J 행 단위 스트리밍 신호값 (기본은 결과 전체를 메모리에 올림)
+    private static final int STREAM_FETCH_SIZE = Integer.MIN_VALUE;
+
+    // 내보내기에서 커넥션 하나로 읽는 행 수 (읽은 뒤 커넥션을 돌려주고 나서 클라이언트에 씀)
+    private static final int EXPORT_BATCH_SIZE = 500;
+
     private final DataSource dataSource;
+    private final DataSource readDataSource;   // 내보내기용 (쓰기 풀과 나눠 씀)
+    private final UserIdentityCache identities;
+    private final FriendListCache friendLists;
+    private final FriendGraphIndex graph;
 
     public FriendDAO(DataSource dataSource) {
+        this(dataSource, UserIdentityCache.getInstance(), FriendListCache.getInstance());
+    }
+
+    public FriendDAO(DataSource dataSource, DataSource readDataSource) {
+        this(dataSource, readDataSource, UserIdentityCache.getInstance(), FriendListCache.getInstance(),
+                FriendGraphIndex.getInstance());
+    }
+
+    public FriendDAO(DataSource dataSource, UserIdentityCache identities) {
+        this(dataSource, identities, FriendListCache.getInstance());
+    }
+
+    public FriendDAO(DataSource dataSource, UserIdentityCache identities, FriendListCache friendLists) {
+        this(dataSource, identities, friendLists, FriendGraphIndex.getInstance());
+    }
+
+    public FriendDAO(DataSource dataSource, UserIdentityCache identities, FriendListCache friendLists,
+                     FriendGraphIndex graph) {
+        this(dataSource, dataSource, identities, friendLists, graph);
+    }
+
+    public FriendDAO(DataSource dataSource, DataSource readDataSource, UserIdentityCache identities,
+                     FriendListCache friendLists, FriendGraphIndex graph) {
         this.dataSource = dataSource;
+        this.readDataSource = readDataSource;
+        this.identities = identities;
+        this.friendLists = friendLists;
+        this.graph = graph;
     }
 
     /**
@@ -26,21 +82,27 @@ public class FriendDAO {
      *    파라미터로 받은 username으로 user.id를 조회한 뒤,
      *    user_friends 테이블에서 friend_id를 가져와
      *    user 테이블과 JOIN하여 FriendInfo DTO로 매핑한다.
+     *    (FriendListCache 에 있으면 DB 조회 없이 복사본을 돌려준다)
      */
     public List<FriendInfo> getFriendList(String username) throws SQLException {
         // 1) username → 내 user.id 조회
         Long myUserId = getUserIdByUsername(username);
 
-        // 2) user_friends에서 내 user_id에 해당하는 friend_id 목록 조회 → user 테이블에서 친구 정보 가져오기
-        String sql =
-                "SELECT u.id                 AS user_id, " +
-                        "       u.username           AS username, " +
-                        "       u.name               AS name, " +
-                        "       u.profile_img_url    AS profile_img_url, " +
-                        "       u.status             AS status " +    // status 컬럼을 boolean로 읽어서 online 여부로 사용
-                        "FROM user_friends uf " +
-                        "JOIN user u ON uf.friend_id = u.id " +
-                        "WHERE uf.user_id = ?";
+        // 2) 캐시된 목록은 공유되므로 호출자가 바꿔도 되도록 복사
+        List<FriendInfo> cached = friendLists.get(myUserId, this::selectFriendList);
+        List<FriendInfo> friends = new ArrayList<>(cached.size());
+        for (FriendInfo f : cached) {
+            friends.add(new FriendInfo(f.getUserId(), f.getName(), f.getUsername(), f.getProfileImgUrl(), f.isOnline()));
+        }
+        return friends;
+    }
+
+    // user_friends에서 내 user_id에 해당하는 friend_id 목록 조회 → user 테이블에서 친구 정보 가져오기
+    private List<FriendInfo> selectFriendList(long myUserId) throws SQLException {
+        String sql = FRIEND_COLUMNS +
+                "FROM user_friends uf " +
+                "JOIN user u ON uf.friend_id = u.id " +
+                "WHERE uf.user_id = ?";
 
         List<FriendInfo> friends = new ArrayList<>();
 
@@ -51,21 +113,7 @@ public class FriendDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Long   friendId      = rs.getLong("user_id");
-                    String friendUsername= rs.getString("username");
-                    String friendName    = rs.getString("name");
-                    String profileUrl    = rs.getString("profile_img_url");
-                    boolean Online       = rs.getBoolean("status");
-
-                    FriendInfo info = new FriendInfo(
-                            friendId,
-                            friendName,
-                            friendUsername,
-                            profileUrl,
-                            Online
-
-                    );
-                    friends.add(info);
+                    friends.add(mapFriend(rs));
                 }
             }
         }
@@ -73,6 +121,37 @@ public class FriendDAO {
         return friends;
     }
 
+    // 친구 한 명 (친구 추가 시 캐시된 목록에 더할 정보)
+    private FriendInfo selectFriend(long friendUserId) throws SQLException {
+        String sql = FRIEND_COLUMNS + "FROM user u WHERE u.id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, friendUserId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapFriend(rs) : null;
+            }
+        }
+    }
+
+    private static FriendInfo mapFriend(ResultSet rs) throws SQLException {
+        Long   friendId      = rs.getLong("user_id");
+        String friendUsername= rs.getString("username");
+        String friendName    = rs.getString("name");
+        String profileUrl    = rs.getString("profile_img_url");
+        boolean Online       = rs.getBoolean("status");
+
+        return new FriendInfo(
+                friendId,
+                friendName,
+                friendUsername,
+                profileUrl,
+                Online
+        );
+    }
+
     /**
      * 2. 친구를 추가하는 메서드 (단방향)
      *    내 username, 추가할 친구의 username을 받아서
@@ -91,6 +170,17 @@ public class FriendDAO {
             pstmt.setLong(2, friendUserId);
             pstmt.executeUpdate();
         }
+
+        graph.added(userId, friendUserId);
+
+        // 캐시된 목록이 있으면 다시 읽지 않고 친구 한 명만 더함
+        // (없으면 INSERT 직전에 읽기 시작한 목록이 캐시에 남지 않도록 invalidate)
+        FriendInfo friend = friendLists.contains(userId) ? selectFriend(friendUserId) : null;
+        if (friend != null) {
+            friendLists.added(userId, friend);
+        } else {
+            friendLists.invalidate(userId);
+        }
     }
 
     /**
@@ -111,27 +201,313 @@ public class FriendDAO {
             pstmt.setLong(2, friendUserId);
             pstmt.executeUpdate();
         }
+
+        graph.removed(userId, friendUserId);
+        friendLists.removed(userId, friendUserId);
     }
 
     /**
-     * 헬퍼 메서드: username → user.id 조회
-     * 해당 username이 존재하지 않으면 SQLException 발생
+     * 3-1. 친구 일괄 추가 (단방향)
+     *    친구 username 들을 IN 쿼리 한 번(UserIdentityCache.resolveAll)으로 user.id 로 바꾸고,
+     *    이미 친구인 id 를 확인한 뒤 INSERT IGNORE 배치로 한 트랜잭션에 넣는다.
+     *    (rewriteBatchedStatements 로 한 문장이 되면 행별 결과가 오지 않으므로 기존 친구는 미리 조회)
+     *
+     * @return 요청 순서와 같은 항목별 결과, 요청한 username 이 없으면 null
      */
-    private Long getUserIdByUsername(String username) throws SQLException {
-        String sql = "SELECT id FROM user WHERE username = ?";
+    public List<BulkAddFriendResult> addFriends(String username, List<String> friendUsernames) throws SQLException {
+        Long userId = identities.resolveId(dataSource, username);
+        if (userId == null) {
+            return null;
+        }
+        Map<String, UserIdentityCache.Identity> found = identities.resolveAll(dataSource, friendUsernames);
+
+        // 요청 순서대로 추가할 id 결정 (없는 사용자, 자기 자신, 중복은 제외)
+        // 대소문자만 다른 username("Bob", "bob")은 같은 id 로 풀리므로 id 기준으로도 중복을 거름
+        Map<Long, String> candidates = new LinkedHashMap<>();
+        String[] status = new String[friendUsernames.size()];
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < status.length; i++) {
+            String friendUsername = friendUsernames.get(i);
+            UserIdentityCache.Identity identity = friendUsername == null ? null : found.get(friendUsername);
+            if (friendUsername == null || friendUsername.trim().isEmpty()) {
+                status[i] = "ERROR_INVALID";
+            } else if (!seen.add(friendUsername)) {
+                status[i] = "ERROR_DUPLICATE";
+            } else if (identity == null) {
+                status[i] = "ERROR_NOT_FOUND";
+            } else if (identity.getId() == userId) {
+                status[i] = "ERROR_SELF";
+            } else if (candidates.containsKey(identity.getId())) {
+                status[i] = "ERROR_DUPLICATE";
+            } else {
+                candidates.put(identity.getId(), friendUsername);
+            }
+        }
+
+        List<Long> inserted = new ArrayList<>();
+        if (!candidates.isEmpty()) {
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    Set<Long> existing = selectExistingFriendIds(conn, userId, new ArrayList<>(candidates.keySet()));
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "INSERT IGNORE INTO user_friends (user_id, friend_id) VALUES (?, ?)")) {
+                        for (Long friendId : candidates.keySet()) {
+                            if (existing.contains(friendId)) {
+                                continue;
+                            }
+                            pstmt.setLong(1, userId);
+                            pstmt.setLong(2, friendId);
+                            pstmt.addBatch();
+                            inserted.add(friendId);
+                        }
+                        if (!inserted.isEmpty()) {
+                            pstmt.executeBatch();
+                        }
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        }
+
+        Set<Long> insertedIds = new HashSet<>(inserted);
+        for (int i = 0; i < status.length; i++) {
+            if (status[i] == null) {
+                long friendId = found.get(friendUsernames.get(i)).getId();
+                status[i] = insertedIds.contains(friendId) ? "OK" : "ERROR_ALREADY_FRIEND";
+            }
+        }
+
+        for (Long friendId : inserted) {
+            graph.added(userId, friendId);
+        }
+        // 여러 명이 바뀌었으므로 한 명씩 더하지 않고 다음 조회 때 한 번에 다시 읽음
+        friendLists.invalidate(userId);
+
+        List<BulkAddFriendResult> results = new ArrayList<>(status.length);
+        for (int i = 0; i < status.length; i++) {
+            results.add(new BulkAddFriendResult(friendUsernames.get(i), status[i]));
+        }
+        return results;
+    }
+
+    // friendIds 중 이미 user_friends 에 있는 것
+    private static Set<Long> selectExistingFriendIds(Connection conn, long userId, List<Long> friendIds)
+            throws SQLException {
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < friendIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = friendIds.subList(from, Math.min(from + IN_CHUNK_SIZE, friendIds.size()));
+            String sql = "SELECT friend_id FROM user_friends WHERE user_id = ? AND friend_id IN ("
+                    + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, userId);
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setLong(i + 2, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getLong(1));
+                    }
+                }
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * username → user.id (없으면 null, UserIdentityCache 공유 캐시)
+     */
+    public Long findUserId(String username) throws SQLException {
+        return identities.resolveId(dataSource, username);
+    }
 
+    /**
+     * 3-2. 친구 목록을 friend_id 순으로 한 행씩 handler 에 넘긴다. (내보내기용)
+     *    friend_id keyset 으로 EXPORT_BATCH_SIZE 개씩 읽고, 커넥션을 돌려준 뒤에 handler 를 부른다.
+     *    → 느린 클라이언트에 쓰는 동안 읽기 풀 커넥션을 잡고 있지 않고, 메모리에도 한 배치만 올라간다.
+     *    배치 사이에 추가/삭제된 친구는 friend_id 위치에 따라 포함되거나 빠질 수 있다.
+     *
+     * @return 전달한 행 수
+     */
+    public int streamFriendList(long userId, FriendRowHandler handler) throws SQLException, IOException {
+        String sql = FRIEND_COLUMNS +
+                "FROM user_friends uf " +
+                "JOIN user u ON uf.friend_id = u.id " +
+                "WHERE uf.user_id = ? AND uf.friend_id > ? " +
+                "ORDER BY uf.friend_id " +
+                "LIMIT ?";
+
+        int count = 0;
+        long afterId = 0;
+        while (true) {
+            List<FriendInfo> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+            try (Connection conn = readDataSource.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, userId);
+                pstmt.setLong(2, afterId);
+                pstmt.setInt(3, EXPORT_BATCH_SIZE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        batch.add(mapFriend(rs));
+                    }
+                }
+            }
+            for (FriendInfo row : batch) {
+                handler.handle(row);
+            }
+            count += batch.size();
+            if (batch.size() < EXPORT_BATCH_SIZE) {
+                return count;
+            }
+            afterId = batch.get(batch.size() - 1).getUserId();
+        }
+    }
+
+    /**
+     * 4. 두 사람이 함께 추가한 친구 id (오름차순)
+     *    FriendGraphIndex 가 준비되어 있으면 메모리에서, 아니면 user_friends 자기 JOIN 으로 구한다.
+     */
+    public long[] findMutualFriendIds(String username, String otherUsername) throws SQLException {
+        Long userId  = getUserIdByUsername(username);
+        Long otherId = getUserIdByUsername(otherUsername);
+
+        if (graph.isReady()) {
+            return graph.mutualFriends(userId, otherId, Integer.MAX_VALUE);
+        }
+
+        String sql = "SELECT a.friend_id " +
+                "FROM user_friends a " +
+                "JOIN user_friends b ON b.friend_id = a.friend_id AND b.user_id = ? " +
+                "WHERE a.user_id = ? " +
+                "ORDER BY a.friend_id";
+
+        List<Long> ids = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, otherId);
+            pstmt.setLong(2, userId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 5. 친구 추천: 내 친구들이 추가한 사람 중 아직 내 친구가 아닌 사람 (함께 아는 친구 수 내림차순)
+     *    FriendGraphIndex 가 준비되어 있으면 메모리에서, 아니면 2-hop JOIN + GROUP BY 로 구한다.
+     */
+    public List<FriendGraphIndex.Suggestion> findSuggestions(String username, int limit) throws SQLException {
+        Long userId = getUserIdByUsername(username);
+
+        if (graph.isReady()) {
+            return graph.suggest(userId, limit);
+        }
+
+        String sql = "SELECT f2.friend_id AS user_id, COUNT(*) AS mutual_count " +
+                "FROM user_friends f1 " +
+                "JOIN user_friends f2 ON f2.user_id = f1.friend_id " +
+                "WHERE f1.user_id = ? AND f2.friend_id <> ? " +
+                "  AND NOT EXISTS (SELECT 1 FROM user_friends mine " +
+                "                  WHERE mine.user_id = ? AND mine.friend_id = f2.friend_id) " +
+                "GROUP BY f2.friend_id " +
+                "ORDER BY mutual_count DESC, f2.friend_id ASC " +
+                "LIMIT ?";
+
+        List<FriendGraphIndex.Suggestion> suggestions = new ArrayList<>();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, username);
+            pstmt.setLong(1, userId);
+            pstmt.setLong(2, userId);
+            pstmt.setLong(3, userId);
+            pstmt.setInt(4, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    suggestions.add(new FriendGraphIndex.Suggestion(rs.getLong("user_id"), rs.getInt("mutual_count")));
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * 6. user.id 목록 → FriendInfo (ids 순서 유지, 없는 id 는 건너뜀)
+     */
+    public List<FriendInfo> findUsersByIds(long[] ids) throws SQLException {
+        Map<Long, FriendInfo> byId = new HashMap<>();
+        try (Connection conn = dataSource.getConnection()) {
+            for (int from = 0; from < ids.length; from += IN_CHUNK_SIZE) {
+                int to = Math.min(ids.length, from + IN_CHUNK_SIZE);
+                StringBuilder sql = new StringBuilder(FRIEND_COLUMNS).append("FROM user u WHERE u.id IN (");
+                for (int i = from; i < to; i++) {
+                    sql.append(i == from ? "?" : ",?");
+                }
+                sql.append(')');
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                    for (int i = from; i < to; i++) {
+                        pstmt.setLong(i - from + 1, ids[i]);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            FriendInfo info = mapFriend(rs);
+                            byId.put(info.getUserId(), info);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<FriendInfo> users = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            FriendInfo info = byId.get(id);
+            if (info != null) {
+                users.add(info);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * 7. user_friends 전체를 (user_id, friend_id) 순으로 한 행씩 넘긴다. (FriendGraphIndex 적재용)
+     *    결과 전체를 메모리에 올리지 않도록 행 단위 스트리밍으로 읽는다.
+     */
+    public void scanEdges(FriendGraphIndex.EdgeConsumer consumer) throws SQLException {
+        String sql = "SELECT user_id, friend_id FROM user_friends ORDER BY user_id, friend_id";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getLong("id");
-                } else {
-                    throw new SQLException("해당 username을 가진 사용자가 없습니다: " + username);
+                while (rs.next()) {
+                    consumer.accept(rs.getLong(1), rs.getLong(2));
                 }
             }
         }
     }
+
+    /**
+     * 헬퍼 메서드: username → user.id 조회 (UserIdentityCache 공유 캐시)
+     * 해당 username이 존재하지 않으면 SQLException 발생
+     */
+    private Long getUserIdByUsername(String username) throws SQLException {
+        Long id = identities.resolveId(dataSource, username);
+        if (id == null) {
+            throw new SQLException("해당 username을 가진 사용자가 없습니다: " + username);
+        }
+        return id;
+    }
 }
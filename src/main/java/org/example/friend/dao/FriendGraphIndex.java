@@ -0,0 +1,540 @@
+package org.example.friend.dao;
+
+import org.example.config.TestApiConfig;
+import org.example.logging.Log;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FriendGraphIndex
+ * ----------------
+ * user_friends(user_id → friend_id, 단방향) 전체를 메모리에 올려 두고
+ * 함께 아는 친구 수와 "알 수도 있는 사람" 추천을 SQL JOIN 없이 계산합니다.
+ *
+ * - 사용자마다 친구 id 를 정렬된 long[] 로 보관합니다. (박싱 없음, 배열은 한 번 만들면 바꾸지 않음)
+ *   추가/삭제는 새 배열로 바꿔 끼우므로 조회 쪽은 잠금 없이 읽습니다.
+ * - 함께 아는 친구 = 두 사람 친구 배열의 교집합. 정렬된 배열끼리 병합으로 구하고,
+ *   크기 차이가 크면 작은 쪽 원소를 큰 쪽에서 이진 탐색합니다.
+ * - 추천 = 내 친구들의 친구 중 나와 내 친구를 뺀 사람을, 겹치는 횟수(함께 아는 친구 수) 순으로.
+ *   친구 배열들을 k-way 병합해서 같은 id 를 세므로 해시맵이 필요 없습니다.
+ *   내 친구가 maxFirstHop 명보다 많으면 고르게 골라 maxFirstHop 명만, 훑는 간선은 최대 maxEdges 개까지만 봅니다.
+ * - EmbeddedServer.start 에서 FriendDAO.scanEdges 로 한 번 적재하고, 이후 FriendDAO 의 추가/삭제가 반영합니다.
+ *   적재 중 들어온 추가/삭제는 모아 두었다가 적재가 끝난 뒤 다시 적용합니다.
+ *   적재 전(또는 꺼져 있으면) isReady() 가 false 이고, FriendDAO 는 SQL 로 계산합니다.
+ *
+ * 이 서버에서의 추가/삭제만 반영되므로 message.bus.type=tcp (여러 서버) 에서는 사용하지 않습니다.
+ *
+ * config.properties:
+ *   friend.graph.enabled=true
+ *   friend.graph.suggest.maxFirstHop=200
+ *   friend.graph.suggest.maxEdges=50000
+ */
+public class FriendGraphIndex {
+
+    private static final Log log = Log.get(FriendGraphIndex.class);
+
+    public static final int DEFAULT_MAX_FIRST_HOP = 200;
+    public static final int DEFAULT_MAX_EDGES = 50_000;
+
+    // 크기 비가 이 이상이면 병합 대신 이진 탐색으로 교집합
+    private static final int GALLOP_RATIO = 32;
+
+    private static final long[] EMPTY = new long[0];
+
+    private static FriendGraphIndex instance;
+
+    /**
+     * user_friends 의 모든 (user_id, friend_id) 를 넘겨주는 함수 (FriendDAO.scanEdges)
+     */
+    @FunctionalInterface
+    public interface EdgeSource {
+        void scan(EdgeConsumer consumer) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface EdgeConsumer {
+        void accept(long userId, long friendId);
+    }
+
+    /**
+     * 추천 한 건 (함께 아는 친구 수 내림차순, 같으면 id 오름차순)
+     */
+    public static final class Suggestion {
+        private final long userId;
+        private final int mutualCount;
+
+        public Suggestion(long userId, int mutualCount) {
+            this.userId = userId;
+            this.mutualCount = mutualCount;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public int getMutualCount() {
+            return mutualCount;
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxFirstHop;
+    private final int maxEdges;
+
+    private volatile Map<Long, long[]> adjacency = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // 적재 중에 들어온 추가/삭제 (+friendId = 추가, 적재 후 순서대로 다시 적용)
+    private boolean loading;
+    private final List<long[]> pending = new ArrayList<>();
+
+    private final AtomicLong edges = new AtomicLong();
+    private final AtomicLong mutualQueries = new AtomicLong();
+    private final AtomicLong suggestQueries = new AtomicLong();
+
+    public FriendGraphIndex(boolean enabled, int maxFirstHop, int maxEdges) {
+        this.enabled = enabled;
+        this.maxFirstHop = Math.max(1, maxFirstHop);
+        this.maxEdges = Math.max(1, maxEdges);
+    }
+
+    /**
+     * 프로세스 공용 인스턴스 (config.properties 의 friend.graph.* 사용)
+     */
+    public static synchronized FriendGraphIndex getInstance() {
+        if (instance == null) {
+            instance = fromProperties(new TestApiConfig().getProperties());
+        }
+        return instance;
+    }
+
+    public static FriendGraphIndex fromProperties(Properties props) {
+        boolean enabled = Boolean.parseBoolean(props.getProperty("friend.graph.enabled", "true").trim());
+        if (enabled && "tcp".equalsIgnoreCase(props.getProperty("message.bus.type", "local").trim())) {
+            log.info("message.bus.type=tcp 이므로 친구 그래프 인덱스를 사용하지 않습니다.");
+            enabled = false;
+        }
+        return new FriendGraphIndex(
+                enabled,
+                Integer.parseInt(props.getProperty("friend.graph.suggest.maxFirstHop",
+                        String.valueOf(DEFAULT_MAX_FIRST_HOP)).trim()),
+                Integer.parseInt(props.getProperty("friend.graph.suggest.maxEdges",
+                        String.valueOf(DEFAULT_MAX_EDGES)).trim())
+        );
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 적재가 끝나 조회에 쓸 수 있는지
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ------------------------------------------------------------------
+    // 적재 / 변경
+    // ------------------------------------------------------------------
+
+    /**
+     * user_friends 전체를 읽어 인덱스를 새로 만듭니다. (user_id, friend_id 순으로 오면 가장 빠름)
+     */
+    public void load(EdgeSource source) throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            loading = true;
+            pending.clear();
+        }
+        long started = System.nanoTime();
+        Map<Long, long[]> built = new ConcurrentHashMap<>();
+        long[] count = new long[1];
+        try {
+            AdjacencyBuilder builder = new AdjacencyBuilder(built);
+            source.scan((userId, friendId) -> {
+                builder.accept(userId, friendId);
+                count[0]++;
+            });
+            builder.finish();
+        } catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                loading = false;
+                pending.clear();
+            }
+            throw e;
+        }
+
+        long total = 0;
+        for (long[] ids : built.values()) {
+            total += ids.length;
+        }
+        synchronized (this) {
+            adjacency = built;
+            edges.set(total);
+            for (long[] op : pending) {
+                if (op[1] >= 0) {
+                    insert(op[0], op[1]);
+                } else {
+                    delete(op[0], ~op[1]);
+                }
+            }
+            pending.clear();
+            loading = false;
+            ready = true;
+        }
+        log.info("친구 그래프 적재: 사용자 {}명, 간선 {}개 ({}ms)",
+                built.size(), total, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public void added(long userId, long friendId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (loading) {
+                pending.add(new long[]{userId, friendId});
+            }
+            insert(userId, friendId);
+        }
+    }
+
+    public void removed(long userId, long friendId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (loading) {
+                pending.add(new long[]{userId, ~friendId});
+            }
+            delete(userId, friendId);
+        }
+    }
+
+    // 호출자가 this 를 잡고 있음 (쓰기끼리만 직렬화, 읽기는 잠금 없음)
+    private void insert(long userId, long friendId) {
+        long[] current = adjacency.getOrDefault(userId, EMPTY);
+        int at = Arrays.binarySearch(current, friendId);
+        if (at >= 0) {
+            return;
+        }
+        int insertAt = -at - 1;
+        long[] next = new long[current.length + 1];
+        System.arraycopy(current, 0, next, 0, insertAt);
+        next[insertAt] = friendId;
+        System.arraycopy(current, insertAt, next, insertAt + 1, current.length - insertAt);
+        adjacency.put(userId, next);
+        edges.incrementAndGet();
+    }
+
+    private void delete(long userId, long friendId) {
+        long[] current = adjacency.get(userId);
+        if (current == null) {
+            return;
+        }
+        int at = Arrays.binarySearch(current, friendId);
+        if (at < 0) {
+            return;
+        }
+        if (current.length == 1) {
+            adjacency.remove(userId);
+        } else {
+            long[] next = new long[current.length - 1];
+            System.arraycopy(current, 0, next, 0, at);
+            System.arraycopy(current, at + 1, next, at, current.length - at - 1);
+            adjacency.put(userId, next);
+        }
+        edges.decrementAndGet();
+    }
+
+    // ------------------------------------------------------------------
+    // 조회
+    // ------------------------------------------------------------------
+
+    /**
+     * userId 가 추가한 친구 id (오름차순, 읽기 전용으로 다룰 것)
+     */
+    public long[] friendsOf(long userId) {
+        return adjacency.getOrDefault(userId, EMPTY);
+    }
+
+    public int mutualCount(long userId, long otherId) {
+        mutualQueries.incrementAndGet();
+        return intersect(friendsOf(userId), friendsOf(otherId), null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 두 사람이 함께 추가한 친구 id (오름차순, 최대 limit 개)
+     */
+    public long[] mutualFriends(long userId, long otherId, int limit) {
+        mutualQueries.incrementAndGet();
+        long[] a = friendsOf(userId);
+        long[] b = friendsOf(otherId);
+        long[] out = new long[Math.min(Math.max(0, limit), Math.min(a.length, b.length))];
+        int n = intersect(a, b, out, out.length);
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * 정렬된 a, b 의 교집합 크기. out 이 있으면 앞에서부터 최대 limit 개를 채웁니다.
+     */
+    static int intersect(long[] a, long[] b, long[] out, int limit) {
+        if (a.length > b.length) {
+            long[] t = a;
+            a = b;
+            b = t;
+        }
+        int n = 0;
+        if (a.length == 0) {
+            return 0;
+        }
+        if (b.length / a.length >= GALLOP_RATIO) {
+            int from = 0;
+            for (long v : a) {
+                int at = Arrays.binarySearch(b, from, b.length, v);
+                if (at >= 0) {
+                    if (out != null) {
+                        if (n == limit) {
+                            break;
+                        }
+                        out[n] = v;
+                    }
+                    n++;
+                    from = at + 1;
+                } else {
+                    from = -at - 1;
+                }
+                if (from == b.length) {
+                    break;
+                }
+            }
+            return n;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            long x = a[i];
+            long y = b[j];
+            if (x < y) {
+                i++;
+            } else if (x > y) {
+                j++;
+            } else {
+                if (out != null) {
+                    if (n == limit) {
+                        break;
+                    }
+                    out[n] = x;
+                }
+                n++;
+                i++;
+                j++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 친구의 친구 중 아직 친구가 아닌 사람을 함께 아는 친구 수 순으로 최대 limit 명
+     */
+    public List<Suggestion> suggest(long userId, int limit) {
+        suggestQueries.incrementAndGet();
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        long[] mine = friendsOf(userId);
+
+        // 1-hop: 친구가 많으면 고르게 maxFirstHop 명, 간선 예산 안에서만
+        int hops = Math.min(mine.length, maxFirstHop);
+        long[][] lists = new long[hops][];
+        int k = 0;
+        long budget = maxEdges;
+        for (int h = 0; h < hops && budget > 0; h++) {
+            int pick = (int) ((long) h * mine.length / hops);
+            long[] theirs = friendsOf(mine[pick]);
+            if (theirs.length == 0) {
+                continue;
+            }
+            if (theirs.length > budget) {
+                theirs = Arrays.copyOf(theirs, (int) budget);
+            }
+            lists[k++] = theirs;
+            budget -= theirs.length;
+        }
+
+        // 2-hop: 정렬된 배열 k 개를 병합하면서 같은 id 개수를 셈
+        long[] topIds = new long[limit];
+        int[] topCounts = new int[limit];
+        int topSize = 0;
+
+        int[] cursor = new int[k];
+        int[] heap = new int[k];     // lists 인덱스, 현재 값 기준 최소 힙
+        int heapSize = 0;
+        for (int i = 0; i < k; i++) {
+            heap[heapSize++] = i;
+            siftUp(heap, heapSize - 1, lists, cursor);
+        }
+
+        while (heapSize > 0) {
+            long candidate = lists[heap[0]][cursor[heap[0]]];
+            int count = 0;
+            while (heapSize > 0 && lists[heap[0]][cursor[heap[0]]] == candidate) {
+                int top = heap[0];
+                count++;
+                cursor[top]++;
+                if (cursor[top] == lists[top].length) {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(heap, heapSize, lists, cursor);
+            }
+            if (candidate == userId || Arrays.binarySearch(mine, candidate) >= 0) {
+                continue;
+            }
+            // 상위 limit 개 유지 (count 내림차순, id 오름차순 — candidate 는 오름차순으로 나오므로 동점이면 뒤로)
+            if (topSize == limit && count <= topCounts[topSize - 1]) {
+                continue;
+            }
+            int at = topSize == limit ? limit - 1 : topSize++;
+            while (at > 0 && topCounts[at - 1] < count) {
+                topIds[at] = topIds[at - 1];
+                topCounts[at] = topCounts[at - 1];
+                at--;
+            }
+            topIds[at] = candidate;
+            topCounts[at] = count;
+        }
+
+        List<Suggestion> result = new ArrayList<>(topSize);
+        for (int i = 0; i < topSize; i++) {
+            result.add(new Suggestion(topIds[i], topCounts[i]));
+        }
+        return result;
+    }
+
+    private static void siftUp(int[] heap, int at, long[][] lists, int[] cursor) {
+        int item = heap[at];
+        long value = lists[item][cursor[item]];
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            int p = heap[parent];
+            if (lists[p][cursor[p]] <= value) {
+                break;
+            }
+            heap[at] = p;
+            at = parent;
+        }
+        heap[at] = item;
+    }
+
+    private static void siftDown(int[] heap, int size, long[][] lists, int[] cursor) {
+        if (size == 0) {
+            return;
+        }
+        int item = heap[0];
+        long value = lists[item][cursor[item]];
+        int at = 0;
+        while (true) {
+            int child = 2 * at + 1;
+            if (child >= size) {
+                break;
+            }
+            int c = heap[child];
+            long cv = lists[c][cursor[c]];
+            if (child + 1 < size) {
+                int r = heap[child + 1];
+                long rv = lists[r][cursor[r]];
+                if (rv < cv) {
+                    child++;
+                    c = r;
+                    cv = rv;
+                }
+            }
+            if (value <= cv) {
+                break;
+            }
+            heap[at] = c;
+            at = child;
+        }
+        heap[at] = item;
+    }
+
+    // ------------------------------------------------------------------
+    // 상태
+    // ------------------------------------------------------------------
+
+    public int getUserCount() {
+        return adjacency.size();
+    }
+
+    public long getEdgeCount() {
+        return edges.get();
+    }
+
+    public long getMutualQueries() {
+        return mutualQueries.get();
+    }
+
+    public long getSuggestQueries() {
+        return suggestQueries.get();
+    }
+
+    /**
+     * 적재용: 같은 user_id 의 friend_id 를 모아 정렬된 배열로 만듭니다. (user_id 순서가 섞여 와도 동작)
+     */
+    private static final class AdjacencyBuilder {
+        private final Map<Long, long[]> target;
+        private long currentUser = Long.MIN_VALUE;
+        private long[] buffer = new long[64];
+        private int size;
+
+        AdjacencyBuilder(Map<Long, long[]> target) {
+            this.target = target;
+        }
+
+        void accept(long userId, long friendId) {
+            if (userId != currentUser) {
+                finish();
+                currentUser = userId;
+                long[] existing = target.get(userId);
+                if (existing != null) {
+                    // user_id 가 정렬되어 오지 않은 경우: 이전 조각에 이어 붙임
+                    buffer = Arrays.copyOf(existing, Math.max(64, existing.length * 2));
+                    size = existing.length;
+                }
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = friendId;
+        }
+
+        void finish() {
+            if (size == 0) {
+                return;
+            }
+            long[] ids = Arrays.copyOf(buffer, size);
+            Arrays.sort(ids);
+            target.put(currentUser, dedupe(ids));
+            size = 0;
+        }
+
+        private static long[] dedupe(long[] sorted) {
+            int n = 1;
+            for (int i = 1; i < sorted.length; i++) {
+                if (sorted[i] != sorted[n - 1]) {
+                    sorted[n++] = sorted[i];
+                }
+            }
+            return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+        }
+    }
+}
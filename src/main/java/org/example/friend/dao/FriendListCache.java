@@ -0,0 +1,241 @@
+package org.example.friend.dao;
+
+import org.example.config.TestApiConfig;
+import org.example.friend.dto.FriendInfo;
+import org.example.logging.Log;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FriendListCache
+ * ---------------
+ * 사용자(user.id)별 친구 목록(user_friends JOIN user 결과)을 프로세스 안에 캐시합니다.
+ *
+ * - 처음 조회될 때 FriendDAO 가 DB에서 읽어 채웁니다. (lazy)
+ * - 친구 추가/삭제는 목록을 다시 읽지 않고 캐시된 목록에 한 명을 더하거나 빼서 새 항목으로 바꿉니다.
+ *   (목록이 캐시에 없는 사용자면 아무것도 하지 않음)
+ * - 항목은 한 번 만들어지면 바뀌지 않습니다. 호출자는 FriendInfo 를 복사해서 써야 합니다. (online 덮어쓰기 등)
+ * - friend.cache.maxUsers 를 넘으면 가장 오래 쓰이지 않은 사용자부터 제거(LRU),
+ *   friend.cache.ttlSeconds 가 지난 목록은 다시 읽습니다. (친구의 이름/프로필 변경 반영)
+ *
+ * 이 서버에서의 추가/삭제만 반영되므로 message.bus.type=tcp (여러 서버) 에서는 사용하지 않습니다.
+ *
+ * config.properties:
+ *   friend.cache.enabled=true
+ *   friend.cache.maxUsers=10000
+ *   friend.cache.ttlSeconds=300
+ */
+public class FriendListCache {
+
+    private static final Log log = Log.get(FriendListCache.class);
+
+    public static final int DEFAULT_MAX_USERS = 10_000;
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    private static FriendListCache instance;
+
+    /**
+     * 캐시 미스 시 DB에서 친구 목록을 읽어오는 함수 (FriendDAO 가 제공)
+     */
+    @FunctionalInterface
+    public interface Loader {
+        List<FriendInfo> load(long userId) throws SQLException;
+    }
+
+    /**
+     * 캐시 항목 (변경 불가)
+     */
+    private static final class Entry {
+        final List<FriendInfo> friends;
+        final long loadedAtNanos;
+
+        Entry(List<FriendInfo> friends, long loadedAtNanos) {
+            this.friends = Collections.unmodifiableList(friends);
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxUsers;
+    private final long ttlNanos;
+    private final LinkedHashMap<Long, Entry> lists;
+
+    // 로딩 도중 추가/삭제가 일어났는지 확인하기 위한 세대 번호
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+
+    public FriendListCache(boolean enabled, int maxUsers, long ttlSeconds) {
+        this.enabled = enabled && maxUsers > 0;
+        this.maxUsers = maxUsers;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.lists = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > FriendListCache.this.maxUsers) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 프로세스 공용 인스턴스 (config.properties 의 friend.cache.* 사용)
+     */
+    public static synchronized FriendListCache getInstance() {
+        if (instance == null) {
+            instance = fromProperties(new TestApiConfig().getProperties());
+        }
+        return instance;
+    }
+
+    public static FriendListCache fromProperties(Properties props) {
+        boolean enabled = Boolean.parseBoolean(props.getProperty("friend.cache.enabled", "true").trim());
+        if (enabled && "tcp".equalsIgnoreCase(props.getProperty("message.bus.type", "local").trim())) {
+            log.info("message.bus.type=tcp 이므로 친구 목록 캐시를 사용하지 않습니다.");
+            enabled = false;
+        }
+        return new FriendListCache(
+                enabled,
+                Integer.parseInt(props.getProperty("friend.cache.maxUsers", String.valueOf(DEFAULT_MAX_USERS)).trim()),
+                Long.parseLong(props.getProperty("friend.cache.ttlSeconds", String.valueOf(DEFAULT_TTL_SECONDS)).trim())
+        );
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 캐시에서 친구 목록을 꺼내고, 없거나 ttl 이 지났으면 loader 로 읽어서 채웁니다.
+     * DB 조회는 락 밖에서 수행합니다. 돌려주는 리스트는 읽기 전용입니다.
+     */
+    public List<FriendInfo> get(long userId, Loader loader) throws SQLException {
+        if (!enabled) {
+            return loader.load(userId);
+        }
+        long startGeneration;
+        synchronized (this) {
+            Entry cached = lists.get(userId);
+            if (cached != null && System.nanoTime() - cached.loadedAtNanos < ttlNanos) {
+                hits.incrementAndGet();
+                return cached.friends;
+            }
+            startGeneration = generation;
+        }
+        misses.incrementAndGet();
+
+        Entry loaded = new Entry(loader.load(userId), System.nanoTime());
+        synchronized (this) {
+            // 읽는 동안 추가/삭제가 있었다면 그 변경이 빠졌을 수 있으므로 캐시에 넣지 않음
+            if (generation == startGeneration) {
+                lists.put(userId, loaded);
+            }
+        }
+        return loaded.friends;
+    }
+
+    /**
+     * 목록이 캐시에 있는지 (친구 추가 시 친구 정보를 읽을 필요가 있는지 판단)
+     */
+    public synchronized boolean contains(long userId) {
+        return enabled && lists.containsKey(userId);
+    }
+
+    /**
+     * userId 의 목록에 friend 를 더합니다. (이미 있으면 새 정보로 바꿈)
+     */
+    public synchronized void added(long userId, FriendInfo friend) {
+        if (!enabled) {
+            return;
+        }
+        generation++;
+        Entry cached = lists.get(userId);
+        if (cached == null) {
+            return;
+        }
+        List<FriendInfo> friends = new ArrayList<>(cached.friends.size() + 1);
+        for (FriendInfo f : cached.friends) {
+            if (!f.getUserId().equals(friend.getUserId())) {
+                friends.add(f);
+            }
+        }
+        friends.add(friend);
+        lists.put(userId, new Entry(friends, cached.loadedAtNanos));
+        updates.incrementAndGet();
+    }
+
+    /**
+     * userId 의 목록에서 friendId 를 뺍니다.
+     */
+    public synchronized void removed(long userId, long friendId) {
+        if (!enabled) {
+            return;
+        }
+        generation++;
+        Entry cached = lists.get(userId);
+        if (cached == null) {
+            return;
+        }
+        List<FriendInfo> friends = new ArrayList<>(cached.friends.size());
+        for (FriendInfo f : cached.friends) {
+            if (f.getUserId() != friendId) {
+                friends.add(f);
+            }
+        }
+        lists.put(userId, new Entry(friends, cached.loadedAtNanos));
+        updates.incrementAndGet();
+    }
+
+    public synchronized void invalidate(long userId) {
+        generation++;
+        lists.remove(userId);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        lists.clear();
+    }
+
+    public synchronized int size() {
+        return lists.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getUpdates() {
+        return updates.get();
+    }
+
+    @Override
+    public String toString() {
+        return "FriendListCache{size=" + size() + "/" + maxUsers
+                + ", hits=" + hits.get()
+                + ", misses=" + misses.get()
+                + ", evictions=" + evictions.get()
+                + ", updates=" + updates.get() + "}";
+    }
+}
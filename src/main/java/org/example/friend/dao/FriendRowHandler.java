@@ -0,0 +1,14 @@
+package org.example.friend.dao;
+
+import org.example.friend.dto.FriendInfo;
+
+import java.io.IOException;
+
+/**
+ * FriendDAO 내보내기 조회(streamFriendList) 시 한 행씩 전달받는 콜백
+ * (보통 JsonGenerator 로 바로 써서 전체 목록을 메모리에 올리지 않도록 사용)
+ */
+@FunctionalInterface
+public interface FriendRowHandler {
+    void handle(FriendInfo row) throws IOException;
+}
@@ -0,0 +1,39 @@
+package org.example.friend.dto;
+
+
+/**
+ * 친구 일괄 추가의 항목별 결과
+ *
+ * statusCode:
+ *   "OK"                   : 추가됨
+ *   "ERROR_ALREADY_FRIEND" : 이미 친구
+ *   "ERROR_NOT_FOUND"      : 없는 사용자
+ *   "ERROR_SELF"           : 자기 자신
+ *   "ERROR_DUPLICATE"      : 요청 안에서 앞에 같은 username 이 있음
+ *   "ERROR_INVALID"        : 비어 있는 username
+ */
+public class BulkAddFriendResult {
+    private String friendUsername;
+    private String statusCode;
+
+    public BulkAddFriendResult() { }
+
+    public BulkAddFriendResult(String friendUsername, String statusCode) {
+        this.friendUsername = friendUsername;
+        this.statusCode     = statusCode;
+    }
+
+    public String getFriendUsername() {
+        return friendUsername;
+    }
+    public void setFriendUsername(String friendUsername) {
+        this.friendUsername = friendUsername;
+    }
+
+    public String getStatusCode() {
+        return statusCode;
+    }
+    public void setStatusCode(String statusCode) {
+        this.statusCode = statusCode;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.friend.dto;
+
+import java.util.List;
+
+/**
+ * 친구 일괄 추가 요청 DTO
+ *
+ * 요청 예시 (POST /api/friends/bulk):
+ * {
+ *   "username": "hong123",
+ *   "friendUsernames": ["kim456", "lee789", "park999"]
+ * }
+ */
+public class BulkAddFriendsReqDto {
+    private String username;
+    private List<String> friendUsernames;
+
+    public BulkAddFriendsReqDto() { }
+
+    public BulkAddFriendsReqDto(String username, List<String> friendUsernames) {
+        this.username        = username;
+        this.friendUsernames = friendUsernames;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public List<String> getFriendUsernames() {
+        return friendUsernames;
+    }
+    public void setFriendUsernames(List<String> friendUsernames) {
+        this.friendUsernames = friendUsernames;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.friend.dto;
+
+import java.util.List;
+
+/**
+ * 친구 일괄 추가 응답 DTO
+ *
+ * 응답 예시:
+ * {
+ *   "statusCode": "OK",
+ *   "addedCount": 2,
+ *   "results": [
+ *     { "friendUsername": "kim456",  "statusCode": "OK" },
+ *     { "friendUsername": "lee789",  "statusCode": "ERROR_ALREADY_FRIEND" },
+ *     { "friendUsername": "park999", "statusCode": "OK" }
+ *   ]
+ * }
+ *
+ * statusCode 는 요청 전체의 결과 ("OK", "ERROR_NOT_FOUND" = 요청한 사용자가 없음, "ERROR_INTERNAL")
+ * results 는 요청 순서와 같습니다.
+ */
+public class BulkAddFriendsResDto {
+    private String statusCode;
+    private int addedCount;
+    private List<BulkAddFriendResult> results;
+
+    public BulkAddFriendsResDto() {
+    }
+
+    public BulkAddFriendsResDto(String statusCode, int addedCount, List<BulkAddFriendResult> results) {
+        this.statusCode = statusCode;
+        this.addedCount = addedCount;
+        this.results    = results;
+    }
+
+    public String getStatusCode() {
+        return statusCode;
+    }
+    public void setStatusCode(String statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public int getAddedCount() {
+        return addedCount;
+    }
+    public void setAddedCount(int addedCount) {
+        this.addedCount = addedCount;
+    }
+
+    public List<BulkAddFriendResult> getResults() {
+        return results;
+    }
+    public void setResults(List<BulkAddFriendResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.friend.dto;
+
+
+/**
+ * 친구 추천 항목: FriendInfo + 함께 아는 친구 수
+ */
+public class FriendSuggestion extends FriendInfo {
+    private int mutualCount;
+
+    public FriendSuggestion() { }
+
+    public FriendSuggestion(FriendInfo info, int mutualCount) {
+        super(info.getUserId(), info.getName(), info.getUsername(), info.getProfileImgUrl(), info.isOnline());
+        this.mutualCount = mutualCount;
+    }
+
+    public int getMutualCount() {
+        return mutualCount;
+    }
+    public void setMutualCount(int mutualCount) {
+        this.mutualCount = mutualCount;
+    }
+}
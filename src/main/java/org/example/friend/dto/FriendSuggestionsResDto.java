@@ -0,0 +1,35 @@
+package org.example.friend.dto;
+
+import java.util.List;
+
+/**
+ * 친구 추천("알 수도 있는 사람") 응답 DTO
+ *
+ * 요청 예시: GET /api/friends/suggestions?username=hong123&limit=20
+ * 응답 예시:
+ * {
+ *   "suggestions": [
+ *     { "userId": 321, "username": "choi321", "name": "최지훈", "profileImgUrl": "https://...",
+ *       "online": false, "mutualCount": 12 }
+ *   ]
+ * }
+ *
+ * 함께 아는 친구 수 내림차순 (같으면 user.id 오름차순)
+ */
+public class FriendSuggestionsResDto {
+    private List<FriendSuggestion> suggestions;
+
+    public FriendSuggestionsResDto() {
+    }
+
+    public FriendSuggestionsResDto(List<FriendSuggestion> suggestions) {
+        this.suggestions = suggestions;
+    }
+
+    public List<FriendSuggestion> getSuggestions() {
+        return suggestions;
+    }
+    public void setSuggestions(List<FriendSuggestion> suggestions) {
+        this.suggestions = suggestions;
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.friend.dto;
+
+import java.util.List;
+
+/**
+ * 함께 아는 친구 조회 응답 DTO
+ *
+ * 요청 예시: GET /api/friends/mutual?username=hong123&other=kim456&limit=20
+ * 응답 예시:
+ * {
+ *   "mutualCount": 37,
+ *   "mutualFriends": [
+ *     { "userId": 789, "username": "lee789", "name": "이영희", "profileImgUrl": "https://...", "online": true }
+ *   ]
+ * }
+ *
+ * mutualFriends 는 최대 limit 명 (user.id 오름차순), mutualCount 는 전체 수
+ */
+public class MutualFriendsResDto {
+    private int mutualCount;
+    private List<FriendInfo> mutualFriends;
+
+    public MutualFriendsResDto() {
+    }
+
+    public MutualFriendsResDto(int mutualCount, List<FriendInfo> mutualFriends) {
+        this.mutualCount   = mutualCount;
+        this.mutualFriends = mutualFriends;
+    }
+
+    public int getMutualCount() {
+        return mutualCount;
+    }
+    public void setMutualCount(int mutualCount) {
+        this.mutualCount = mutualCount;
+    }
+
+    public List<FriendInfo> getMutualFriends() {
+        return mutualFriends;
+    }
+    public void setMutualFriends(List<FriendInfo> mutualFriends) {
+        this.mutualFriends = mutualFriends;
+    }
+}
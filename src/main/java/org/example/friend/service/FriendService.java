@@ -7,10 +7,17 @@ package org.example.friend.service;
 
 import org.example.config.DataSoruceConfig;
 import org.example.friend.dao.FriendDAO;
+import org.example.friend.dao.FriendGraphIndex;
+import org.example.friend.dao.FriendRowHandler;
 import org.example.friend.dto.*;
+import org.example.logging.Log;
+import org.example.user.common.dao.PresenceRegistry;
 
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -19,13 +26,26 @@ import java.util.List;
  * • DAO에서 제공하는 SQL 기반 메서드를 호출하여
  *   비즈니스 로직 수준에서 예외를 처리하고
  *   각종 응답 DTO를 생성/반환한다.
+ * • 친구 목록은 FriendDAO 가 FriendListCache 에서 읽으므로, 추가/삭제 직후의 목록 응답도
+ *   DB 를 다시 조회하지 않는다. (캐시가 꺼져 있으면 예전처럼 다시 조회)
  */
 public class FriendService {
 
+    private static final Log log = Log.get(FriendService.class);
+
+    /** 친구 일괄 추가 한 번에 받는 최대 username 수 */
+    public static final int MAX_BULK_ITEMS = 1_000;
+
     private final FriendDAO friendDAO;
+    private final PresenceRegistry presence;
 
     public FriendService(FriendDAO friendDAO) {
+        this(friendDAO, PresenceRegistry.getInstance());
+    }
+
+    public FriendService(FriendDAO friendDAO, PresenceRegistry presence) {
         this.friendDAO = friendDAO;
+        this.presence = presence;
     }
     /**
      * 1) 친구 목록 조회
@@ -35,11 +55,11 @@ public class FriendService {
      */
     public GetFriendsListResDto getFriendsList(GetFriendsListReqDto req) {
         try {
-            List<FriendInfo> friends = friendDAO.getFriendList(req.getUsername());
+            List<FriendInfo> friends = withPresence(friendDAO.getFriendList(req.getUsername()));
             return new GetFriendsListResDto(friends);
         } catch (SQLException e) {
             // 예외 발생 시 빈 리스트를 반환하거나, 필요하다면 별도 필드에 에러 메시지를 담아줘도 좋다.
-            e.printStackTrace();
+            log.error("친구 목록 조회 실패 username=" + req.getUsername(), e);
             return new GetFriendsListResDto();
         }
     }
@@ -56,7 +76,7 @@ public class FriendService {
 
         try {
             friendDAO.addFriend(username, friendUsername);  // :contentReference[oaicite:6]{index=6}
-            List<FriendInfo> updatedList = friendDAO.getFriendList(username);
+            List<FriendInfo> updatedList = withPresence(friendDAO.getFriendList(username));
             return new AddFriendResDto("OK", updatedList);
         } catch (SQLException e) {
             String sqlMessage = e.getMessage();
@@ -71,7 +91,7 @@ public class FriendService {
                 return new AddFriendResDto("ERROR_ALREADY_FRIEND", null);
             }
             // ③ 기타 내부 에러
-            e.printStackTrace();
+            log.error("친구 추가 실패 " + username + " → " + friendUsername, e);
             return new AddFriendResDto("ERROR_INTERNAL", null);
         }
     }
@@ -88,12 +108,113 @@ public class FriendService {
 
         try {
             friendDAO.removeFriend(username, friendUsername);  // :contentReference[oaicite:10]{index=10}
-            List<FriendInfo> updatedList = friendDAO.getFriendList(username);
+            List<FriendInfo> updatedList = withPresence(friendDAO.getFriendList(username));
             return new RemoveFriendResDto("삭제 성공", updatedList);
         } catch (SQLException e) {
             // 예외 발생 시 “ERROR_INTERNAL” 또는 상황에 맞는 메시지 반환
-            e.printStackTrace();
+            log.error("친구 삭제 실패 " + username + " → " + friendUsername, e);
             return new RemoveFriendResDto("ERROR_INTERNAL", null);
         }
     }
+
+    /**
+     * 3-1) 친구 일괄 추가
+     *
+     * @param req BulkAddFriendsReqDto (username, friendUsernames 포함, 최대 MAX_BULK_ITEMS 개)
+     * @return BulkAddFriendsResDto (statusCode, addedCount, 요청 순서대로 항목별 결과)
+     */
+    public BulkAddFriendsResDto bulkAddFriends(BulkAddFriendsReqDto req) {
+        String username = req.getUsername();
+        try {
+            List<BulkAddFriendResult> results = friendDAO.addFriends(username, req.getFriendUsernames());
+            if (results == null) {
+                return new BulkAddFriendsResDto("ERROR_NOT_FOUND", 0, null);
+            }
+            int added = 0;
+            for (BulkAddFriendResult result : results) {
+                if ("OK".equals(result.getStatusCode())) {
+                    added++;
+                }
+            }
+            return new BulkAddFriendsResDto("OK", added, results);
+        } catch (SQLException e) {
+            log.error("친구 일괄 추가 실패 username=" + username, e);
+            return new BulkAddFriendsResDto("ERROR_INTERNAL", 0, null);
+        }
+    }
+
+    /**
+     * username → user.id (없으면 null)
+     */
+    public Long findUserId(String username) throws SQLException {
+        return friendDAO.findUserId(username);
+    }
+
+    /**
+     * 3-2) 친구 목록 내보내기 (한 명씩 handler 로 전달, online 은 PresenceRegistry 기준)
+     *
+     * @param userId findUserId 로 확인한 사용자
+     * @return 내보낸 친구 수
+     */
+    public int exportFriends(long userId, FriendRowHandler handler) throws SQLException, IOException {
+        return friendDAO.streamFriendList(userId, row -> {
+            row.setOnline(presence.isOnline(row.getUserId(), row.isOnline()));
+            handler.handle(row);
+        });
+    }
+
+    /**
+     * 4) 함께 아는 친구
+     *
+     * @param limit 응답에 담을 최대 친구 수 (mutualCount 는 전체 수)
+     */
+    public MutualFriendsResDto getMutualFriends(String username, String otherUsername, int limit) {
+        try {
+            long[] ids = friendDAO.findMutualFriendIds(username, otherUsername);
+            long[] shown = ids.length > limit ? Arrays.copyOf(ids, limit) : ids;
+            List<FriendInfo> friends = withPresence(friendDAO.findUsersByIds(shown));
+            return new MutualFriendsResDto(ids.length, friends);
+        } catch (SQLException e) {
+            log.error("함께 아는 친구 조회 실패 " + username + " ↔ " + otherUsername, e);
+            return new MutualFriendsResDto();
+        }
+    }
+
+    /**
+     * 5) 친구 추천 (함께 아는 친구 수 내림차순)
+     */
+    public FriendSuggestionsResDto getSuggestions(String username, int limit) {
+        try {
+            List<FriendGraphIndex.Suggestion> found = friendDAO.findSuggestions(username, limit);
+            long[] ids = new long[found.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = found.get(i).getUserId();
+            }
+            List<FriendInfo> users = withPresence(friendDAO.findUsersByIds(ids));
+
+            // findUsersByIds 는 순서를 유지하고 없는 id 만 건너뛰므로 앞에서부터 맞춰 감
+            List<FriendSuggestion> suggestions = new ArrayList<>(users.size());
+            int at = 0;
+            for (FriendInfo user : users) {
+                while (found.get(at).getUserId() != user.getUserId()) {
+                    at++;
+                }
+                suggestions.add(new FriendSuggestion(user, found.get(at).getMutualCount()));
+            }
+            return new FriendSuggestionsResDto(suggestions);
+        } catch (SQLException e) {
+            log.error("친구 추천 조회 실패 username=" + username, e);
+            return new FriendSuggestionsResDto();
+        }
+    }
+
+    /**
+     * DB 의 user.status 대신 PresenceRegistry 의 메모리 상태로 online 을 채웁니다.
+     */
+    private List<FriendInfo> withPresence(List<FriendInfo> friends) {
+        for (FriendInfo friend : friends) {
+            friend.setOnline(presence.isOnline(friend.getUserId(), friend.isOnline()));
+        }
+        return friends;
+    }
 }
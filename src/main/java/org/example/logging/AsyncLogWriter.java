@@ -0,0 +1,240 @@
+package org.example.logging;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 로그 출력 스레드
+ *
+ * 요청 스레드는 이벤트를 bounded 큐에 넣기만 하고(offer, 대기 없음), 전용 데몬 스레드 하나가
+ * 모아서 stdout/stderr 에 쓴 뒤 배치마다 한 번 flush 합니다.
+ * 따라서 System.out 의 락을 요청 스레드끼리 다투지 않습니다.
+ *
+ * - 큐가 가득 차면 이벤트를 버리고 개수를 셉니다. (다음 출력 때 "N건 버림" 한 줄을 남김)
+ * - WARN 이상은 stderr, 나머지는 stdout 으로 갑니다.
+ * - JVM 종료 시 shutdown hook 에서 남은 이벤트를 모두 씁니다.
+ * - 한 건을 만들다 실패해도(예: 예외의 toString 이 던짐) 그 건만 대체 줄로 남기고 배치의 나머지는 그대로 씁니다.
+ */
+final class AsyncLogWriter {
+
+    private static final int BATCH = 256;
+
+    private static volatile AsyncLogWriter instance;
+
+    private final boolean json;
+    private final boolean async;
+    private final BlockingQueue<LogEvent> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final PrintStream out = System.out;
+    private final PrintStream err = System.err;
+    private final StringBuilder line = new StringBuilder(256);   // writer 스레드 전용 (동기 모드에서는 락 안에서 사용)
+    private long reportedDrops;
+
+    /**
+     * 로그 한 건. 메시지는 호출 스레드에서 이미 문자열로 만들어 둡니다. (인자 객체가 나중에 바뀌어도 안전)
+     */
+    record LogEvent(long timeMillis, LogLevel level, String logger, String thread, String message, Throwable error) {
+    }
+
+    private AsyncLogWriter(LogConfig config) {
+        this.json = config.isJson();
+        this.async = config.isAsync();
+        this.queue = async ? new ArrayBlockingQueue<>(Math.max(16, config.getQueueCapacity())) : null;
+        if (async) {
+            Thread writer = new Thread(this::runLoop, "async-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "async-log-drain"));
+        }
+    }
+
+    static AsyncLogWriter get() {
+        AsyncLogWriter writer = instance;
+        if (writer == null) {
+            synchronized (AsyncLogWriter.class) {
+                writer = instance;
+                if (writer == null) {
+                    writer = new AsyncLogWriter(LogConfig.get());
+                    instance = writer;
+                }
+            }
+        }
+        return writer;
+    }
+
+    void submit(LogEvent event) {
+        if (!async) {
+            synchronized (this) {
+                writeSafely(event);
+                flush();
+            }
+            return;
+        }
+        if (!queue.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    long getWritten() {
+        return written.get();
+    }
+
+    int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    private void runLoop() {
+        List<LogEvent> batch = new ArrayList<>(BATCH);
+        while (true) {
+            try {
+                LogEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // 출력 스트림 자체의 실패 등으로 writer 가 멈추지 않도록 함 (레코드 단위 실패는 writeSafely 에서 처리)
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 큐에 남은 이벤트를 모두 씁니다. (종료 시)
+     */
+    synchronized void drain() {
+        List<LogEvent> batch = new ArrayList<>(BATCH);
+        while (queue != null && queue.drainTo(batch, BATCH) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private synchronized void writeBatch(List<LogEvent> batch) {
+        long drops = dropped.get();
+        if (drops != reportedDrops) {
+            write(new LogEvent(System.currentTimeMillis(), LogLevel.WARN, AsyncLogWriter.class.getSimpleName(),
+                    Thread.currentThread().getName(), "로그 큐가 가득 차 " + (drops - reportedDrops) + "건을 버렸습니다.", null));
+            reportedDrops = drops;
+        }
+        for (LogEvent event : batch) {
+            writeSafely(event);
+        }
+        flush();
+    }
+
+    /**
+     * 한 건 쓰기. 실패하면 그 건만 대체 줄(레벨, logger, 실패 원인)로 남깁니다.
+     */
+    private void writeSafely(LogEvent event) {
+        try {
+            write(event);
+        } catch (RuntimeException e) {
+            err.println("[" + AsyncLogWriter.class.getSimpleName() + "] 로그 한 건을 출력하지 못했습니다 (level="
+                    + event.level() + ", logger=" + event.logger() + "): " + e.getClass().getName());
+        }
+    }
+
+    private void write(LogEvent event) {
+        line.setLength(0);
+        if (json) {
+            formatJson(event);
+        } else {
+            formatText(event);
+        }
+        (event.level().compareTo(LogLevel.WARN) >= 0 ? err : out).println(line);
+        written.incrementAndGet();
+    }
+
+    private void flush() {
+        out.flush();
+        err.flush();
+    }
+
+    // 2026-01-01T00:00:00.123Z INFO  [thread] MessageController - message
+    private void formatText(LogEvent e) {
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(e.timeMillis()), line);
+        line.append(' ').append(e.level().name());
+        for (int i = e.level().name().length(); i < 5; i++) {
+            line.append(' ');
+        }
+        line.append(" [").append(e.thread()).append("] ").append(e.logger()).append(" - ").append(e.message());
+        if (e.error() != null) {
+            line.append('\n').append(stackTrace(e.error()));
+            trimTrailingNewline();
+        }
+    }
+
+    // {"ts":"...","level":"INFO","logger":"...","thread":"...","msg":"...","error":"..."}
+    private void formatJson(LogEvent e) {
+        line.append("{\"ts\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(e.timeMillis()), line);
+        line.append("\",\"level\":\"").append(e.level().name()).append('"');
+        appendJsonField("logger", e.logger());
+        appendJsonField("thread", e.thread());
+        appendJsonField("msg", e.message());
+        if (e.error() != null) {
+            appendJsonField("error", stackTrace(e.error()));
+        }
+        line.append('}');
+    }
+
+    // value 가 null 이면 JSON null
+    private void appendJsonField(String name, String value) {
+        line.append(",\"").append(name).append("\":");
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private void trimTrailingNewline() {
+        while (line.length() > 0 && (line.charAt(line.length() - 1) == '\n' || line.charAt(line.length() - 1) == '\r')) {
+            line.setLength(line.length() - 1);
+        }
+    }
+
+    private static String stackTrace(Throwable t) {
+        StringWriter sw = new StringWriter();
+        t.printStackTrace(new PrintWriter(sw));
+        return sw.toString();
+    }
+}
@@ -0,0 +1,230 @@
+package org.example.logging;
+
+/**
+ * 클래스별 로거
+ *
+ *   private static final Log log = Log.get(MessageService.class);
+ *   log.debug("saveMessage roomId={}, senderId={}", req.getRoomId(), req.getSenderId());
+ *
+ * - 레벨은 생성 시 log.level / log.level.{패키지} 설정으로 정해집니다. (LogConfig)
+ * - 꺼진 레벨의 호출은 int 비교 한 번으로 끝납니다. 인자는 고정 개수 오버로드라 varargs 배열도 만들지 않고,
+ *   메시지 조립({} 치환, toString)은 켜진 경우에만 합니다.
+ *   단, 인자 자체를 만드는 비용(문자열 연결, 기본형 boxing)은 호출 전에 생기므로
+ *   무거운 인자는 isDebugEnabled() 로 감싸세요.
+ * - 출력은 AsyncLogWriter 가 별도 스레드에서 합니다.
+ */
+public final class Log {
+
+    private final String name;
+    private final String shortName;
+    private final int threshold;
+
+    private Log(String name, LogLevel level) {
+        this.name = name;
+        this.shortName = name.substring(name.lastIndexOf('.') + 1);
+        this.threshold = level.ordinal();
+    }
+
+    public static Log get(Class<?> type) {
+        return get(type.getName());
+    }
+
+    public static Log get(String name) {
+        return new Log(name, LogConfig.get().levelFor(name));
+    }
+
+    /**
+     * 비동기 큐가 넘쳐 버린 로그 수 (메트릭용)
+     */
+    public static long getDroppedEvents() {
+        return AsyncLogWriter.get().getDropped();
+    }
+
+    /**
+     * 출력을 기다리는 로그 수 (메트릭용)
+     */
+    public static int getQueueDepth() {
+        return AsyncLogWriter.get().getQueueDepth();
+    }
+
+    /**
+     * 종료 직전에 큐에 남은 로그를 모두 출력합니다.
+     */
+    public static void flush() {
+        AsyncLogWriter.get().drain();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled(LogLevel level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public boolean isTraceEnabled() {
+        return threshold <= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return threshold <= 1;
+    }
+
+    public boolean isInfoEnabled() {
+        return threshold <= 2;
+    }
+
+    // ---------------------------------------------------------------- TRACE
+
+    public void trace(String msg) {
+        if (threshold <= 0) {
+            emit(LogLevel.TRACE, msg, null);
+        }
+    }
+
+    public void trace(String format, Object a) {
+        if (threshold <= 0) {
+            emit(LogLevel.TRACE, format(format, a, null, null, 1), null);
+        }
+    }
+
+    public void trace(String format, Object a, Object b) {
+        if (threshold <= 0) {
+            emit(LogLevel.TRACE, format(format, a, b, null, 2), null);
+        }
+    }
+
+    // ---------------------------------------------------------------- DEBUG
+
+    public void debug(String msg) {
+        if (threshold <= 1) {
+            emit(LogLevel.DEBUG, msg, null);
+        }
+    }
+
+    public void debug(String format, Object a) {
+        if (threshold <= 1) {
+            emit(LogLevel.DEBUG, format(format, a, null, null, 1), null);
+        }
+    }
+
+    public void debug(String format, Object a, Object b) {
+        if (threshold <= 1) {
+            emit(LogLevel.DEBUG, format(format, a, b, null, 2), null);
+        }
+    }
+
+    public void debug(String format, Object a, Object b, Object c) {
+        if (threshold <= 1) {
+            emit(LogLevel.DEBUG, format(format, a, b, c, 3), null);
+        }
+    }
+
+    // ---------------------------------------------------------------- INFO
+
+    public void info(String msg) {
+        if (threshold <= 2) {
+            emit(LogLevel.INFO, msg, null);
+        }
+    }
+
+    public void info(String format, Object a) {
+        if (threshold <= 2) {
+            emit(LogLevel.INFO, format(format, a, null, null, 1), null);
+        }
+    }
+
+    public void info(String format, Object a, Object b) {
+        if (threshold <= 2) {
+            emit(LogLevel.INFO, format(format, a, b, null, 2), null);
+        }
+    }
+
+    public void info(String format, Object a, Object b, Object c) {
+        if (threshold <= 2) {
+            emit(LogLevel.INFO, format(format, a, b, c, 3), null);
+        }
+    }
+
+    // ---------------------------------------------------------------- WARN
+
+    public void warn(String msg) {
+        if (threshold <= 3) {
+            emit(LogLevel.WARN, msg, null);
+        }
+    }
+
+    public void warn(String format, Object a) {
+        if (threshold <= 3) {
+            emit(LogLevel.WARN, format(format, a, null, null, 1), null);
+        }
+    }
+
+    public void warn(String format, Object a, Object b) {
+        if (threshold <= 3) {
+            emit(LogLevel.WARN, format(format, a, b, null, 2), null);
+        }
+    }
+
+    public void warn(String format, Object a, Object b, Object c) {
+        if (threshold <= 3) {
+            emit(LogLevel.WARN, format(format, a, b, c, 3), null);
+        }
+    }
+
+    public void warn(String msg, Throwable error) {
+        if (threshold <= 3) {
+            emit(LogLevel.WARN, msg, error);
+        }
+    }
+
+    // ---------------------------------------------------------------- ERROR
+
+    public void error(String msg) {
+        if (threshold <= 4) {
+            emit(LogLevel.ERROR, msg, null);
+        }
+    }
+
+    public void error(String format, Object a) {
+        if (threshold <= 4) {
+            emit(LogLevel.ERROR, format(format, a, null, null, 1), null);
+        }
+    }
+
+    public void error(String format, Object a, Object b) {
+        if (threshold <= 4) {
+            emit(LogLevel.ERROR, format(format, a, b, null, 2), null);
+        }
+    }
+
+    public void error(String msg, Throwable error) {
+        if (threshold <= 4) {
+            emit(LogLevel.ERROR, msg, error);
+        }
+    }
+
+    private void emit(LogLevel level, String message, Throwable error) {
+        AsyncLogWriter.get().submit(new AsyncLogWriter.LogEvent(System.currentTimeMillis(), level, shortName,
+                Thread.currentThread().getName(), message, error));
+    }
+
+    /**
+     * "{}" 를 순서대로 인자로 바꿉니다. (인자보다 {} 가 많으면 남은 {} 는 그대로)
+     */
+    static String format(String format, Object a, Object b, Object c, int argCount) {
+        StringBuilder sb = new StringBuilder(format.length() + 32);
+        int arg = 0;
+        int from = 0;
+        int at;
+        while (arg < argCount && (at = format.indexOf("{}", from)) >= 0) {
+            sb.append(format, from, at);
+            Object value = arg == 0 ? a : arg == 1 ? b : c;
+            sb.append(value);
+            arg++;
+            from = at + 2;
+        }
+        sb.append(format, from, format.length());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * 로그 설정 (classpath:config/config.properties 의 log.* 키)
+ *
+ *   log.level=INFO                          # 기본 레벨
+ *   log.level.org.example.message=DEBUG     # 패키지/클래스별 (가장 긴 접두어 우선)
+ *   log.format=text                         # text 또는 json (한 줄에 이벤트 하나)
+ *   log.async.enabled=true                  # false 면 호출 스레드에서 바로 출력
+ *   log.async.queueCapacity=8192            # 넘치면 버리고 개수만 셈
+ *
+ * TestApiConfig 도 로그를 쓰므로 순환을 피하기 위해 설정 파일을 직접 읽습니다.
+ */
+final class LogConfig {
+
+    private static final String PREFIX = "log.level.";
+
+    private static volatile LogConfig current;
+
+    private final LogLevel rootLevel;
+    private final Map<String, LogLevel> levels = new TreeMap<>();
+    private final boolean json;
+    private final boolean async;
+    private final int queueCapacity;
+
+    LogConfig(Properties props) {
+        this.rootLevel = LogLevel.parse(props.getProperty("log.level"), LogLevel.INFO);
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith(PREFIX)) {
+                levels.put(key.substring(PREFIX.length()), LogLevel.parse(props.getProperty(key), rootLevel));
+            }
+        }
+        this.json = "json".equalsIgnoreCase(props.getProperty("log.format", "text").trim());
+        this.async = Boolean.parseBoolean(props.getProperty("log.async.enabled", "true").trim());
+        this.queueCapacity = Integer.parseInt(props.getProperty("log.async.queueCapacity", "8192").trim());
+    }
+
+    static LogConfig get() {
+        LogConfig config = current;
+        if (config == null) {
+            synchronized (LogConfig.class) {
+                config = current;
+                if (config == null) {
+                    config = new LogConfig(load());
+                    current = config;
+                }
+            }
+        }
+        return config;
+    }
+
+    private static Properties load() {
+        Properties props = new Properties();
+        try (InputStream in = LogConfig.class.getClassLoader().getResourceAsStream("config/config.properties")) {
+            if (in != null) {
+                props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // 설정을 못 읽으면 기본값(INFO, text, async)으로 동작
+        }
+        return props;
+    }
+
+    /**
+     * 로거 이름(클래스 FQCN)에 가장 길게 일치하는 log.level.* 값, 없으면 log.level
+     */
+    LogLevel levelFor(String name) {
+        LogLevel level = rootLevel;
+        int matched = -1;
+        for (Map.Entry<String, LogLevel> e : levels.entrySet()) {
+            String prefix = e.getKey();
+            boolean matches = name.equals(prefix)
+                    || (name.startsWith(prefix) && name.charAt(prefix.length()) == '.');
+            if (matches && prefix.length() > matched) {
+                level = e.getValue();
+                matched = prefix.length();
+            }
+        }
+        return level;
+    }
+
+    boolean isJson() {
+        return json;
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    int getQueueCapacity() {
+        return queueCapacity;
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.logging;
+
+/**
+ * 로그 레벨 (낮은 것부터). OFF 는 설정 전용입니다.
+ */
+public enum LogLevel {
+    TRACE, DEBUG, INFO, WARN, ERROR, OFF;
+
+    static LogLevel parse(String value, LogLevel fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -1,90 +1,96 @@
 package org.example.memo.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.DataSourceRegistry;
+import org.example.config.JsonSupport;
+import org.example.logging.Log;
 import org.example.memo.dao.MemoDAO;
+import org.example.memo.dto.GetMemoDatesRes;
+import org.example.memo.dto.GetMemoRangeReq;
+import org.example.memo.dto.GetMemoRangeRes;
 import org.example.memo.dto.GetMemoReq;
 import org.example.memo.dto.GetMemoRes;
 import org.example.memo.dto.PostMemoReq;
 import org.example.memo.dto.PostMemoRes;
 import org.example.memo.service.MemoService;
+import org.example.memo.service.MemoWriteCoalescer;
 import org.example.user.common.dao.UserDAO;
 
 
 import javax.sql.DataSource;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintWriter;
-import java.util.Properties;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 
 /**
  * MemoController: DTO 기반으로 요청을 받고 MemoService의 메서드를 호출합니다.
  *
- * 1) init()에서 DataSource, DAO, Service, ObjectMapper를 초기화합니다.
+ * 1) init()에서 DataSource, DAO, Service를 초기화합니다. (JSON reader/writer 는 JsonSupport 공용 설정)
  * 2) doGet, doPost, doDelete에서 pathInfo를 기준으로 핸들러를 호출합니다.
  *
  *  - GET    /memo/get?owner={ownerUsername}&friend={friendUsername}&date={yyyy-MM-dd}
  *             → 특정 날짜 메모 조회 (GetMemoReq → GetMemoRes)
+ *  - GET    /memo/range?owner={ownerUsername}&friend={friendUsername}&from={yyyy-MM-dd}&to={yyyy-MM-dd}
+ *             → 기간 메모 조회, 최대 366일 (GetMemoRangeReq → GetMemoRangeRes)
+ *  - GET    /memo/dates?owner={ownerUsername}&friend={friendUsername}&month={yyyy-MM}
+ *             → 한 달 중 메모가 있는 날짜 비트맵 (GetMemoDatesRes)
  *  - POST   /memo/save
  *             Body(JSON): PostMemoReq(ownerUsername, friendUsername, createdDate, content)
- *             → 메모 생성/수정 (PostMemoReq → PostMemoRes)
+ *             → 메모 생성/수정 (PostMemoReq → PostMemoRes, pending=true 면 자동 저장 창 끝에 DB 반영)
  *  - DELETE /memo/delete?owner={ownerUsername}&friend={friendUsername}&date={yyyy-MM-dd}
  *             → 특정 날짜 메모 삭제 (GetMemoReq → boolean)
  */
 public class MemoController extends HttpServlet {
+
+    private static final Log log = Log.get(MemoController.class);
+    private static final ObjectWriter GET_RES_WRITER = JsonSupport.writer(GetMemoRes.class);
+    private static final ObjectWriter RANGE_RES_WRITER = JsonSupport.writer(GetMemoRangeRes.class);
+    private static final ObjectWriter DATES_RES_WRITER = JsonSupport.writer(GetMemoDatesRes.class);
+    private static final ObjectReader SAVE_REQ_READER = JsonSupport.reader(PostMemoReq.class);
+    private static final ObjectWriter SAVE_RES_WRITER = JsonSupport.writer(PostMemoRes.class);
+
     private MemoService memoService;
-    private ObjectMapper objectMapper;
 
     @Override
     public void init() throws ServletException {
         super.init();
-        System.out.println(">>> MemoController.init() 호출됨");
-
-        // 1) db.properties 파일을 Resource Stream으로 읽어오기
-        Properties props = new Properties();
-        try (InputStream is = getClass().getClassLoader().getResourceAsStream("config/db.properties")) {
-            if (is == null) {
-                throw new ServletException("db.properties 파일을 찾을 수 없습니다.");
-            }
-            props.load(is);
-        } catch (IOException e) {
-            throw new ServletException("db.properties 로딩 실패", e);
-        }
+        log.debug("init");
 
-        // 2) HikariCP 설정
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(props.getProperty("jdbc.url"));
-        config.setUsername(props.getProperty("jdbc.username"));
-        config.setPassword(props.getProperty("jdbc.password"));
-        DataSource ds = new HikariDataSource(config);
+        // 1) 서버 공용 커넥션 풀 조회
+        DataSource ds = DataSourceRegistry.from(getServletContext()).write();
 
-        // 3) DAO, Service, Jackson ObjectMapper 초기화
+        // 2) DAO, Service 초기화
         UserDAO userDAO = new UserDAO(ds);
         MemoDAO memoDAO = new MemoDAO(ds);
 
-        this.memoService = new MemoService(memoDAO, userDAO);
-        this.objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // 3) 자동 저장 합치기 (EmbeddedServer 가 memo.autosave.enabled 일 때 등록, 없으면 null)
+        MemoWriteCoalescer coalescer = (MemoWriteCoalescer) getServletContext()
+                .getAttribute(MemoWriteCoalescer.CONTEXT_ATTRIBUTE);
+
+        this.memoService = new MemoService(memoDAO, userDAO, coalescer);
     }
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        System.out.println(">>> MemoController.doGet() 진입: pathInfo=" + request.getPathInfo());
+        log.debug("doGet pathInfo={}", request.getPathInfo());
         response.setContentType("application/json; charset=UTF-8");
         response.setCharacterEncoding("UTF-8");
 
-        String path = request.getPathInfo(); // expected "/get"
+        String path = request.getPathInfo(); // expected "/get", "/range", "/dates"
         try (PrintWriter out = response.getWriter()) {
             if ("/get".equals(path)) {
                 handleGetMemo(request, response, out);
+            } else if ("/range".equals(path)) {
+                handleGetMemoRange(request, response, out);
+            } else if ("/dates".equals(path)) {
+                handleGetMemoDates(request, response, out);
             } else {
                 response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                 out.write("{\"error\":\"지원하지 않는 GET 경로입니다.\"}");
@@ -97,7 +103,7 @@ public class MemoController extends HttpServlet {
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        System.out.println(">>> MemoController.doPost() 진입: pathInfo=" + request.getPathInfo());
+        log.debug("doPost pathInfo={}", request.getPathInfo());
         response.setContentType("application/json; charset=UTF-8");
         response.setCharacterEncoding("UTF-8");
 
@@ -148,7 +154,86 @@ public class MemoController extends HttpServlet {
             out.write("{\"error\":\"해당 사용자 정보가 없거나 메모 조회 중 오류 발생.\"}");
         } else {
             response.setStatus(HttpServletResponse.SC_OK);
-            out.write(objectMapper.writeValueAsString(resDto));
+            out.write(GET_RES_WRITER.writeValueAsString(resDto));
+        }
+    }
+
+    /**
+     * GET /memo/range?owner={ownerUsername}&friend={friendUsername}&from={yyyy-MM-dd}&to={yyyy-MM-dd}
+     */
+    private void handleGetMemoRange(HttpServletRequest request, HttpServletResponse response, PrintWriter out) throws IOException {
+        String ownerUsername  = request.getParameter("owner");
+        String friendUsername = request.getParameter("friend");
+        String fromStr        = request.getParameter("from");
+        String toStr          = request.getParameter("to");
+
+        if (ownerUsername == null || friendUsername == null || fromStr == null || toStr == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            out.write("{\"error\":\"owner, friend, from, to 파라미터가 모두 필요합니다.\"}");
+            return;
+        }
+
+        GetMemoRangeReq reqDto = new GetMemoRangeReq();
+        reqDto.setOwnerUsername(ownerUsername);
+        reqDto.setFriendUsername(friendUsername);
+
+        GetMemoRangeRes resDto;
+        try {
+            reqDto.setFrom(LocalDate.parse(fromStr));
+            reqDto.setTo(LocalDate.parse(toStr));
+            resDto = memoService.getMemosInRange(reqDto);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            out.write("{\"error\":\"잘못된 기간입니다: " + e.getMessage() + "\"}");
+            return;
+        } catch (Exception e) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            out.write("{\"error\":\"서버 오류: " + e.getMessage() + "\"}");
+            return;
+        }
+
+        if (resDto == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            out.write("{\"error\":\"해당 사용자 정보가 없습니다.\"}");
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+            out.write(RANGE_RES_WRITER.writeValueAsString(resDto));
+        }
+    }
+
+    /**
+     * GET /memo/dates?owner={ownerUsername}&friend={friendUsername}&month={yyyy-MM}
+     */
+    private void handleGetMemoDates(HttpServletRequest request, HttpServletResponse response, PrintWriter out) throws IOException {
+        String ownerUsername  = request.getParameter("owner");
+        String friendUsername = request.getParameter("friend");
+        String monthStr       = request.getParameter("month");
+
+        if (ownerUsername == null || friendUsername == null || monthStr == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            out.write("{\"error\":\"owner, friend, month 파라미터가 모두 필요합니다.\"}");
+            return;
+        }
+
+        GetMemoDatesRes resDto;
+        try {
+            resDto = memoService.getMemoDates(ownerUsername, friendUsername, YearMonth.parse(monthStr));
+        } catch (DateTimeParseException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            out.write("{\"error\":\"month 는 yyyy-MM 형식이어야 합니다.\"}");
+            return;
+        } catch (Exception e) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            out.write("{\"error\":\"서버 오류: " + e.getMessage() + "\"}");
+            return;
+        }
+
+        if (resDto == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            out.write("{\"error\":\"해당 사용자 정보가 없습니다.\"}");
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+            out.write(DATES_RES_WRITER.writeValueAsString(resDto));
         }
     }
 
@@ -157,7 +242,7 @@ public class MemoController extends HttpServlet {
      * Body(JSON): PostMemoReq(ownerUsername, friendUsername, createdDate, content)
      */
     private void handleSaveMemo(HttpServletRequest request, HttpServletResponse response, PrintWriter out) throws IOException {
-        PostMemoReq reqDto = objectMapper.readValue(request.getInputStream(), PostMemoReq.class);
+        PostMemoReq reqDto = SAVE_REQ_READER.readValue(request.getInputStream());
 
         if (reqDto.getOwnerUsername() == null
                 || reqDto.getFriendUsername() == null
@@ -183,7 +268,7 @@ public class MemoController extends HttpServlet {
         }
 
         response.setStatus(HttpServletResponse.SC_OK);
-        out.write(objectMapper.writeValueAsString(resDto));
+        out.write(SAVE_RES_WRITER.writeValueAsString(resDto));
     }
 
 
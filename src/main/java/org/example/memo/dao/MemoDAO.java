@@ -3,6 +3,9 @@ package org.example.memo.dao;
 import org.example.memo.entity.Memo;
 
 import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import javax.sql.DataSource;
 
 public class MemoDAO {
@@ -88,5 +91,86 @@ public class MemoDAO {
         }
     }
 
+    /**
+     * 4) UPSERT (있으면 content 교체, 없으면 INSERT) — 한 문장, 한 번 왕복
+     *    → (owner_id, friend_id, created_date) 유니크 키 필요 (db/migration/V002)
+     *    memo_id = LAST_INSERT_ID(memo_id) 로 UPDATE 된 경우에도 기존 memo_id 를 generated key 로 돌려받습니다.
+     */
+    public Memo upsertMemo(Memo entity) throws SQLException {
+        String sql = "INSERT INTO memo (owner_id, friend_id, created_date, content) "
+                + "VALUES (?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE content = VALUES(content), memo_id = LAST_INSERT_ID(memo_id)";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setLong(1, entity.getOwnerId());
+            ps.setLong(2, entity.getFriendId());
+            ps.setDate(3, Date.valueOf(entity.getCreatedAt()));
+            ps.setString(4, entity.getContent());
+
+            ps.executeUpdate();
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    entity.setMemoId(rs.getLong(1));
+                }
+            }
+            return entity;
+        }
+    }
+
+    /**
+     * 5) 기간 조회 (from ~ to, 둘 다 포함) — created_date 오름차순
+     *    → uk_memo_owner_friend_date (owner_id, friend_id, created_date) 범위 스캔 한 번
+     */
+    public List<Memo> findByOwnerFriendDateRange(long ownerId, long friendId, LocalDate from, LocalDate to)
+            throws SQLException {
+        String sql = "SELECT memo_id, content, created_date "
+                + "FROM memo "
+                + "WHERE owner_id = ? AND friend_id = ? AND created_date BETWEEN ? AND ? "
+                + "ORDER BY created_date";
+        List<Memo> memos = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, ownerId);
+            ps.setLong(2, friendId);
+            ps.setDate(3, Date.valueOf(from));
+            ps.setDate(4, Date.valueOf(to));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    memos.add(new Memo(rs.getLong("memo_id"), ownerId, friendId,
+                            rs.getString("content"), rs.getDate("created_date").toLocalDate()));
+                }
+            }
+        }
+        return memos;
+    }
+
+    /**
+     * 6) 기간 안에서 메모가 있는 날짜만 조회 (본문은 읽지 않음) — 오름차순
+     *    → 유니크 키만으로 답하는 커버링 인덱스 스캔
+     */
+    public List<LocalDate> findDatesByOwnerFriendDateRange(long ownerId, long friendId, LocalDate from, LocalDate to)
+            throws SQLException {
+        String sql = "SELECT created_date "
+                + "FROM memo "
+                + "WHERE owner_id = ? AND friend_id = ? AND created_date BETWEEN ? AND ? "
+                + "ORDER BY created_date";
+        List<LocalDate> dates = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, ownerId);
+            ps.setLong(2, friendId);
+            ps.setDate(3, Date.valueOf(from));
+            ps.setDate(4, Date.valueOf(to));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    dates.add(rs.getDate(1).toLocalDate());
+                }
+            }
+        }
+        return dates;
+    }
+
 
 }
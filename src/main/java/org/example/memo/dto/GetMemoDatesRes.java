@@ -0,0 +1,41 @@
+package org.example.memo.dto;
+
+
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * 한 달 중 메모가 있는 날짜 응답 DTO (달력 표시용, 내용 없음)
+ *
+ * - bitmap : d일에 메모가 있으면 (1 << (d - 1)) 비트가 켜짐 (1일 = 최하위 비트)
+ * - days   : 같은 정보를 일(day-of-month) 목록으로 (오름차순)
+ */
+public class GetMemoDatesRes {
+    private YearMonth month;   // "yyyy-MM"
+    private int bitmap;
+    private List<Integer> days;
+
+    public GetMemoDatesRes() {}
+
+    public YearMonth getMonth() {
+        return month;
+    }
+    public void setMonth(YearMonth month) {
+        this.month = month;
+    }
+
+    public int getBitmap() {
+        return bitmap;
+    }
+    public void setBitmap(int bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    public List<Integer> getDays() {
+        return days;
+    }
+    public void setDays(List<Integer> days) {
+        this.days = days;
+    }
+}
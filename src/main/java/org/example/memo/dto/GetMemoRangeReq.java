@@ -0,0 +1,46 @@
+package org.example.memo.dto;
+
+
+
+import java.time.LocalDate;
+
+/**
+ * 기간 메모 조회 요청 DTO (달력 화면)
+ * from ~ to (둘 다 포함) 사이의 메모를 한 번에 조회합니다.
+ */
+public class GetMemoRangeReq {
+    private String ownerUsername;   // A의 username
+    private String friendUsername;  // B의 username
+    private LocalDate from;         // 시작 날짜 (포함)
+    private LocalDate to;           // 끝 날짜 (포함)
+
+    public GetMemoRangeReq() {}
+
+    public String getOwnerUsername() {
+        return ownerUsername;
+    }
+    public void setOwnerUsername(String ownerUsername) {
+        this.ownerUsername = ownerUsername;
+    }
+
+    public String getFriendUsername() {
+        return friendUsername;
+    }
+    public void setFriendUsername(String friendUsername) {
+        this.friendUsername = friendUsername;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.memo.dto;
+
+
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 기간 메모 조회 응답 DTO
+ * memos 는 createdDate 오름차순이며, 메모가 없는 날짜는 빠집니다.
+ */
+public class GetMemoRangeRes {
+    private LocalDate from;
+    private LocalDate to;
+    private List<MemoItem> memos;
+
+    public GetMemoRangeRes() {}
+
+    public LocalDate getFrom() {
+        return from;
+    }
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public List<MemoItem> getMemos() {
+        return memos;
+    }
+    public void setMemos(List<MemoItem> memos) {
+        this.memos = memos;
+    }
+}
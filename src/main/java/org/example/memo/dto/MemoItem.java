@@ -0,0 +1,43 @@
+package org.example.memo.dto;
+
+
+
+import java.time.LocalDate;
+
+/**
+ * 기간 조회 결과의 메모 한 건
+ */
+public class MemoItem {
+    private Long memoId;
+    private String content;
+    private LocalDate createdDate;
+
+    public MemoItem() {}
+
+    public MemoItem(Long memoId, String content, LocalDate createdDate) {
+        this.memoId = memoId;
+        this.content = content;
+        this.createdDate = createdDate;
+    }
+
+    public Long getMemoId() {
+        return memoId;
+    }
+    public void setMemoId(Long memoId) {
+        this.memoId = memoId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public LocalDate getCreatedDate() {
+        return createdDate;
+    }
+    public void setCreatedDate(LocalDate createdDate) {
+        this.createdDate = createdDate;
+    }
+}
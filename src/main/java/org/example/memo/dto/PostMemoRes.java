@@ -7,6 +7,7 @@ public class PostMemoRes {
     private String message;     // “메모 저장 성공” 등
     private Long memoId;        // DB에 최종 저장된 memo_id
     private LocalDate createdDate; // 클라이언트가 전달한 createdDate 를 그대로 반환해도 무방
+    private boolean pending;    // true 면 아직 DB 에 쓰지 않음 (자동 저장 창 끝에 저장, MemoWriteCoalescer)
 
     public PostMemoRes() {}
 
@@ -30,4 +31,11 @@ public class PostMemoRes {
     public void setCreatedDate(LocalDate createdDate) {
         this.createdDate = createdDate;
     }
+
+    public boolean isPending() {
+        return pending;
+    }
+    public void setPending(boolean pending) {
+        this.pending = pending;
+    }
 }
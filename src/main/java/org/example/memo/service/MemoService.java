@@ -6,21 +6,39 @@ import org.example.memo.entity.Memo;
 import org.example.user.common.dao.UserDAO;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MemoService {
+    // 기간 조회 최대 일수 (달력 1년치)
+    public static final int MAX_RANGE_DAYS = 366;
+
     private final MemoDAO memoDAO;
     private final UserDAO userDAO;
+    private final MemoWriteCoalescer coalescer;   // null 이면 저장마다 바로 DB 에 씀
 
     public MemoService(MemoDAO memoDAO, UserDAO userDAO) {
+        this(memoDAO, userDAO, null);
+    }
+
+    public MemoService(MemoDAO memoDAO, UserDAO userDAO, MemoWriteCoalescer coalescer) {
         this.memoDAO = memoDAO;
         this.userDAO = userDAO;
+        this.coalescer = coalescer;
     }
 
     /**
      * 1) 메모 생성 또는 수정 (Upsert 방식)
+     *    SELECT 후 INSERT/UPDATE 대신 INSERT ... ON DUPLICATE KEY UPDATE 한 문장으로 저장합니다.
+     *    (동시에 같은 날짜 메모를 처음 저장해도 행이 둘 생기지 않음)
+     *    coalescer 가 있으면 자동 저장을 창 단위로 합쳐서 씁니다.
      *
      * @param reqDto PostMemoReq(ownerUsername, friendUsername, createdDate, content)
-     * @return       PostMemoRes(message, memoId, createdDate)
+     * @return       PostMemoRes(message, memoId, createdDate, pending)
+     *               pending=true 면 다른 저장과 합쳐져 자동 저장 창 끝에 DB 에 씁니다. (아직 저장 전)
      */
     public PostMemoRes saveOrUpdateMemo(PostMemoReq reqDto) throws SQLException {
         // 1) username → user_id 조회
@@ -34,42 +52,32 @@ public class MemoService {
             throw new IllegalArgumentException("등록되지 않은 friendUsername: " + reqDto.getFriendUsername());
         }
 
-        // 2) DTO → 엔티티 매핑 (조회용)
-        Memo lookupMemo = new Memo();
-        lookupMemo.setOwnerId(ownerId);
-        lookupMemo.setFriendId(friendId);
-        lookupMemo.setCreatedAt(reqDto.getCreatedDate());
+        // 2) DTO → 엔티티 매핑
+        Memo memo = new Memo(null, ownerId, friendId, reqDto.getContent(), reqDto.getCreatedDate());
 
-        // 3) 기존 메모 존재 여부 조회
-        Memo existing = memoDAO.findByOwnerFriendDate(lookupMemo);
-        if (existing == null) {
-            // INSERT
-            Memo newMemo = new Memo();
-            newMemo.setOwnerId(ownerId);
-            newMemo.setFriendId(friendId);
-            newMemo.setCreatedAt(reqDto.getCreatedDate());
-            newMemo.setContent(reqDto.getContent());
-
-            Memo saved = memoDAO.insertMemo(newMemo);
-
-            // 응답 DTO 생성
-            PostMemoRes resDto = new PostMemoRes();
-            resDto.setMessage("메모 저장 성공");
-            resDto.setMemoId(saved.getMemoId());
-            resDto.setCreatedDate(saved.getCreatedAt());
-            return resDto;
+        // 3) UPSERT (한 번 왕복)
+        boolean pending = false;
+        Memo saved;
+        if (coalescer != null) {
+            MemoWriteCoalescer.Saved result = coalescer.save(memo);
+            saved = result.memo();
+            pending = result.pending();
         } else {
-            // UPDATE (content만 교체)
-            existing.setContent(reqDto.getContent());
-            memoDAO.updateMemoContent(existing);
-
-            // 응답 DTO 생성
-            PostMemoRes resDto = new PostMemoRes();
-            resDto.setMessage("메모 저장 성공");
-            resDto.setMemoId(existing.getMemoId());
-            resDto.setCreatedDate(existing.getCreatedAt());
-            return resDto;
+            saved = memoDAO.upsertMemo(memo);
+        }
+        if (saved.getMemoId() == null || saved.getMemoId() == 0) {
+            // 드라이버가 generated key 를 돌려주지 않은 경우에만 다시 조회
+            Memo found = memoDAO.findByOwnerFriendDate(memo);
+            saved.setMemoId(found != null ? found.getMemoId() : null);
         }
+
+        // 4) 응답 DTO 생성
+        PostMemoRes resDto = new PostMemoRes();
+        resDto.setMessage("메모 저장 성공");   // 요청은 받아들였음 (DB 반영 여부는 pending)
+        resDto.setMemoId(saved.getMemoId());
+        resDto.setCreatedDate(saved.getCreatedAt());
+        resDto.setPending(pending);
+        return resDto;
     }
 
     /**
@@ -96,9 +104,16 @@ public class MemoService {
         // 3) DAO 호출
         Memo found = memoDAO.findByOwnerFriendDate(lookupMemo);
 
-        // 4) 엔티티 → DTO 매핑
+        // 4) 아직 DB 에 쓰지 않은 자동 저장 내용이 있으면 그 값을 돌려줌 (방금 저장한 내용이 보이도록)
+        String pending = coalescer != null
+                ? coalescer.pendingContent(ownerId, friendId, reqDto.getCreatedDate()) : null;
+
+        // 5) 엔티티 → DTO 매핑
         GetMemoRes resDto = new GetMemoRes();
-        if (found == null) {
+        if (pending != null) {
+            resDto.setContent(pending);
+            resDto.setCreatedDate(reqDto.getCreatedDate());
+        } else if (found == null) {
             resDto.setContent("");
             resDto.setCreatedDate(reqDto.getCreatedDate());
         } else {
@@ -108,5 +123,83 @@ public class MemoService {
         return resDto;
     }
 
+    /**
+     * 3) 기간 메모 조회 (달력 화면) — 날짜마다 /get 을 부르지 않고 한 번에 조회
+     *
+     * @param reqDto GetMemoRangeReq(ownerUsername, friendUsername, from, to)
+     * @return       GetMemoRangeRes(from, to, memos) / 사용자가 없으면 null
+     * @throws IllegalArgumentException from > to 이거나 MAX_RANGE_DAYS 를 넘는 기간
+     */
+    public GetMemoRangeRes getMemosInRange(GetMemoRangeReq reqDto) throws SQLException {
+        checkRange(reqDto.getFrom(), reqDto.getTo());
+
+        // 1) username → user_id 조회
+        Long ownerId  = userDAO.findUserIdByUsername(reqDto.getOwnerUsername());
+        Long friendId = userDAO.findUserIdByUsername(reqDto.getFriendUsername());
+
+        if (ownerId == null || friendId == null) {
+            return null;
+        }
+
+        // 2) DAO 호출 (인덱스 범위 스캔 한 번)
+        List<Memo> found = memoDAO.findByOwnerFriendDateRange(ownerId, friendId, reqDto.getFrom(), reqDto.getTo());
+
+        // 3) 엔티티 → DTO 매핑 (아직 DB 에 쓰지 않은 자동 저장 내용이 있으면 그 값 사용)
+        List<MemoItem> memos = new ArrayList<>(found.size());
+        for (Memo memo : found) {
+            String pending = coalescer != null
+                    ? coalescer.pendingContent(ownerId, friendId, memo.getCreatedAt()) : null;
+            memos.add(new MemoItem(memo.getMemoId(), pending != null ? pending : memo.getContent(),
+                    memo.getCreatedAt()));
+        }
+
+        GetMemoRangeRes resDto = new GetMemoRangeRes();
+        resDto.setFrom(reqDto.getFrom());
+        resDto.setTo(reqDto.getTo());
+        resDto.setMemos(memos);
+        return resDto;
+    }
+
+    /**
+     * 4) 한 달 중 메모가 있는 날짜 (본문 없이 비트맵으로)
+     *
+     * @return GetMemoDatesRes(month, bitmap, days) / 사용자가 없으면 null
+     */
+    public GetMemoDatesRes getMemoDates(String ownerUsername, String friendUsername, YearMonth month)
+            throws SQLException {
+        Long ownerId  = userDAO.findUserIdByUsername(ownerUsername);
+        Long friendId = userDAO.findUserIdByUsername(friendUsername);
+
+        if (ownerId == null || friendId == null) {
+            return null;
+        }
+
+        List<LocalDate> dates = memoDAO.findDatesByOwnerFriendDateRange(
+                ownerId, friendId, month.atDay(1), month.atEndOfMonth());
+
+        int bitmap = 0;
+        List<Integer> days = new ArrayList<>(dates.size());
+        for (LocalDate date : dates) {
+            bitmap |= 1 << (date.getDayOfMonth() - 1);
+            days.add(date.getDayOfMonth());
+        }
+
+        GetMemoDatesRes resDto = new GetMemoDatesRes();
+        resDto.setMonth(month);
+        resDto.setBitmap(bitmap);
+        resDto.setDays(days);
+        return resDto;
+    }
 
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from, to 는 필수입니다.");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from 이 to 보다 늦습니다.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("조회 기간은 최대 " + MAX_RANGE_DAYS + "일입니다.");
+        }
+    }
 }
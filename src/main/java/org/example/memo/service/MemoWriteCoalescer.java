@@ -0,0 +1,323 @@
+package org.example.memo.service;
+
+import org.example.logging.Log;
+import org.example.memo.dao.MemoDAO;
+import org.example.memo.entity.Memo;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 메모 자동 저장 합치기 (autosave coalescing)
+ *
+ * 클라이언트는 입력이 멈출 때마다 같은 메모를 저장하므로, 같은 (owner, friend, date) 에 대한 저장을
+ * windowMillis 단위로 묶어 DB 에는 창마다 최대 한 번만 씁니다.
+ *
+ * 1) 창이 열려 있지 않으면 요청 스레드에서 바로 upsert 합니다. (첫 저장은 지연 없이 memo_id 를 돌려줌)
+ *    그리고 windowMillis 뒤에 창을 닫는 작업을 예약합니다.
+ * 2) 창이 열려 있는 동안 들어온 저장은 내용만 덮어쓰고 바로 응답합니다. (memo_id 는 첫 저장 결과)
+ *    이 응답은 아직 DB 에 쓰기 전이므로 Saved.pending = true 입니다. (PostMemoRes.pending 으로 클라이언트에 전달)
+ * 3) 창이 닫힐 때 덮어쓴 내용이 있으면 마지막 내용으로 한 번 upsert 하고 새 창을 엽니다. 없으면 창을 정리합니다.
+ *
+ * - 아직 쓰지 않은 내용은 pendingContent 로 조회할 수 있습니다. (MemoService.getMemo 가 DB 값 대신 사용)
+ * - 창 끝 저장이 실패하면 다음 창에서 다시 시도하고, MAX_RETRIES 번 연속 실패하면 버리고 로그를 남깁니다.
+ * - close() 는 예약을 멈추고 남은 내용을 모두 저장합니다. (서버 종료 시, 풀을 닫기 전)
+ *   close() 와 겹친 save 는 slot 잠금 안에서 running 을 다시 확인해, 이미 정리된 창에 내용을 남기지 않고 바로 씁니다.
+ *
+ * 창 끝 저장은 이 서버의 스레드 하나가 하므로, 같은 메모를 여러 서버에서 동시에 고치는 경우에는
+ * 서버별로 마지막 내용이 각각 저장됩니다. (나중에 쓴 쪽이 남음, 합치기 전과 같음)
+ *
+ * config.properties:
+ *   memo.autosave.enabled=true
+ *   memo.autosave.windowMillis=2000
+ */
+public class MemoWriteCoalescer implements AutoCloseable {
+
+    private static final Log log = Log.get(MemoWriteCoalescer.class);
+
+    public static final String CONTEXT_ATTRIBUTE = MemoWriteCoalescer.class.getName();
+
+    public static final long DEFAULT_WINDOW_MILLIS = 2_000;
+
+    private static final int MAX_RETRIES = 3;
+
+    // 첫 저장을 기다리는 최대 시간 (같은 창의 다음 저장이 memo_id 를 받기 위해)
+    private static final long FIRST_WRITE_TIMEOUT_MS = 10_000;
+
+    private record Key(long ownerId, long friendId, LocalDate date) {
+    }
+
+    /**
+     * save 결과: memo_id 가 채워진 메모 + 아직 DB 에 쓰지 않았는지 (창 끝에 저장 예정)
+     */
+    public record Saved(Memo memo, boolean pending) {
+    }
+
+    /**
+     * 메모 하나의 창 상태. 필드는 slot 자신을 잠그고 바꿉니다.
+     */
+    private static final class Slot {
+        CompletableFuture<Long> firstWrite;   // 창을 연 저장 (memo_id)
+        String pending;                       // 창 안에서 마지막으로 받은 내용 (null = 없음)
+        boolean closed;                       // 맵에서 빠짐 → 새 Slot 을 만들어야 함
+        int failures;
+    }
+
+    private final MemoDAO memoDAO;
+    private final long windowMillis;
+    private final Map<Key, Slot> slots = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean running = true;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public MemoWriteCoalescer(MemoDAO memoDAO, long windowMillis) {
+        this.memoDAO = memoDAO;
+        this.windowMillis = Math.max(1, windowMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "memo-autosave");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static boolean isEnabled(Properties props) {
+        return Boolean.parseBoolean(props.getProperty("memo.autosave.enabled", "true").trim());
+    }
+
+    /**
+     * config.properties 의 memo.autosave.* 값으로 생성
+     */
+    public static MemoWriteCoalescer fromProperties(Properties props, MemoDAO memoDAO) {
+        return new MemoWriteCoalescer(memoDAO,
+                Long.parseLong(props.getProperty("memo.autosave.windowMillis",
+                        String.valueOf(DEFAULT_WINDOW_MILLIS)).trim()));
+    }
+
+    /**
+     * 메모를 저장(또는 다음 창 끝 저장으로 예약)하고 memo_id 를 채워서 돌려줍니다.
+     */
+    public Saved save(Memo memo) throws SQLException {
+        if (!running) {
+            return new Saved(memoDAO.upsertMemo(memo), false);
+        }
+        Key key = new Key(memo.getOwnerId(), memo.getFriendId(), memo.getCreatedAt());
+        while (true) {
+            Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+            CompletableFuture<Long> first;
+            boolean opener;
+            synchronized (slot) {
+                if (slot.closed) {
+                    continue;
+                }
+                if (!running) {
+                    // close() 가 이미 창들을 정리했을 수 있음 → 이 slot 은 버리고 바로 저장
+                    slot.closed = true;
+                    slots.remove(key, slot);
+                    first = null;
+                    opener = false;
+                } else {
+                    opener = slot.firstWrite == null;
+                    if (opener) {
+                        slot.firstWrite = new CompletableFuture<>();
+                    } else {
+                        slot.pending = memo.getContent();
+                        coalesced.incrementAndGet();
+                    }
+                    first = slot.firstWrite;
+                }
+            }
+
+            if (first == null) {
+                return new Saved(memoDAO.upsertMemo(memo), false);
+            }
+            if (opener) {
+                return new Saved(openWindow(key, slot, memo), false);
+            }
+            memo.setMemoId(await(first));
+            return new Saved(memo, true);
+        }
+    }
+
+    private Memo openWindow(Key key, Slot slot, Memo memo) throws SQLException {
+        Memo saved;
+        try {
+            saved = memoDAO.upsertMemo(memo);
+        } catch (SQLException | RuntimeException e) {
+            // 같은 창에 합쳐진 저장도 실패로 돌려보냄 (클라이언트가 다시 저장)
+            synchronized (slot) {
+                slot.closed = true;
+                slots.remove(key, slot);
+            }
+            slot.firstWrite.completeExceptionally(e);
+            throw e;
+        }
+        writes.incrementAndGet();
+        slot.firstWrite.complete(saved.getMemoId());
+        schedule(key, slot);
+        return saved;
+    }
+
+    private void schedule(Key key, Slot slot) {
+        try {
+            scheduler.schedule(() -> endWindow(key, slot), windowMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 종료 중: close() 가 남은 내용을 저장함
+        }
+    }
+
+    private void endWindow(Key key, Slot slot) {
+        String content;
+        synchronized (slot) {
+            content = slot.pending;
+            slot.pending = null;
+            if (content == null) {
+                slot.closed = true;
+                slots.remove(key, slot);
+                return;
+            }
+        }
+        write(key, slot, content);
+        schedule(key, slot);
+    }
+
+    private void write(Key key, Slot slot, String content) {
+        try {
+            memoDAO.upsertMemo(new Memo(null, key.ownerId(), key.friendId(), content, key.date()));
+            writes.incrementAndGet();
+            slot.failures = 0;
+        } catch (SQLException | RuntimeException e) {
+            failures.incrementAndGet();
+            if (++slot.failures >= MAX_RETRIES) {
+                log.error("메모 자동 저장을 " + MAX_RETRIES + "번 실패해 버립니다. owner=" + key.ownerId()
+                        + ", friend=" + key.friendId() + ", date=" + key.date(), e);
+                slot.failures = 0;
+                return;
+            }
+            log.warn("메모 자동 저장 실패, 다음 창에서 다시 시도합니다: {}", e.getMessage());
+            synchronized (slot) {
+                if (slot.pending == null) {
+                    slot.pending = content;
+                }
+            }
+        }
+    }
+
+    private static Long await(CompletableFuture<Long> first) throws SQLException {
+        try {
+            return first.get(FIRST_WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new SQLException("메모 저장 실패", e.getCause());
+        } catch (TimeoutException e) {
+            throw new SQLException("메모 저장 대기 시간 초과", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("메모 저장 대기 중 인터럽트", e);
+        }
+    }
+
+    /**
+     * 아직 DB 에 쓰지 않은 마지막 내용 (없으면 null)
+     */
+    public String pendingContent(long ownerId, long friendId, LocalDate date) {
+        Slot slot = slots.get(new Key(ownerId, friendId, date));
+        if (slot == null) {
+            return null;
+        }
+        synchronized (slot) {
+            return slot.pending;
+        }
+    }
+
+    /**
+     * 창이 열려 있는 메모 수
+     */
+    public int getOpenWindows() {
+        return slots.size();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * DB 에 쓰지 않고 다른 저장과 합친 수
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * 예약을 멈추고 남은 내용을 모두 저장합니다. 이후 save 는 바로 DB 에 씁니다.
+     *
+     * 창을 연 첫 저장이 아직 진행 중이면 끝나기를 기다린 뒤 마지막 내용을 씁니다. (첫 저장이 나중에 덮어쓰지 않도록)
+     * 마지막 내용은 slot 을 잠근 채로 쓰므로, 같은 메모에 대해 뒤이어 들어온 save 는 그 뒤에 씁니다.
+     */
+    @Override
+    public void close() {
+        running = false;
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Map.Entry<Key, Slot> e : slots.entrySet()) {
+            Key key = e.getKey();
+            Slot slot = e.getValue();
+            CompletableFuture<Long> first;
+            synchronized (slot) {
+                first = slot.firstWrite;
+            }
+            if (first != null) {
+                try {
+                    first.get(FIRST_WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException | TimeoutException ignored) {
+                    // 실패한 창은 openWindow 가 정리함 (closed)
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (slot) {
+                if (slot.closed) {
+                    continue;
+                }
+                String content = slot.pending;
+                slot.pending = null;
+                slot.closed = true;
+                slots.remove(key, slot);
+                if (content == null) {
+                    continue;
+                }
+                try {
+                    memoDAO.upsertMemo(new Memo(null, key.ownerId(), key.friendId(), content, key.date()));
+                    writes.incrementAndGet();
+                } catch (SQLException | RuntimeException ex) {
+                    failures.incrementAndGet();
+                    log.error("종료 중 메모 자동 저장 실패, 내용을 버립니다. owner=" + key.ownerId()
+                            + ", friend=" + key.friendId() + ", date=" + key.date(), ex);
+                }
+            }
+        }
+    }
+}
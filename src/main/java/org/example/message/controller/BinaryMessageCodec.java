@@ -0,0 +1,299 @@
+package org.example.message.controller;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.websocket.Session;
+import org.example.config.JsonSupport;
+import org.example.message.dto.SendMessageReq;
+import org.example.message.dto.SendMessageRes;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * WebSocket 바이너리 서브프로토콜(tog.bin.v1) 코덱
+ *
+ * 접속 시 Sec-WebSocket-Protocol 로 협상합니다.
+ *   tog.json.v1 (또는 지정 안 함) : 기존 JSON 텍스트 프레임
+ *   tog.bin.v1                   : 아래 형식의 바이너리 프레임
+ *
+ * 프레임 = 타입(1바이트) + 필드들. 정수는 unsigned varint(LEB128), 문자열은 varint 길이 + UTF-8.
+ * null 이 될 수 있는 Long 은 (값 + 1) 로 쓰고 0 을 null 로 씁니다. (-1 은 null 과 구분되지 않음, id/시각 용도라 실제로 쓰이지 않는 값)
+ * 문자열의 짝 없는 surrogate 는 String.getBytes(UTF_8) 와 같이 '?' 로 바뀝니다.
+ * 잘리거나 형식이 틀린 프레임(10바이트를 넘는 varint, 프레임보다 긴 문자열 등)은 디코딩 시 IOException 입니다.
+ *
+ *   SEND    (0x01, 클라이언트 → 서버) : roomId, senderId, contents
+ *   MESSAGE (0x02, 서버 → 클라이언트) : msgId, chatRoomId, senderId, createdAt, contents
+ *                                       createdAt = LocalDateTime 을 UTC 로 본 epoch millis (+1, 0 = null)
+                                                   밀리초 미만은 버리므로 JSON 의 createdAt 과 다를 수 있음
+ *   ERROR   (0x03, 서버 → 클라이언트) : message
+ *
+ * 일반적인 채팅 한 줄 기준 JSON 대비 프레임 크기가 절반 이하이고, 인코딩은 스레드별 버퍼를 재사용합니다.
+ */
+public final class BinaryMessageCodec {
+
+    public static final String JSON_SUBPROTOCOL = "tog.json.v1";
+    public static final String BINARY_SUBPROTOCOL = "tog.bin.v1";
+
+    public static final byte SEND = 0x01;
+    public static final byte MESSAGE = 0x02;
+    public static final byte ERROR = 0x03;
+
+    private static final ObjectReader RES_READER = JsonSupport.reader(SendMessageRes.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    // 인코딩/디코딩 작업용 버퍼 (스레드별 재사용, 최종 프레임만 정확한 크기로 복사)
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private BinaryMessageCodec() {
+    }
+
+    public static boolean isBinary(Session session) {
+        return BINARY_SUBPROTOCOL.equals(session.getNegotiatedSubprotocol());
+    }
+
+    // ------------------------------------------------------------------
+    // 인코딩
+    // ------------------------------------------------------------------
+
+    public static byte[] encodeRequest(SendMessageReq req) {
+        Scratch out = SCRATCH.get().reset();
+        out.writeByte(SEND);
+        out.writeNullableLong(req.getRoomId());
+        out.writeNullableLong(req.getSenderId());
+        out.writeString(req.getContents());
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeResponse(SendMessageRes res) {
+        Scratch out = SCRATCH.get().reset();
+        out.writeByte(MESSAGE);
+        out.writeNullableLong(res.getMsgId());
+        out.writeNullableLong(res.getChatRoomId());
+        out.writeNullableLong(res.getSenderId());
+        LocalDateTime createdAt = res.getCreatedAt();
+        // 밀리초 단위로 잘라서 보냄 (마이크로초 이하는 전송하지 않음)
+        out.writeNullableLong(createdAt == null ? null : createdAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        out.writeString(res.getContents());
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeError(String message) {
+        Scratch out = SCRATCH.get().reset();
+        out.writeByte(ERROR);
+        out.writeString(message);
+        return out.toByteArray();
+    }
+
+    /**
+     * 브로드캐스트용 JSON(SendMessageRes) 을 바이너리 프레임으로 변환합니다.
+     * 다른 서버(RoomBus)에서 온 메시지처럼 JSON 만 있는 경우에 쓰며, 메시지 프레임이 아니면 null.
+     */
+    public static byte[] transcodeResponseJson(String json) {
+        try {
+            SendMessageRes res = RES_READER.readValue(json);
+            if (res.getMsgId() == null || res.getChatRoomId() == null) {
+                return null;
+            }
+            return encodeResponse(res);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // 디코딩
+    // ------------------------------------------------------------------
+
+    public static SendMessageReq decodeRequest(ByteBuffer frame) throws IOException {
+        ByteBuffer in = frame.slice();
+        try {
+            expectType(in, SEND);
+            SendMessageReq req = new SendMessageReq();
+            req.setRoomId(readNullableLong(in));
+            req.setSenderId(readNullableLong(in));
+            req.setContents(readString(in));
+            return req;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("바이너리 프레임이 잘렸습니다.");
+        }
+    }
+
+    public static SendMessageRes decodeResponse(ByteBuffer frame) throws IOException {
+        ByteBuffer in = frame.slice();
+        try {
+            expectType(in, MESSAGE);
+            SendMessageRes res = new SendMessageRes();
+            res.setMsgId(readNullableLong(in));
+            res.setChatRoomId(readNullableLong(in));
+            res.setSenderId(readNullableLong(in));
+            Long millis = readNullableLong(in);
+            res.setCreatedAt(millis == null ? null
+                    : LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                            Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC));
+            res.setContents(readString(in));
+            return res;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("바이너리 프레임이 잘렸습니다.");
+        }
+    }
+
+    private static void expectType(ByteBuffer in, byte type) throws IOException {
+        byte actual = in.get();
+        if (actual != type) {
+            throw new IOException("알 수 없는 프레임 유형: " + actual);
+        }
+    }
+
+    private static Long readNullableLong(ByteBuffer in) throws IOException {
+        long v = readVarLong(in);
+        return v == 0 ? null : v - 1;
+    }
+
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            if (shift == 63 && (b & 0x7E) != 0) {
+                // 10번째 바이트에는 64번째 비트 하나만 들어갈 수 있음
+                throw new IOException("varint 가 64비트를 넘습니다.");
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("varint 가 너무 깁니다.");
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        long len = readVarLong(in);
+        if (len == 0) {
+            return null;
+        }
+        if (len < 0 || len - 1 > in.remaining()) {
+            throw new IOException("문자열 길이가 프레임보다 깁니다: " + Long.toUnsignedString(len - 1));
+        }
+        int n = (int) (len - 1);
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), n, StandardCharsets.UTF_8);
+            in.position(in.position() + n);
+        } else {
+            byte[] buf = SCRATCH.get().borrow(n);
+            in.get(buf, 0, n);
+            s = new String(buf, 0, n, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    /**
+     * 스레드별로 재사용하는 가변 길이 쓰기 버퍼
+     */
+    private static final class Scratch {
+        private byte[] buf = new byte[512];
+        private int pos;
+
+        Scratch reset() {
+            pos = 0;
+            return this;
+        }
+
+        byte[] borrow(int size) {
+            ensure(size);
+            return buf;
+        }
+
+        byte[] toByteArray() {
+            byte[] out = Arrays.copyOf(buf, pos);
+            if (buf.length > 64 * 1024) {
+                buf = new byte[512];   // 아주 큰 메시지 후에는 버퍼를 줄여 둠
+            }
+            return out;
+        }
+
+        void writeByte(int b) {
+            ensure(pos + 1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarLong(long v) {
+            ensure(pos + 10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeNullableLong(Long v) {
+            writeVarLong(v == null ? 0 : v + 1);
+        }
+
+        /**
+         * String.getBytes 없이 버퍼에 바로 UTF-8 로 씁니다. (짝 없는 surrogate 는 '?')
+         */
+        void writeString(String s) {
+            if (s == null) {
+                writeVarLong(0);
+                return;
+            }
+            int len = s.length();
+            writeVarLong(utf8Length(s) + 1L);
+            ensure(pos + len * 3);
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buf[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[pos++] = (byte) (0xC0 | (c >> 6));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buf[pos++] = '?';
+                } else {
+                    buf[pos++] = (byte) (0xE0 | (c >> 12));
+                    buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private static int utf8Length(String s) {
+            int len = s.length();
+            int bytes = 0;
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    bytes += 1;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    bytes += 1;
+                } else {
+                    bytes += 3;
+                }
+            }
+            return bytes;
+        }
+
+        private void ensure(int capacity) {
+            if (capacity > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.message.controller;
+
+import jakarta.websocket.Session;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.websocket.core.Frame;
+import org.eclipse.jetty.websocket.core.OpCode;
+import org.eclipse.jetty.websocket.jakarta.common.JakartaWebSocketSession;
+import org.example.logging.Log;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Jetty 전용 텍스트/ping 프레임 전송 (RoomBroadcaster 에서만 사용)
+ *
+ * 표준 API(RemoteEndpoint.Async.sendText)는 String 을 받아 세션마다 UTF-8 로 다시 인코딩하므로,
+ * 미리 인코딩한 바이트를 Jetty 코어 세션에 바로 넘깁니다. (모든 세션이 같은 바이트를 slice 로 공유)
+ * Jetty 11 의 Async.sendPing 은 프레임이 나갈 때까지 막히므로, ping 도 코어 세션에 콜백으로 넘깁니다.
+ *
+ * Jetty 내부 클래스(websocket-core, websocket-jakarta-common)에 의존하므로
+ * - 클래스가 없으면 처음부터 쓰지 않고,
+ * - Jetty 버전이 바뀌어 LinkageError 가 나면 그때부터 끄고,
+ * false 를 돌려줍니다. 호출자는 표준 API 로 보냅니다.
+ * Jetty 클래스는 중첩 클래스 Direct 에서만 참조하므로, 없더라도 이 클래스 로딩은 실패하지 않습니다.
+ */
+final class JettyFrameSender {
+
+    private static final Log log = Log.get(JettyFrameSender.class);
+
+    private static volatile boolean available = detect();
+
+    private JettyFrameSender() {
+    }
+
+    private static boolean detect() {
+        try {
+            ClassLoader loader = JettyFrameSender.class.getClassLoader();
+            Class.forName("org.eclipse.jetty.websocket.jakarta.common.JakartaWebSocketSession", false, loader);
+            Class.forName("org.eclipse.jetty.websocket.core.CoreSession", false, loader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return 보냈으면 true (완료 시 onComplete 호출), Jetty 경로를 쓸 수 없으면 false
+     */
+    static boolean trySendText(Session session, ByteBuffer utf8, Consumer<Throwable> onComplete) {
+        if (!available) {
+            return false;
+        }
+        try {
+            return Direct.sendText(session, utf8, onComplete);
+        } catch (LinkageError e) {
+            available = false;
+            log.warn("Jetty 직접 전송을 쓸 수 없어 표준 API 로 전송합니다: {}", e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * 빈 ping 프레임을 막히지 않고 보냅니다.
+     *
+     * @return 보냈으면 true (완료 시 onComplete 호출), Jetty 경로를 쓸 수 없으면 false
+     */
+    static boolean trySendPing(Session session, Consumer<Throwable> onComplete) {
+        if (!available) {
+            return false;
+        }
+        try {
+            return Direct.sendPing(session, onComplete);
+        } catch (LinkageError e) {
+            available = false;
+            log.warn("Jetty 직접 전송을 쓸 수 없어 표준 API 로 전송합니다: {}", e.toString());
+            return false;
+        }
+    }
+
+    private static final class Direct {
+        static boolean sendPing(Session session, Consumer<Throwable> onComplete) {
+            if (!(session instanceof JakartaWebSocketSession jakartaSession)) {
+                return false;
+            }
+            jakartaSession.getCoreSession().sendFrame(new Frame(OpCode.PING),
+                    Callback.from(() -> onComplete.accept(null), onComplete), false);
+            return true;
+        }
+
+        static boolean sendText(Session session, ByteBuffer utf8, Consumer<Throwable> onComplete) {
+            if (!(session instanceof JakartaWebSocketSession jakartaSession)) {
+                return false;
+            }
+            jakartaSession.getCoreSession().sendFrame(new Frame(OpCode.TEXT).setPayload(utf8.slice()),
+                    Callback.from(() -> onComplete.accept(null), onComplete), false);
+            return true;
+        }
+    }
+}
@@ -1,27 +1,33 @@
 package org.example.message.controller;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
-import org.example.chat.dao.ChatDAO;
-import org.example.chat.service.ChatService;
-import org.example.message.dao.MessageDAO;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.config.JsonSupport;
+import org.example.logging.Log;
 import org.example.message.dto.*;
+import org.example.message.service.LocalRoomBus;
 import org.example.message.service.MessageService;
+import org.example.message.service.MessageWriteBehind;
+import org.example.message.service.RoomBus;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.RequestMetrics;
+import org.example.user.common.dao.PresenceRegistry;
 import jakarta.websocket.*;
 import jakarta.websocket.Session;                       // ← 반드시 jakarta.websocket.Session
 import jakarta.websocket.server.ServerEndpoint;
+
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Properties;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * WebSocket 엔드포인트: 채팅방별 브로드캐스트 담당
@@ -29,132 +35,379 @@ import java.util.concurrent.CopyOnWriteArraySet;
  * 클라이언트가 접속할 때 URL에 chatRoomId를 붙여서 연결합니다.
  * 예) ws://서버주소:포트/app/ws/chat/123
  *
- * 1) @OnOpen: 채팅방 ID별로 Session을 보관
- * 2) @OnMessage: 메시지가 들어오면 저장 → 같은 방 세션 전부에 broadcast
- * 3) @OnClose: 연결 끊길 때 roomSessions에서 해당 Session 제거
+ * 1) @OnOpen: 채팅방 ID별로 Session을 보관 (RoomBroadcaster), 방의 첫 세션이면 RoomBus 구독
+ * 2) @OnMessage: 발신자 멤버 확인 → 저장 → RoomBus 로 publish (이 서버 + 같은 방 세션이 있는 다른 서버)
+ * 3) @OnClose: 연결 끊길 때 RoomBroadcaster 에서 해당 Session 제거, 마지막 세션이면 RoomBus 구독 해제
+ *
+ * 재접속: ws://서버주소:포트/app/ws/chat?chatRoomId=123&username=alice&lastSeenSeq=456
+ *   seq 는 메시지 프레임의 msgId 입니다. (방 안에서 커지지만, 동시에 저장된 메시지는 id 순서와 다르게 도착할 수 있음)
+ *   그래서 lastSeenSeq 보다 safetyMargin 만큼 앞(fromSeq)부터 놓친 메시지를 이 서버의 최근 프레임(RoomBroadcaster)에서,
+ *   없으면 DB 에서 먼저 보내고 마지막에 {"resume":{...}} 프레임으로 결과를 알린 뒤 실시간 메시지를 이어서 보냅니다.
+ *   fromSeq ~ lastSeenSeq 사이는 이미 받은 메시지가 다시 올 수 있으므로 클라이언트는 msgId 로 중복을 걸러야 합니다.
+ *   complete=false 면 재전송 한도를 넘었거나 실패한 것이므로 REST(/api/messages?after=...)로 이어서 받아야 합니다.
+ *
+ * 접속 URL 에 username 이 있고 방 멤버이면 연결이 열려 있는 동안 PresenceRegistry 에 온라인으로 잡힙니다.
+ * 수신 프레임과 pong 은 heartbeat 로 취급합니다.
+ *
+ * 서브프로토콜(Sec-WebSocket-Protocol)로 연결마다 프레임 형식을 고릅니다.
+ *   tog.json.v1 또는 미지정 : JSON 텍스트 프레임
+ *   tog.bin.v1             : 바이너리 프레임 (BinaryMessageCodec 참고)
  */
 
-@ServerEndpoint("/ws/chat")
+@ServerEndpoint(value = "/ws/chat",
+        subprotocols = {BinaryMessageCodec.JSON_SUBPROTOCOL, BinaryMessageCodec.BINARY_SUBPROTOCOL})
 public class MessageController {
 
-    // chatRoomId → 해당 방에 연결된 WebSocket 세션들 집합(Map)
-    private static final ConcurrentHashMap<Long, Set<Session>> roomSessions = new ConcurrentHashMap<>();
-    private static final ObjectMapper objectMapper = new ObjectMapper()
-            .registerModule(new JavaTimeModule())
-            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final Log log = Log.get(MessageController.class);
 
-    private final MessageService messageService; // 외부에서 주입
+    private static final ObjectReader REQ_READER = JsonSupport.reader(SendMessageReq.class);
+    private static final ObjectWriter RES_WRITER = JsonSupport.writer(SendMessageRes.class);
 
-    public MessageController() {
-        System.out.println("⚡ CTOR 진입");
-        try {
-            // 1) db.properties 로딩
-            Properties props = new Properties();
-            try (InputStream is = getClass().getClassLoader().getResourceAsStream("config/db.properties")) {
-                if (is == null) {
-                    throw new RuntimeException("db.properties 파일을 찾을 수 없습니다.");
-                }
-                props.load(is);
-            }
+    // 콜백별 처리 시간 (ws_callback_duration_seconds / ws_callback_db_seconds)
+    private static final CallbackTimer OPEN_TIMER = new CallbackTimer("open");
+    private static final CallbackTimer TEXT_TIMER = new CallbackTimer("message");
+    private static final CallbackTimer BINARY_TIMER = new CallbackTimer("binary_message");
+    private static final CallbackTimer CLOSE_TIMER = new CallbackTimer("close");
+    private static final LongAdder ERRORS = MetricsRegistry.getInstance()
+            .counter("ws_errors_total", "WebSocket @OnError 호출 수");
 
-            // 2) HikariCP 설정
-            HikariConfig config = new HikariConfig();
-            config.setJdbcUrl(props.getProperty("jdbc.url"));
-            config.setUsername(props.getProperty("jdbc.username"));
-            config.setPassword(props.getProperty("jdbc.password"));
-            config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+    // session.getUserProperties() 에 온라인으로 올린 user.id 를 보관하는 키
+    private static final String PRESENCE_USER_ID = "presenceUserId";
 
-            HikariDataSource ds = new HikariDataSource(config);
-            System.out.println("HikariDataSource 생성 완료");
+    private final MessageService messageService; // 외부에서 주입
+    private final RoomBroadcaster broadcaster;   // 방별 세션 보관 + fan-out (서버 단위로 공유)
+    private final RoomBus roomBus;               // 다른 서버로 메시지 전달 (단일 서버면 LocalRoomBus)
+    private final PresenceRegistry presence;     // 접속자 온라인 상태 (서버 단위로 공유)
 
-            // 3) 서비스 생성
-            ChatService chatService = new ChatService(new ChatDAO(ds));
-            this.messageService = new MessageService(new MessageDAO(ds), chatService);
-            System.out.println(" MessageService 생성 완료");
-        } catch (Throwable t) {
-            t.printStackTrace();
-            throw new RuntimeException(" MessageController 생성자 실패", t);
-        }
+    public MessageController(MessageService messageService) {
+        this(messageService, RoomBroadcaster.getInstance(),
+                new LocalRoomBus(RoomBroadcaster.getInstance()::broadcast));
     }
 
-    // 2) 기본 생성자: 과제 환경에서 바로 동작하도록 DEFAULT_SERVICE 사용
+    /**
+     * WebSocketRegistrar 의 Configurator 가 커넥션마다 호출합니다.
+     * 서비스/커넥션 풀/broadcaster/roomBus 는 서버 기동 시 한 번만 만들어 공유합니다.
+     */
+    public MessageController(MessageService messageService, RoomBroadcaster broadcaster, RoomBus roomBus) {
+        this(messageService, broadcaster, roomBus, PresenceRegistry.getInstance());
+    }
+
+    public MessageController(MessageService messageService, RoomBroadcaster broadcaster, RoomBus roomBus,
+                             PresenceRegistry presence) {
+        this.messageService = messageService;
+        this.broadcaster = broadcaster;
+        this.roomBus = roomBus;
+        this.presence = presence;
+    }
 
     @OnOpen
     public void onOpen(Session session) {
+        long start = System.nanoTime();
+        RequestMetrics scope = RequestMetrics.begin();
+        try {
+            open(session);
+        } finally {
+            OPEN_TIMER.record(start, scope);
+        }
+    }
+
+    private void open(Session session) {
         Long chatRoomId = extractChatRoomId(session);
-        System.out.println("onOpen진입완료");
         if (chatRoomId == null) {
             sendError(session, "chatRoomId 파라미터가 없습니다.");
             return;
         }
 
-        System.out.println("onOpen, chatRoomId = " + chatRoomId);
+        log.debug("onOpen chatRoomId={}", chatRoomId);
+
+        trackPresence(session, chatRoomId);
 
-        roomSessions
-                .computeIfAbsent(chatRoomId, id -> new CopyOnWriteArraySet<>())
-                .add(session);
+        Long lastSeenSeq = longParameter(session, "lastSeenSeq");
+        if (lastSeenSeq == null) {
+            if (broadcaster.join(chatRoomId, session)) {
+                roomBus.roomActivated(chatRoomId);
+            }
+            return;
+        }
+
+        // 먼저 방에 넣어(구독) 두고, 놓친 메시지를 모으는 동안 오는 실시간 프레임은 세션 큐에 쌓아 둠
+        if (broadcaster.joinPaused(chatRoomId, session)) {
+            roomBus.roomActivated(chatRoomId);
+        }
+        broadcaster.resume(session, replayFrames(chatRoomId, stringParameter(session, "username"), lastSeenSeq));
+    }
+
+    /**
+     * username 이 방 멤버이면 이 연결을 온라인 세션으로 셉니다. (onClose 에서 내림)
+     */
+    private void trackPresence(Session session, Long chatRoomId) {
+        if (!presence.isEnabled()) {
+            return;
+        }
+        String username = stringParameter(session, "username");
+        if (username == null) {
+            return;
+        }
+        try {
+            if (!messageService.isRoomMember(chatRoomId, username)) {
+                return;
+            }
+            Long userId = messageService.findUserId(username);
+            if (userId != null) {
+                presence.connected(userId);
+                session.getUserProperties().put(PRESENCE_USER_ID, userId);
+            }
+        } catch (SQLException e) {
+            log.warn("접속자 조회 실패 roomId={}: {}", chatRoomId, e.getMessage());
+        }
+    }
+
+    private void heartbeat(Session session) {
+        Object userId = session.getUserProperties().get(PRESENCE_USER_ID);
+        if (userId != null) {
+            presence.heartbeat((Long) userId);
+        }
+    }
+
+    /**
+     * replayFrom(lastSeenSeq) 이후 메시지 프레임 + 마지막 resume 결과 프레임
+     */
+    private List<RoomBroadcaster.OutboundFrame> replayFrames(Long chatRoomId, String username, long lastSeenSeq) {
+        List<RoomBroadcaster.OutboundFrame> frames = new ArrayList<>();
+        long fromSeq = broadcaster.replayFrom(lastSeenSeq);
+        String source;
+        boolean complete;
+        try {
+            if (!messageService.isRoomMember(chatRoomId, username)) {
+                source = "denied";
+                complete = false;
+            } else {
+                List<RoomBroadcaster.OutboundFrame> recent = broadcaster.framesAfter(chatRoomId, fromSeq);
+                if (recent != null) {
+                    frames.addAll(recent);
+                    source = "memory";
+                    complete = true;
+                } else {
+                    MessagePage page = messageService.fetchMissedMessages(chatRoomId, username, fromSeq);
+                    for (MessageInfo info : page.getMessages()) {
+                        frames.add(new RoomBroadcaster.OutboundFrame(info.getMsgId(),
+                                RES_WRITER.writeValueAsString(new SendMessageRes(info))));
+                    }
+                    source = "db";
+                    complete = !page.isHasMore();
+                }
+            }
+        } catch (SQLException | IOException e) {
+            log.warn("재전송 조회 실패 roomId={}: {}", chatRoomId, e.getMessage());
+            source = "error";
+            complete = false;
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("lastSeenSeq", lastSeenSeq);
+        result.put("fromSeq", fromSeq);
+        result.put("replayed", frames.size());
+        result.put("source", source);
+        result.put("complete", complete);
+        try {
+            frames.add(new RoomBroadcaster.OutboundFrame(0L,
+                    JsonSupport.writer().writeValueAsString(Collections.singletonMap("resume", result))));
+        } catch (IOException e) {
+            // Map 직렬화라 발생하지 않음
+        }
+        return frames;
     }
 
     @OnMessage
     public void onMessage(Session session, String messageJson) throws IOException {
+        long start = System.nanoTime();
+        RequestMetrics scope = RequestMetrics.begin();
+        try {
+            heartbeat(session);
+            SendMessageReq req = REQ_READER.readValue(messageJson);
+            handleSend(session, req);
+        } finally {
+            TEXT_TIMER.record(start, scope);
+        }
+    }
+
+    /**
+     * tog.bin.v1 세션의 SEND 프레임
+     */
+    @OnMessage
+    public void onBinaryMessage(Session session, ByteBuffer frame) throws IOException {
+        long start = System.nanoTime();
+        RequestMetrics scope = RequestMetrics.begin();
+        try {
+            heartbeat(session);
+            SendMessageReq req;
+            try {
+                req = BinaryMessageCodec.decodeRequest(frame);
+            } catch (IOException e) {
+                sendError(session, "잘못된 바이너리 프레임입니다: " + e.getMessage());
+                return;
+            }
+            handleSend(session, req);
+        } finally {
+            BINARY_TIMER.record(start, scope);
+        }
+    }
+
+    private void handleSend(Session session, SendMessageReq req) throws IOException {
         Long chatRoomId = extractChatRoomId(session);
-        System.out.println("onMessage, chatRoomId = " + chatRoomId);
+        log.debug("onMessage chatRoomId={}, req={}", chatRoomId, req);
 
         try {
-            SendMessageReq req = objectMapper.readValue(messageJson, SendMessageReq.class);
-            System.out.println("req = " + req);;
+            // 접속한 방과 요청의 방이 같고, 발신자가 그 방의 활성 멤버일 때만 저장/브로드캐스트
+            if (req.getRoomId() == null || !req.getRoomId().equals(chatRoomId)
+                    || !messageService.isRoomMember(chatRoomId, req.getSenderId())) {
+                sendError(session, "이 채팅방에 메시지를 보낼 수 없습니다.");
+                return;
+            }
+            if (messageService.isPipelined()) {
+                onMessagePipelined(session, chatRoomId, req);
+                return;
+            }
             SendMessageRes res = messageService.saveMessage(req);
-            System.out.println("res" + res);
-            String resJson = objectMapper.writeValueAsString(res);
-            System.out.println("resJson = " + resJson);
-            roomSessions.getOrDefault(chatRoomId, Collections.emptySet())
-                    .stream()
-                    .filter(Session::isOpen)
-                    .forEach(s -> s.getAsyncRemote().sendText(resJson));
+            String resJson = RES_WRITER.writeValueAsString(res);
+            log.debug("broadcast roomId={}, msgId={}", chatRoomId, res.getMsgId());
+            broadcast(chatRoomId, res.getMsgId(), resJson);
         } catch (SQLException e) {
             sendError(session, e.getMessage());
         }
     }
 
+    /**
+     * write-behind 모드: 컨테이너 스레드는 DB를 기다리지 않고,
+     * 정책에 따라 바로(AFTER_BROADCAST) 또는 배치 커밋 후(AFTER_COMMIT) 브로드캐스트합니다.
+     * committed() 콜백은 writer 스레드에서 실행되므로 큐에 넣기만 하는 broadcast/sendError 만 부릅니다.
+     */
+    private void onMessagePipelined(Session session, Long chatRoomId, SendMessageReq req) throws IOException {
+        MessageWriteBehind.Ticket ticket;
+        try {
+            ticket = messageService.submitMessage(req);
+        } catch (RejectedExecutionException e) {
+            sendError(session, "서버가 혼잡합니다. 잠시 후 다시 시도해주세요.");
+            return;
+        }
+        String resJson = RES_WRITER.writeValueAsString(new SendMessageRes(ticket.getMessage()));
+
+        if (messageService.getDurability() == MessageWriteBehind.Durability.AFTER_BROADCAST) {
+            broadcast(chatRoomId, ticket.getMessage().getMsgId(), resJson);
+            ticket.committed().exceptionally(err -> {
+                sendError(session, "메시지 저장 실패(msgId=" + ticket.getMessage().getMsgId() + "): " + err.getMessage());
+                return null;
+            });
+        } else {
+            ticket.committed().whenComplete((saved, err) -> {
+                if (err != null) {
+                    sendError(session, err.getMessage());
+                } else {
+                    broadcast(chatRoomId, ticket.getMessage().getMsgId(), resJson);
+                }
+            });
+        }
+    }
+
+    /**
+     * 서버(RoomBroadcaster, message.fanout.pingSeconds)가 보낸 ping 에 대한 pong. 연결이 살아 있다는 heartbeat 로만 씁니다.
+     */
+    @OnMessage
+    public void onPong(PongMessage pong, Session session) {
+        heartbeat(session);
+    }
+
+    private void broadcast(Long chatRoomId, Long msgId, String resJson) {
+        roomBus.publish(chatRoomId, msgId == null ? 0L : msgId, resJson);
+    }
+
     @OnClose
     public void onClose(Session session) {
-        Long chatRoomId = extractChatRoomId(session);
-        System.out.println("onClose, chatRoomId = " + chatRoomId);
+        long start = System.nanoTime();
+        RequestMetrics scope = RequestMetrics.begin();
+        try {
+            Long chatRoomId = extractChatRoomId(session);
+            log.debug("onClose chatRoomId={}", chatRoomId);
 
-        Set<Session> sessions = roomSessions.get(chatRoomId);
-        if (sessions != null) {
-            sessions.remove(session);
-            if (sessions.isEmpty()) {
-                roomSessions.remove(chatRoomId);
+            Object userId = session.getUserProperties().remove(PRESENCE_USER_ID);
+            if (userId != null) {
+                presence.disconnected((Long) userId);
             }
+
+            if (chatRoomId != null) {
+                if (broadcaster.leave(chatRoomId, session)) {
+                    roomBus.roomDeactivated(chatRoomId);
+                }
+            }
+        } finally {
+            CLOSE_TIMER.record(start, scope);
         }
     }
 
     // 공통 함수
     private Long extractChatRoomId(Session session) {
+        return longParameter(session, "chatRoomId"); // "chatRoomId=56"
+    }
+
+    private static String stringParameter(Session session, String name) {
+        List<String> values = session.getRequestParameterMap().get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static Long longParameter(Session session, String name) {
         try {
-            String query = session.getQueryString(); // "chatRoomId=56"
-            if (query == null || !query.contains("chatRoomId=")) return null;
-            return Long.parseLong(query.split("=")[1]);
-        } catch (Exception e) {
+            String value = stringParameter(session, name);
+            return value == null ? null : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
             return null;
         }
     }
     @OnError
     public void onError(Session session, Throwable throwable) {
-        System.err.println("WebSocket Error: " + throwable.getMessage());
+        ERRORS.increment();
+        log.warn("WebSocket 오류 session={}: {}", session.getId(), throwable.getMessage());
     }
 
+    /**
+     * 오류 응답은 세션 송신 큐(RoomBroadcaster.sendTo)로 비동기 전송합니다.
+     * write-behind 커밋 콜백은 writer 스레드에서 실행되므로 여기서 소켓 I/O 를 기다리면 배치 저장이 멈춥니다.
+     * 같은 큐를 쓰므로 방 프레임과 전송이 겹치지 않습니다.
+     */
     private void sendError(Session session, String errorMsg) {
+        if (!session.isOpen()) {
+            return;
+        }
         try {
-            if (session.isOpen()) {
-                String json = objectMapper.writeValueAsString(
-                        Collections.singletonMap("error", errorMsg)
-                );
-                session.getBasicRemote().sendText(json);
-            }
+            String json = JsonSupport.writer().writeValueAsString(
+                    Collections.singletonMap("error", errorMsg)
+            );
+            byte[] binary = BinaryMessageCodec.isBinary(session) ? BinaryMessageCodec.encodeError(errorMsg) : null;
+            broadcaster.sendTo(session, json, binary);
         } catch (IOException e) {
-            e.printStackTrace();
+            log.warn("오류 응답 전송 실패: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 콜백 하나의 처리 시간과 그 안에서 쓴 DB 시간 (RequestMetrics 범위를 닫으면서 기록)
+     * onOpen 은 업그레이드 요청의 MetricsFilter 범위 안에서 불리므로, 닫으면 그 범위로 되돌아갑니다.
+     */
+    private static final class CallbackTimer {
+        private final LatencyHistogram duration;
+        private final LatencyHistogram db;
+
+        CallbackTimer(String callback) {
+            MetricsRegistry metrics = MetricsRegistry.getInstance();
+            this.duration = metrics.histogram("ws_callback_duration_seconds", "WebSocket 콜백 처리 시간",
+                    "callback", callback);
+            this.db = metrics.histogram("ws_callback_db_seconds", "WebSocket 콜백 하나가 DB 에서 쓴 시간",
+                    "callback", callback);
+        }
+
+        void record(long startNanos, RequestMetrics scope) {
+            scope.end();
+            duration.recordSince(startNanos);
+            db.record(scope.getDbNanos());
         }
     }
 }
@@ -1,40 +1,49 @@
 package org.example.message.controller;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.example.chat.dao.ChatDAO;
 import org.example.chat.service.ChatService;
+import org.example.config.DataSourceRegistry;
+import org.example.config.JsonArrayResponse;
+import org.example.config.JsonSupport;
+import org.example.logging.Log;
 import org.example.message.dao.MessageDAO;
 import org.example.message.dto.*;
 import org.example.message.service.MessageService;
+import org.example.message.service.MessageWriteBehind;
 
 import javax.sql.DataSource;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintWriter;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 
 /**
         * HTTP 요청을 처리하는 MessageRestController
  * - POST /api/messages/send    → handleSendMessage
  * - GET  /api/messages         → handleGetMessageHistory
+ *        ?roomId=&username=[&before={msgId}|&after={msgId}][&size=50]
+ *        응답 헤더: X-Has-More, X-Next-Before, X-Next-After
+ *        &stream=true → after 이후를 스트리밍 (size 는 선택적 상한, 최대 MessageService.MAX_STREAM_ROWS)
  */
 
 public class MessageRestController extends HttpServlet {
 
+    private static final Log log = Log.get(MessageRestController.class);
+
+    private static final ObjectReader SEND_REQ_READER = JsonSupport.reader(SendMessageReq.class);
+    private static final ObjectWriter SEND_RES_WRITER = JsonSupport.writer(SendMessageRes.class);
+    private static final ObjectWriter MESSAGES_WRITER = JsonSupport.listWriter(MessageInfo.class);
+    private static final ObjectWriter ROW_WRITER = JsonSupport.writer(MessageInfo.class);
+
     private MessageService messageService;
-    private ObjectMapper objectMapper;
 
     public MessageRestController() {
         super();
@@ -42,65 +51,39 @@ public class MessageRestController extends HttpServlet {
 
     public MessageRestController(MessageService messageService) {
         this.messageService = messageService;
-        // 테스트에서는 간단하게 ObjectMapper 기본 설정만 해 줍니다.
-        this.objectMapper = new ObjectMapper()
-                .registerModule(new JavaTimeModule());
     }
 
     @Override
     public void init() throws ServletException {
         super.init();
 
-        // 1) ObjectMapper 초기화
-        objectMapper = new ObjectMapper()
-                .registerModule(new JavaTimeModule())
-                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-
-        // 2) db.properties 로드
-        Properties props = new Properties();
-        try (InputStream in = getClass().getClassLoader().getResourceAsStream("config/db.properties")) {
-            if (in == null) {
-                throw new ServletException("db.properties 파일을 찾을 수 없습니다.");
-            }
-            props.load(in);
-        } catch (IOException e) {
-            throw new ServletException("db.properties 로딩 실패", e);
-        }
-
-        System.out.println("[init] jdbc.url = " + props.getProperty("jdbc.url"));
-
-        // 3) HikariConfig에 JDBC 정보 주입
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(props.getProperty("jdbc.url"));
-        config.setUsername(props.getProperty("jdbc.username"));
-        config.setPassword(props.getProperty("jdbc.password"));
-        // driverClassName 은 생략 가능
-
+        // 1) 서버 공용 커넥션 풀 조회
+        DataSourceRegistry dataSources = DataSourceRegistry.from(getServletContext());
         DataSource ds;
+        DataSource readDs;
         try {
-            ds = new HikariDataSource(config);
-            System.out.println("[init] DataSource = " + ds);
+            ds = dataSources.write();
+            readDs = dataSources.read();
         } catch (Exception e) {
             throw new ServletException("HikariDataSource 생성 실패", e);
         }
-        System.out.println("DataSource 초기화 성공: " + ds);
+        log.debug("DataSource 초기화 성공: {}", ds);
 
-        // 4) Service 계층 초기화
+        // 2) Service 계층 초기화
         ChatService chatService = new ChatService(new ChatDAO(ds));
-        this.messageService = new MessageService(new MessageDAO(ds), chatService);
+        MessageWriteBehind writeBehind =
+                (MessageWriteBehind) getServletContext().getAttribute(MessageWriteBehind.CONTEXT_ATTRIBUTE);
+        this.messageService = new MessageService(new MessageDAO(ds, readDs), chatService, writeBehind);
     }
 
 
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        System.out.println(">> Incoming POST");
-        System.out.println("   servletPath: " + req.getServletPath());
-        System.out.println("   pathInfo   : " + req.getPathInfo());
         resp.setContentType("application/json; charset=UTF-8");
 
         String path = req.getPathInfo(); // expected "/send"
-        System.out.println("path: " + path);
+        log.debug("doPost servletPath={}, pathInfo={}", req.getServletPath(), path);
 
         try {
             if ("/send".equals(path)) {
@@ -109,11 +92,10 @@ public class MessageRestController extends HttpServlet {
                 resp.sendError(HttpServletResponse.SC_NOT_FOUND, "지원하지 않는 경로: POST " + path);
             }
         } catch (Exception e) {
-            // 예외 스택트레이스와 메시지 모두 찍기
-            e.printStackTrace();
+            log.error("POST " + path + " 처리 실패", e);
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().write(
-                    new ObjectMapper().writeValueAsString(
+                    JsonSupport.writer().writeValueAsString(
                             Map.of("error", e.getClass().getSimpleName(),
                                     "message", e.getMessage())
                     )
@@ -125,7 +107,7 @@ public class MessageRestController extends HttpServlet {
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         resp.setContentType("application/json; charset=UTF-8");
         String path = req.getPathInfo(); // expected null or "/"
-        System.out.println("path: " + path);
+        log.debug("doGet pathInfo={}", path);
         if (path == null || "/".equals(path)) {
             handleGetMessageHistory(req, resp);
         } else {
@@ -134,14 +116,14 @@ public class MessageRestController extends HttpServlet {
     }
 
     private void handleSendMessage(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        SendMessageReq sendReq = objectMapper.readValue(req.getInputStream(), SendMessageReq.class);
-        System.out.println("sendReq: " + sendReq);
+        SendMessageReq sendReq = SEND_REQ_READER.readValue(req.getInputStream());
+        log.debug("sendReq: {}", sendReq);
         try {
             SendMessageRes sendRes = messageService.saveMessage(sendReq);
-            System.out.println("sendRes: " + sendRes);
+            log.debug("sendRes: {}", sendRes);
             resp.setStatus(HttpServletResponse.SC_CREATED);
             try (PrintWriter out = resp.getWriter()) {
-                objectMapper.writeValue(out, sendRes);
+                SEND_RES_WRITER.writeValue(out, sendRes);
             }
         } catch (SQLException e) {
             resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
@@ -150,41 +132,88 @@ public class MessageRestController extends HttpServlet {
 
     private void handleGetMessageHistory(HttpServletRequest req,
                                          HttpServletResponse resp) throws IOException {
-        // 1) 로그 찍어보기
-        System.out.printf("[handleGetMessageHistory] roomId=%s, username=%s%n",
-                req.getParameter("roomId"),
-                req.getParameter("username"));
-
-        // 2) 파라미터 유효성 검사
+        // 1) 파라미터 유효성 검사
         String roomIdParam = req.getParameter("roomId");
         String username    = req.getParameter("username");
+        log.debug("handleGetMessageHistory roomId={}, username={}", roomIdParam, username);
         if (roomIdParam == null || username == null) {
             resp.sendError(HttpServletResponse.SC_BAD_REQUEST,
                     "Missing roomId or username parameter");
             return;
         }
 
-        // 3) 타입 변환
-        Long roomId = Long.valueOf(roomIdParam);
-        System.out.println("roomId: " + roomId);
+        // 3) 타입 변환 (페이지 파라미터: before / after = msg_id 커서, size = 페이지 크기)
+        Long roomId;
+        Long before;
+        Long after;
+        int size;
+        try {
+            roomId = Long.valueOf(roomIdParam);
+            before = parseLongParam(req, "before");
+            after  = parseLongParam(req, "after");
+            Long sizeParam = parseLongParam(req, "size");
+            size = sizeParam == null ? MessageService.DEFAULT_PAGE_SIZE : sizeParam.intValue();
+        } catch (NumberFormatException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "roomId, before, after, size 는 숫자여야 합니다.");
+            return;
+        }
+        if (before != null && after != null) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "before 와 after 는 동시에 지정할 수 없습니다.");
+            return;
+        }
+
+        // stream=true : 페이지보다 큰 범위를 keyset 배치로 읽어 JsonGenerator 로 바로 전송
+        if (Boolean.parseBoolean(req.getParameter("stream"))) {
+            if (before != null) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "stream 모드는 after 커서만 지원합니다.");
+                return;
+            }
+            Long sizeParam = parseLongParam(req, "size");
+            streamMessageHistory(resp, roomId, username, after, sizeParam == null ? 0 : sizeParam.intValue());
+            return;
+        }
 
         try {
             // 4) 서비스 호출
-            List<MessageInfo> messages = messageService.fetchMessages(roomId, username);
+            MessagePage page = messageService.fetchMessages(roomId, username, before, after, size);
+            List<MessageInfo> messages = page.getMessages();
 
-            // 5) 응답 작성
+            // 5) 응답 작성 (본문은 기존과 같은 배열, 다음 페이지 정보는 헤더로 전달)
             resp.setStatus(HttpServletResponse.SC_OK);
             resp.setContentType("application/json; charset=UTF-8");
+            resp.setHeader("X-Has-More", String.valueOf(page.isHasMore()));
+            if (page.getOldestMsgId() != null) {
+                resp.setHeader("X-Next-Before", String.valueOf(page.getOldestMsgId()));
+                resp.setHeader("X-Next-After", String.valueOf(page.getNewestMsgId()));
+            }
 
-            System.out.println("messages: " + messages);
+            log.debug("messages: {}", messages);
             try (PrintWriter out = resp.getWriter()) {
-                objectMapper.writeValue(out, messages);
+                MESSAGES_WRITER.writeValue(out, messages);
             }
         } catch (SQLException e) {
             // DB 에러는 500으로
-            System.err.println("[ERROR] " + e.getMessage());
+            log.error("메시지 조회 실패 roomId=" + roomId, e);
             resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
         }
     }
 
+    /**
+     * 메시지 이력 스트리밍 응답
+     * DB 에서는 500 행씩 keyset 으로 읽고 배치마다 커넥션을 돌려주므로, 힙 사용량과 커넥션 점유가 이력 길이와 무관합니다.
+     * 한 번에 최대 MessageService.MAX_STREAM_ROWS 개까지 보내고, 더 받으려면 마지막 msgId 를 after 로 다시 요청합니다.
+     */
+    private void streamMessageHistory(HttpServletResponse resp, Long roomId, String username,
+                                      Long after, int limit) throws IOException {
+        int count = JsonArrayResponse.stream(resp, "메시지 이력 roomId=" + roomId,
+                gen -> messageService.streamMessages(roomId, username, after, limit,
+                        row -> ROW_WRITER.writeValue(gen, row)));
+        log.debug("streamMessageHistory roomId={}, rows={}", roomId, count);
+    }
+
+    private static Long parseLongParam(HttpServletRequest req, String name) {
+        String value = req.getParameter(name);
+        return value == null || value.isBlank() ? null : Long.valueOf(value.trim());
+    }
+
 }
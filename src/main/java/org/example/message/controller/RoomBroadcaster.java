@@ -0,0 +1,663 @@
+package org.example.message.controller;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Session;
+import org.example.logging.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * RoomBroadcaster
+ * ---------------
+ * 채팅방별 WebSocket 세션 보관 + 메시지 fan-out 엔진
+ *
+ * 1) 프레임은 한 번만 UTF-8 로 인코딩하고, 모든 세션이 같은 ByteBuffer 를 slice 해서 보냅니다.
+ * 2) 방마다 고정된 lane(단일 스레드)에서 fan-out 하므로, 보낸 스레드는 방 크기와 무관하게 바로 돌아가고
+ *    같은 방의 메시지 순서는 유지됩니다.
+ * 3) 세션마다 bounded 송신 큐를 두고, 한 번에 한 프레임만 전송 중이도록(완료 콜백에서 다음 프레임) 합니다.
+ *    큐가 가득 찬 느린 세션은 정책에 따라 프레임을 버리거나(DROP) 연결을 끊습니다(DISCONNECT).
+ *    → 큰 그룹방에서 가장 느린 클라이언트 때문에 보낸 사람이나 다른 멤버가 기다리지 않습니다.
+ * 4) 바이너리 서브프로토콜(tog.bin.v1) 세션에는 같은 프레임을 BinaryMessageCodec 으로 한 번만 변환해서 보냅니다.
+ * 5) seq(= msgId) 가 있는 프레임은 방별로 최근 N 개를 전송 순서대로 보관합니다. (재접속 시 재전송용)
+ *    방에 이 서버의 세션이 하나도 남지 않으면 버립니다. (그 사이 메시지는 이 서버로 오지 않으므로)
+ *    REST 페이지용 RecentMessageCache 와 달리 이미 인코딩된 프레임을 전송 순서대로 보관합니다.
+ *    msg_id 는 AUTO_INCREMENT 라 동시에 저장된 메시지는 id 순서와 다르게 커밋·전송될 수 있습니다.
+ *    그래서 재전송은 lastSeenSeq 가 아니라 replayFrom(lastSeenSeq) = lastSeenSeq - safetyMargin 이후부터 하고,
+ *    이미 받은 메시지와 겹치는 부분은 클라이언트가 msgId 로 걸러냅니다.
+ * 6) 재접속 세션은 재전송분을 모으는 동안 실시간 프레임을 송신 큐와 따로 보관(hold)합니다.
+ *    DB 조회가 길어져도 queueCapacity 때문에 끊기지 않고, resume 뒤에 재전송분 다음으로 나갑니다.
+ * 7) pingSeconds 마다 모든 세션에 ping 을 보냅니다. pong 은 MessageController 가 heartbeat 로 받고,
+ *    유휴 연결이 중간 프록시에서 끊기지 않으며 죽은 연결은 전송 실패나 idle timeout 으로 정리됩니다.
+ *    ping 은 막히지 않게 보내고(Jetty 코어 세션, 안 되면 작은 bounded 풀), 세션마다 한 번에 하나만 보냅니다.
+ *    보낼 프레임이 밀려 있는 세션은 건너뜁니다. (데이터 전송이 끝나거나 실패하는 것으로 충분)
+ *
+ * config.properties:
+ *   message.fanout.lanes=0                    # 0 이면 CPU 코어 수
+ *   message.fanout.queueCapacity=256          # 세션당 대기 프레임 수
+ *   message.fanout.slowConsumerPolicy=DISCONNECT   # 또는 DROP
+ *   message.resume.bufferSize=256             # 방별 재전송용 최근 프레임 수 (0 이면 항상 DB)
+ *   message.resume.safetyMargin=128           # lastSeenSeq 보다 이만큼 앞의 msgId 부터 다시 보냄
+ *   message.resume.holdCapacity=4096          # 재전송 준비 중 세션당 보관하는 실시간 프레임 수
+ *   message.fanout.pingSeconds=30             # 서버 ping 주기 (0 이면 보내지 않음)
+ */
+public class RoomBroadcaster implements AutoCloseable {
+
+    private static final Log log = Log.get(RoomBroadcaster.class);
+
+    public enum SlowConsumerPolicy {
+        DROP,        // 새 프레임을 버림 (연결 유지)
+        DISCONNECT   // 연결 종료 → 클라이언트가 재접속 후 이력으로 따라잡음
+    }
+
+    private static final String OUTBOUND_KEY = RoomBroadcaster.class.getName() + ".outbound";
+
+    // Jetty 직접 전송을 못 쓸 때 sendPing 을 돌리는 스레드 수 / 대기 수 (넘치면 그 주기의 ping 은 건너뜀)
+    private static final int PING_SENDER_THREADS = 2;
+    private static final int PING_SENDER_QUEUE = 1024;
+
+    private static RoomBroadcaster instance;
+
+    private final ConcurrentHashMap<Long, Room> rooms = new ConcurrentHashMap<>();
+    private final ExecutorService[] lanes;
+    private final int queueCapacity;
+    private final SlowConsumerPolicy policy;
+    private final int resumeBufferSize;
+    private final long resumeSafetyMargin;
+    private final int holdCapacity;
+
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong slowDisconnects = new AtomicLong();
+
+    private ScheduledExecutorService pinger;
+    private ExecutorService pingSenders;   // Jetty 직접 전송을 못 쓸 때 막히는 sendPing 을 돌리는 bounded 풀
+
+    public RoomBroadcaster(int laneCount, int queueCapacity, SlowConsumerPolicy policy) {
+        this(laneCount, queueCapacity, policy, 256);
+    }
+
+    public RoomBroadcaster(int laneCount, int queueCapacity, SlowConsumerPolicy policy, int resumeBufferSize) {
+        this(laneCount, queueCapacity, policy, resumeBufferSize, 128, 4096);
+    }
+
+    public RoomBroadcaster(int laneCount, int queueCapacity, SlowConsumerPolicy policy,
+                           int resumeBufferSize, long resumeSafetyMargin, int holdCapacity) {
+        int n = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ExecutorService[n];
+        AtomicInteger seq = new AtomicInteger();
+        for (int i = 0; i < n; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "room-fanout-" + seq.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        this.resumeBufferSize = resumeBufferSize;
+        this.resumeSafetyMargin = Math.max(0, resumeSafetyMargin);
+        this.holdCapacity = Math.max(queueCapacity, holdCapacity);
+    }
+
+    public static RoomBroadcaster fromProperties(Properties props) {
+        RoomBroadcaster broadcaster = new RoomBroadcaster(
+                Integer.parseInt(props.getProperty("message.fanout.lanes", "0").trim()),
+                Integer.parseInt(props.getProperty("message.fanout.queueCapacity", "256").trim()),
+                SlowConsumerPolicy.valueOf(props.getProperty("message.fanout.slowConsumerPolicy", "DISCONNECT").trim()),
+                Integer.parseInt(props.getProperty("message.resume.bufferSize", "256").trim()),
+                Long.parseLong(props.getProperty("message.resume.safetyMargin", "128").trim()),
+                Integer.parseInt(props.getProperty("message.resume.holdCapacity", "4096").trim())
+        );
+        broadcaster.startPings(Long.parseLong(props.getProperty("message.fanout.pingSeconds", "30").trim()));
+        return broadcaster;
+    }
+
+    /**
+     * 이 서버의 모든 세션에 seconds 마다 ping 을 보냅니다. (0 이하이면 아무것도 하지 않음)
+     */
+    public synchronized void startPings(long seconds) {
+        if (seconds <= 0 || pinger != null) {
+            return;
+        }
+        pinger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ws-ping");
+            t.setDaemon(true);
+            return t;
+        });
+        pingSenders = new ThreadPoolExecutor(PING_SENDER_THREADS, PING_SENDER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(PING_SENDER_QUEUE), r -> {
+                    Thread t = new Thread(r, "ws-ping-send");
+                    t.setDaemon(true);
+                    return t;
+                });
+        pinger.scheduleWithFixedDelay(this::pingAll, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    private void pingAll() {
+        ExecutorService senders;
+        synchronized (this) {
+            senders = pingSenders;
+        }
+        if (senders == null) {
+            return;
+        }
+        for (Room room : rooms.values()) {
+            for (SessionOutbound outbound : room.sessions) {
+                outbound.ping(senders);
+            }
+        }
+    }
+
+    /**
+     * 서버 객체 없이 엔드포인트만 쓰는 경우(벤치마크 등)의 기본 인스턴스
+     */
+    public static synchronized RoomBroadcaster getInstance() {
+        if (instance == null) {
+            instance = new RoomBroadcaster(0, 256, SlowConsumerPolicy.DISCONNECT);
+        }
+        return instance;
+    }
+
+    /**
+     * @return 이 서버에서 해당 방의 첫 세션이면 true (RoomBus 구독 시작 신호)
+     */
+    public boolean join(long roomId, Session session) {
+        return join(roomId, session, false);
+    }
+
+    /**
+     * 재접속(lastSeenSeq) 세션용 join: 세션을 방에 넣되 resume() 전까지 새 프레임은 따로 보관(hold)합니다.
+     * 놓친 메시지를 조회하는 동안 도착한 프레임도 빠지지 않고, 재전송분 뒤에 순서대로 나갑니다.
+     * 보관 한도는 queueCapacity 가 아니라 holdCapacity 입니다. (DB 조회가 느려도 끊지 않음)
+     *
+     * @return 이 서버에서 해당 방의 첫 세션이면 true
+     */
+    public boolean joinPaused(long roomId, Session session) {
+        return join(roomId, session, true);
+    }
+
+    private boolean join(long roomId, Session session, boolean paused) {
+        SessionOutbound outbound = outboundOf(session);
+        if (paused) {
+            outbound.pause();
+        }
+        boolean[] first = new boolean[1];
+        rooms.compute(roomId, (id, room) -> {
+            if (room == null) {
+                room = new Room(resumeBufferSize, resumeSafetyMargin);
+                first[0] = true;
+            }
+            room.sessions.add(outbound);
+            return room;
+        });
+        return first[0];
+    }
+
+    /**
+     * @return 이 서버에서 해당 방의 마지막 세션이 나갔으면 true (RoomBus 구독 해제 신호)
+     */
+    public boolean leave(long roomId, Session session) {
+        SessionOutbound outbound = (SessionOutbound) session.getUserProperties().get(OUTBOUND_KEY);
+        if (outbound == null) {
+            return false;
+        }
+        outbound.discard();
+        boolean[] last = new boolean[1];
+        rooms.computeIfPresent(roomId, (id, room) -> {
+            room.sessions.remove(outbound);
+            if (room.sessions.isEmpty()) {
+                last[0] = true;
+                return null;   // 최근 프레임도 함께 버림 (다시 활성화되면 새로 쌓음)
+            }
+            return room;
+        });
+        return last[0];
+    }
+
+    /**
+     * joinPaused 한 세션에 재전송 프레임을 먼저 보내고, 그동안 쌓인 실시간 프레임을 이어서 보냅니다.
+     * 재전송분과 seq 가 겹치는 실시간 프레임은 한 번만 보냅니다.
+     */
+    public void resume(Session session, List<OutboundFrame> replay) {
+        SessionOutbound outbound = (SessionOutbound) session.getUserProperties().get(OUTBOUND_KEY);
+        if (outbound != null) {
+            outbound.resume(replay);
+        }
+    }
+
+    /**
+     * 재전송을 시작할 seq: lastSeenSeq 보다 safetyMargin 만큼 앞 (이 값보다 큰 msgId 를 다시 보냄)
+     * lastSeenSeq 보다 작은 id 가 나중에 커밋돼 클라이언트가 받지 못했을 수 있기 때문입니다.
+     */
+    public long replayFrom(long lastSeenSeq) {
+        return Math.max(0L, lastSeenSeq - resumeSafetyMargin);
+    }
+
+    /**
+     * 이 서버가 보관 중인 최근 프레임으로 seq 가 fromSeq 보다 큰 메시지를 빠짐없이 재전송할 수 있으면
+     * 그 목록(전송 순서), 아니면 null (DB 조회 필요)
+     */
+    public List<OutboundFrame> framesAfter(long roomId, long fromSeq) {
+        Room room = rooms.get(roomId);
+        return room == null || room.recent == null ? null : room.recent.after(fromSeq);
+    }
+
+    /**
+     * 이 서버에서 해당 방에 연결된 세션이 있는지
+     */
+    public boolean hasSessions(long roomId) {
+        Room room = rooms.get(roomId);
+        return room != null && !room.sessions.isEmpty();
+    }
+
+    public Set<Long> activeRoomIds() {
+        return Collections.unmodifiableSet(rooms.keySet());
+    }
+
+    /**
+     * 방의 모든 세션에 텍스트 프레임 전송 (비동기, 호출 스레드는 기다리지 않음, 재전송 버퍼에 남기지 않음)
+     */
+    public void broadcast(long roomId, String json) {
+        broadcast(roomId, 0L, json);
+    }
+
+    /**
+     * 메시지 프레임 전송. seq(msgId) 가 0 보다 크면 재전송용 최근 프레임에도 보관합니다.
+     */
+    public void broadcast(long roomId, long seq, String json) {
+        if (!hasSessions(roomId)) {
+            return;
+        }
+        OutboundFrame frame = new OutboundFrame(seq, json);
+        try {
+            lanes[laneOf(roomId)].execute(() -> {
+                Room room = rooms.get(roomId);
+                if (room == null) {
+                    return;
+                }
+                if (seq > 0 && room.recent != null) {
+                    // lane 에서 기록하므로 보관 순서 = 세션에 나간 순서
+                    room.recent.add(frame);
+                }
+                for (SessionOutbound outbound : room.sessions) {
+                    outbound.enqueue(frame);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 종료 중
+        }
+    }
+
+    /**
+     * 한 세션에만 보내는 프레임 (오류 응답 등, 비동기)
+     * 방 프레임과 같은 세션 송신 큐를 거치므로 어느 스레드에서 불러도 소켓 I/O 로 막히지 않습니다.
+     * binary 가 null 이 아니면 바이너리 세션에는 그 바이트를 그대로 보냅니다.
+     */
+    public void sendTo(Session session, String json, byte[] binary) {
+        outboundOf(session).enqueue(new OutboundFrame(0L, json, binary));
+    }
+
+    private int laneOf(long roomId) {
+        return (int) Math.floorMod(roomId ^ (roomId >>> 32), (long) lanes.length);
+    }
+
+    private SessionOutbound outboundOf(Session session) {
+        return (SessionOutbound) session.getUserProperties()
+                .computeIfAbsent(OUTBOUND_KEY, k -> new SessionOutbound(session));
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    public long getSlowDisconnects() {
+        return slowDisconnects.get();
+    }
+
+    public int getSessionCount() {
+        return rooms.values().stream().mapToInt(room -> room.sessions.size()).sum();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (pinger != null) {
+                pinger.shutdownNow();
+                pingSenders.shutdownNow();
+                pinger = null;
+                pingSenders = null;
+            }
+        }
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            try {
+                lane.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 한 번 인코딩해서 여러 세션이 공유하는 프레임 (텍스트 + 필요할 때만 만드는 바이너리)
+     */
+    static final class OutboundFrame {
+        private final long seq;   // msgId, 메시지가 아닌 프레임은 0
+        private final String text;
+        private final ByteBuffer utf8;
+        private ByteBuffer binary;
+        private boolean binaryResolved;
+
+        OutboundFrame(long seq, String text) {
+            this.seq = seq;
+            this.text = text;
+            this.utf8 = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        }
+
+        /**
+         * 바이너리 세션용 페이로드를 미리 정한 프레임 (binary 가 null 이면 텍스트로 전송)
+         */
+        OutboundFrame(long seq, String text, byte[] binary) {
+            this(seq, text);
+            this.binary = binary == null ? null : ByteBuffer.wrap(binary).asReadOnlyBuffer();
+            this.binaryResolved = true;
+        }
+
+        /**
+         * 바이너리 세션용 페이로드 (메시지 프레임이 아니면 null → 텍스트로 전송)
+         */
+        synchronized ByteBuffer binary() {
+            if (!binaryResolved) {
+                byte[] encoded = BinaryMessageCodec.transcodeResponseJson(text);
+                binary = encoded == null ? null : ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+                binaryResolved = true;
+            }
+            return binary;
+        }
+
+        void send(Session session, boolean binarySession, Consumer<Throwable> onComplete) {
+            ByteBuffer payload = binarySession ? binary() : null;
+            if (payload != null) {
+                // 표준 API 로도 같은 바이트를 slice 로 공유 (재인코딩 없음)
+                session.getAsyncRemote().sendBinary(payload.slice(),
+                        result -> onComplete.accept(result.isOK() ? null : result.getException()));
+            } else if (!JettyFrameSender.trySendText(session, utf8, onComplete)) {
+                // Jetty 직접 전송을 쓸 수 없으면 표준 API (세션마다 UTF-8 인코딩)
+                session.getAsyncRemote().sendText(text,
+                        result -> onComplete.accept(result.isOK() ? null : result.getException()));
+            }
+        }
+    }
+
+    /**
+     * 세션별 bounded 송신 큐 (전송 중인 프레임은 항상 최대 1개)
+     *
+     * resume 때 넣은 재전송·보관 프레임(backlog)은 큐 앞쪽에 있고 queueCapacity 에 세지 않습니다.
+     * 느린 세션 판단은 그 뒤에 새로 쌓인 실시간 프레임 수로만 합니다.
+     */
+    final class SessionOutbound {
+        private final Session session;
+        private final boolean binary;
+        private final ArrayDeque<OutboundFrame> queue = new ArrayDeque<>();
+        private final ArrayDeque<OutboundFrame> held = new ArrayDeque<>();   // paused 동안 받은 실시간 프레임
+        private int backlog;   // 큐 앞쪽에 남은 resume 프레임 수
+        private boolean pingInFlight;
+        private boolean sending;
+        private boolean paused;
+        private boolean closed;
+
+        SessionOutbound(Session session) {
+            this.session = session;
+            this.binary = BinaryMessageCodec.isBinary(session);
+        }
+
+        void enqueue(OutboundFrame frame) {
+            synchronized (this) {
+                if (closed || !session.isOpen()) {
+                    return;
+                }
+                if (paused) {
+                    if (held.size() >= holdCapacity) {
+                        onSlowConsumer();
+                        return;
+                    }
+                    held.add(frame);
+                    return;
+                }
+                if (sending) {
+                    if (queue.size() - backlog >= queueCapacity) {
+                        onSlowConsumer();
+                        return;
+                    }
+                    queue.add(frame);
+                    return;
+                }
+                sending = true;
+            }
+            send(frame);
+        }
+
+        private void send(OutboundFrame frame) {
+            try {
+                frame.send(session, binary, this::onSent);
+            } catch (RuntimeException e) {
+                onSent(e);
+            }
+        }
+
+        private void onSent(Throwable error) {
+            OutboundFrame next;
+            synchronized (this) {
+                if (error != null) {
+                    // 전송 실패 = 연결이 끊어진 것으로 보고 더 보내지 않음
+                    closed = true;
+                    queue.clear();
+                    held.clear();
+                    backlog = 0;
+                    sending = false;
+                    return;
+                }
+                framesSent.incrementAndGet();
+                next = queue.poll();
+                if (backlog > 0) {
+                    backlog--;
+                }
+                if (next == null) {
+                    sending = false;
+                    return;
+                }
+            }
+            send(next);
+        }
+
+        // synchronized(this) 안에서 호출
+        private void onSlowConsumer() {
+            if (policy == SlowConsumerPolicy.DROP) {
+                framesDropped.incrementAndGet();
+                return;
+            }
+            closed = true;
+            framesDropped.addAndGet(queue.size() + held.size() + 1L);
+            queue.clear();
+            held.clear();
+            backlog = 0;
+            slowDisconnects.incrementAndGet();
+            log.warn("느린 클라이언트 연결 종료: {}", session.getId());
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "slow consumer"));
+            } catch (IOException e) {
+                log.warn("연결 종료 실패: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * ping 하나를 막히지 않고 보냅니다. 이전 ping 이 아직 나가는 중이거나, 데이터 프레임이 밀려 있거나,
+         * 재전송을 기다리는 세션은 건너뜁니다. 실패는 다음 전송/idle timeout 이 처리합니다.
+         */
+        void ping(ExecutorService senders) {
+            synchronized (this) {
+                if (closed || paused || sending || pingInFlight || !session.isOpen()) {
+                    return;
+                }
+                pingInFlight = true;
+            }
+            try {
+                if (JettyFrameSender.trySendPing(session, this::onPinged)) {
+                    return;
+                }
+                senders.execute(() -> {
+                    Throwable error = null;
+                    try {
+                        session.getAsyncRemote().sendPing(ByteBuffer.allocate(0));
+                    } catch (IOException | RuntimeException e) {
+                        error = e;
+                    }
+                    onPinged(error);
+                });
+            } catch (RuntimeException e) {
+                // RejectedExecutionException: 풀이 밀려 있으면 이번 주기는 건너뜀
+                onPinged(e);
+            }
+        }
+
+        private void onPinged(Throwable error) {
+            synchronized (this) {
+                pingInFlight = false;
+            }
+            if (error != null) {
+                log.debug("ping 실패 {}: {}", session.getId(), error.getMessage());
+            }
+        }
+
+        synchronized void pause() {
+            paused = true;
+        }
+
+        void resume(List<OutboundFrame> replay) {
+            OutboundFrame next;
+            synchronized (this) {
+                paused = false;
+                if (closed) {
+                    return;
+                }
+                Set<Long> replayed = new HashSet<>();
+                for (OutboundFrame frame : replay) {
+                    if (frame.seq > 0) {
+                        replayed.add(frame.seq);
+                    }
+                }
+                // 재전송분 → 보관해 둔 실시간 프레임 순서, 이 연결 안에서는 seq 가 겹치지 않게
+                queue.addAll(replay);
+                for (OutboundFrame frame : held) {
+                    if (frame.seq == 0 || replayed.add(frame.seq)) {
+                        queue.add(frame);
+                    }
+                }
+                held.clear();
+                backlog = queue.size();
+                if (sending || queue.isEmpty()) {
+                    return;
+                }
+                sending = true;
+                next = queue.poll();
+                backlog--;
+            }
+            send(next);
+        }
+
+        synchronized void discard() {
+            closed = true;
+            queue.clear();
+            held.clear();
+            backlog = 0;
+        }
+    }
+
+    /**
+     * 이 서버에서 활성 상태인 방 하나 (세션 + 최근 프레임)
+     * 마지막 세션이 나가면 통째로 버리므로, 다시 활성화된 방은 빈 최근 프레임에서 시작합니다.
+     */
+    static final class Room {
+        final Set<SessionOutbound> sessions = new CopyOnWriteArraySet<>();
+        final RecentFrames recent;
+
+        Room(int resumeBufferSize, long safetyMargin) {
+            this.recent = resumeBufferSize > 0 ? new RecentFrames(resumeBufferSize, safetyMargin) : null;
+        }
+    }
+
+    /**
+     * 방별 최근 메시지 프레임 (전송 순서, 고정 크기)
+     *
+     * completeAbove: seq 가 이 값보다 큰 메시지는 이 방에 전송된 것이 모두 남아 있음
+     * - 버린(evict) 프레임의 seq 중 최댓값까지 올라갑니다.
+     * - 방이 활성화되기 전에 전송된 메시지는 없으므로, 첫 프레임 seq + safetyMargin 에서 시작합니다.
+     *   (첫 프레임보다 id 가 큰데 먼저 전송된 메시지는 safetyMargin 안쪽이라고 봄)
+     */
+    static final class RecentFrames {
+        private final int capacity;
+        private final long safetyMargin;
+        private final ArrayDeque<OutboundFrame> frames;
+        private long completeAbove = Long.MAX_VALUE;
+
+        RecentFrames(int capacity, long safetyMargin) {
+            this.capacity = capacity;
+            this.safetyMargin = safetyMargin;
+            this.frames = new ArrayDeque<>(capacity);
+        }
+
+        synchronized void add(OutboundFrame frame) {
+            if (completeAbove == Long.MAX_VALUE) {
+                completeAbove = frame.seq + safetyMargin;
+            }
+            if (frames.size() >= capacity) {
+                completeAbove = Math.max(completeAbove, frames.poll().seq);
+            }
+            frames.add(frame);
+        }
+
+        /**
+         * seq 가 fromSeq 보다 큰 프레임 전부 (클라이언트가 받은 순서 그대로),
+         * 그중 일부가 이미 버려졌거나 보관 전에 전송됐을 수 있으면 null
+         */
+        synchronized List<OutboundFrame> after(long fromSeq) {
+            if (frames.isEmpty() || fromSeq < completeAbove) {
+                return null;
+            }
+            List<OutboundFrame> result = new ArrayList<>();
+            for (OutboundFrame f : frames) {
+                if (f.seq > fromSeq) {
+                    result.add(f);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -2,19 +2,34 @@
 package org.example.message.dao;
 
 import org.example.message.dto.MessageInfo;
+import org.example.message.dto.MessagePage;
 import org.example.message.entity.Message;
+import org.example.user.common.dao.UserIdentityCache;
 
+import java.io.IOException;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import javax.sql.DataSource;
 
 public class MessageDAO {
+    // 이력 스트리밍에서 커넥션 하나로 읽는 행 수 (읽은 뒤 커넥션을 돌려주고 나서 클라이언트에 씀)
+    static final int STREAM_BATCH_SIZE = 500;
+
     private final DataSource ds;
+    private final DataSource readDs;   // 이력 조회 전용 (읽기 풀)
+    private final UserIdentityCache identities;
 
     public MessageDAO(DataSource ds) {
+        this(ds, ds);
+    }
+
+    public MessageDAO(DataSource ds, DataSource readDs) {
         this.ds = ds;
+        this.readDs = readDs;
+        this.identities = UserIdentityCache.getInstance();
     }
     /**
      * 메시지 저장, 저장된 엔티티 반환 (id, createdAt 포함)
@@ -37,38 +52,88 @@ public class MessageDAO {
         return msg;
     }
 
+    /**
+     * 여러 메시지를 multi-row INSERT 한 번으로 저장 (write-behind 파이프라인용)
+     * msg_id 는 호출자가 미리 부여한 값을 그대로 사용하며, 전체가 한 트랜잭션으로 처리됩니다.
+     */
+    public void saveBatch(List<Message> msgs) throws SQLException {
+        if (msgs.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO message (msg_id, room_id, sender_id, contents, created_at) VALUES ");
+        for (int i = 0; i < msgs.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+
+        try (Connection conn = ds.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                int idx = 1;
+                for (Message msg : msgs) {
+                    ps.setLong(idx++, msg.getMsgId());
+                    ps.setLong(idx++, msg.getRoomId());
+                    ps.setLong(idx++, msg.getSenderId());
+                    ps.setString(idx++, msg.getContents());
+                    ps.setTimestamp(idx++, Timestamp.valueOf(msg.getCreatedAt()));
+                }
+                ps.executeUpdate();
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * 현재 저장된 가장 큰 msg_id (없으면 0) — 서버측 시퀀스 초기값
+     */
+    public long selectMaxMsgId() throws SQLException {
+        String sql = "SELECT COALESCE(MAX(msg_id), 0) FROM message";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+
+    // 가입 이후 메시지 조회 공통 SELECT/JOIN (WHERE 조건 뒤에 커서/정렬을 붙여 사용)
+    private static final String HISTORY_SELECT =
+            "SELECT " +
+                    "  m.msg_id        AS msgId, " +
+                    "  m.room_id       AS chatRoomId, " +
+                    "  m.sender_id     AS senderId, " +
+                    "  u2.username     AS senderUsername, " +
+                    "  m.contents      AS contents, " +
+                    "  m.created_at    AS createdAt " +
+                    "FROM message m " +
+                    // 1) 아직 나가지 않은 멤버 정보
+                    "JOIN chat_room_member cm " +
+                    "  ON cm.room_id    = m.room_id " +
+                    " AND cm.left_at    IS NULL " +
+                    // 2) username 으로 현재 사용자의 user_id 가져오기
+                    //    (JOIN user 대신 필요하면 `\"user\"` 로 감싸세요)
+                    "JOIN user u1 " +
+                    "  ON u1.id         = cm.user_id " +
+                    " AND u1.username   = ? " +
+                    // 3) 메시지 보낸 사람 조회
+                    "LEFT JOIN user u2 " +
+                    "  ON u2.id         = m.sender_id " +
+                    // 4) 방 ID 필터 및 입장 시점 이후 메시지만
+                    "WHERE m.room_id       = ? " +
+                    "  AND m.created_at   >= cm.joined_at ";
 
     /**
      * 특정 방의 가입 이후 메시지 조회 (사용자별)
      */
     public List<MessageInfo> selectChatHistorySinceJoin(Long roomId, String username) throws SQLException {
-        String sql =
-                "SELECT " +
-                        "  m.msg_id        AS msgId, " +
-                        "  m.room_id       AS chatRoomId, " +
-                        "  m.sender_id     AS senderId, " +
-                        "  u2.username     AS senderUsername, " +
-                        "  m.contents      AS contents, " +
-                        "  m.created_at    AS createdAt " +
-                        "FROM message m " +
-                        // 1) 아직 나가지 않은 멤버 정보
-                        "JOIN chat_room_member cm " +
-                        "  ON cm.room_id    = m.room_id " +
-                        " AND cm.left_at    IS NULL " +
-                        // 2) username 으로 현재 사용자의 user_id 가져오기
-                        //    (JOIN user 대신 필요하면 `\"user\"` 로 감싸세요)
-                        "JOIN user u1 " +
-                        "  ON u1.id         = cm.user_id " +
-                        " AND u1.username   = ? " +
-                        // 3) 메시지 보낸 사람 조회
-                        "LEFT JOIN user u2 " +
-                        "  ON u2.id         = m.sender_id " +
-                        // 4) 방 ID 필터 및 입장 시점 이후 메시지만
-                        "WHERE m.room_id       = ? " +
-                        "  AND m.created_at   >= cm.joined_at " +
-                        "ORDER BY m.created_at ASC";
+        String sql = HISTORY_SELECT + "ORDER BY m.created_at ASC";
 
-        try (Connection conn = ds.getConnection();
+        try (Connection conn = readDs.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, username);
             ps.setLong(2, roomId);
@@ -76,32 +141,204 @@ public class MessageDAO {
             try (ResultSet rs = ps.executeQuery()) {
                 List<MessageInfo> list = new ArrayList<>();
                 while (rs.next()) {
-                    MessageInfo info = new MessageInfo();
-                    info.setMsgId(rs.getLong("msgId"));
-                    info.setRoomId(rs.getLong("chatRoomId"));
-                    info.setSenderId(rs.getLong("senderId"));
-                    info.setSenderUsername(rs.getString("senderUsername"));
-                    info.setContents(rs.getString("contents"));
-                    info.setCreatedAt(rs.getTimestamp("createdAt").toLocalDateTime());
-                    list.add(info);
+                    list.add(toMessageInfo(rs));
                 }
                 return list;
             }
         }
     }
 
-    // 사용자명으로 ID 조회 (user 테이블 사용)
-    private Long getUserIdByUsername(String username) throws SQLException {
-        String sql = "SELECT id FROM user WHERE username = ?";
+    /**
+     * 가입 이후 메시지를 msg_id 기준 keyset 페이지로 조회
+     *
+     * - beforeMsgId 지정 : 그보다 오래된 메시지 중 최신 limit 개 (위로 스크롤)
+     * - afterMsgId 지정  : 그보다 새로운 메시지 중 오래된 순 limit 개 (놓친 메시지 따라잡기)
+     * - 둘 다 null       : 가장 최근 limit 개
+     *
+     * (room_id, msg_id) 인덱스를 그대로 타므로 방의 전체 메시지 수와 무관하게 limit 행만 읽습니다.
+     * 결과는 항상 msg_id 오름차순이며, limit+1 번째 행 존재 여부로 hasMore 를 판단합니다.
+     */
+    public MessagePage selectChatHistoryPage(Long roomId, String username,
+                                             Long beforeMsgId, Long afterMsgId, int limit) throws SQLException {
+        return selectPage(readDs, roomId, username, beforeMsgId, afterMsgId, limit);
+    }
+
+    /**
+     * WebSocket 재접속 시 놓친 메시지 (afterMsgId 이후, 오래된 순 limit 개)
+     *
+     * 복제 지연 때문에 빠지는 메시지가 없도록 읽기 풀이 아닌 쓰기 풀(primary)에서 읽습니다.
+     * (room_id, msg_id) 인덱스 범위 조회라 재접속이 몰려도 전체 이력 조회보다 훨씬 가볍습니다.
+     */
+    public MessagePage selectMissedMessages(Long roomId, String username, long afterMsgId, int limit) throws SQLException {
+        return selectPage(ds, roomId, username, null, afterMsgId, limit);
+    }
+
+    private MessagePage selectPage(DataSource source, Long roomId, String username,
+                                   Long beforeMsgId, Long afterMsgId, int limit) throws SQLException {
+        boolean forward = afterMsgId != null;
+        StringBuilder sql = new StringBuilder(HISTORY_SELECT);
+        if (forward) {
+            sql.append("  AND m.msg_id > ? ORDER BY m.msg_id ASC ");
+        } else if (beforeMsgId != null) {
+            sql.append("  AND m.msg_id < ? ORDER BY m.msg_id DESC ");
+        } else {
+            sql.append("ORDER BY m.msg_id DESC ");
+        }
+        sql.append("LIMIT ?");
+
+        try (Connection conn = source.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int idx = 1;
+            ps.setString(idx++, username);
+            ps.setLong(idx++, roomId);
+            if (forward) {
+                ps.setLong(idx++, afterMsgId);
+            } else if (beforeMsgId != null) {
+                ps.setLong(idx++, beforeMsgId);
+            }
+            ps.setInt(idx, limit + 1);
+
+            List<MessageInfo> list = new ArrayList<>(limit + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(toMessageInfo(rs));
+                }
+            }
+
+            boolean hasMore = list.size() > limit;
+            if (hasMore) {
+                list.remove(list.size() - 1);
+            }
+            if (!forward) {
+                Collections.reverse(list);
+            }
+            return new MessagePage(list, hasMore, forward);
+        }
+    }
+
+    /**
+     * 가입 이후 메시지를 msg_id 오름차순으로 한 행씩 handler 에 넘깁니다. (스트리밍 응답용)
+     *
+     * msg_id keyset 으로 STREAM_BATCH_SIZE 개씩 읽고, 커넥션을 돌려준 뒤에 handler 를 부릅니다.
+     * → 느린 클라이언트에 쓰는 동안 읽기 풀 커넥션(과 PoolLimited 허가)을 잡고 있지 않고,
+     *   서버 쪽 net_write_timeout 에 걸려 결과가 중간에 잘리지도 않습니다. 메모리에는 한 배치만 올라갑니다.
+     * 배치 사이에 커밋된 메시지는 msg_id 가 마지막으로 읽은 값보다 크면 포함됩니다.
+     *
+     * @param afterMsgId 이 msg_id 이후부터 (null 이면 처음부터)
+     * @param limit      최대 행 수 (0 이하이면 제한 없음, 호출자가 상한을 정함)
+     * @return 전달한 행 수
+     */
+    public int streamChatHistorySinceJoin(Long roomId, String username, Long afterMsgId, int limit,
+                                          MessageRowHandler handler) throws SQLException, IOException {
+        String sql = HISTORY_SELECT +
+                "  AND m.msg_id > ? " +
+                "ORDER BY m.msg_id ASC " +
+                "LIMIT ?";
+
+        int count = 0;
+        long after = afterMsgId == null ? 0L : afterMsgId;
+        while (limit <= 0 || count < limit) {
+            int batchSize = limit <= 0 ? STREAM_BATCH_SIZE : Math.min(STREAM_BATCH_SIZE, limit - count);
+            List<MessageInfo> batch = new ArrayList<>(batchSize);
+            try (Connection conn = readDs.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, username);
+                ps.setLong(2, roomId);
+                ps.setLong(3, after);
+                ps.setInt(4, batchSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        batch.add(toMessageInfo(rs));
+                    }
+                }
+            }
+            for (MessageInfo row : batch) {
+                handler.handle(row);
+            }
+            count += batch.size();
+            if (batch.size() < batchSize) {
+                break;
+            }
+            after = batch.get(batch.size() - 1).getMsgId();
+        }
+        return count;
+    }
+
+    /**
+     * 방의 최근 메시지 limit 개 (멤버 조건 없음, msg_id 오름차순) — RecentMessageCache 초기 적재용
+     *
+     * 캐시가 채워진 뒤에는 저장 경로에서 바로 append 하므로, 빠지는 메시지가 없도록 primary 에서 읽습니다.
+     */
+    public List<MessageInfo> selectLatestRoomMessages(long roomId, int limit) throws SQLException {
+        String sql = "SELECT " +
+                "  m.msg_id     AS msgId, " +
+                "  m.room_id    AS chatRoomId, " +
+                "  m.sender_id  AS senderId, " +
+                "  u.username   AS senderUsername, " +
+                "  m.contents   AS contents, " +
+                "  m.created_at AS createdAt " +
+                "FROM message m " +
+                "LEFT JOIN user u ON u.id = m.sender_id " +
+                "WHERE m.room_id = ? " +
+                "ORDER BY m.msg_id DESC LIMIT ?";
+
         try (Connection conn = ds.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, username);
+            ps.setLong(1, roomId);
+            ps.setInt(2, limit);
+
+            List<MessageInfo> list = new ArrayList<>(limit);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getLong("id");
+                while (rs.next()) {
+                    list.add(toMessageInfo(rs));
                 }
             }
+            Collections.reverse(list);
+            return list;
         }
-        return null;
+    }
+
+    /**
+     * 저장된 메시지를 조회 결과와 같은 MessageInfo 로 변환 (발신자 username 은 UserIdentityCache)
+     */
+    public MessageInfo toMessageInfo(Message msg) throws SQLException {
+        UserIdentityCache.Identity sender = identities.resolveById(ds, msg.getSenderId());
+        MessageInfo info = new MessageInfo();
+        info.setMsgId(msg.getMsgId());
+        info.setRoomId(msg.getRoomId());
+        info.setSenderId(msg.getSenderId());
+        info.setSenderUsername(sender == null ? null : sender.getUsername());
+        info.setContents(msg.getContents());
+        info.setCreatedAt(asStored(msg.getCreatedAt()));
+        return info;
+    }
+
+    // created_at 은 TIMESTAMP(초 단위) 컬럼이라 MySQL 이 소수 초를 반올림해 저장함 → DB 조회 결과와 같은 값으로 맞춤
+    private static LocalDateTime asStored(LocalDateTime createdAt) {
+        LocalDateTime seconds = createdAt.withNano(0);
+        return createdAt.getNano() >= 500_000_000 ? seconds.plusSeconds(1) : seconds;
+    }
+
+    private static MessageInfo toMessageInfo(ResultSet rs) throws SQLException {
+        MessageInfo info = new MessageInfo();
+        info.setMsgId(rs.getLong("msgId"));
+        info.setRoomId(rs.getLong("chatRoomId"));
+        info.setSenderId(rs.getLong("senderId"));
+        info.setSenderUsername(rs.getString("senderUsername"));
+        info.setContents(rs.getString("contents"));
+        info.setCreatedAt(rs.getTimestamp("createdAt").toLocalDateTime());
+        return info;
+    }
+
+    /**
+     * username → user.id (없으면 null, UserIdentityCache 공유 캐시)
+     */
+    public Long findUserId(String username) throws SQLException {
+        return getUserIdByUsername(username);
+    }
+
+    // 사용자명으로 ID 조회 (UserIdentityCache 공유 캐시)
+    private Long getUserIdByUsername(String username) throws SQLException {
+        return identities.resolveId(ds, username);
     }
 }
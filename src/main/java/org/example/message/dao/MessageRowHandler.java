@@ -0,0 +1,14 @@
+package org.example.message.dao;
+
+import org.example.message.dto.MessageInfo;
+
+import java.io.IOException;
+
+/**
+ * MessageDAO 스트리밍 조회 시 한 행씩 전달받는 콜백
+ * (보통 JsonGenerator 로 바로 써서 전체 목록을 메모리에 올리지 않도록 사용)
+ */
+@FunctionalInterface
+public interface MessageRowHandler {
+    void handle(MessageInfo row) throws IOException;
+}
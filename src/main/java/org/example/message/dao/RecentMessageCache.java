@@ -0,0 +1,540 @@
+package org.example.message.dao;
+
+import org.example.config.TestApiConfig;
+import org.example.logging.Log;
+import org.example.message.dto.MessageInfo;
+import org.example.message.dto.MessagePage;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RecentMessageCache
+ * ------------------
+ * 활성 채팅방마다 최근 메시지 perRoom 개를 고정 크기 링 버퍼로 보관합니다.
+ * 입장(joinChat)과 최근/이전/이후 페이지 조회(fetchMessages)가 버퍼 범위 안이면 DB 없이 응답합니다.
+ *
+ * - 방 버퍼는 처음 "최근 페이지" 조회 때 primary 에서 최근 perRoom 개를 읽어 채웁니다. (lazy)
+ *   읽기 전에 빈 버퍼를 먼저 등록하므로, 읽는 동안 저장된 메시지도 빠지지 않습니다.
+ * - 이후 MessageService 가 저장(커밋)된 메시지를 append 합니다. 버퍼가 없는 방은 무시합니다.
+ * - 메시지는 MessageInfo 객체 대신 필드별 배열(long[] / String[])로 보관해 객체 헤더와 참조를 줄입니다.
+ * - 버퍼는 "floor 이상의 msg_id 는 모두 가지고 있다" 를 보장하며, 요청 구간이 floor 아래로 내려가면
+ *   null 을 돌려주어 호출자가 DB 로 조회하게 합니다.
+ * - maxRooms 를 넘으면 가장 오래 쓰이지 않은 방부터(LRU), maxBytes 를 넘어도 LRU 순으로 제거하고,
+ *   idleSeconds 동안 조회/저장이 없던 방은 주기적으로 정리합니다.
+ *
+ * 이 서버에서 저장된 메시지만 반영되므로 message.bus.type=tcp (여러 서버) 에서는 사용하지 않습니다.
+ *
+ * RoomBroadcaster.RecentFrames 와는 따로 둡니다. 이쪽은 REST 페이지용으로 msg_id 순 MessageInfo 를 가입 시점 조건과 함께
+ * 잘라 주고, RecentFrames 는 WebSocket 재접속용으로 세션에 나간 순서대로 인코딩된 프레임을 세션이 있는 동안만
+ * 들고 있으며 tcp 버스에서도 동작합니다.
+ *
+ * config.properties:
+ *   message.recent.enabled=true
+ *   message.recent.perRoom=200
+ *   message.recent.maxRooms=2000
+ *   message.recent.maxMegabytes=64
+ *   message.recent.idleSeconds=600
+ */
+public class RecentMessageCache {
+
+    private static final Log log = Log.get(RecentMessageCache.class);
+
+    public static final int DEFAULT_PER_ROOM = 200;
+    public static final int DEFAULT_MAX_ROOMS = 2_000;
+    public static final long DEFAULT_MAX_MEGABYTES = 64;
+    public static final long DEFAULT_IDLE_SECONDS = 600;
+
+    // 유휴 방 정리 주기
+    private static final long SWEEP_INTERVAL_NANOS = 10_000_000_000L;
+
+    private static RecentMessageCache instance;
+
+    /**
+     * 방의 최근 메시지 limit 개를 msg_id 오름차순으로 읽어오는 함수 (MessageDAO 가 제공)
+     */
+    @FunctionalInterface
+    public interface Loader {
+        List<MessageInfo> loadLatest(long roomId, int limit) throws SQLException;
+    }
+
+    private final boolean enabled;
+    private final int perRoom;
+    private final int maxRooms;
+    private final long maxBytes;
+    private final long idleNanos;
+
+    private final LinkedHashMap<Long, Ring> rooms;
+    private final AtomicLong totalBytes = new AtomicLong();
+    private long lastSweep = System.nanoTime();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RecentMessageCache(boolean enabled, int perRoom, int maxRooms, long maxBytes, long idleSeconds) {
+        this.enabled = enabled && perRoom > 0 && maxRooms > 0;
+        this.perRoom = perRoom;
+        this.maxRooms = maxRooms;
+        this.maxBytes = maxBytes;
+        this.idleNanos = idleSeconds * 1_000_000_000L;
+        this.rooms = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 프로세스 공용 인스턴스 (config.properties 의 message.recent.* 사용)
+     */
+    public static synchronized RecentMessageCache getInstance() {
+        if (instance == null) {
+            instance = fromProperties(new TestApiConfig().getProperties());
+        }
+        return instance;
+    }
+
+    public static RecentMessageCache fromProperties(Properties props) {
+        boolean enabled = Boolean.parseBoolean(props.getProperty("message.recent.enabled", "true").trim());
+        if (enabled && "tcp".equalsIgnoreCase(props.getProperty("message.bus.type", "local").trim())) {
+            log.info("message.bus.type=tcp 이므로 최근 메시지 캐시를 사용하지 않습니다.");
+            enabled = false;
+        }
+        return new RecentMessageCache(
+                enabled,
+                Integer.parseInt(props.getProperty("message.recent.perRoom", String.valueOf(DEFAULT_PER_ROOM)).trim()),
+                Integer.parseInt(props.getProperty("message.recent.maxRooms", String.valueOf(DEFAULT_MAX_ROOMS)).trim()),
+                Long.parseLong(props.getProperty("message.recent.maxMegabytes", String.valueOf(DEFAULT_MAX_MEGABYTES)).trim())
+                        * 1024 * 1024,
+                Long.parseLong(props.getProperty("message.recent.idleSeconds", String.valueOf(DEFAULT_IDLE_SECONDS)).trim())
+        );
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 캐시로 응답할 수 있는 최대 페이지 크기
+     */
+    public int getPerRoom() {
+        return perRoom;
+    }
+
+    /**
+     * 저장(커밋)된 메시지를 방 버퍼에 추가합니다. 버퍼가 없는 방이면 아무것도 하지 않습니다.
+     */
+    public void append(MessageInfo info) {
+        if (!enabled || info.getMsgId() == null || info.getRoomId() == null) {
+            return;
+        }
+        Ring ring;
+        synchronized (this) {
+            ring = rooms.get(info.getRoomId());
+        }
+        if (ring != null) {
+            account(ring.add(info));
+        }
+    }
+
+    /**
+     * 가입 시점(joinedAt) 이후 메시지 keyset 페이지 (MessageDAO.selectChatHistoryPage 와 같은 결과)
+     *
+     * @param loader 버퍼가 없을 때 채울 함수. null 이면 버퍼가 없을 때 바로 null.
+     * @return 버퍼로 응답할 수 없으면 null (호출자가 DB 조회)
+     */
+    public MessagePage page(long roomId, LocalDateTime joinedAt, Long beforeMsgId, Long afterMsgId,
+                            int limit, Loader loader) throws SQLException {
+        if (!enabled || limit > perRoom) {
+            return null;
+        }
+        Ring ring = ring(roomId, loader);
+        MessagePage page = ring == null ? null : ring.page(joinedAt, beforeMsgId, afterMsgId, limit);
+        (page == null ? misses : hits).incrementAndGet();
+        return page;
+    }
+
+    private Ring ring(long roomId, Loader loader) throws SQLException {
+        Ring ring;
+        synchronized (this) {
+            sweepIdle();
+            ring = rooms.get(roomId);
+            if (ring != null || loader == null) {
+                return ring != null && ring.isReady() ? ring : null;
+            }
+            // 빈 버퍼를 먼저 등록 → 읽는 동안 저장된 메시지는 append 로 들어옴
+            ring = new Ring(roomId, perRoom);
+            rooms.put(roomId, ring);
+            totalBytes.addAndGet(ring.bytes);
+            if (rooms.size() > maxRooms) {
+                evictEldest();
+            }
+        }
+
+        loads.incrementAndGet();
+        List<MessageInfo> latest;
+        try {
+            latest = loader.loadLatest(roomId, perRoom);
+        } catch (SQLException | RuntimeException e) {
+            remove(roomId, ring);
+            throw e;
+        }
+        account(ring.seed(latest, latest.size() < perRoom));
+        return ring;
+    }
+
+    /**
+     * 방 버퍼 제거 (방 삭제 등 이력이 바뀌는 경우)
+     */
+    public void invalidate(long roomId) {
+        Ring removed;
+        synchronized (this) {
+            removed = rooms.remove(roomId);
+        }
+        if (removed != null) {
+            totalBytes.addAndGet(-removed.close());
+        }
+    }
+
+    public synchronized void clear() {
+        for (Ring ring : rooms.values()) {
+            totalBytes.addAndGet(-ring.close());
+        }
+        rooms.clear();
+    }
+
+    private synchronized void remove(long roomId, Ring ring) {
+        if (rooms.get(roomId) == ring) {
+            rooms.remove(roomId);
+        }
+        totalBytes.addAndGet(-ring.close());
+    }
+
+    /**
+     * 버퍼 크기 변화를 반영하고, 전체 한도를 넘었으면 LRU 순으로 방을 제거합니다.
+     */
+    private void account(long deltaBytes) {
+        if (deltaBytes == 0) {
+            return;
+        }
+        if (totalBytes.addAndGet(deltaBytes) > maxBytes) {
+            synchronized (this) {
+                while (totalBytes.get() > maxBytes && rooms.size() > 1) {
+                    evictEldest();
+                }
+            }
+        }
+    }
+
+    // synchronized(this) 안에서 호출
+    private void evictEldest() {
+        Iterator<Ring> it = rooms.values().iterator();
+        if (it.hasNext()) {
+            Ring eldest = it.next();
+            it.remove();
+            totalBytes.addAndGet(-eldest.close());
+            evictions.incrementAndGet();
+        }
+    }
+
+    // synchronized(this) 안에서 호출. access-order 이므로 앞에서부터 유휴 방만 제거
+    private void sweepIdle() {
+        long now = System.nanoTime();
+        if (now - lastSweep < SWEEP_INTERVAL_NANOS) {
+            return;
+        }
+        lastSweep = now;
+        Iterator<Map.Entry<Long, Ring>> it = rooms.entrySet().iterator();
+        while (it.hasNext()) {
+            Ring ring = it.next().getValue();
+            if (now - ring.lastTouched() < idleNanos) {
+                break;
+            }
+            it.remove();
+            totalBytes.addAndGet(-ring.close());
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized int size() {
+        return rooms.size();
+    }
+
+    public long getBytes() {
+        return totalBytes.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * 방 하나의 링 버퍼 (msg_id 오름차순, 필드별 배열)
+     *
+     * 논리 인덱스 i 의 실제 위치는 (head + i) % capacity 입니다.
+     * floor 이상의 msg_id 는 모두 버퍼에 있고, completeHistory 이면 방의 전체 이력을 가지고 있습니다.
+     */
+    static final class Ring {
+        // 메시지 한 건당 배열 칸(long 4개 + 참조 2개) 외 String 객체 고정 비용 추정치
+        private static final int STRING_OVERHEAD = 40;
+
+        private final long roomId;
+        private final int capacity;
+        private final long[] msgIds;
+        private final long[] senderIds;
+        private final long[] createdAtSeconds;
+        private final int[] createdAtNanos;
+        private final String[] senderUsernames;
+        private final String[] contents;
+
+        private int head;
+        private int size;
+        private long floor = Long.MAX_VALUE;   // seed 전에는 아무 범위도 보장하지 않음
+        private boolean completeHistory;
+        private boolean ready;
+        private boolean closed;
+        private long bytes;
+        private volatile long lastTouched = System.nanoTime();
+
+        Ring(long roomId, int capacity) {
+            this.roomId = roomId;
+            this.capacity = capacity;
+            this.msgIds = new long[capacity];
+            this.senderIds = new long[capacity];
+            this.createdAtSeconds = new long[capacity];
+            this.createdAtNanos = new int[capacity];
+            this.senderUsernames = new String[capacity];
+            this.contents = new String[capacity];
+            this.bytes = (long) capacity * (8 * 3 + 4 + 8 * 2);
+        }
+
+        long lastTouched() {
+            return lastTouched;
+        }
+
+        synchronized boolean isReady() {
+            return ready && !closed;
+        }
+
+        /**
+         * DB 에서 읽은 최근 메시지로 채웁니다. 그 사이 append 된 메시지와는 msg_id 로 합칩니다.
+         *
+         * @param latest   msg_id 오름차순
+         * @param complete 방의 전체 이력이면 true
+         * @return 늘어난 바이트 수
+         */
+        synchronized long seed(List<MessageInfo> latest, boolean complete) {
+            if (closed) {
+                return 0;
+            }
+            long before = bytes;
+            for (MessageInfo info : latest) {
+                insert(info);
+            }
+            if (floor == Long.MAX_VALUE) {
+                // 밀려난 메시지가 없으면 읽어온 범위의 시작부터 보장
+                completeHistory = complete || latest.isEmpty();
+                floor = completeHistory ? 0 : latest.get(0).getMsgId();
+            } else if (!latest.isEmpty()) {
+                floor = Math.max(floor, latest.get(0).getMsgId());
+            }
+            ready = true;
+            lastTouched = System.nanoTime();
+            return bytes - before;
+        }
+
+        /**
+         * @return 늘어난 바이트 수 (오래된 메시지가 밀려나면 음수일 수 있음)
+         */
+        synchronized long add(MessageInfo info) {
+            if (closed) {
+                return 0;
+            }
+            long before = bytes;
+            insert(info);
+            lastTouched = System.nanoTime();
+            return bytes - before;
+        }
+
+        private void insert(MessageInfo info) {
+            long msgId = info.getMsgId();
+            int pos = search(msgId);
+            if (pos >= 0) {
+                return;   // 이미 있음
+            }
+            pos = -pos - 1;
+            if (size == capacity) {
+                if (pos == 0) {
+                    return;   // 가장 오래된 것보다도 오래됨 → 보관하지 않음 (floor 아래)
+                }
+                evictOldest();
+                pos--;
+            }
+            // pos 뒤쪽을 한 칸씩 밀기 (대부분 pos == size 라 이동 없음)
+            for (int i = size; i > pos; i--) {
+                copy(slot(i - 1), slot(i));
+            }
+            int s = slot(pos);
+            LocalDateTime createdAt = info.getCreatedAt();
+            msgIds[s] = msgId;
+            senderIds[s] = info.getSenderId() == null ? 0L : info.getSenderId();
+            createdAtSeconds[s] = createdAt.toEpochSecond(ZoneOffset.UTC);
+            createdAtNanos[s] = createdAt.getNano();
+            senderUsernames[s] = info.getSenderUsername();
+            contents[s] = info.getContents();
+            bytes += sizeOf(info.getContents());
+            size++;
+        }
+
+        private void evictOldest() {
+            int s = slot(0);
+            bytes -= sizeOf(contents[s]);
+            floor = msgIds[s] + 1;
+            completeHistory = false;
+            senderUsernames[s] = null;
+            contents[s] = null;
+            head = (head + 1) % capacity;
+            size--;
+        }
+
+        private void copy(int from, int to) {
+            msgIds[to] = msgIds[from];
+            senderIds[to] = senderIds[from];
+            createdAtSeconds[to] = createdAtSeconds[from];
+            createdAtNanos[to] = createdAtNanos[from];
+            senderUsernames[to] = senderUsernames[from];
+            contents[to] = contents[from];
+        }
+
+        private static long sizeOf(String s) {
+            return s == null ? 0 : STRING_OVERHEAD + 2L * s.length();
+        }
+
+        private int slot(int index) {
+            return (head + index) % capacity;
+        }
+
+        /**
+         * msg_id 이진 탐색. 있으면 논리 인덱스, 없으면 -(삽입 위치) - 1
+         */
+        private int search(long msgId) {
+            int lo = 0;
+            int hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                long v = msgIds[slot(mid)];
+                if (v < msgId) {
+                    lo = mid + 1;
+                } else if (v > msgId) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(lo + 1);
+        }
+
+        synchronized MessagePage page(LocalDateTime joinedAt, Long beforeMsgId, Long afterMsgId, int limit) {
+            if (!ready || closed) {
+                return null;
+            }
+            lastTouched = System.nanoTime();
+            long joinedSeconds = joinedAt.toEpochSecond(ZoneOffset.UTC);
+            int joinedNanos = joinedAt.getNano();
+
+            List<MessageInfo> list = new ArrayList<>(Math.min(limit + 1, size));
+            if (afterMsgId != null) {
+                // 이후 방향: afterMsgId 다음부터 전부 버퍼에 있어야 함
+                if (!completeHistory && afterMsgId + 1 < floor) {
+                    return null;
+                }
+                int pos = search(afterMsgId);
+                for (int i = pos >= 0 ? pos + 1 : -pos - 1; i < size && list.size() <= limit; i++) {
+                    int s = slot(i);
+                    if (!isBefore(s, joinedSeconds, joinedNanos)) {
+                        list.add(toInfo(s));
+                    }
+                }
+                boolean hasMore = list.size() > limit;
+                if (hasMore) {
+                    list.remove(list.size() - 1);
+                }
+                return new MessagePage(list, hasMore, true);
+            }
+
+            // 최근/이전 방향: 뒤에서부터 limit+1 개 또는 가입 시점 이전 메시지를 만날 때까지
+            int start;
+            if (beforeMsgId == null) {
+                start = size - 1;
+            } else {
+                int pos = search(beforeMsgId);
+                start = (pos >= 0 ? pos : -pos - 1) - 1;
+            }
+            boolean reachedJoin = false;
+            for (int i = start; i >= 0 && list.size() <= limit; i--) {
+                int s = slot(i);
+                if (isBefore(s, joinedSeconds, joinedNanos)) {
+                    reachedJoin = true;
+                    break;
+                }
+                list.add(toInfo(s));
+            }
+            boolean hasMore = list.size() > limit;
+            if (hasMore) {
+                list.remove(list.size() - 1);
+            } else if (!reachedJoin && !completeHistory) {
+                return null;   // 더 오래된 메시지가 DB 에만 있을 수 있음
+            }
+            Collections.reverse(list);
+            return new MessagePage(list, hasMore, false);
+        }
+
+        private boolean isBefore(int s, long seconds, int nanos) {
+            long sec = createdAtSeconds[s];
+            return sec < seconds || (sec == seconds && createdAtNanos[s] < nanos);
+        }
+
+        private MessageInfo toInfo(int s) {
+            MessageInfo info = new MessageInfo();
+            info.setMsgId(msgIds[s]);
+            info.setRoomId(roomId);
+            info.setSenderId(senderIds[s]);
+            info.setSenderUsername(senderUsernames[s]);
+            info.setContents(contents[s]);
+            info.setCreatedAt(LocalDateTime.ofEpochSecond(createdAtSeconds[s], createdAtNanos[s], ZoneOffset.UTC));
+            return info;
+        }
+
+        /**
+         * 캐시에서 빠질 때 호출. 이후 add/seed 는 무시됩니다.
+         *
+         * @return 반환할 바이트 수
+         */
+        synchronized long close() {
+            if (closed) {
+                return 0;
+            }
+            closed = true;
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.message.dto;
+
+import java.util.List;
+
+/**
+ * 메시지 이력 keyset 페이지
+ *
+ * - messages : msg_id 오름차순
+ * - hasMore  : 요청한 방향(이전/이후)으로 더 남아 있는지
+ * - forward  : afterMsgId 로 조회한 경우 true (새 메시지 방향)
+ *
+ * 다음 페이지 커서:
+ *   더 오래된 메시지 → before = getOldestMsgId()
+ *   더 새로운 메시지 → after  = getNewestMsgId()
+ */
+public class MessagePage {
+    private List<MessageInfo> messages;
+    private boolean hasMore;
+    private boolean forward;
+
+    public MessagePage() { }
+
+    public MessagePage(List<MessageInfo> messages, boolean hasMore, boolean forward) {
+        this.messages = messages;
+        this.hasMore = hasMore;
+        this.forward = forward;
+    }
+
+    public List<MessageInfo> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<MessageInfo> messages) {
+        this.messages = messages;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public boolean isForward() {
+        return forward;
+    }
+
+    public void setForward(boolean forward) {
+        this.forward = forward;
+    }
+
+    public Long getOldestMsgId() {
+        return messages == null || messages.isEmpty() ? null : messages.get(0).getMsgId();
+    }
+
+    public Long getNewestMsgId() {
+        return messages == null || messages.isEmpty() ? null : messages.get(messages.size() - 1).getMsgId();
+    }
+}
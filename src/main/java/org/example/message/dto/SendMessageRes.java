@@ -35,6 +35,15 @@ public class SendMessageRes {
         this.createdAt      = m.getCreatedAt();
     }
 
+    // 이력 조회 결과를 실시간 프레임과 같은 모양으로 (WebSocket 재접속 시 재전송용)
+    public SendMessageRes(MessageInfo info) {
+        this.msgId = info.getMsgId();
+        this.chatRoomId = info.getRoomId();
+        this.senderId = info.getSenderId();
+        this.contents = info.getContents();
+        this.createdAt = info.getCreatedAt();
+    }
+
     public Long getMsgId() {
         return msgId;
     }
@@ -0,0 +1,30 @@
+package org.example.message.service;
+
+/**
+ * 단일 서버용 RoomBus: 로컬 세션에만 전달합니다.
+ */
+public class LocalRoomBus implements RoomBus {
+
+    private final LocalDelivery localDelivery;
+
+    public LocalRoomBus(LocalDelivery localDelivery) {
+        this.localDelivery = localDelivery;
+    }
+
+    @Override
+    public void publish(long roomId, long seq, String json) {
+        localDelivery.deliver(roomId, seq, json);
+    }
+
+    @Override
+    public void roomActivated(long roomId) {
+    }
+
+    @Override
+    public void roomDeactivated(long roomId) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
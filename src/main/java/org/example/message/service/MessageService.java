@@ -1,64 +1,296 @@
 // MessageService.java
 package org.example.message.service;
 
+import org.example.chat.dto.JoinChatReqDto;
+import org.example.chat.dto.JoinChatResDto;
+import org.example.chat.dto.Info.MemberInfo;
 import org.example.chat.service.ChatService;
+import org.example.logging.Log;
 import org.example.message.dao.MessageDAO;
+import org.example.message.dao.MessageRowHandler;
+import org.example.message.dao.RecentMessageCache;
 import org.example.message.dto.MessageInfo;
+import org.example.message.dto.MessagePage;
 import org.example.message.dto.SendMessageReq;
 import org.example.message.dto.SendMessageRes;
 import org.example.message.entity.Message;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.MetricsRegistry;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * 비즈니스 로직: 메시지 저장 및 조회
  */
 public class MessageService {
+
+    private static final Log log = Log.get(MessageService.class);
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_STREAM_ROWS = 10_000;  // stream=true 한 번에 보내는 최대 메시지 수
+    public static final int MAX_RESUME_REPLAY = 500;   // WebSocket 재접속 시 DB 에서 다시 보내는 최대 메시지 수
+
+    // 서비스 메서드별 처리 시간 (service_duration_seconds)
+    private static final LatencyHistogram SAVE_TIMER = serviceTimer("MessageService.saveMessage");
+    private static final LatencyHistogram SUBMIT_TIMER = serviceTimer("MessageService.submitMessage");
+    private static final LatencyHistogram JOIN_TIMER = serviceTimer("MessageService.joinChat");
+    private static final LatencyHistogram FETCH_TIMER = serviceTimer("MessageService.fetchMessages");
+    private static final LatencyHistogram MISSED_TIMER = serviceTimer("MessageService.fetchMissedMessages");
+
     private final MessageDAO messageDAO;
     private final ChatService chatService;
+    private final MessageWriteBehind writeBehind; // null 이면 기존처럼 동기 저장
+    private final RecentMessageCache recentMessages;
 
     public MessageService(MessageDAO messageDAO, ChatService chatService) {
+        this(messageDAO, chatService, null);
+    }
+
+    public MessageService(MessageDAO messageDAO, ChatService chatService, MessageWriteBehind writeBehind) {
+        this(messageDAO, chatService, writeBehind, RecentMessageCache.getInstance());
+    }
+
+    public MessageService(MessageDAO messageDAO, ChatService chatService, MessageWriteBehind writeBehind,
+                          RecentMessageCache recentMessages) {
         this.messageDAO = messageDAO;
         this.chatService = chatService;
+        this.writeBehind = writeBehind;
+        this.recentMessages = recentMessages;
+    }
+
+    private static LatencyHistogram serviceTimer(String method) {
+        return MetricsRegistry.getInstance().histogram("service_duration_seconds", "서비스 메서드 처리 시간",
+                "method", method);
+    }
+
+    /**
+     * write-behind 파이프라인 사용 여부
+     */
+    public boolean isPipelined() {
+        return writeBehind != null;
+    }
+
+    public MessageWriteBehind.Durability getDurability() {
+        return writeBehind == null ? MessageWriteBehind.Durability.AFTER_COMMIT : writeBehind.getDurability();
+    }
+
+    /**
+     * 발신자가 방의 활성 멤버인지 확인 (RoomRegistry 캐시를 사용하므로 보통 DB 조회 없음)
+     */
+    public boolean isRoomMember(Long roomId, Long userId) throws SQLException {
+        return chatService.isActiveMember(roomId, userId);
+    }
+
+    /**
+     * username 기준 활성 멤버 확인 (WebSocket 재접속 시 놓친 메시지를 보내기 전에 사용)
+     */
+    public boolean isRoomMember(Long roomId, String username) throws SQLException {
+        return chatService.isActiveMember(roomId, username);
+    }
+
+    /**
+     * username → user.id (없으면 null). WebSocket 접속자를 PresenceRegistry 에 올릴 때 사용
+     */
+    public Long findUserId(String username) throws SQLException {
+        return messageDAO.findUserId(username);
+    }
+
+    /**
+     * 파이프라인 모드: msg_id/createdAt 을 즉시 부여하고 저장은 writer 스레드에 맡깁니다.
+     * 호출 스레드는 DB를 기다리지 않습니다.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException 저장 큐가 가득 찬 경우
+     */
+    public MessageWriteBehind.Ticket submitMessage(SendMessageReq req) {
+        if (writeBehind == null) {
+            throw new IllegalStateException("메시지 파이프라인이 설정되지 않았습니다.");
+        }
+        long start = System.nanoTime();
+        try {
+            MessageWriteBehind.Ticket ticket = writeBehind.submit(toEntity(req));
+            // 커밋된 뒤에만 최근 메시지 캐시에 넣음 (저장 실패한 메시지가 이력에 보이지 않도록)
+            ticket.committed().thenAccept(this::remember);
+            return ticket;
+        } finally {
+            SUBMIT_TIMER.recordSince(start);
+        }
     }
 
     /**
      * 메시지를 저장하고, 응답 DTO로 반환
      */
     public SendMessageRes saveMessage(SendMessageReq req) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            log.debug("saveMessage roomId={}, senderId={}", req.getRoomId(), req.getSenderId());
+
+            // 엔티티 생성
+            Message msg = toEntity(req);
+            // 저장
+            Message saved;
+            if (writeBehind == null) {
+                saved = messageDAO.save(msg);
+            } else {
+                // 파이프라인이 켜져 있으면 msg_id 시퀀스를 공유해야 하므로 같은 경로로 저장 후 커밋까지 대기
+                saved = awaitCommit(writeBehind.submit(msg));
+            }
+            remember(saved);
+
+
+            // DTO 변환
+            return new SendMessageRes(saved);
+        } finally {
+            SAVE_TIMER.recordSince(start);
+        }
+    }
 
-        System.out.println("saveMessage");
-        System.out.println("req.getRoomId() = " + req.getRoomId());
+    /**
+     * 저장된 메시지를 방의 최근 메시지 버퍼에 추가 (버퍼가 없는 방이면 무시)
+     * 발신자 이름을 못 읽으면 캐시가 DB 와 달라지지 않도록 방 버퍼를 버립니다.
+     */
+    private void remember(Message saved) {
+        if (!recentMessages.isEnabled()) {
+            return;
+        }
+        try {
+            recentMessages.append(messageDAO.toMessageInfo(saved));
+        } catch (SQLException e) {
+            log.warn("최근 메시지 캐시 반영 실패 roomId={}: {}", saved.getRoomId(), e.getMessage());
+            recentMessages.invalidate(saved.getRoomId());
+        }
+    }
 
-        // 엔티티 생성
+    private Message toEntity(SendMessageReq req) {
         Message msg = new Message();
         msg.setRoomId(req.getRoomId());
         msg.setSenderId(req.getSenderId());
         msg.setContents(req.getContents());
         msg.setCreatedAt(LocalDateTime.now());
-        System.out.println("msg: " + msg);
-        // 저장
-        System.out.println("req.getRoomId() = " + req.getRoomId());
-        Message saved = messageDAO.save(msg);
+        return msg;
+    }
 
+    private Message awaitCommit(MessageWriteBehind.Ticket ticket) throws SQLException {
+        try {
+            return ticket.committed().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("메시지 저장 대기 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("메시지 저장 실패", e.getCause());
+        }
+    }
 
-        // DTO 변환
-        return new SendMessageRes(saved);
+    /**
+     * 채팅방 입장 응답 조립 (방 정보 + 최근 메시지 한 페이지)
+     *
+     * 방 정보는 ChatService(RoomRegistry 캐시)에서, 메시지는 읽기 풀의 keyset 조회로 가져와
+     * JoinChatResDto 를 한 번에 만듭니다. 컨트롤러는 이 결과를 그대로 직렬화하면 됩니다.
+     */
+    public JoinChatResDto joinChat(JoinChatReqDto req) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            JoinChatResDto dto = chatService.enterRoom(req);
+            dto.setMessages(fetchMessages(req.getChatRoomId(), req.getUsername()));
+            return dto;
+        } finally {
+            JOIN_TIMER.recordSince(start);
+        }
     }
 
     /**
-     * 특정 채팅방에 사용자가 가입 시점 이후의 메시지 목록 조회
+     * 특정 채팅방에 사용자가 가입 시점 이후의 메시지 목록 조회 (가장 최근 DEFAULT_PAGE_SIZE 개)
      * @param roomId 채팅방 ID
      * @param username 사용자 이름
      */
     public List<MessageInfo> fetchMessages(Long roomId, String username) throws SQLException {
-        // 방 존재 확인
-        // 사용자별 가입 이후 메시지 조회
-        System.out.println("fetchMessages");
-        System.out.println("roomId(fetchMessages): " + roomId);
-        System.out.println("username(fetchMessages): " + username);
-        return messageDAO.selectChatHistorySinceJoin(roomId, username);
-    }
-}
\ No newline at end of file
+        return fetchMessages(roomId, username, null, null, DEFAULT_PAGE_SIZE).getMessages();
+    }
+
+    /**
+     * 가입 이후 메시지 keyset 페이지 조회
+     *
+     * @param roomId      채팅방 ID
+     * @param username    사용자 이름
+     * @param beforeMsgId 이 msg_id 보다 오래된 메시지 (nullable)
+     * @param afterMsgId  이 msg_id 보다 새로운 메시지 (nullable)
+     * @param pageSize    페이지 크기 (1 ~ MAX_PAGE_SIZE 로 보정)
+     */
+    public MessagePage fetchMessages(Long roomId, String username,
+                                     Long beforeMsgId, Long afterMsgId, int pageSize) throws SQLException {
+        if (beforeMsgId != null && afterMsgId != null) {
+            throw new IllegalArgumentException("before 와 after 는 동시에 지정할 수 없습니다.");
+        }
+        long start = System.nanoTime();
+        try {
+            // 방 존재 확인
+            // 사용자별 가입 이후 메시지 조회
+            log.debug("fetchMessages roomId={}, username={}", roomId, username);
+            int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+            MessagePage cached = fetchRecent(roomId, username, beforeMsgId, afterMsgId, limit);
+            if (cached != null) {
+                return cached;
+            }
+            return messageDAO.selectChatHistoryPage(roomId, username, beforeMsgId, afterMsgId, limit);
+        } finally {
+            FETCH_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * 최근 메시지 버퍼로 응답할 수 있으면 그 페이지, 아니면 null
+     *
+     * 가입 시점은 RoomRegistry 캐시의 멤버 정보에서 가져오므로 보통 DB 조회 없이 끝납니다.
+     * 버퍼가 아직 없는 방은 "최근 페이지" 요청일 때만 primary 에서 최근 메시지를 읽어 채웁니다.
+     */
+    private MessagePage fetchRecent(Long roomId, String username, Long beforeMsgId, Long afterMsgId,
+                                    int limit) throws SQLException {
+        if (!recentMessages.isEnabled() || roomId == null || limit > recentMessages.getPerRoom()) {
+            return null;
+        }
+        MemberInfo member;
+        try {
+            member = chatService.findActiveMember(roomId, username);
+        } catch (SQLException e) {
+            return null;   // 없는 방 등은 기존 DB 조회 경로에서 처리
+        }
+        if (member == null || member.getJoinedAt() == null) {
+            return null;   // 멤버가 아니면 DB 조회 결과(빈 페이지)를 그대로 사용
+        }
+        boolean latest = beforeMsgId == null && afterMsgId == null;
+        return recentMessages.page(roomId, member.getJoinedAt(), beforeMsgId, afterMsgId, limit,
+                latest ? messageDAO::selectLatestRoomMessages : null);
+    }
+
+    /**
+     * WebSocket 재접속 시 afterMsgId(RoomBroadcaster.replayFrom(lastSeenSeq)) 이후 메시지 (최대 MAX_RESUME_REPLAY 개, primary 조회)
+     * hasMore 가 true 면 나머지는 클라이언트가 REST 로 이어서 가져와야 합니다.
+     */
+    public MessagePage fetchMissedMessages(Long roomId, String username, long afterMsgId) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return messageDAO.selectMissedMessages(roomId, username, afterMsgId, MAX_RESUME_REPLAY);
+        } finally {
+            MISSED_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * 가입 이후 메시지를 한 행씩 handler 로 흘려보냅니다. (목록을 메모리에 모으지 않음)
+     *
+     * @param afterMsgId 이 msg_id 이후부터 (nullable)
+     * @param limit      최대 행 수 (0 이하이거나 MAX_STREAM_ROWS 보다 크면 MAX_STREAM_ROWS)
+     * @return 전달한 메시지 수
+     */
+    public int streamMessages(Long roomId, String username, Long afterMsgId, int limit,
+                              MessageRowHandler handler) throws SQLException, IOException {
+        int capped = limit <= 0 ? MAX_STREAM_ROWS : Math.min(limit, MAX_STREAM_ROWS);
+        return messageDAO.streamChatHistorySinceJoin(roomId, username, afterMsgId, capped, handler);
+    }
+}
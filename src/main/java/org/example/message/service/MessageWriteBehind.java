@@ -0,0 +1,260 @@
+package org.example.message.service;
+
+import org.example.logging.Log;
+import org.example.message.dao.MessageDAO;
+import org.example.message.entity.Message;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 메시지 write-behind 파이프라인
+ *
+ * 1) submit: 서버측 시퀀스로 msg_id 를 즉시 부여하고 bounded 큐에 넣는다.
+ *    (큐가 가득 차 있으면 offerTimeoutMs 만큼 기다린 뒤 거절 → backpressure)
+ * 2) 전용 writer 스레드가 큐에 쌓인 메시지를 최대 batchSize 만큼 꺼내
+ *    MessageDAO.saveBatch 로 multi-row INSERT 한 번에 저장한다.
+ * 3) 저장(커밋)이 끝나면 각 메시지의 committed future 를 완료시킨다.
+ *    배치 INSERT 가 실패하면 (방 삭제 후 FK 위반 등) 한 건씩 다시 저장해서 실패한 메시지만 실패로 돌려준다.
+ *
+ * 서버측 시퀀스는 시작 시 MAX(msg_id) 로 초기화하므로, 메시지를 쓰는 서버가
+ * 하나일 때를 전제로 합니다. 파이프라인이 켜져 있으면 REST 전송도 이 경로를 사용해야
+ * AUTO_INCREMENT 값과 충돌하지 않습니다. (MessageService 가 알아서 처리)
+ *
+ * config.properties:
+ *   message.pipeline.enabled=false
+ *   message.pipeline.durability=AFTER_BROADCAST   # 또는 AFTER_COMMIT
+ *   message.pipeline.queueCapacity=10000
+ *   message.pipeline.batchSize=200
+ *   message.pipeline.pollIntervalMs=50
+ *   message.pipeline.offerTimeoutMs=50
+ */
+public class MessageWriteBehind implements AutoCloseable {
+
+    private static final Log log = Log.get(MessageWriteBehind.class);
+
+    public static final String CONTEXT_ATTRIBUTE = MessageWriteBehind.class.getName();
+
+    /**
+     * 발신자/방에 언제 확인(브로드캐스트)을 보낼지
+     */
+    public enum Durability {
+        AFTER_BROADCAST,   // 큐에 들어가면 바로 브로드캐스트, 저장은 뒤에서
+        AFTER_COMMIT       // 배치 커밋이 끝난 뒤 브로드캐스트
+    }
+
+    /**
+     * submit 결과: 번호가 매겨진 메시지 + 커밋 완료 시점
+     */
+    public static class Ticket {
+        private final Message message;
+        private final CompletableFuture<Message> committed = new CompletableFuture<>();
+
+        Ticket(Message message) {
+            this.message = message;
+        }
+
+        public Message getMessage() {
+            return message;
+        }
+
+        public CompletableFuture<Message> committed() {
+            return committed;
+        }
+    }
+
+    private final MessageDAO messageDAO;
+    private final Durability durability;
+    private final BlockingQueue<Ticket> queue;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long offerTimeoutMs;
+
+    private final AtomicLong sequence = new AtomicLong();
+    // submit 안에서 큐에 넣는 중인 스레드 수 (종료 시 writer 가 이 메시지까지 저장하도록)
+    private final AtomicInteger submitting = new AtomicInteger();
+    private final Thread writer;
+    private volatile boolean running;
+
+    public MessageWriteBehind(MessageDAO messageDAO,
+                              Durability durability,
+                              int queueCapacity,
+                              int batchSize,
+                              long pollIntervalMs,
+                              long offerTimeoutMs) {
+        this.messageDAO = messageDAO;
+        this.durability = durability;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.writer = new Thread(this::runLoop, "message-write-behind");
+        this.writer.setDaemon(true);
+    }
+
+    public static boolean isEnabled(Properties props) {
+        return Boolean.parseBoolean(props.getProperty("message.pipeline.enabled", "false").trim());
+    }
+
+    /**
+     * config.properties 의 message.pipeline.* 값으로 생성
+     */
+    public static MessageWriteBehind fromProperties(Properties props, MessageDAO messageDAO) {
+        return new MessageWriteBehind(
+                messageDAO,
+                Durability.valueOf(props.getProperty("message.pipeline.durability", "AFTER_BROADCAST").trim()),
+                Integer.parseInt(props.getProperty("message.pipeline.queueCapacity", "10000").trim()),
+                Integer.parseInt(props.getProperty("message.pipeline.batchSize", "200").trim()),
+                Long.parseLong(props.getProperty("message.pipeline.pollIntervalMs", "50").trim()),
+                Long.parseLong(props.getProperty("message.pipeline.offerTimeoutMs", "50").trim())
+        );
+    }
+
+    /**
+     * 시퀀스 초기화 후 writer 스레드 시작
+     */
+    public void start() throws SQLException {
+        synchronized (sequence) {
+            if (running) {
+                return;
+            }
+            sequence.set(messageDAO.selectMaxMsgId());
+            running = true;
+            writer.start();
+        }
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * 저장을 기다리는 메시지 수
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * msg_id 를 부여하고 큐에 넣습니다.
+     *
+     * @throws RejectedExecutionException 큐가 가득 찼거나 종료된 경우
+     */
+    public Ticket submit(Message msg) {
+        Ticket ticket = new Ticket(msg);
+        submitting.incrementAndGet();
+        try {
+            if (!running) {
+                throw new RejectedExecutionException("메시지 파이프라인이 동작 중이 아닙니다.");
+            }
+            // 번호만 원자적으로 부여하고, 큐가 찼을 때의 대기는 잠금 없이 함
+            // (msg_id 를 직접 넣으므로 큐 순서가 번호 순서와 조금 달라도 저장 결과는 같음)
+            msg.setMsgId(sequence.incrementAndGet());
+            boolean accepted;
+            try {
+                accepted = queue.offer(ticket, offerTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+            if (!accepted) {
+                // 사용하지 않은 번호는 건너뛴다 (gap 허용)
+                throw new RejectedExecutionException("메시지 저장 큐가 가득 찼습니다.");
+            }
+            return ticket;
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    private void runLoop() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        // submitting 을 큐보다 먼저 읽어야, 종료 직전에 들어온 메시지를 놓치지 않음
+        while (running || submitting.get() > 0 || !queue.isEmpty()) {
+            try {
+                Ticket first = queue.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // close() 에서 깨운 경우: 남은 큐를 비우고 종료
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                flush(batch);
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Ticket> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Message> msgs = new ArrayList<>(batch.size());
+        for (Ticket t : batch) {
+            msgs.add(t.getMessage());
+        }
+        try {
+            messageDAO.saveBatch(msgs);
+            for (Ticket t : batch) {
+                t.committed().complete(t.getMessage());
+            }
+        } catch (SQLException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+            // 배치는 롤백됐으므로 한 건씩 다시 저장 → 문제 있는 메시지만 실패
+            log.warn("배치 저장 실패 ({}건), 한 건씩 다시 저장합니다: {}", batch.size(), e.getMessage());
+            for (Ticket t : batch) {
+                try {
+                    messageDAO.saveBatch(List.of(t.getMessage()));
+                    t.committed().complete(t.getMessage());
+                } catch (SQLException rowError) {
+                    fail(t, rowError);
+                }
+            }
+        }
+    }
+
+    private static void fail(Ticket t, SQLException e) {
+        log.error("메시지 저장 실패 (msg_id=" + t.getMessage().getMsgId()
+                + ", room_id=" + t.getMessage().getRoomId() + ")", e);
+        t.committed().completeExceptionally(e);
+    }
+
+    /**
+     * 새 메시지를 더 받지 않고, 큐에 남은 메시지를 모두 저장한 뒤 종료
+     */
+    @Override
+    public void close() {
+        synchronized (sequence) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.message.service;
+
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * RoomBus
+ * -------
+ * 채팅방 메시지를 "이 방에 세션이 있는 모든 서버"로 전달하는 경로입니다.
+ *
+ * - publish      : 로컬 세션에 전달 + 같은 방 세션을 가진 다른 서버로 전달
+ * - roomActivated / roomDeactivated : 이 서버에서 방의 첫 세션이 붙거나 마지막 세션이 떠날 때 호출
+ *                  (다른 서버는 이 정보로 해당 방 메시지만 골라서 보내 줍니다)
+ *                  같은 방의 입장/퇴장이 겹치면 두 호출의 순서가 뒤바뀔 수 있으므로,
+ *                  구현은 호출 종류보다 activeRooms 의 현재 상태를 기준으로 알려야 합니다.
+ *
+ * 구현:
+ *   LocalRoomBus : 단일 서버 (기본값)
+ *   TcpRoomBus   : 서버 간 TCP full-mesh (message.bus.type=tcp)
+ */
+public interface RoomBus extends AutoCloseable {
+
+    /**
+     * 로컬 세션으로 실제 전송하는 함수 (RoomBroadcaster::broadcast)
+     */
+    @FunctionalInterface
+    interface LocalDelivery {
+        void deliver(long roomId, long seq, String json);
+    }
+
+    /**
+     * @param seq 메시지 프레임이면 msgId (재접속 재전송 기준), 그 밖의 프레임은 0
+     */
+    void publish(long roomId, long seq, String json);
+
+    void roomActivated(long roomId);
+
+    void roomDeactivated(long roomId);
+
+    @Override
+    void close();
+
+    /**
+     * config.properties 의 message.bus.* 값으로 생성
+     *
+     * @param localDelivery 로컬 세션 전송 함수
+     * @param activeRooms   현재 이 서버에 세션이 있는 방 목록 (재접속 시 구독 재전송용)
+     */
+    static RoomBus fromProperties(Properties props, LocalDelivery localDelivery, Supplier<Set<Long>> activeRooms) {
+        String type = props.getProperty("message.bus.type", "local").trim();
+        if ("tcp".equalsIgnoreCase(type)) {
+            return TcpRoomBus.fromProperties(props, localDelivery, activeRooms);
+        }
+        return new LocalRoomBus(localDelivery);
+    }
+}
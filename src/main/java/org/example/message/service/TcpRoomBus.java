@@ -0,0 +1,659 @@
+package org.example.message.service;
+
+import org.example.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * TcpRoomBus
+ * ----------
+ * 여러 EmbeddedServer 를 TCP full-mesh 로 묶어 채팅방 메시지를 서로 전달합니다.
+ *
+ * - 각 서버는 message.bus.peers 의 모든 서버에 송신 연결을 하나씩 유지합니다. (끊기면 재접속)
+ * - 연결 직후 HELLO(내 주소 + 세션이 있는 방 목록)를 보내고, 이후 방 구독 변화는 SUB/UNSUB 로 알립니다.
+ * - 수신 쪽은 접속마다 임의의 nonce 를 CHALLENGE 로 보내고, HELLO 에 담긴
+ *   HMAC-SHA256(message.bus.secret, nonce + 주소) 가 맞고 주소가 peers 목록에 있을 때만 그 연결의 프레임을 받습니다.
+ *   (인증 전에 온 프레임, 목록에 없는 피어, 시간 안에 HELLO 가 없는 연결은 끊음)
+ * - 수신 소켓은 message.bus.host 에만 bind 합니다. (기본 127.0.0.1, 여러 호스트면 사설망 주소)
+ *   내용은 암호화하지 않으므로 서버 간 구간은 사설망/VPN 안에 두세요.
+ * - publish 시 해당 방을 구독한 서버에만 MSG 를 보냅니다. (방에 세션이 없는 서버로는 보내지 않음)
+ * - 다른 서버에서 받은 MSG 는 로컬 세션에만 전달하고 다시 전달하지 않습니다. (루프 없음)
+ * - 같은 피어가 새로 HELLO 로 인증하면 그 피어의 이전 수신 연결을 닫고 새 연결만 구독 정보를 바꿀 수 있습니다.
+ *   이전 연결이 늦게 끊겨도 새 연결이 알린 구독 정보를 지우지 않습니다.
+ * - 송신 쪽은 보낼 프레임이 없으면 HEARTBEAT_INTERVAL_MS 마다 PING 을 보내고, 수신 쪽은 READ_TIMEOUT_MS 동안
+ *   아무것도 받지 못하면 연결을 끊습니다. (반쯤 열린 연결 정리, SO_KEEPALIVE 도 켬)
+ * - roomActivated/roomDeactivated 는 호출 종류가 아니라 보낼 때의 실제 상태(activeRooms 에 방이 있는지)로
+ *   SUB/UNSUB 를 정합니다. 같은 방의 입장/퇴장이 겹쳐 호출 순서가 뒤바뀌어도 마지막으로 보낸 값이 현재 상태와 같습니다.
+ *
+ * 피어 식별은 주소 문자열로 합니다. 모든 서버의 peers 목록에 같은 표기(host:port)를 쓰고,
+ * 각 서버의 advertise 값을 그 표기와 맞춰 주세요. peers 에 자기 자신이 있으면 무시하므로
+ * 모든 서버에 같은 peers 목록을 써도 됩니다.
+ *
+ * config.properties:
+ *   message.bus.type=tcp
+ *   message.bus.advertise=127.0.0.1:9701
+ *   message.bus.host=127.0.0.1
+ *   message.bus.listenPort=9701
+ *   message.bus.peers=127.0.0.1:9701,127.0.0.1:9702
+ *   message.bus.secret=...                 # 모든 서버에 같은 값, 16자 이상
+ *   message.bus.queueCapacity=10000
+ *
+ * 로컬에서 여러 JVM 으로 확인하는 방법은 src/test/java/org/example/bench/RoomBusLoopbackBench 참고.
+ */
+public class TcpRoomBus implements RoomBus {
+
+    private static final Log log = Log.get(TcpRoomBus.class);
+
+    private static final byte HELLO = 1;
+    private static final byte SUB = 2;
+    private static final byte UNSUB = 3;
+    private static final byte MSG = 4;
+    private static final byte CHALLENGE = 5;
+    private static final byte PING = 6;
+
+    private static final int NONCE_BYTES = 16;
+    private static final int MAC_BYTES = 32;
+    private static final int MIN_SECRET_BYTES = 16;
+    private static final int HANDSHAKE_TIMEOUT_MS = 5_000;
+    private static final long HEARTBEAT_INTERVAL_MS = 5_000;
+    private static final int READ_TIMEOUT_MS = 15_000;   // heartbeat 3번 놓치면 끊음
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    private static final long MAX_RECONNECT_DELAY_MS = 10_000;
+
+    private final LocalDelivery localDelivery;
+    private final Supplier<Set<Long>> activeRooms;
+    private final String advertise;
+    private final String host;
+    private final int listenPort;
+    private final int queueCapacity;
+    private final byte[] secret;
+    private final SecureRandom random = new SecureRandom();
+
+    // 피어 주소 → 송신 링크
+    private final Map<String, PeerLink> links = new LinkedHashMap<>();
+    // 다른 서버에 마지막으로 SUB 를 알린 방 (announceLock 으로 보호)
+    private final Set<Long> announced = new HashSet<>();
+    private final Object announceLock = new Object();
+    // roomId → 해당 방에 세션이 있는 피어 주소들
+    private final ConcurrentHashMap<Long, Set<String>> remoteInterest = new ConcurrentHashMap<>();
+
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private final Set<Socket> inbound = ConcurrentHashMap.newKeySet();
+    // 피어 주소 → 마지막으로 인증된 수신 연결 (이 연결만 remoteInterest 를 바꿈, 자신을 잠금으로 사용)
+    private final Map<String, Socket> currentInbound = new ConcurrentHashMap<>();
+
+    public TcpRoomBus(LocalDelivery localDelivery,
+                      Supplier<Set<Long>> activeRooms,
+                      String advertise,
+                      String host,
+                      int listenPort,
+                      List<String> peers,
+                      int queueCapacity,
+                      String secret) {
+        if (secret == null || secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("message.bus.type=tcp 에는 " + MIN_SECRET_BYTES
+                    + "자 이상의 message.bus.secret 이 필요합니다.");
+        }
+        this.localDelivery = localDelivery;
+        this.activeRooms = activeRooms;
+        this.advertise = advertise;
+        this.host = host;
+        this.listenPort = listenPort;
+        this.queueCapacity = queueCapacity;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        for (String peer : peers) {
+            if (!peer.isEmpty() && !peer.equals(advertise)) {
+                links.put(peer, new PeerLink(peer));
+            }
+        }
+    }
+
+    public static TcpRoomBus fromProperties(Properties props, LocalDelivery localDelivery, Supplier<Set<Long>> activeRooms) {
+        String advertise = props.getProperty("message.bus.advertise", "").trim();
+        if (advertise.isEmpty()) {
+            throw new IllegalStateException("message.bus.type=tcp 에는 message.bus.advertise 가 필요합니다.");
+        }
+        List<String> peers = new ArrayList<>();
+        for (String peer : props.getProperty("message.bus.peers", "").split(",")) {
+            peers.add(peer.trim());
+        }
+        TcpRoomBus bus = new TcpRoomBus(
+                localDelivery,
+                activeRooms,
+                advertise,
+                props.getProperty("message.bus.host", "127.0.0.1").trim(),
+                Integer.parseInt(props.getProperty("message.bus.listenPort",
+                        advertise.substring(advertise.lastIndexOf(':') + 1)).trim()),
+                peers,
+                Integer.parseInt(props.getProperty("message.bus.queueCapacity", "10000").trim()),
+                props.getProperty("message.bus.secret", "").trim()
+        );
+        bus.start();
+        return bus;
+    }
+
+    /**
+     * 수신 소켓을 열고 피어 송신 스레드를 시작합니다.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(new InetSocketAddress(host, listenPort));
+        } catch (IOException e) {
+            throw new IllegalStateException("RoomBus 포트를 열 수 없습니다: " + host + ":" + listenPort, e);
+        }
+        running = true;
+        acceptor = daemon(this::acceptLoop, "room-bus-accept");
+        acceptor.start();
+        for (PeerLink link : links.values()) {
+            link.start();
+        }
+        log.info("{} 시작 (bind {}), peers={}", advertise, host + ":" + listenPort, links.keySet());
+    }
+
+    @Override
+    public void publish(long roomId, long seq, String json) {
+        localDelivery.deliver(roomId, seq, json);
+
+        Set<String> peers = remoteInterest.get(roomId);
+        if (peers == null || peers.isEmpty()) {
+            return;
+        }
+        byte[] frame = encodeMessage(roomId, seq, json);
+        for (String peer : peers) {
+            PeerLink link = links.get(peer);
+            if (link != null && link.offer(frame)) {
+                forwarded.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void roomActivated(long roomId) {
+        reconcile(roomId);
+    }
+
+    @Override
+    public void roomDeactivated(long roomId) {
+        reconcile(roomId);
+    }
+
+    /**
+     * 방의 현재 상태를 읽어 마지막으로 알린 값과 다를 때만 SUB/UNSUB 를 보냅니다.
+     * 상태 확인과 큐 삽입을 한 잠금 안에서 하므로 피어 큐에 들어가는 순서 = 상태가 확인된 순서입니다.
+     */
+    private void reconcile(long roomId) {
+        synchronized (announceLock) {
+            boolean active = activeRooms.get().contains(roomId);
+            boolean changed = active ? announced.add(roomId) : announced.remove(roomId);
+            if (changed) {
+                sendControl(active ? SUB : UNSUB, roomId);
+            }
+        }
+    }
+
+    private void sendControl(byte type, long roomId) {
+        byte[] frame = encode(out -> {
+            out.writeByte(type);
+            out.writeLong(roomId);
+        });
+        for (PeerLink link : links.values()) {
+            if (!link.offer(frame)) {
+                // 구독 정보가 빠지면 안 되므로 다시 연결해서 HELLO 로 전체 상태를 맞춤
+                link.resync();
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // 수신
+    // ------------------------------------------------------------------
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                inbound.add(socket);
+                daemon(() -> readLoop(socket), "room-bus-in-" + socket.getRemoteSocketAddress()).start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("accept 실패: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        String peer = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            String authenticated = authenticate(socket, in);
+            int n = in.readInt();
+            if (n < 0 || n > MAX_FRAME_BYTES / Long.BYTES) {
+                throw new IOException("잘못된 방 수: " + n);
+            }
+            long[] rooms = new long[n];
+            for (int i = 0; i < n; i++) {
+                rooms[i] = in.readLong();
+            }
+            peer = authenticated;
+            replaceInbound(peer, socket, rooms);
+
+            while (running) {
+                byte type = in.readByte();
+                switch (type) {
+                    case PING -> {
+                        // heartbeat (읽기 타임아웃만 갱신)
+                    }
+                    case SUB -> {
+                        long roomId = in.readLong();
+                        ifCurrent(peer, socket, () -> addInterest(roomId, authenticated));
+                    }
+                    case UNSUB -> {
+                        long roomId = in.readLong();
+                        ifCurrent(peer, socket, () -> removeInterest(roomId, authenticated));
+                    }
+                    case MSG -> {
+                        long roomId = in.readLong();
+                        long seq = in.readLong();
+                        int len = in.readInt();
+                        if (len < 0 || len > MAX_FRAME_BYTES) {
+                            throw new IOException("잘못된 메시지 길이: " + len);
+                        }
+                        byte[] body = new byte[len];
+                        in.readFully(body);
+                        received.incrementAndGet();
+                        // 다른 서버에서 온 메시지는 로컬에만 전달 (재전달 없음)
+                        localDelivery.deliver(roomId, seq, new String(body, StandardCharsets.UTF_8));
+                    }
+                    default -> throw new IOException("알 수 없는 프레임 유형: " + type);
+                }
+            }
+        } catch (EOFException e) {
+            // 상대 서버 종료
+        } catch (IOException e) {
+            if (running) {
+                log.warn("수신 연결 종료({}, {}): {}", peer, socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            inbound.remove(socket);
+            if (peer != null) {
+                // 아직 이 연결이 현재 연결일 때만 지움 (재접속하면 HELLO 로 다시 알려 줌)
+                synchronized (currentInbound) {
+                    if (currentInbound.remove(peer, socket)) {
+                        clearInterest(peer);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 새로 인증된 연결을 피어의 현재 연결로 등록하고 구독 정보를 HELLO 의 방 목록으로 바꿉니다.
+     * 같은 피어의 이전 연결(재접속 전 연결, 반쯤 열린 연결)은 닫습니다.
+     */
+    private void replaceInbound(String peer, Socket socket, long[] rooms) {
+        Socket previous;
+        synchronized (currentInbound) {
+            previous = currentInbound.put(peer, socket);
+            clearInterest(peer);
+            for (long roomId : rooms) {
+                addInterest(roomId, peer);
+            }
+        }
+        if (previous != null && previous != socket) {
+            try {
+                previous.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * socket 이 피어의 현재 연결일 때만 구독 정보를 바꿉니다. (닫히는 중인 이전 연결의 SUB/UNSUB 무시)
+     */
+    private void ifCurrent(String peer, Socket socket, Runnable change) {
+        synchronized (currentInbound) {
+            if (currentInbound.get(peer) == socket) {
+                change.run();
+            }
+        }
+    }
+
+    /**
+     * CHALLENGE(nonce) 를 보내고 HELLO(주소 + HMAC) 를 확인합니다. 실패하면 IOException (연결 종료)
+     *
+     * @return 인증된 피어 주소 (HELLO 의 방 목록은 호출자가 이어서 읽음)
+     */
+    private String authenticate(Socket socket, DataInputStream in) throws IOException {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeByte(CHALLENGE);
+        out.write(nonce);
+        out.flush();
+
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+        byte type = in.readByte();
+        if (type != HELLO) {
+            rejected.incrementAndGet();
+            throw new IOException("인증 전에 프레임을 받았습니다: " + type);
+        }
+        String claimed = in.readUTF();
+        byte[] mac = new byte[MAC_BYTES];
+        in.readFully(mac);
+        if (!links.containsKey(claimed)) {
+            rejected.incrementAndGet();
+            throw new IOException("peers 목록에 없는 서버입니다: " + claimed);
+        }
+        if (!MessageDigest.isEqual(mac, hmac(nonce, claimed))) {
+            rejected.incrementAndGet();
+            throw new IOException("인증 실패: " + claimed);
+        }
+        // 이후에는 heartbeat 간격보다 길게 조용하면 반쯤 열린 연결로 보고 끊음
+        socket.setSoTimeout(READ_TIMEOUT_MS);
+        return claimed;
+    }
+
+    private byte[] hmac(byte[] nonce, String address) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            mac.update(nonce);
+            return mac.doFinal(address.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);   // JDK 기본 제공 알고리즘이라 발생하지 않음
+        }
+    }
+
+    private void addInterest(long roomId, String peer) {
+        remoteInterest.computeIfAbsent(roomId, id -> ConcurrentHashMap.newKeySet()).add(peer);
+    }
+
+    private void removeInterest(long roomId, String peer) {
+        remoteInterest.computeIfPresent(roomId, (id, peers) -> {
+            peers.remove(peer);
+            return peers.isEmpty() ? null : peers;
+        });
+    }
+
+    private void clearInterest(String peer) {
+        for (Long roomId : remoteInterest.keySet()) {
+            removeInterest(roomId, peer);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // 송신
+    // ------------------------------------------------------------------
+
+    /**
+     * 피어 하나로 가는 송신 연결 (전용 스레드 + bounded 큐, 끊기면 재접속 후 HELLO)
+     */
+    private final class PeerLink {
+        private final String address;
+        private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(queueCapacity);
+        private volatile Socket socket;
+        private Thread writer;
+
+        PeerLink(String address) {
+            this.address = address;
+        }
+
+        void start() {
+            writer = daemon(this::run, "room-bus-out-" + address);
+            writer.start();
+        }
+
+        boolean offer(byte[] frame) {
+            if (queue.offer(frame)) {
+                return true;
+            }
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        void resync() {
+            closeSocket();
+        }
+
+        private void run() {
+            long delayMs = 200;
+            while (running) {
+                try (Socket s = new Socket()) {
+                    int sep = address.lastIndexOf(':');
+                    s.connect(new InetSocketAddress(address.substring(0, sep),
+                            Integer.parseInt(address.substring(sep + 1))), 3_000);
+                    s.setTcpNoDelay(true);
+                    s.setKeepAlive(true);
+                    socket = s;
+
+                    // 상대가 보낸 nonce 로 HELLO 에 서명
+                    s.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                    if (in.readByte() != CHALLENGE) {
+                        throw new IOException("CHALLENGE 를 받지 못했습니다.");
+                    }
+                    byte[] nonce = new byte[NONCE_BYTES];
+                    in.readFully(nonce);
+                    s.setSoTimeout(0);
+                    delayMs = 200;
+                    log.info("연결됨 → {}", address);
+
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                    // 재접속 전에 쌓인 구독 프레임은 HELLO 가 대신하므로 비움 (MSG 는 유실 허용)
+                    queue.clear();
+                    out.write(encodeHello(nonce));
+                    out.flush();
+                    long lastWrite = System.nanoTime();
+                    while (running) {
+                        byte[] frame = queue.poll(1, TimeUnit.SECONDS);
+                        if (frame == null) {
+                            if (System.nanoTime() - lastWrite >= TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_INTERVAL_MS)) {
+                                out.write(PING);
+                                out.flush();
+                                lastWrite = System.nanoTime();
+                            }
+                            continue;
+                        }
+                        out.write(frame);
+                        // 큐에 남은 것을 모아서 한 번에 flush
+                        byte[] more;
+                        while ((more = queue.poll()) != null) {
+                            out.write(more);
+                        }
+                        out.flush();
+                        lastWrite = System.nanoTime();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException e) {
+                    if (running) {
+                        log.warn("{} 연결 실패/끊김: {}", address, e.getMessage());
+                    }
+                } finally {
+                    socket = null;
+                }
+                sleepQuietly(delayMs);
+                delayMs = Math.min(delayMs * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+
+        void closeSocket() {
+            Socket s = socket;
+            if (s != null) {
+                try {
+                    s.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+
+        void stop() {
+            closeSocket();
+            if (writer != null) {
+                writer.interrupt();
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // 인코딩
+    // ------------------------------------------------------------------
+
+    @FunctionalInterface
+    private interface FrameWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(FrameWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);   // 메모리 스트림이라 발생하지 않음
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeMessage(long roomId, long seq, String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        return encode(out -> {
+            out.writeByte(MSG);
+            out.writeLong(roomId);
+            out.writeLong(seq);
+            out.writeInt(body.length);
+            out.write(body);
+        });
+    }
+
+    private byte[] encodeHello(byte[] nonce) {
+        Long[] rooms = activeRooms.get().toArray(new Long[0]);
+        byte[] mac = hmac(nonce, advertise);
+        return encode(out -> {
+            out.writeByte(HELLO);
+            out.writeUTF(advertise);
+            out.write(mac);
+            out.writeInt(rooms.length);
+            for (Long roomId : rooms) {
+                out.writeLong(roomId);
+            }
+        });
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ------------------------------------------------------------------
+
+    public long getForwarded() {
+        return forwarded.get();
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 인증 실패/목록에 없는 피어로 끊은 수신 연결 수
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * 해당 방을 구독 중인 다른 서버 주소 (디버깅/모니터링용)
+     */
+    public Set<String> peersInterestedIn(long roomId) {
+        Set<String> peers = remoteInterest.get(roomId);
+        return peers == null ? Collections.emptySet() : Collections.unmodifiableSet(peers);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignore) {
+        }
+        for (PeerLink link : links.values()) {
+            link.stop();
+        }
+        for (Socket socket : inbound) {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+        log.info(advertise + " 종료 (forwarded=" + forwarded.get()
+                + ", received=" + received.get() + ", dropped=" + dropped.get() + ")");
+    }
+
+    @Override
+    public String toString() {
+        return "TcpRoomBus{" + advertise + ", peers=" + Arrays.toString(links.keySet().toArray()) + "}";
+    }
+}
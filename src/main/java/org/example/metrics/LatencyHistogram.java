@@ -0,0 +1,121 @@
+package org.example.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 지연 시간 히스토그램 (HdrHistogram 과 같은 log-linear 버킷, 나노초 단위)
+ *
+ * 2의 거듭제곱 구간마다 16개의 균등 버킷을 두므로 값의 상대 오차는 최대 1/16(6.25%) 입니다.
+ * 0 ~ 2^63ns 전 범위를 960개 버킷(long 배열)으로 덮으며, 기록은 락 없이 버킷 하나의 증가로 끝납니다.
+ *
+ * 여러 스레드가 동시에 record 해도 안전합니다. 스냅샷(percentile, 버킷 합계)은 기록과 동시에 읽으므로
+ * 아주 짧은 순간의 값 차이는 있을 수 있습니다.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;                 // 구간당 버킷 수
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        record(unit.toNanos(duration));
+    }
+
+    /**
+     * System.nanoTime() 으로 잰 시작 시각부터 지금까지를 기록
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * p (0.0 ~ 1.0) 분위수. 해당 버킷의 상한값을 돌려주므로 실제 값보다 최대 6.25% 클 수 있습니다.
+     */
+    public long valueAtPercentile(double p) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long c : snapshot) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(snapshot.length - 1);
+    }
+
+    /**
+     * 값이 upperNanos 이하인 기록 수 (Prometheus le 버킷용, 버킷 상한 기준)
+     */
+    long countAtOrBelow(long[] snapshot, long upperNanos) {
+        long sum = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            if (upperBound(i) > upperNanos) {
+                break;
+            }
+            sum += snapshot[i];
+        }
+        return sum;
+    }
+
+    long[] snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);     // SUB_BITS 이상
+        int shift = magnitude - SUB_BITS;
+        int sub = (int) (value >>> shift) - SUB_COUNT;              // 맨 앞 1 다음 SUB_BITS 비트
+        return SUB_COUNT + shift * SUB_COUNT + sub;
+    }
+
+    /**
+     * 버킷에 들어가는 가장 큰 값
+     */
+    static long upperBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_COUNT) / SUB_COUNT;
+        int sub = (index - SUB_COUNT) % SUB_COUNT;
+        long lower = (long) (SUB_COUNT + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
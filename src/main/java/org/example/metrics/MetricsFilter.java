@@ -0,0 +1,89 @@
+package org.example.metrics;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 모든 서블릿 요청(doGet/doPost/...)의 처리 시간과 요청 안에서 쓴 DB 시간을 기록하는 필터
+ *
+ * 라벨의 route 는 요청 URL 이 아니라 서블릿 매핑 패턴(/api/friends 등)이라 시계열 수가 늘어나지 않습니다.
+ *
+ *   http_server_request_duration_seconds{route,method,status}  요청 처리 시간
+ *   http_server_request_db_seconds{route,method}               요청 하나가 DB 에서 쓴 시간 합계
+ *   http_server_db_queries_total{route,method}                 요청에서 실행한 쿼리 수
+ *   http_server_requests_in_flight                             처리 중인 요청 수
+ */
+public class MetricsFilter implements Filter {
+
+    private final MetricsRegistry metrics;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public MetricsFilter() {
+        this(MetricsRegistry.getInstance());
+    }
+
+    public MetricsFilter(MetricsRegistry metrics) {
+        this.metrics = metrics;
+        metrics.gauge("http_server_requests_in_flight", "처리 중인 HTTP 요청 수", inFlight::get);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+
+        long start = System.nanoTime();
+        RequestMetrics scope = RequestMetrics.begin();
+        inFlight.incrementAndGet();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            inFlight.decrementAndGet();
+            scope.end();
+            String route = routeOf(req);
+            String method = methodOf(req);
+            int status = failed ? 500 : res.getStatus();
+            metrics.histogram("http_server_request_duration_seconds", "HTTP 요청 처리 시간",
+                    "route", route, "method", method, "status", status / 100 + "xx").recordSince(start);
+            metrics.histogram("http_server_request_db_seconds", "HTTP 요청 하나가 DB 에서 쓴 시간",
+                    "route", route, "method", method).record(scope.getDbNanos());
+            metrics.counter("http_server_db_queries_total", "HTTP 요청에서 실행한 쿼리 수",
+                    "route", route, "method", method).add(scope.getDbQueries());
+        }
+    }
+
+    // 임의의 메서드 이름으로 시계열이 늘어나지 않도록 표준 메서드만 그대로 씀
+    private static String methodOf(HttpServletRequest req) {
+        String method = req.getMethod();
+        switch (method) {
+            case "GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS":
+                return method;
+            default:
+                return "OTHER";
+        }
+    }
+
+    private static String routeOf(HttpServletRequest req) {
+        HttpServletMapping mapping = req.getHttpServletMapping();
+        if (mapping == null || mapping.getPattern() == null || mapping.getPattern().isEmpty()) {
+            return "unmatched";
+        }
+        return mapping.getPattern();
+    }
+}
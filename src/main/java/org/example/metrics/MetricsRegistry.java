@@ -0,0 +1,215 @@
+package org.example.metrics;
+
+import org.example.config.TestApiConfig;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * MetricsRegistry
+ * ---------------
+ * 프로세스 공용 메트릭 보관소입니다. (카운터, 게이지, 지연 시간 히스토그램)
+ *
+ * - 같은 이름 + 같은 라벨로 요청하면 항상 같은 객체를 돌려주므로, 호출하는 쪽은 필드에 들고 있다가 기록만 하면 됩니다.
+ * - 카운터는 LongAdder, 히스토그램은 LatencyHistogram 이라 기록 경로에 락이 없습니다.
+ * - 게이지와 함수형 카운터는 값을 읽는 함수만 등록해 두고 /admin/metrics 조회 때 호출합니다.
+ * - writePrometheus 가 Prometheus text format(0.0.4) 으로 전체를 내보냅니다.
+ *
+ * 라벨은 ("route", "/api/friends", "method", "GET") 처럼 이름/값을 번갈아 넘깁니다.
+ * 사용자 입력(username, roomId 등)을 라벨 값으로 쓰면 시계열 수가 끝없이 늘어나므로 쓰지 마세요.
+ *
+ * config.properties:
+ *   metrics.enabled=true
+ *   metrics.path=/admin/metrics
+ *   metrics.token=            # 지정하면 Authorization: Bearer <token> 이 있어야 조회 가능
+ */
+public class MetricsRegistry {
+
+    // 히스토그램을 내보낼 때 쓰는 le 경계 (초)
+    private static final double[] LE_SECONDS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05,
+            0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static MetricsRegistry instance;
+
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), HISTOGRAM("histogram");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * 이름 하나에 속한 시계열 묶음 (라벨 문자열 → 메트릭 객체)
+     */
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    public MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 프로세스 공용 인스턴스 (config.properties 의 metrics.enabled 사용)
+     */
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = fromProperties(new TestApiConfig().getProperties());
+        }
+        return instance;
+    }
+
+    public static MetricsRegistry fromProperties(Properties props) {
+        return new MetricsRegistry(Boolean.parseBoolean(props.getProperty("metrics.enabled", "true").trim()));
+    }
+
+    /**
+     * false 면 EmbeddedServer 가 필터/DataSource 계측과 /admin/metrics 를 설치하지 않습니다.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public LongAdder counter(String name, String help, String... labels) {
+        Family family = family(name, help, Type.COUNTER);
+        return (LongAdder) family.series.computeIfAbsent(labelText(labels), key -> new LongAdder());
+    }
+
+    /**
+     * 이미 다른 곳(AtomicLong getter 등)에서 세고 있는 누적값을 카운터로 내보냅니다. (같은 라벨로 다시 등록하면 교체)
+     */
+    public void counter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).series.put(labelText(labels), value);
+    }
+
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        Family family = family(name, help, Type.HISTOGRAM);
+        return (LatencyHistogram) family.series.computeIfAbsent(labelText(labels), key -> new LatencyHistogram());
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).series.put(labelText(labels), value);
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("메트릭 유형이 다릅니다: " + name + " (" + family.type.text + ")");
+        }
+        return family;
+    }
+
+    /**
+     * 전체 메트릭을 Prometheus text format 으로 씁니다. (이름순)
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        for (Family family : new ConcurrentSkipListMap<>(families).values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.text).append('\n');
+            for (Map.Entry<String, Object> e : family.series.entrySet()) {
+                switch (family.type) {
+                    case COUNTER -> sample(out, family.name, e.getKey(), e.getValue() instanceof LongAdder adder
+                            ? adder.sum() : gaugeValue((DoubleSupplier) e.getValue()));
+                    case GAUGE -> sample(out, family.name, e.getKey(), gaugeValue((DoubleSupplier) e.getValue()));
+                    case HISTOGRAM -> writeHistogram(out, family.name, e.getKey(), (LatencyHistogram) e.getValue());
+                }
+            }
+        }
+    }
+
+    private static double gaugeValue(DoubleSupplier supplier) {
+        try {
+            return supplier.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN;   // 이미 닫힌 풀 등
+        }
+    }
+
+    private static void writeHistogram(Appendable out, String name, String labels, LatencyHistogram histogram)
+            throws IOException {
+        // count 를 먼저 읽고 버킷을 읽으면 +Inf 가 le 버킷 합보다 작아질 수 있으므로 스냅샷 합계를 씀
+        long[] snapshot = histogram.snapshot();
+        long total = 0;
+        for (long c : snapshot) {
+            total += c;
+        }
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (double le : LE_SECONDS) {
+            long upperNanos = (long) (le * 1_000_000_000L);
+            sample(out, name + "_bucket", prefix + "le=\"" + BigDecimal.valueOf(le).toPlainString() + "\"",
+                    histogram.countAtOrBelow(snapshot, upperNanos));
+        }
+        sample(out, name + "_bucket", prefix + "le=\"+Inf\"", total);
+        sample(out, name + "_sum", labels, histogram.getSumNanos() / 1e9);
+        sample(out, name + "_count", labels, total);
+    }
+
+    private static void sample(Appendable out, String name, String labels, double value) throws IOException {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(formatDouble(value)).append('\n');
+    }
+
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * ("a", "1", "b", "2") → a="1",b="2"
+     */
+    static String labelText(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("라벨은 이름/값 쌍이어야 합니다.");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"").append(escapeLabel(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String escapeLabel(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.metrics;
+
+/**
+ * 요청(HTTP 요청 하나, WebSocket 콜백 하나) 단위로 DB 사용량을 모으는 스레드 범위 객체
+ *
+ * MetricsFilter / MessageController 가 begin() 으로 열고 end() 로 닫으며,
+ * 그 사이 같은 스레드에서 실행된 쿼리는 InstrumentedDataSource 가 recordDb 로 더합니다.
+ * 범위는 겹쳐 열 수 있습니다. (예: 업그레이드 요청의 MetricsFilter 범위 안에서 실행되는 @OnOpen)
+ * 안쪽 범위의 쿼리는 바깥 범위에도 더해지고, end() 는 바깥 범위를 다시 현재 범위로 되돌립니다.
+ * 요청마다 스레드가 하나씩 붙는 구조(플랫폼/가상 스레드 모두)라 ThreadLocal 로 충분합니다.
+ * 범위 밖(writer 스레드, 배치 등)에서 실행된 쿼리는 무시됩니다.
+ */
+public final class RequestMetrics {
+
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    private final RequestMetrics parent;
+    private long dbNanos;
+    private int dbQueries;
+
+    private RequestMetrics(RequestMetrics parent) {
+        this.parent = parent;
+    }
+
+    public static RequestMetrics begin() {
+        RequestMetrics scope = new RequestMetrics(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * 이 범위를 닫고 바깥 범위(없으면 범위 없음)로 되돌립니다.
+     */
+    public void end() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+
+    public static void recordDb(long nanos) {
+        for (RequestMetrics scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.dbNanos += nanos;
+            scope.dbQueries++;
+        }
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    public int getDbQueries() {
+        return dbQueries;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.metrics.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * MetricsController: "/admin/metrics" (metrics.path) 로 매핑되어,
+ * - GET /admin/metrics → MetricsRegistry 전체를 Prometheus text format 으로 응답
+ *
+ * metrics.token 이 설정되어 있으면 Authorization: Bearer {token} 헤더가 있어야 합니다. (없으면 401)
+ * 설정되어 있지 않으면 같은 호스트(loopback)에서 온 요청만 받습니다. (그 외 403)
+ * 같은 호스트의 리버스 프록시 뒤에 두는 경우에는 모든 요청이 loopback 으로 보이므로 token 을 설정하세요.
+ */
+public class MetricsController extends HttpServlet {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry metrics;
+    private final String token;
+
+    public MetricsController(MetricsRegistry metrics, String token) {
+        this.metrics = metrics;
+        this.token = token == null || token.isBlank() ? null : token.trim();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        if (token == null) {
+            if (!isLoopback(req.getRemoteAddr())) {
+                resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+        } else if (!authorized(req.getHeader("Authorization"))) {
+            resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            resp.setHeader("WWW-Authenticate", "Bearer");
+            return;
+        }
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType(CONTENT_TYPE);
+        resp.setHeader("Cache-Control", "no-store");
+        PrintWriter writer = resp.getWriter();
+        metrics.writePrometheus(writer);
+        writer.flush();
+    }
+
+    /**
+     * getRemoteAddr 는 IP 문자열이므로 DNS 조회 없이 변환됩니다.
+     */
+    private static boolean isLoopback(String remoteAddr) {
+        if (remoteAddr == null) {
+            return false;
+        }
+        try {
+            return InetAddress.getByName(remoteAddr).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private boolean authorized(String header) {
+        if (header == null) {
+            return false;
+        }
+        // 응답 시간으로 토큰을 추측하지 못하도록 고정 시간 비교
+        return MessageDigest.isEqual(("Bearer " + token).getBytes(StandardCharsets.UTF_8),
+                header.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -2,39 +2,281 @@ package org.example.server;
 
 
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.example.config.ApiPathConfig;
+import org.example.config.DataSourceRegistry;
 import org.example.config.ServletRegistrar;
 import org.example.config.TestApiConfig;
 import org.example.config.WebSocketRegistrar;
+import org.example.chat.dao.ChatDAO;
+import org.example.chat.dao.RoomRegistry;
+import org.example.chat.service.ChatService;
+import org.example.friend.dao.FriendDAO;
+import org.example.friend.dao.FriendGraphIndex;
+import org.example.friend.dao.FriendListCache;
+import org.example.logging.Log;
+import org.example.memo.dao.MemoDAO;
+import org.example.memo.service.MemoWriteCoalescer;
 import org.example.message.controller.MessageController;
+import org.example.message.controller.RoomBroadcaster;
+import org.example.message.dao.MessageDAO;
+import org.example.message.dao.RecentMessageCache;
+import org.example.message.service.MessageService;
+import org.example.message.service.MessageWriteBehind;
+import org.example.message.service.RoomBus;
+import org.example.message.service.TcpRoomBus;
+import org.example.metrics.MetricsRegistry;
+import org.example.user.common.dao.PresenceRegistry;
+import org.example.user.common.dao.UserDAO;
+import org.example.user.common.dao.UserIdentityCache;
 
-import java.net.InetSocketAddress;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.concurrent.Executors;
 
 public class EmbeddedServer {
+
+    private static final Log log = Log.get(EmbeddedServer.class);
     private final Server server;
+    private final TestApiConfig config;
+    private final ServletContextHandler context;
+    private final DataSourceRegistry dataSources;
+    private volatile MessageWriteBehind messageWriteBehind; // message.pipeline.enabled=true 일 때만
+    private volatile MemoWriteCoalescer memoCoalescer;  // memo.autosave.enabled=true 일 때만
+    private volatile MessageService wsMessageService;   // WebSocket 엔드포인트 공용 서비스
+    private final RoomBroadcaster broadcaster;          // 방별 세션 + fan-out
+    private final RoomBus roomBus;                      // 서버 간 방 메시지 전달 (message.bus.type)
+    private final MetricsRegistry metrics;              // /admin/metrics (metrics.enabled)
+    private final PresenceRegistry presence;            // 온라인 상태 (presence.enabled)
 
     public EmbeddedServer(TestApiConfig config) throws Exception {
+        this.config = config;
         ApiPathConfig apiPaths = new ApiPathConfig(config.getProperties(), config);
 
-        server = new Server(new InetSocketAddress("0.0.0.0", config.getPort()));
-        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        server = new Server(createThreadPool(config.getProperties()));
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost("0.0.0.0");
+        connector.setPort(config.getPort());
+        server.addConnector(connector);
+        context = new ServletContextHandler(ServletContextHandler.SESSIONS);
         context.setContextPath("/");
         server.setHandler(context);
 
+        // 커넥션 풀은 서버 단위로 하나만 두고 모든 서블릿/WebSocket이 공유
+        dataSources = DataSourceRegistry.getInstance();
+        if (isVirtualThreads(config.getProperties())
+                && Boolean.parseBoolean(config.getProperties().getProperty("server.threads.poolLimiter", "true").trim())) {
+            // 요청마다 가상 스레드가 생기므로 풀 크기 이상은 풀 앞에서 기다리게 함
+            dataSources.enableConnectionLimiter();
+        }
+        context.setAttribute(DataSourceRegistry.CONTEXT_ATTRIBUTE, dataSources);
+
+        // 요청/DAO 계측은 DataSource 를 꺼내기 전에 켜야 함
+        metrics = MetricsRegistry.getInstance();
+        if (metrics.isEnabled()) {
+            dataSources.enableInstrumentation(metrics);
+        }
+
+        presence = PresenceRegistry.getInstance();
+
+        // 방이 삭제되면 메시지 쪽 최근 메시지 캐시도 비움 (chat 모듈은 message 모듈을 모름)
+        RoomRegistry.getInstance().addDeleteListener(RecentMessageCache.getInstance()::invalidate);
+
         // Register HTTP servlets
-        new ServletRegistrar(context).registerAll(apiPaths);
+        ServletRegistrar registrar = new ServletRegistrar(context);
+        registrar.registerAll(apiPaths);
+        if (metrics.isEnabled()) {
+            Properties props = config.getProperties();
+            String metricsPath = props.getProperty("metrics.path", "/admin/metrics").trim();
+            String metricsToken = props.getProperty("metrics.token");
+            if (metricsToken == null || metricsToken.isBlank()) {
+                log.info("metrics.token 이 없어 {} 는 같은 호스트에서만 조회할 수 있습니다.", metricsPath);
+            }
+            registrar.registerMetrics(metrics, metricsPath, metricsToken);
+        }
 
         // Register WebSocket endpoint
-        WebSocketRegistrar.register(context, apiPaths.getWsPath(), MessageController.class);
+        broadcaster = RoomBroadcaster.fromProperties(config.getProperties());
+        roomBus = RoomBus.fromProperties(config.getProperties(), broadcaster::broadcast, broadcaster::activeRoomIds);
+        WebSocketRegistrar.register(context, apiPaths.getWsPath(), MessageController.class,
+                () -> new MessageController(wsMessageService(), broadcaster, roomBus, presence));
+
+        if (metrics.isEnabled()) {
+            registerServerGauges((QueuedThreadPool) server.getThreadPool());
+        }
+    }
+
+    /**
+     * 서버 구성요소들이 이미 세고 있는 값(캐시 hit/miss, fan-out, 스레드 풀 등)을 메트릭으로 노출
+     */
+    private void registerServerGauges(QueuedThreadPool threadPool) {
+        metrics.gauge("jetty_threads_busy", "요청을 처리 중인 Jetty 스레드 수", threadPool::getBusyThreads);
+        metrics.gauge("jetty_threads", "Jetty 스레드 풀 크기", threadPool::getThreads);
+        metrics.gauge("jetty_queue_size", "처리를 기다리는 작업 수", threadPool::getQueueSize);
+        metrics.gauge("jvm_threads_live", "JVM 플랫폼 스레드 수",
+                () -> ManagementFactory.getThreadMXBean().getThreadCount());
+        metrics.gauge("jvm_heap_used_bytes", "사용 중인 힙",
+                () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+
+        metrics.counter("log_events_dropped_total", "로그 큐가 가득 차 버린 로그 수", Log::getDroppedEvents);
+        metrics.gauge("log_queue_depth", "출력을 기다리는 로그 수", Log::getQueueDepth);
+
+        metrics.gauge("ws_sessions", "연결된 WebSocket 세션 수", broadcaster::getSessionCount);
+        metrics.counter("ws_frames_sent_total", "fan-out 으로 보낸 프레임 수", broadcaster::getFramesSent);
+        metrics.counter("ws_frames_dropped_total", "느린 세션 때문에 버린 프레임 수", broadcaster::getFramesDropped);
+        metrics.counter("ws_slow_disconnects_total", "느려서 끊은 세션 수", broadcaster::getSlowDisconnects);
+        if (roomBus instanceof TcpRoomBus tcp) {
+            metrics.counter("room_bus_forwarded_total", "다른 서버로 보낸 방 메시지 수", tcp::getForwarded);
+            metrics.counter("room_bus_received_total", "다른 서버에서 받은 방 메시지 수", tcp::getReceived);
+            metrics.counter("room_bus_dropped_total", "피어 큐가 가득 차 버린 메시지 수", tcp::getDropped);
+            metrics.counter("room_bus_rejected_total", "인증 실패로 끊은 서버 간 연결 수", tcp::getRejected);
+        }
+
+        RoomRegistry rooms = RoomRegistry.getInstance();
+        metrics.counter("cache_hits_total", "캐시 hit", rooms::getHits, "cache", "room");
+        metrics.counter("cache_misses_total", "캐시 miss", rooms::getMisses, "cache", "room");
+        metrics.counter("cache_evictions_total", "캐시 제거", rooms::getEvictions, "cache", "room");
+        metrics.gauge("cache_entries", "캐시 항목 수", rooms::size, "cache", "room");
+
+        UserIdentityCache identities = UserIdentityCache.getInstance();
+        metrics.counter("cache_hits_total", "캐시 hit", identities::getHits, "cache", "user_identity");
+        metrics.counter("cache_misses_total", "캐시 miss", identities::getMisses, "cache", "user_identity");
+        metrics.gauge("cache_entries", "캐시 항목 수", identities::size, "cache", "user_identity");
+
+        FriendListCache friendLists = FriendListCache.getInstance();
+        metrics.counter("cache_hits_total", "캐시 hit", friendLists::getHits, "cache", "friend_list");
+        metrics.counter("cache_misses_total", "캐시 miss", friendLists::getMisses, "cache", "friend_list");
+        metrics.counter("cache_evictions_total", "캐시 제거", friendLists::getEvictions, "cache", "friend_list");
+        metrics.counter("friend_list_updates_total", "다시 읽지 않고 캐시에 반영한 친구 추가/삭제 수", friendLists::getUpdates);
+        metrics.gauge("cache_entries", "캐시 항목 수", friendLists::size, "cache", "friend_list");
+
+        FriendGraphIndex graph = FriendGraphIndex.getInstance();
+        if (graph.isEnabled()) {
+            metrics.gauge("friend_graph_users", "친구 그래프 인덱스의 사용자 수", graph::getUserCount);
+            metrics.gauge("friend_graph_edges", "친구 그래프 인덱스의 간선 수", graph::getEdgeCount);
+            metrics.counter("friend_graph_queries_total", "인덱스로 처리한 조회 수", graph::getMutualQueries, "query", "mutual");
+            metrics.counter("friend_graph_queries_total", "인덱스로 처리한 조회 수", graph::getSuggestQueries, "query", "suggest");
+        }
+
+        RecentMessageCache recent = RecentMessageCache.getInstance();
+        metrics.counter("cache_hits_total", "캐시 hit", recent::getHits, "cache", "recent_messages");
+        metrics.counter("cache_misses_total", "캐시 miss", recent::getMisses, "cache", "recent_messages");
+        metrics.counter("cache_evictions_total", "캐시 제거", recent::getEvictions, "cache", "recent_messages");
+        metrics.gauge("cache_entries", "캐시 항목 수", recent::size, "cache", "recent_messages");
+        metrics.gauge("recent_messages_bytes", "최근 메시지 캐시 추정 메모리", recent::getBytes);
+
+        if (presence.isEnabled()) {
+            metrics.gauge("presence_online_users", "온라인 사용자 수 (이 서버 기준)", presence::getOnlineCount);
+            metrics.counter("presence_flush_rows_total", "주기 저장으로 바꾼 user.status 행 수", presence::getRowsWritten);
+            metrics.counter("presence_flush_failures_total", "user.status 주기 저장 실패 수", presence::getFlushFailures);
+        }
+    }
+
+    /**
+     * Jetty 요청 처리 스레드 풀
+     *
+     * server.threads.mode=platform : QueuedThreadPool (server.threads.min ~ server.threads.max)
+     * server.threads.mode=virtual  : 셀렉터/acceptor 만 플랫폼 스레드, 요청 처리는 요청마다 가상 스레드
+     */
+    static QueuedThreadPool createThreadPool(Properties props) {
+        QueuedThreadPool pool = new QueuedThreadPool(
+                Integer.parseInt(props.getProperty("server.threads.max", "200").trim()),
+                Integer.parseInt(props.getProperty("server.threads.min", "8").trim()));
+        pool.setName("jetty");
+        if (isVirtualThreads(props)) {
+            pool.setVirtualThreadsExecutor(
+                    Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jetty-vt-", 0).factory()));
+        }
+        log.info("스레드 모드: {}", isVirtualThreads(props) ? "virtual" : "platform");
+        return pool;
+    }
+
+    static boolean isVirtualThreads(Properties props) {
+        return "virtual".equalsIgnoreCase(props.getProperty("server.threads.mode", "platform").trim());
+    }
+
+    /**
+     * WebSocket 엔드포인트가 공유하는 MessageService (첫 연결 시 한 번만 생성)
+     */
+    private MessageService wsMessageService() {
+        MessageService service = wsMessageService;
+        if (service == null) {
+            synchronized (this) {
+                service = wsMessageService;
+                if (service == null) {
+                    ChatService chatService = new ChatService(new ChatDAO(dataSources.write()));
+                    service = new MessageService(new MessageDAO(dataSources.write(), dataSources.read()),
+                            chatService, messageWriteBehind);
+                    wsMessageService = service;
+                }
+            }
+        }
+        return service;
     }
 
     public void start() throws Exception {
+        // 메시지 write-behind 파이프라인 (서블릿/WebSocket 초기화 전에 준비)
+        if (MessageWriteBehind.isEnabled(config.getProperties())) {
+            MessageWriteBehind writeBehind = MessageWriteBehind.fromProperties(
+                    config.getProperties(), new MessageDAO(dataSources.write()));
+            writeBehind.start();
+            messageWriteBehind = writeBehind;
+            if (metrics.isEnabled()) {
+                metrics.gauge("message_pipeline_queue_depth", "저장을 기다리는 메시지 수", writeBehind::getQueueDepth);
+            }
+            context.setAttribute(MessageWriteBehind.CONTEXT_ATTRIBUTE, writeBehind);
+        }
+        // 메모 자동 저장 합치기
+        if (MemoWriteCoalescer.isEnabled(config.getProperties())) {
+            MemoWriteCoalescer coalescer = MemoWriteCoalescer.fromProperties(
+                    config.getProperties(), new MemoDAO(dataSources.write()));
+            memoCoalescer = coalescer;
+            if (metrics.isEnabled()) {
+                metrics.gauge("memo_autosave_open_windows", "자동 저장 창이 열려 있는 메모 수", coalescer::getOpenWindows);
+                metrics.counter("memo_autosave_writes_total", "메모 저장 DB 쓰기 수", coalescer::getWrites);
+                metrics.counter("memo_autosave_coalesced_total", "다른 저장과 합쳐 DB 에 쓰지 않은 저장 수", coalescer::getCoalesced);
+                metrics.counter("memo_autosave_failures_total", "메모 창 끝 저장 실패 수", coalescer::getFailures);
+            }
+            context.setAttribute(MemoWriteCoalescer.CONTEXT_ATTRIBUTE, coalescer);
+        }
+        // 온라인 상태 주기 저장 (user.status)
+        presence.start(new UserDAO(dataSources.write()));
+        loadFriendGraph();
         server.start();
     }
 
+    /**
+     * 함께 아는 친구/추천용 인덱스 적재. 실패하면 FriendDAO 가 SQL 로 계산하므로 기동은 계속합니다.
+     */
+    private void loadFriendGraph() {
+        FriendGraphIndex graph = FriendGraphIndex.getInstance();
+        if (!graph.isEnabled()) {
+            return;
+        }
+        try {
+            graph.load(new FriendDAO(dataSources.write())::scanEdges);
+        } catch (Exception e) {
+            log.warn("친구 그래프 적재 실패, SQL 로 조회합니다: {}", e.getMessage());
+        }
+    }
+
     public void stop() throws Exception {
-        server.stop();
+        try {
+            server.stop();
+            roomBus.close();
+            broadcaster.close();
+        } finally {
+            if (messageWriteBehind != null) {
+                messageWriteBehind.close();   // 남은 메시지를 모두 저장한 뒤 풀을 닫음
+            }
+            if (memoCoalescer != null) {
+                memoCoalescer.close();        // 창 안에 남은 메모 내용을 저장한 뒤 풀을 닫음
+            }
+            presence.close();                 // 이 서버 접속자를 오프라인으로 저장한 뒤 풀을 닫음
+            dataSources.close();
+        }
     }
 
     public void join() throws InterruptedException {
@@ -46,20 +288,20 @@ public class EmbeddedServer {
         server.start();
 
         String baseUrl = TestApiConfig.get("api.baseUrl");
-        System.out.println("=== Application URLs ===");
-        System.out.println("Base URL          : " + baseUrl);
-        System.out.println("회원가입(sign-up)  : " + baseUrl + TestApiConfig.get("api.user.signup"));
-        System.out.println("로그인(sign-in)    : " + baseUrl + TestApiConfig.get("api.user.signin"));
-        System.out.println("로그아웃(sign-out) : " + baseUrl + TestApiConfig.get("api.user.signout"));
-        System.out.println("친구추가(add friend) : " + baseUrl + TestApiConfig.get("api.friends.add"));
-        System.out.println("친구삭제(delete friend) : " + baseUrl + TestApiConfig.get("api.friends.delete"));
-        System.out.println("친구목록(list friends)  : " + baseUrl + TestApiConfig.get("api.friends.list"));
-        System.out.println("메모작성(add memo)   : " + baseUrl + TestApiConfig.get("api.memo.add"));
-        System.out.println("메모조회(get memo)   : " + baseUrl + TestApiConfig.get("api.memo.get"));
-        System.out.println("메시지전송(send msg)  : " + baseUrl + TestApiConfig.get("api.messages.send"));
-        System.out.println("메시지조회(fetch msg) : " + baseUrl + TestApiConfig.get("api.messages.fetch"));
-        System.out.println("웹소켓(ws path)      : wss://" + config.getHost() + config.getWsPath());
-        System.out.println("========================");
+        log.info("=== Application URLs ===");
+        log.info("Base URL          : " + baseUrl);
+        log.info("회원가입(sign-up)  : " + baseUrl + TestApiConfig.get("api.user.signup"));
+        log.info("로그인(sign-in)    : " + baseUrl + TestApiConfig.get("api.user.signin"));
+        log.info("로그아웃(sign-out) : " + baseUrl + TestApiConfig.get("api.user.signout"));
+        log.info("친구추가(add friend) : " + baseUrl + TestApiConfig.get("api.friends.add"));
+        log.info("친구삭제(delete friend) : " + baseUrl + TestApiConfig.get("api.friends.delete"));
+        log.info("친구목록(list friends)  : " + baseUrl + TestApiConfig.get("api.friends.list"));
+        log.info("메모작성(add memo)   : " + baseUrl + TestApiConfig.get("api.memo.add"));
+        log.info("메모조회(get memo)   : " + baseUrl + TestApiConfig.get("api.memo.get"));
+        log.info("메시지전송(send msg)  : " + baseUrl + TestApiConfig.get("api.messages.send"));
+        log.info("메시지조회(fetch msg) : " + baseUrl + TestApiConfig.get("api.messages.fetch"));
+        log.info("웹소켓(ws path)      : wss://" + config.getHost() + config.getWsPath());
+        log.info("========================");
 
         server.join();
     }
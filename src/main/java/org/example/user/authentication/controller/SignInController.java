@@ -1,12 +1,14 @@
 package org.example.user.authentication.controller;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.zaxxer.hikari.HikariDataSource;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
-import org.example.config.DataSoruceConfig;
+import org.example.config.DataSourceRegistry;
+import org.example.config.JsonSupport;
+import org.example.logging.Log;
 import org.example.user.authentication.dto.SignInResDto;
 import org.example.user.authentication.service.Authenticator;
 import org.example.user.authentication.service.SessionManager;
@@ -15,25 +17,28 @@ import org.example.user.authentication.dto.SignInReqDto;
 import org.example.user.authentication.service.SignInService;
 import org.example.user.common.utils.SessionCookieUtil;
 
+import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.PrintWriter;
 
 @WebServlet("/signin")
 public class SignInController extends HttpServlet {
 
+    private static final Log log = Log.get(SignInController.class);
+    private static final ObjectReader REQ_READER = JsonSupport.reader(SignInReqDto.class);
+    private static final ObjectWriter RES_WRITER = JsonSupport.writer(SignInResDto.class);
+
     private SignInService signInService;
-    private ObjectMapper objectMapper;
 
     @Override
     public void init() throws ServletException {
         super.init();
-        HikariDataSource ds    = DataSoruceConfig.getDataSource();
+        DataSource ds          = DataSourceRegistry.from(getServletContext()).write();
         UserDAO userDAO        = new UserDAO(ds);
         Authenticator authenticator     = new Authenticator(userDAO);
         SessionManager sessionManager   = new SessionManager(userDAO);
 
         this.signInService = new SignInService(authenticator, sessionManager);
-        this.objectMapper      = new ObjectMapper();
     }
 
     @Override
@@ -42,7 +47,7 @@ public class SignInController extends HttpServlet {
         response.setContentType("application/json; charset=UTF-8");
 
         // 1) 요청 바디 → DTO
-        SignInReqDto reqDto = objectMapper.readValue(request.getInputStream(), SignInReqDto.class);
+        SignInReqDto reqDto = REQ_READER.readValue(request.getInputStream());
         // 2) 비즈니스 호출
         SignInResDto resDto = signInService.signIn(reqDto);
 
@@ -63,10 +68,10 @@ public class SignInController extends HttpServlet {
         );
 
         // 5) 응답
-        System.out.println(reqDto);
+        log.debug("signin: {}", reqDto.getUsername());
         response.setStatus(HttpServletResponse.SC_OK);
         try (PrintWriter out = response.getWriter()) {
-            out.write(objectMapper.writeValueAsString(resDto));
+            out.write(RES_WRITER.writeValueAsString(resDto));
         }
     }
 }
@@ -1,5 +1,6 @@
 package org.example.user.authentication.service;
 
+import org.example.user.common.dao.PresenceRegistry;
 import org.example.user.common.dao.UserDAO;
 import org.example.user.common.entity.User;
 
@@ -10,17 +11,28 @@ import java.sql.SQLException;
  */
 public class SessionManager {
     private final UserDAO userDAO;
+    private final PresenceRegistry presence;
 
     public SessionManager(UserDAO userDAO) {
+        this(userDAO, PresenceRegistry.getInstance());
+    }
+
+    public SessionManager(UserDAO userDAO, PresenceRegistry presence) {
         this.userDAO = userDAO;
+        this.presence = presence;
     }
     /**
      * 로그인 성공 후 상태 업데이트
+     * PresenceRegistry 가 켜져 있으면 메모리에만 반영하고 user.status 는 주기 저장에 맡깁니다.
      *
      * @param user 인증된 사용자
      * @throws SQLException DB 오류 시
      */
     public void createSession(User user) throws SQLException {
+        if (presence.isEnabled()) {
+            presence.signedIn(user.getId());
+            return;
+        }
         userDAO.updateStatusById(user.getId(), true);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.example.user.authentication.service;
 
+import org.example.logging.Log;
 import org.example.user.authentication.dto.SignInReqDto;
 import org.example.user.authentication.dto.SignInResDto;
 import org.example.user.common.entity.User;
@@ -19,6 +20,8 @@ import java.sql.SQLException;
  */
 public class SignInService {
 
+    private static final Log log = Log.get(SignInService.class);
+
     private final Authenticator authenticator;
     private final SessionManager sessionManager;
 
@@ -35,7 +38,7 @@ public class SignInService {
         try {
             User user = authenticator.authenticate(reqDto.getUsername(), reqDto.getPassword());
             sessionManager.createSession(user);
-            System.out.println("성공");
+            log.debug("로그인 성공: {}", user.getUsername());
             return SignInMapper.toSuccessResponse(user);
 
         } catch (AuthenticationException ae) {
@@ -46,7 +49,7 @@ public class SignInService {
             );
         } catch (SQLException se) {
             // DB 오류 매핑
-            se.printStackTrace();
+            log.error("로그인 처리 중 DB 오류 username=" + reqDto.getUsername(), se);
             return SignInMapper.toFailureResponse(
                     ErrorCode.SERVER_ERROR,
                     "서버 오류로 로그인에 실패했습니다."
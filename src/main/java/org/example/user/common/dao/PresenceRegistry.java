@@ -0,0 +1,321 @@
+package org.example.user.common.dao;
+
+import org.example.config.TestApiConfig;
+import org.example.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PresenceRegistry
+ * ----------------
+ * 사용자 온라인 여부를 프로세스 메모리에 둡니다. (user.status 는 주기적으로 몰아서 저장)
+ *
+ * 온라인 = 열린 WebSocket 세션이 하나 이상 있거나, 마지막 로그인/heartbeat 후 presence.ttlSeconds 가 지나지 않음
+ *
+ * - WebSocket 연결/종료(MessageController)가 세션 수를 올리고 내립니다.
+ *   끊긴 연결은 Jetty idle timeout 으로 닫히면서 onClose 가 불리므로 세션 수에 오래 남지 않습니다.
+ * - 로그인(SessionManager)과 WebSocket 수신 프레임/pong 은 heartbeat 로 ttl 을 연장합니다.
+ * - 로그아웃(SignOutService)은 ttl 을 바로 끝냅니다. (같은 사용자의 WebSocket 이 열려 있으면 그 동안은 온라인)
+ * - presence.flushSeconds 마다 마지막으로 저장한 값과 달라진 사용자만 모아
+ *   UPDATE user SET status = ? WHERE id IN (...) 로 저장합니다. 로그인/로그아웃마다 DB 를 쓰지 않습니다.
+ *
+ * message.bus.type=tcp (서버 여러 대) 이면 다른 서버에 붙은 사용자를 모르므로,
+ * isOnline(userId, storedStatus) 는 메모리 값 || DB 값으로 판단합니다. 단일 서버면 메모리 값만 씁니다.
+ * 단일 서버는 첫 저장 때 이전 프로세스가 남긴 status=1 을 모두 0 으로 정리합니다.
+ *
+ * 여러 서버가 각자 user.status 를 쓰면 A 서버의 오프라인 저장이 B 서버에 남아 있는 연결을 덮어쓰므로,
+ * tcp 에서는 서버(presence.node)별 온라인 여부를 user_presence 에 저장하고 status 는 그 합(하나라도 있으면 1)으로
+ * 다시 계산합니다. (UserDAO.updateNodeStatuses, db/migration/V003) 첫 저장 때 같은 node 의 이전 행을 정리합니다.
+ *
+ * config.properties:
+ *   presence.enabled=true        # false 면 예전처럼 로그인/로그아웃 때 user.status 를 바로 씀
+ *   presence.ttlSeconds=90
+ *   presence.flushSeconds=15
+ *   presence.node=               # tcp 일 때 서버 식별자 (기본값 message.bus.advertise)
+ */
+public class PresenceRegistry implements AutoCloseable {
+
+    private static final Log log = Log.get(PresenceRegistry.class);
+
+    public static final long DEFAULT_TTL_SECONDS = 90;
+    public static final long DEFAULT_FLUSH_SECONDS = 15;
+
+    private static PresenceRegistry instance;
+
+    /**
+     * 사용자 한 명의 상태. sessions/leaseUntilNanos 변경은 entries.compute 안에서만 합니다.
+     */
+    private static final class Presence {
+        volatile int sessions;
+        volatile long leaseUntilNanos;
+        volatile Boolean persisted;   // 마지막으로 DB 에 쓴 값 (null = 모름)
+    }
+
+    private final boolean enabled;
+    private final boolean authoritative;
+    private final String node;            // tcp 일 때 user_presence 의 node (authoritative 면 쓰지 않음)
+    private final long ttlNanos;
+    private final long flushSeconds;
+    private final Map<Long, Presence> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    private ScheduledExecutorService flusher;
+    private UserDAO store;
+    private boolean resetPending;
+
+    public PresenceRegistry(boolean enabled, boolean authoritative, long ttlSeconds, long flushSeconds) {
+        this(enabled, authoritative, null, ttlSeconds, flushSeconds);
+    }
+
+    public PresenceRegistry(boolean enabled, boolean authoritative, String node, long ttlSeconds, long flushSeconds) {
+        if (enabled && !authoritative && (node == null || node.isBlank())) {
+            throw new IllegalArgumentException("서버 여러 대에서는 presence.node (또는 message.bus.advertise) 가 필요합니다.");
+        }
+        this.enabled = enabled;
+        this.authoritative = authoritative;
+        this.node = authoritative || node == null ? null : node.trim();
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.flushSeconds = Math.max(1, flushSeconds);
+    }
+
+    /**
+     * 프로세스 공용 인스턴스 (config.properties 의 presence.* 사용)
+     */
+    public static synchronized PresenceRegistry getInstance() {
+        if (instance == null) {
+            instance = fromProperties(new TestApiConfig().getProperties());
+        }
+        return instance;
+    }
+
+    public static PresenceRegistry fromProperties(Properties props) {
+        return new PresenceRegistry(
+                Boolean.parseBoolean(props.getProperty("presence.enabled", "true").trim()),
+                !"tcp".equalsIgnoreCase(props.getProperty("message.bus.type", "local").trim()),
+                props.getProperty("presence.node", props.getProperty("message.bus.advertise", "")),
+                Long.parseLong(props.getProperty("presence.ttlSeconds", String.valueOf(DEFAULT_TTL_SECONDS)).trim()),
+                Long.parseLong(props.getProperty("presence.flushSeconds", String.valueOf(DEFAULT_FLUSH_SECONDS)).trim())
+        );
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 주기 저장 시작 (EmbeddedServer.start). 시작하지 않으면 메모리에서만 동작합니다.
+     */
+    public synchronized void start(UserDAO store) {
+        if (!enabled || flusher != null) {
+            return;
+        }
+        this.store = store;
+        this.resetPending = true;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "presence-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+    }
+
+    // ------------------------------------------------------------------
+    // 상태 변경
+    // ------------------------------------------------------------------
+
+    public void signedIn(long userId) {
+        long until = System.nanoTime() + ttlNanos;
+        entries.compute(userId, (id, p) -> {
+            Presence presence = p == null ? new Presence() : p;
+            presence.leaseUntilNanos = until;
+            return presence;
+        });
+    }
+
+    public void signedOut(long userId) {
+        entries.computeIfPresent(userId, (id, p) -> {
+            p.leaseUntilNanos = 0;
+            return p;
+        });
+    }
+
+    public void connected(long userId) {
+        long until = System.nanoTime() + ttlNanos;
+        entries.compute(userId, (id, p) -> {
+            Presence presence = p == null ? new Presence() : p;
+            presence.sessions++;
+            presence.leaseUntilNanos = until;
+            return presence;
+        });
+    }
+
+    public void disconnected(long userId) {
+        // 마지막 세션이 닫혀도 ttl 동안은 온라인 (새로고침/재접속 때 깜빡이지 않도록)
+        long until = System.nanoTime() + ttlNanos;
+        entries.computeIfPresent(userId, (id, p) -> {
+            if (p.sessions > 0) {
+                p.sessions--;
+            }
+            p.leaseUntilNanos = Math.max(p.leaseUntilNanos, until);
+            return p;
+        });
+    }
+
+    /**
+     * ttl 연장. 이미 아는 사용자만 갱신하므로 map 잠금 없이 값만 씁니다. (수신 프레임마다 호출)
+     */
+    public void heartbeat(long userId) {
+        Presence p = entries.get(userId);
+        if (p != null) {
+            p.leaseUntilNanos = System.nanoTime() + ttlNanos;
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // 조회
+    // ------------------------------------------------------------------
+
+    public boolean isOnline(long userId) {
+        Presence p = entries.get(userId);
+        return p != null && isOnline(p, System.nanoTime());
+    }
+
+    /**
+     * 친구 목록 등에서 DB 에서 읽은 status 위에 메모리 상태를 덮어쓸 때 사용
+     */
+    public boolean isOnline(long userId, boolean storedStatus) {
+        if (!enabled) {
+            return storedStatus;
+        }
+        return isOnline(userId) || (!authoritative && storedStatus);
+    }
+
+    public int getOnlineCount() {
+        long now = System.nanoTime();
+        int count = 0;
+        for (Presence p : entries.values()) {
+            if (isOnline(p, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public long getFlushFailures() {
+        return flushFailures.get();
+    }
+
+    private static boolean isOnline(Presence p, long now) {
+        return p.sessions > 0 || now - p.leaseUntilNanos < 0;
+    }
+
+    // ------------------------------------------------------------------
+    // 저장
+    // ------------------------------------------------------------------
+
+    /**
+     * 마지막 저장 이후 바뀐 사용자만 DB 에 씁니다. 실패하면 다음 주기에 다시 시도합니다.
+     * 오프라인으로 저장까지 끝난 사용자는 메모리에서 지웁니다.
+     */
+    synchronized void flush() {
+        if (store == null) {
+            return;
+        }
+        try {
+            if (resetPending) {
+                int reset = authoritative ? store.resetOnlineStatuses() : store.resetNodeStatuses(node);
+                resetPending = false;
+                log.info("이전 프로세스가 남긴 온라인 상태 {}건을 정리했습니다.", reset);
+            }
+
+            long now = System.nanoTime();
+            List<Long> online = new ArrayList<>();
+            List<Long> offline = new ArrayList<>();
+            for (Map.Entry<Long, Presence> e : entries.entrySet()) {
+                boolean on = isOnline(e.getValue(), now);
+                if (!Boolean.valueOf(on).equals(e.getValue().persisted)) {
+                    (on ? online : offline).add(e.getKey());
+                }
+            }
+            if (authoritative) {
+                rowsWritten.addAndGet(store.updateStatuses(online, true));
+                rowsWritten.addAndGet(store.updateStatuses(offline, false));
+            } else {
+                // persisted 는 이 서버의 user_presence 행 기준, status 는 모든 서버의 행으로 다시 계산
+                rowsWritten.addAndGet(store.updateNodeStatuses(node, online, offline));
+            }
+            markPersisted(online, Boolean.TRUE);
+            markPersisted(offline, Boolean.FALSE);
+            flushes.incrementAndGet();
+
+            for (Long userId : offline) {
+                entries.computeIfPresent(userId, (id, p) ->
+                        Boolean.FALSE.equals(p.persisted) && !isOnline(p, System.nanoTime()) ? null : p);
+            }
+        } catch (Exception e) {
+            flushFailures.incrementAndGet();
+            log.warn("온라인 상태 저장 실패: {}", e.getMessage());
+        }
+    }
+
+    private void markPersisted(List<Long> userIds, Boolean value) {
+        for (Long userId : userIds) {
+            Presence p = entries.get(userId);
+            if (p != null) {
+                p.persisted = value;
+            }
+        }
+    }
+
+    /**
+     * 주기 저장을 멈추고, 이 서버에 붙어 있던 사용자를 모두 오프라인으로 저장합니다. (서버 종료 시, 풀을 닫기 전)
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = flusher;
+            flusher = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Long userId : entries.keySet()) {
+            entries.computeIfPresent(userId, (id, p) -> {
+                p.sessions = 0;
+                p.leaseUntilNanos = 0;
+                return p;
+            });
+        }
+        flush();
+    }
+}
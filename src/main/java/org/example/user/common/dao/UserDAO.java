@@ -4,9 +4,14 @@ package org.example.user.common.dao;
 
 
 import javax.sql.DataSource;
+import org.example.logging.Log;
 import org.example.user.common.entity.User;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * UserDAO: 순수 JDBC로 user 테이블 CRUD를 수행하는 클래스
@@ -16,10 +21,21 @@ import java.sql.*;
  */
 public class UserDAO {
 
+    private static final Log log = Log.get(UserDAO.class);
+
+    // updateStatuses 의 IN (...) 한 번에 넣을 최대 개수
+    private static final int STATUS_CHUNK_SIZE = 500;
+
     private final DataSource dataSource;
+    private final UserIdentityCache identities;
 
     public UserDAO(DataSource dataSource) {
+        this(dataSource, UserIdentityCache.getInstance());
+    }
+
+    public UserDAO(DataSource dataSource, UserIdentityCache identities) {
         this.dataSource = dataSource;
+        this.identities = identities;
     }
 
     /**
@@ -36,25 +52,10 @@ public class UserDAO {
 
     /**
      * username으로부터 user_id를 조회하여 반환합니다.
-     * 존재하지 않으면 null을 반환합니다.
+     * 존재하지 않으면 null을 반환합니다. (UserIdentityCache 공유 캐시)
      */
     public Long findUserIdByUsername(String username) throws SQLException {
-
-        String sql = "SELECT id FROM `user` WHERE username = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, username);
-
-
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getLong("id");
-                } else {
-                    return null;
-                }
-            }
-        }
+        return identities.resolveId(dataSource, username);
     }
     /**
      * 새 User 레코드 INSERT
@@ -64,14 +65,12 @@ public class UserDAO {
      * @throws SQLException
      */
     public Long registerUser(User user) throws SQLException {
-        System.out.println(">>> UserDAO.insert() 호출됨: " + user.getUsername() + "/" + user.getName());
+        log.debug("registerUser: {}/{}", user.getUsername(), user.getName());
 
         String sql = "INSERT INTO user(name, username, password, status) VALUES (?, ?, ?, ?)";
-        Connection conn = dataSource.getConnection();
-        System.out.println(">>> DB 커넥션 획득 성공: " + conn.getMetaData().getURL());
-        try (PreparedStatement pstmt = conn.prepareStatement(
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
                      sql, Statement.RETURN_GENERATED_KEYS)) {
-
             pstmt.setString(1, user.getName());
             pstmt.setString(2, user.getUsername());
             pstmt.setString(3, user.getPassword());
@@ -84,7 +83,9 @@ public class UserDAO {
 
             try (ResultSet rs = pstmt.getGeneratedKeys()) {
                 if (rs.next()) {
-                    return rs.getLong(1);
+                    long id = rs.getLong(1);
+                    identities.registered(id, user.getUsername(), user.getName());
+                    return id;
                 }
                 return null;
             }
@@ -139,4 +140,162 @@ public class UserDAO {
         }
     }
 
+    /**
+     * 여러 사용자의 status 를 한 번에 바꿈 (PresenceRegistry 주기 저장용)
+     * IN (...) 을 STATUS_CHUNK_SIZE 개씩 나눠 한 트랜잭션으로 실행합니다.
+     *
+     * @return 업데이트된 행 개수
+     */
+    public int updateStatuses(Collection<Long> ids, boolean status) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> list = new ArrayList<>(ids);
+        int updated = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < list.size(); from += STATUS_CHUNK_SIZE) {
+                    List<Long> chunk = list.subList(from, Math.min(from + STATUS_CHUNK_SIZE, list.size()));
+                    String sql = "UPDATE user SET status = ? WHERE id IN ("
+                            + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        pstmt.setBoolean(1, status);
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setLong(i + 2, chunk.get(i));
+                        }
+                        updated += pstmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * status=1 로 남아 있는 행을 모두 0 으로 (단일 서버 기동 시, 이전 프로세스가 남긴 온라인 표시 정리)
+     */
+    public int resetOnlineStatuses() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("UPDATE user SET status = 0 WHERE status = 1")) {
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * 서버 여러 대(message.bus.type=tcp)용 주기 저장 (db/migration/V003)
+     * 이 서버(node)에서 본 변경을 user_presence 에 반영한 뒤, 바뀐 사용자의 status 를
+     * "어느 서버에든 user_presence 행이 남아 있는지" 로 다시 계산합니다. 한 트랜잭션으로 실행합니다.
+     *
+     * @return status 를 다시 계산한 행 개수
+     */
+    public int updateNodeStatuses(String node, Collection<Long> online, Collection<Long> offline) throws SQLException {
+        if (online.isEmpty() && offline.isEmpty()) {
+            return 0;
+        }
+        List<Long> on = new ArrayList<>(online);
+        List<Long> off = new ArrayList<>(offline);
+        List<Long> changed = new ArrayList<>(on);
+        changed.addAll(off);
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < on.size(); from += STATUS_CHUNK_SIZE) {
+                    List<Long> chunk = on.subList(from, Math.min(from + STATUS_CHUNK_SIZE, on.size()));
+                    String sql = "INSERT IGNORE INTO user_presence (user_id, node) VALUES "
+                            + String.join(",", Collections.nCopies(chunk.size(), "(?, ?)"));
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setLong(2 * i + 1, chunk.get(i));
+                            pstmt.setString(2 * i + 2, node);
+                        }
+                        pstmt.executeUpdate();
+                    }
+                }
+                for (int from = 0; from < off.size(); from += STATUS_CHUNK_SIZE) {
+                    List<Long> chunk = off.subList(from, Math.min(from + STATUS_CHUNK_SIZE, off.size()));
+                    String sql = "DELETE FROM user_presence WHERE node = ? AND user_id IN ("
+                            + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        pstmt.setString(1, node);
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setLong(i + 2, chunk.get(i));
+                        }
+                        pstmt.executeUpdate();
+                    }
+                }
+                int updated = recomputeStatuses(conn, changed);
+                conn.commit();
+                return updated;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * 이 서버(node)의 이전 프로세스가 남긴 user_presence 행을 지우고 해당 사용자의 status 를 다시 계산 (tcp 기동 시)
+     *
+     * @return 지운 user_presence 행 개수
+     */
+    public int resetNodeStatuses(String node) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<Long> ids = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT user_id FROM user_presence WHERE node = ? FOR UPDATE")) {
+                    pstmt.setString(1, node);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                        }
+                    }
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM user_presence WHERE node = ?")) {
+                    pstmt.setString(1, node);
+                    pstmt.executeUpdate();
+                }
+                recomputeStatuses(conn, ids);
+                conn.commit();
+                return ids.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * status = user_presence 에 행이 하나라도 있는지 (호출자 트랜잭션 안에서)
+     */
+    private static int recomputeStatuses(Connection conn, List<Long> ids) throws SQLException {
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += STATUS_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + STATUS_CHUNK_SIZE, ids.size()));
+            String sql = "UPDATE user u SET u.status = EXISTS (SELECT 1 FROM user_presence p WHERE p.user_id = u.id) "
+                    + "WHERE u.id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setLong(i + 1, chunk.get(i));
+                }
+                updated += pstmt.executeUpdate();
+            }
+        }
+        return updated;
+    }
 }
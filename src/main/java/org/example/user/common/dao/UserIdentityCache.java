@@ -0,0 +1,326 @@
+package org.example.user.common.dao;
+
+import org.example.config.TestApiConfig;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserIdentityCache
+ * -----------------
+ * username ↔ user.id (+ name) 조회 결과를 프로세스 안에 캐시합니다.
+ *
+ * ChatDAO / FriendDAO / MessageDAO / UserDAO 가 모두 같은 인스턴스(getInstance)를 사용하므로,
+ * 한 요청 안에서 같은 사용자를 여러 번 찾더라도 DB 조회는 최대 한 번입니다.
+ *
+ * - 크기 제한: user.cache.maxEntries 를 넘으면 가장 오래 쓰이지 않은 항목부터 제거 (LRU)
+ * - TTL      : user.cache.ttlSeconds 가 지난 항목은 다시 조회
+ * - 없는 사용자는 캐시하지 않습니다. (가입 직후 바로 조회돼야 하므로)
+ * - registerUser 시 해당 username 을 invalidate 후 새 항목으로 채웁니다.
+ * - 캐시 키는 username 을 DB collation 처럼 정규화한 값(cacheKey)입니다.
+ *   user.username 은 기본 collation(utf8mb4_0900_ai_ci / utf8mb4_general_ci, 대소문자·악센트 구분 없음)이라
+ *   "Bob" 으로 조회해도 "bob" 행이 나오므로, 캐시도 같은 사용자를 같은 키로 찾아야 합니다.
+ *   NFD 분해 후 결합 문자(악센트)를 빼고 Locale.ROOT 소문자로 바꾸는 근사치입니다.
+ *   (collation 의 전체 규칙과 다른 드문 경우에는 캐시 miss 로 DB 를 한 번 더 읽을 뿐 결과는 DB 기준)
+ * - resolveAll: 캐시에 없는 username 들을 IN (...) 쿼리 한 번으로 조회
+ *   결과는 호출자가 넘긴 표기 그대로를 키로 돌려줍니다. (DB 행과는 cacheKey 로 맞춤)
+ *
+ * config.properties:
+ *   user.cache.maxEntries=50000
+ *   user.cache.ttlSeconds=600
+ */
+public class UserIdentityCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 50_000;
+    public static final long DEFAULT_TTL_SECONDS = 600;
+
+    // IN (...) 한 번에 넣을 최대 개수 (너무 긴 쿼리 방지)
+    private static final int IN_CHUNK_SIZE = 500;
+
+    private static UserIdentityCache instance;
+
+    /**
+     * 캐시 항목 (변경 불가)
+     */
+    public static class Identity {
+        private final long id;
+        private final String username;
+        private final String name;
+        private final long loadedAtNanos;
+
+        Identity(long id, String username, String name, long loadedAtNanos) {
+            this.id = id;
+            this.username = username;
+            this.name = name;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Identity> byUsername;   // cacheKey(username) → Identity
+    private final Map<Long, Identity> byId = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public UserIdentityCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.byUsername = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Identity> eldest) {
+                if (size() > UserIdentityCache.this.maxEntries) {
+                    byId.remove(eldest.getValue().getId());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 프로세스 공용 인스턴스 (config.properties 의 user.cache.* 사용)
+     */
+    public static synchronized UserIdentityCache getInstance() {
+        if (instance == null) {
+            instance = fromProperties(new TestApiConfig().getProperties());
+        }
+        return instance;
+    }
+
+    public static UserIdentityCache fromProperties(Properties props) {
+        return new UserIdentityCache(
+                Integer.parseInt(props.getProperty("user.cache.maxEntries", String.valueOf(DEFAULT_MAX_ENTRIES)).trim()),
+                Long.parseLong(props.getProperty("user.cache.ttlSeconds", String.valueOf(DEFAULT_TTL_SECONDS)).trim())
+        );
+    }
+
+    /**
+     * username → Identity (없는 사용자면 null)
+     */
+    public Identity resolve(DataSource ds, String username) throws SQLException {
+        if (username == null) {
+            return null;
+        }
+        Identity cached = getCached(username);
+        if (cached != null) {
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        String sql = "SELECT id, username, name FROM `user` WHERE username = ?";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? put(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * username → user.id (없는 사용자면 null)
+     */
+    public Long resolveId(DataSource ds, String username) throws SQLException {
+        Identity identity = resolve(ds, username);
+        return identity == null ? null : identity.getId();
+    }
+
+    /**
+     * user.id → Identity (없는 사용자면 null)
+     */
+    public Identity resolveById(DataSource ds, long id) throws SQLException {
+        synchronized (this) {
+            Identity cached = byId.get(id);
+            if (cached != null && !isExpired(cached)) {
+                byUsername.get(cacheKey(cached.getUsername())); // LRU 순서 갱신
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+
+        String sql = "SELECT id, username, name FROM `user` WHERE id = ?";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? put(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * 여러 username 을 한 번에 조회합니다.
+     * 캐시에 없는 것만 IN (...) 쿼리로 읽어오며, 존재하지 않는 username 은 결과에 포함되지 않습니다.
+     *
+     * @return 요청한 username(호출자 표기) → Identity (요청 순서 유지)
+     */
+    public Map<String, Identity> resolveAll(DataSource ds, Collection<String> usernames) throws SQLException {
+        Map<String, Identity> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String username : new LinkedHashSet<>(usernames)) {
+            if (username == null) {
+                continue;
+            }
+            Identity cached = getCached(username);
+            if (cached != null) {
+                result.put(username, cached);
+            } else {
+                missing.add(username);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        misses.addAndGet(missing.size());
+
+        // DB 에 저장된 표기와 요청 표기가 대소문자/악센트만 다를 수 있으므로 cacheKey 로 맞춰서 찾음
+        Map<String, Identity> loaded = new HashMap<>();
+        try (Connection conn = ds.getConnection()) {
+            for (int from = 0; from < missing.size(); from += IN_CHUNK_SIZE) {
+                List<String> chunk = missing.subList(from, Math.min(from + IN_CHUNK_SIZE, missing.size()));
+                String sql = "SELECT id, username, name FROM `user` WHERE username IN ("
+                        + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        ps.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Identity identity = put(rs);
+                            loaded.put(cacheKey(identity.getUsername()), identity);
+                        }
+                    }
+                }
+            }
+        }
+
+        // 요청 순서대로 다시 정렬
+        Map<String, Identity> ordered = new LinkedHashMap<>();
+        for (String username : new LinkedHashSet<>(usernames)) {
+            if (username == null) {
+                continue;
+            }
+            Identity identity = result.containsKey(username) ? result.get(username) : loaded.get(cacheKey(username));
+            if (identity != null) {
+                ordered.put(username, identity);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * DB collation(대소문자·악센트 구분 없음)에 맞춘 캐시 키
+     */
+    static String cacheKey(String username) {
+        for (int i = 0; i < username.length(); i++) {
+            if (username.charAt(i) >= 0x80) {
+                String stripped = Normalizer.normalize(username, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+                return stripped.toLowerCase(Locale.ROOT);
+            }
+        }
+        // ASCII 만 있으면 소문자로만 (대부분의 username)
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 새로 가입한 사용자를 캐시에 반영 (UserDAO.registerUser 에서 호출)
+     */
+    public synchronized void registered(long id, String username, String name) {
+        invalidate(username);
+        store(new Identity(id, username, name, System.nanoTime()));
+    }
+
+    public synchronized void invalidate(String username) {
+        Identity removed = byUsername.remove(cacheKey(username));
+        if (removed != null) {
+            byId.remove(removed.getId());
+        }
+    }
+
+    public synchronized void clear() {
+        byUsername.clear();
+        byId.clear();
+    }
+
+    public synchronized int size() {
+        return byUsername.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "UserIdentityCache{size=" + size() + "/" + maxEntries
+                + ", hits=" + hits.get() + ", misses=" + misses.get() + "}";
+    }
+
+    private synchronized Identity getCached(String username) {
+        Identity cached = byUsername.get(cacheKey(username));
+        if (cached == null) {
+            return null;
+        }
+        if (isExpired(cached)) {
+            invalidate(username);
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached;
+    }
+
+    private Identity put(ResultSet rs) throws SQLException {
+        Identity identity = new Identity(rs.getLong("id"), rs.getString("username"), rs.getString("name"), System.nanoTime());
+        synchronized (this) {
+            store(identity);
+        }
+        return identity;
+    }
+
+    private void store(Identity identity) {
+        Identity previous = byUsername.put(cacheKey(identity.getUsername()), identity);
+        if (previous != null && previous.getId() != identity.getId()) {
+            byId.remove(previous.getId());
+        }
+        byId.put(identity.getId(), identity);
+    }
+
+    private boolean isExpired(Identity identity) {
+        return System.nanoTime() - identity.loadedAtNanos > ttlNanos;
+    }
+}
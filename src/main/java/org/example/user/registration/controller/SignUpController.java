@@ -1,33 +1,36 @@
 package org.example.user.registration.controller;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.zaxxer.hikari.HikariDataSource;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
-import org.example.config.DataSoruceConfig;
+import org.example.config.DataSourceRegistry;
+import org.example.config.JsonSupport;
 import org.example.user.common.dao.UserDAO;
 import org.example.user.registration.dto.SignUpReqDto;
 import org.example.user.registration.dto.SignUpResDto;
 import org.example.user.registration.service.SignUpService;
 
+import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.PrintWriter;
 
 @WebServlet("/signup")
 public class SignUpController extends HttpServlet {
 
+    private static final ObjectReader REQ_READER = JsonSupport.reader(SignUpReqDto.class);
+    private static final ObjectWriter RES_WRITER = JsonSupport.writer(SignUpResDto.class);
+
     private SignUpService signUpService;
-    private ObjectMapper objectMapper;
 
     @Override
     public void init() throws ServletException {
         super.init();
-        HikariDataSource ds   = DataSoruceConfig.getDataSource();
+        DataSource ds         = DataSourceRegistry.from(getServletContext()).write();
         UserDAO userDAO       = new UserDAO(ds);
         this.signUpService    = new SignUpService(userDAO);
-        this.objectMapper     = new ObjectMapper();
     }
 
     @Override
@@ -36,7 +39,7 @@ public class SignUpController extends HttpServlet {
         response.setContentType("application/json; charset=UTF-8");
 
         // 1) 요청 바디 → DTO
-        SignUpReqDto reqDto = objectMapper.readValue(request.getInputStream(), SignUpReqDto.class);
+        SignUpReqDto reqDto = REQ_READER.readValue(request.getInputStream());
         // 2) 비즈니스 호출
         SignUpResDto resDto = signUpService.signUp(reqDto);
 
@@ -58,7 +61,7 @@ public class SignUpController extends HttpServlet {
 
         // 4) JSON 응답
         try (PrintWriter out = response.getWriter()) {
-            out.write(objectMapper.writeValueAsString(resDto));
+            out.write(RES_WRITER.writeValueAsString(resDto));
         }
     }
 }
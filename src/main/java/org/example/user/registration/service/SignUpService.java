@@ -1,5 +1,6 @@
 package org.example.user.registration.service;
 
+import org.example.logging.Log;
 import org.example.user.common.dao.UserDAO;
 import org.example.user.registration.dto.SignUpReqDto;
 import org.example.user.registration.dto.SignUpResDto;
@@ -14,6 +15,8 @@ import java.sql.SQLException;
  */
 public class SignUpService {
 
+    private static final Log log = Log.get(SignUpService.class);
+
     private final UserDAO userDAO;
 
     public SignUpService(UserDAO userDAO) {
@@ -50,7 +53,7 @@ public class SignUpService {
             return SignUpMapper.toSuccessResponse("회원가입이 성공적으로 완료되었습니다.");
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            log.error("회원가입 실패 username=" + reqDto.getUsername(), e);
             return SignUpMapper.toFailureResponse(
                     ErrorCode.SERVER_ERROR,
                     "서버 오류로 인해 회원가입에 실패했습니다."
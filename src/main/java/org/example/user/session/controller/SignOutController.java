@@ -1,35 +1,36 @@
 package org.example.user.session.controller;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.zaxxer.hikari.HikariDataSource;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
-import org.example.config.DataSoruceConfig;
+import org.example.config.DataSourceRegistry;
+import org.example.config.JsonSupport;
 import org.example.user.common.dao.UserDAO;
 
 import org.example.user.session.dto.SignOutResDto;
 import org.example.user.session.service.SignOutService;
 
 
+import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.PrintWriter;
 
 @WebServlet("/signout")
 public class SignOutController extends HttpServlet {
 
+    private static final ObjectWriter RES_WRITER = JsonSupport.writer(SignOutResDto.class);
+
     private SignOutService SignOutService;
-    private ObjectMapper objectMapper;
 
 
     @Override
     public void init() throws ServletException {
         super.init();
-        HikariDataSource ds       = DataSoruceConfig.getDataSource();
+        DataSource ds             = DataSourceRegistry.from(getServletContext()).write();
         UserDAO userDAO           = new UserDAO(ds);
         this.SignOutService       = new SignOutService(userDAO);
-        this.objectMapper         = new ObjectMapper();
     }
 
     @Override
@@ -45,7 +46,7 @@ public class SignOutController extends HttpServlet {
                         /* ErrorCode.SERVER_ERROR */ null,
                         "로그인된 세션이 없습니다."
                 );
-                out.write(objectMapper.writeValueAsString(dto));
+                out.write(RES_WRITER.writeValueAsString(dto));
             }
             return;
         }
@@ -59,7 +60,7 @@ public class SignOutController extends HttpServlet {
             SignOutResDto dto = ok
                     ? SignOutResDto.ofSuccess("로그아웃 되었습니다.")
                     : SignOutResDto.ofFailure(/* ErrorCode.SERVER_ERROR */ null, "로그아웃에 실패했습니다.");
-            out.write(objectMapper.writeValueAsString(dto));
+            out.write(RES_WRITER.writeValueAsString(dto));
         }
     }
 }
@@ -1,6 +1,8 @@
 package org.example.user.session.service;
 
 
+import org.example.logging.Log;
+import org.example.user.common.dao.PresenceRegistry;
 import org.example.user.common.dao.UserDAO;
 
 import java.sql.SQLException;
@@ -10,23 +12,36 @@ import java.sql.SQLException;
  */
 public class SignOutService {
 
+    private static final Log log = Log.get(SignOutService.class);
+
     private final UserDAO userDAO;
+    private final PresenceRegistry presence;
 
     public SignOutService(UserDAO userDAO) {
+        this(userDAO, PresenceRegistry.getInstance());
+    }
+
+    public SignOutService(UserDAO userDAO, PresenceRegistry presence) {
         this.userDAO = userDAO;
+        this.presence = presence;
     }
     /**
      * 로그아웃 처리: userId의 status를 false(오프라인)로 업데이트
+     * PresenceRegistry 가 켜져 있으면 메모리에만 반영하고 user.status 는 주기 저장에 맡깁니다.
      *
      * @param userId 로그아웃할 사용자 PK
      * @return 업데이트 성공 시 true, 실패 시 false
      */
     public boolean signOut(Long userId) {
+        if (presence.isEnabled()) {
+            presence.signedOut(userId);
+            return true;
+        }
         try {
             int updatedRows = userDAO.updateStatusById(userId, false);
             return updatedRows == 1;
         } catch (SQLException e) {
-            e.printStackTrace();
+            log.error("로그아웃 처리 실패 userId=" + userId, e);
             return false;
         }
     }
@@ -0,0 +1,9 @@
+-- ─── 메시지 이력 keyset 페이지네이션용 인덱스 ─────────────────────────────
+-- MessageDAO.selectChatHistoryPage / ChatDAO.selectChatHistorySinceJoin(limit) 는
+--   WHERE m.room_id = ? AND m.msg_id < ? ORDER BY m.msg_id DESC LIMIT ?
+-- 형태로 조회합니다. (room_id, msg_id) 인덱스가 있으면 방의 전체 메시지 수와 무관하게
+-- 페이지 크기만큼만 읽고 정렬(filesort)도 생기지 않습니다.
+--
+-- 적용: mysql -u <user> -p <db> < V001__message_room_msg_index.sql
+
+CREATE INDEX idx_message_room_msg ON message (room_id, msg_id);
@@ -0,0 +1,19 @@
+-- ─── 메모 upsert 용 유니크 키 ─────────────────────────────────────────────
+-- MemoDAO.upsertMemo 는
+--   INSERT INTO memo (...) VALUES (...) ON DUPLICATE KEY UPDATE content = VALUES(content)
+-- 한 문장으로 저장합니다. (owner_id, friend_id, created_date) 유니크 키가 있어야
+-- 같은 날짜 메모가 두 개 생기지 않고, 조회 후 INSERT/UPDATE 하던 사이의 경쟁도 없어집니다.
+-- 이 인덱스는 owner/friend 의 날짜 범위 조회(created_date BETWEEN ...)에도 그대로 쓰입니다.
+--
+-- 키를 만들기 전에 이미 중복된 메모가 있으면 memo_id 가 가장 큰 것(가장 최근)만 남깁니다.
+--
+-- 적용: mysql -u <user> -p <db> < V002__memo_owner_friend_date_unique.sql
+
+DELETE m1 FROM memo m1
+JOIN memo m2
+  ON m1.owner_id = m2.owner_id
+ AND m1.friend_id = m2.friend_id
+ AND m1.created_date = m2.created_date
+ AND m1.memo_id < m2.memo_id;
+
+ALTER TABLE memo ADD UNIQUE KEY uk_memo_owner_friend_date (owner_id, friend_id, created_date);
@@ -0,0 +1,18 @@
+-- ─── 서버별 온라인 상태 (message.bus.type=tcp) ──────────────────────────────
+-- 서버가 여러 대면 같은 사용자가 서로 다른 서버에 붙어 있을 수 있어, 한 서버가 user.status = 0 을 쓰면
+-- 다른 서버에 아직 열린 연결이 있어도 오프라인으로 보입니다.
+-- 그래서 PresenceRegistry 는 "이 서버에서 온라인인 사용자" 를 (user_id, node) 행으로 저장하고,
+-- user.status 는 UserDAO.updateNodeStatuses 가 행이 하나라도 남아 있는지로 다시 계산합니다.
+--
+-- node 는 presence.node (기본값 message.bus.advertise) 입니다. 서버를 영구히 뺀 경우에는
+--   DELETE FROM user_presence WHERE node = '<node>';
+-- 후 해당 사용자의 status 를 다시 계산하세요. (같은 node 로 다시 뜨면 기동 시 자동 정리)
+--
+-- 적용: mysql -u <user> -p <db> < V003__user_presence_node.sql
+
+CREATE TABLE user_presence (
+    user_id BIGINT      NOT NULL,
+    node    VARCHAR(64) NOT NULL,
+    PRIMARY KEY (user_id, node),
+    KEY idx_user_presence_node (node)
+);
@@ -0,0 +1,90 @@
+package org.example.bench;
+
+import org.example.chat.dao.ChatDAO;
+import org.example.config.DataSoruceConfig;
+import org.example.config.DataSourceRegistry;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 그룹 채팅방 생성(ChatDAO.insertGroupRoom) 벤치마크
+ *
+ * bench_user_0 ~ bench_user_{max-1} 사용자를 미리 만들어 두고(INSERT IGNORE),
+ * 그룹 크기별로 방을 반복 생성하며 평균/p99 지연을 측정합니다.
+ * 생성한 방은 측정 후 deleteEntireChatRoom 으로 정리합니다.
+ *
+ * 실행 (db.properties 필요):
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=org.example.bench.GroupRoomCreateBench \
+ *       -Dexec.args="2,10,50,100,500 20"
+ *
+ * jdbc.rewriteBatchedStatements=false 로 바꿔 실행하면 배치 rewrite 효과를 비교할 수 있습니다.
+ */
+public class GroupRoomCreateBench {
+
+    private static final String USER_PREFIX = "bench_user_";
+
+    public static void main(String[] args) throws Exception {
+        int[] groupSizes = Arrays.stream((args.length > 0 ? args[0] : "2,10,50,100,500").split(","))
+                .mapToInt(v -> Integer.parseInt(v.trim()))
+                .toArray();
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int maxSize = Arrays.stream(groupSizes).max().orElse(2);
+
+        try (DataSourceRegistry registry = new DataSourceRegistry(DataSoruceConfig.loadProperties())) {
+            DataSource ds = registry.write();
+            seedUsers(ds, maxSize);
+            ChatDAO chatDAO = new ChatDAO(ds);
+
+            System.out.println("=== Group room create ===");
+            System.out.println("size   avg(ms)   p99(ms)");
+            for (int size : groupSizes) {
+                List<String> members = new ArrayList<>();
+                for (int i = 1; i < size; i++) {
+                    members.add(USER_PREFIX + i);
+                }
+
+                // 워밍업 1회
+                chatDAO.deleteEntireChatRoom(chatDAO.insertGroupRoom(USER_PREFIX + 0, "bench", members));
+
+                long[] latenciesNs = new long[iterations];
+                List<Long> created = new ArrayList<>();
+                for (int it = 0; it < iterations; it++) {
+                    long t0 = System.nanoTime();
+                    created.add(chatDAO.insertGroupRoom(USER_PREFIX + 0, "bench-" + size, members));
+                    latenciesNs[it] = System.nanoTime() - t0;
+                }
+                for (Long roomId : created) {
+                    chatDAO.deleteEntireChatRoom(roomId);
+                }
+
+                Arrays.sort(latenciesNs);
+                double avgMs = Arrays.stream(latenciesNs).average().orElse(0) / 1e6;
+                System.out.printf("%-6d %-9.2f %-9.2f%n", size, avgMs, percentile(latenciesNs, 0.99) / 1e6);
+            }
+        }
+    }
+
+    private static void seedUsers(DataSource ds, int count) throws Exception {
+        String sql = "INSERT IGNORE INTO user (name, username, password, status) VALUES (?, ?, 'bench', 0)";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                ps.setString(1, "bench" + i);
+                ps.setString(2, USER_PREFIX + i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(idx, 0)];
+    }
+}
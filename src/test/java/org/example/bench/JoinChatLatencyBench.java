@@ -0,0 +1,98 @@
+package org.example.bench;
+
+import org.example.config.TestApiConfig;
+import org.example.server.EmbeddedServer;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * 채팅방 입장(POST /api/chat/join) 지연 벤치마크
+ *
+ * 로컬에 EmbeddedServer 를 띄우고 같은 방에 반복 입장하면서 p50/p99 를 측정합니다.
+ *
+ * 모드:
+ *   direct   : POST /api/chat/join 한 번 (현재 구조 — 서버 안에서 방 정보 + 메시지 조립)
+ *   selfcall : POST /api/chat/join 후 GET /api/messages 를 한 번 더 호출
+ *              (예전 handleJoinChat 이 하던 HTTP 재호출 + JSON 재파싱 비용을 재현)
+ *
+ * 실행 (db.properties 필요, roomId/username 은 실제 존재하는 값):
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=org.example.bench.JoinChatLatencyBench \
+ *       -Dexec.args="direct 42 alice 2000"
+ */
+public class JoinChatLatencyBench {
+
+    public static void main(String[] args) throws Exception {
+        String mode     = args.length > 0 ? args[0] : "direct";
+        long roomId     = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        String username = args.length > 2 ? args[2] : "test";
+        int iterations  = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int port        = args.length > 4 ? Integer.parseInt(args[4]) : 18081;
+
+        Properties props = new TestApiConfig().getProperties();
+        props.setProperty("server.port", String.valueOf(port));
+        EmbeddedServer server = new EmbeddedServer(new TestApiConfig(props));
+        server.start();
+
+        String base = "http://127.0.0.1:" + port;
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest join = HttpRequest.newBuilder(URI.create(base + TestApiConfig.get("api.chat.join")))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"chatRoomId\":" + roomId + ",\"username\":\"" + username + "\"}"))
+                .build();
+        HttpRequest fetch = HttpRequest.newBuilder(URI.create(base + TestApiConfig.get("api.messages.fetch")
+                        + "?roomId=" + roomId + "&username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)))
+                .GET()
+                .build();
+
+        try {
+            // 워밍업 (JIT, 커넥션 풀, RoomRegistry 채우기)
+            for (int i = 0; i < Math.min(200, iterations); i++) {
+                joinOnce(client, join, "selfcall".equals(mode) ? fetch : null);
+            }
+
+            long[] latenciesNs = new long[iterations];
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                long t0 = System.nanoTime();
+                joinOnce(client, join, "selfcall".equals(mode) ? fetch : null);
+                latenciesNs[i] = System.nanoTime() - t0;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(latenciesNs);
+
+            System.out.println("=== Chat join latency ===");
+            System.out.println("mode        : " + mode);
+            System.out.println("iterations  : " + iterations);
+            System.out.printf ("throughput  : %.1f joins/s%n", iterations / seconds);
+            System.out.printf ("p50         : %.2f ms%n", percentile(latenciesNs, 0.50) / 1e6);
+            System.out.printf ("p99         : %.2f ms%n", percentile(latenciesNs, 0.99) / 1e6);
+            System.out.printf ("max         : %.2f ms%n", latenciesNs[latenciesNs.length - 1] / 1e6);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void joinOnce(HttpClient client, HttpRequest join, HttpRequest fetch) throws Exception {
+        HttpResponse<String> res = client.send(join, HttpResponse.BodyHandlers.ofString());
+        if (res.statusCode() != 200) {
+            throw new IllegalStateException("join 실패: " + res.statusCode() + " " + res.body());
+        }
+        if (fetch != null) {
+            client.send(fetch, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(idx, 0)];
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.bench;
+
+import jakarta.websocket.*;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.example.config.WebSocketRegistrar;
+import org.example.message.controller.MessageController;
+import org.example.message.controller.RoomBroadcaster;
+import org.example.message.service.TcpRoomBus;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RoomBus(TCP) 다중 서버 fan-out 벤치마크 (DB 불필요)
+ *
+ * 한 JVM 안에 서버(node) 여러 개를 띄웁니다. 각 node 는 Jetty(/ws/chat) + RoomBroadcaster + TcpRoomBus 를
+ * 따로 가지고 loopback 으로 full-mesh 연결됩니다. 모든 node 에 클라이언트를 붙인 뒤 node 0 에서만 publish 하고,
+ * 각 클라이언트가 받은 수와 지연(p50/p99, 로컬/원격 node 별)을 측정합니다.
+ * 클라이언트가 없는 방으로는 다른 node 에 프레임이 가지 않는 것도 함께 확인합니다.
+ *
+ * 메시지 저장은 하지 않으므로 MessageService 없이 onOpen/onClose 경로만 사용합니다.
+ *
+ * 실행:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=org.example.bench.RoomBusLoopbackBench \
+ *       -Dexec.args="3 200 20 5000"
+ *   인자: nodes clientsPerNode rooms messages [basePort]
+ */
+public class RoomBusLoopbackBench {
+
+    private static final String WS_PATH = "/ws/chat";
+    private static final String BUS_SECRET = "room-bus-loopback-bench";
+
+    public static void main(String[] args) throws Exception {
+        int nodeCount      = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int clientsPerNode = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int rooms          = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int messages       = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+        int basePort       = args.length > 4 ? Integer.parseInt(args[4]) : 18100;
+
+        List<String> peers = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            peers.add("127.0.0.1:" + (basePort + 1000 + i));
+        }
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new Node(basePort + i, peers.get(i), peers));
+        }
+
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        List<Session> sessions = new ArrayList<>();
+        List<Receiver> receivers = new ArrayList<>();
+        try {
+            for (Node node : nodes) {
+                node.start();
+            }
+
+            // node 마다 clientsPerNode 명, 방 1..rooms 에 고르게 분배
+            for (int n = 0; n < nodeCount; n++) {
+                for (int c = 0; c < clientsPerNode; c++) {
+                    long roomId = c % rooms + 1;
+                    Receiver receiver = new Receiver(n);
+                    URI uri = URI.create("ws://127.0.0.1:" + (basePort + n) + WS_PATH + "?chatRoomId=" + roomId);
+                    sessions.add(container.connectToServer(receiver, ClientEndpointConfig.Builder.create().build(), uri));
+                    receivers.add(receiver);
+                }
+            }
+            waitForSubscriptions(nodes.get(0).bus, rooms, nodeCount - 1);
+
+            // 방마다 세션 수 = nodeCount * (clientsPerNode 중 그 방에 배정된 수)
+            long expected = 0;
+            for (int m = 0; m < messages; m++) {
+                long roomId = m % rooms + 1;
+                expected += (long) nodeCount * countClients(clientsPerNode, rooms, roomId);
+            }
+
+            long start = System.nanoTime();
+            Node origin = nodes.get(0);
+            for (int m = 0; m < messages; m++) {
+                long roomId = m % rooms + 1;
+                origin.bus.publish(roomId, m + 1, "{\"roomId\":" + roomId + ",\"sentAt\":" + System.nanoTime() + "}");
+            }
+            long forwardedBefore = origin.bus.getForwarded();
+            // 아무도 없는 방: 다른 node 로 전달되면 안 됨
+            origin.bus.publish(rooms + 1_000_000L, 0L, "{\"idle\":true}");
+            boolean idleForwarded = origin.bus.getForwarded() != forwardedBefore;
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (totalReceived(receivers) < expected && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long received = totalReceived(receivers);
+
+            System.out.println("=== RoomBus loopback fan-out ===");
+            System.out.println("nodes          : " + nodeCount);
+            System.out.println("clients        : " + nodeCount * clientsPerNode + " (" + clientsPerNode + "/node)");
+            System.out.println("rooms          : " + rooms);
+            System.out.println("messages       : " + messages + " (published on node 0)");
+            System.out.println("deliveries     : " + received + " / " + expected);
+            System.out.printf ("elapsed        : %.3f s (%.0f deliveries/s)%n", seconds, received / seconds);
+            System.out.println("bus forwarded  : " + origin.bus.getForwarded() + ", dropped " + origin.bus.getDropped());
+            System.out.println("idle room sent : " + (idleForwarded ? "YES (unexpected)" : "no"));
+            printLatency("local  (node 0)", receivers, 0, true);
+            printLatency("remote (node 1+)", receivers, 0, false);
+        } finally {
+            for (Session s : sessions) {
+                try {
+                    s.close();
+                } catch (Exception ignore) {
+                }
+            }
+            LifeCycle.stop(container);   // 클라이언트 스레드 정리
+            for (Node node : nodes) {
+                node.stop();
+            }
+        }
+    }
+
+    private static int countClients(int clientsPerNode, int rooms, long roomId) {
+        int count = 0;
+        for (int c = 0; c < clientsPerNode; c++) {
+            if (c % rooms + 1 == roomId) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void waitForSubscriptions(TcpRoomBus bus, int rooms, int otherNodes) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (long roomId = 1; roomId <= rooms; roomId++) {
+            while (bus.peersInterestedIn(roomId).size() < otherNodes && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static long totalReceived(List<Receiver> receivers) {
+        long sum = 0;
+        for (Receiver r : receivers) {
+            sum += r.received.get();
+        }
+        return sum;
+    }
+
+    private static void printLatency(String label, List<Receiver> receivers, int originNode, boolean local) {
+        List<Long> all = new ArrayList<>();
+        for (Receiver r : receivers) {
+            if ((r.node == originNode) == local) {
+                all.addAll(r.latenciesNs);
+            }
+        }
+        if (all.isEmpty()) {
+            return;
+        }
+        long[] sorted = all.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%-15s: p50 %.2f ms, p99 %.2f ms%n", label,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(idx, 0)];
+    }
+
+    /**
+     * 서버 하나 (Jetty + RoomBroadcaster + TcpRoomBus)
+     */
+    static final class Node {
+        final Server server;
+        final RoomBroadcaster broadcaster = new RoomBroadcaster(0, 1024, RoomBroadcaster.SlowConsumerPolicy.DROP);
+        final TcpRoomBus bus;
+
+        Node(int wsPort, String advertise, List<String> peers) {
+            int busPort = Integer.parseInt(advertise.substring(advertise.lastIndexOf(':') + 1));
+            bus = new TcpRoomBus(broadcaster::broadcast, broadcaster::activeRoomIds, advertise, "127.0.0.1", busPort,
+                    peers, 10_000, BUS_SECRET);
+
+            server = new Server(new InetSocketAddress("127.0.0.1", wsPort));
+            ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+            context.setContextPath("/");
+            server.setHandler(context);
+            WebSocketRegistrar.register(context, WS_PATH, MessageController.class,
+                    () -> new MessageController(null, broadcaster, bus));
+        }
+
+        void start() throws Exception {
+            bus.start();
+            server.start();
+        }
+
+        void stop() throws Exception {
+            server.stop();
+            bus.close();
+            broadcaster.close();
+        }
+    }
+
+    public static class Receiver extends Endpoint {
+        final int node;
+        final AtomicLong received = new AtomicLong();
+        final ConcurrentLinkedQueue<Long> latenciesNs = new ConcurrentLinkedQueue<>();
+
+        Receiver(int node) {
+            this.node = node;
+        }
+
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+            session.addMessageHandler(String.class, text -> {
+                long now = System.nanoTime();
+                int i = text.indexOf("\"sentAt\":");
+                if (i >= 0) {
+                    long sentAt = Long.parseLong(text.substring(i + 9, text.length() - 1));
+                    latenciesNs.add(now - sentAt);
+                }
+                received.incrementAndGet();
+            });
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.bench;
+
+import org.example.config.DataSourceRegistry;
+import org.example.config.PoolLimitedDataSource;
+import org.example.config.TestApiConfig;
+import org.example.server.EmbeddedServer;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 스레드 모드(platform / virtual) 부하 테스트
+ *
+ * 로컬에 EmbeddedServer 를 server.threads.mode 만 바꿔 띄우고, GET /api/friends/export 를
+ * 동시에 concurrency 개씩 총 requests 번 보내 처리량과 p50/p99 를 측정합니다.
+ * GET /api/friends 는 FriendListCache 에서 바로 응답하므로 DB 를 거치지 않습니다.
+ * export 는 캐시를 쓰지 않고 요청마다 user_friends 를 읽으므로 (친구 500명 이하이면 DB 조회 1회,
+ * username → id 는 UserIdentityCache) 풀 대기와 스레드 모드 차이가 그대로 드러납니다.
+ * 클라이언트도 요청마다 가상 스레드를 써서 동시 요청 수가 클라이언트 쪽 스레드에 묶이지 않게 합니다.
+ *
+ * 모드:
+ *   platform         : Jetty QueuedThreadPool (server.threads.max)
+ *   virtual          : 요청마다 가상 스레드 + 풀 크기 limiter (PoolLimitedDataSource)
+ *   virtual-nolimit  : 가상 스레드만 (limiter 없이 Hikari 풀에 바로 몰림)
+ *
+ * 실행 (db.properties 필요, username 은 실제 존재하는 값):
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=org.example.bench.ThreadModeLoadBench \
+ *       -Dexec.args="virtual alice 50000 10000"
+ *   인자: mode username requests concurrency [port]
+ *
+ * 같은 requests/concurrency 로 platform 과 virtual 을 각각 실행해서 비교합니다.
+ * 동시 접속 10k 를 넘기려면 ulimit -n 을 충분히 늘려 두세요.
+ */
+public class ThreadModeLoadBench {
+
+    public static void main(String[] args) throws Exception {
+        String mode     = args.length > 0 ? args[0] : "virtual";
+        String username = args.length > 1 ? args[1] : "test";
+        int requests    = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        int port        = args.length > 4 ? Integer.parseInt(args[4]) : 18082;
+
+        Properties props = new TestApiConfig().getProperties();
+        props.setProperty("server.port", String.valueOf(port));
+        props.setProperty("server.threads.mode", mode.startsWith("virtual") ? "virtual" : "platform");
+        props.setProperty("server.threads.poolLimiter", String.valueOf(!"virtual-nolimit".equals(mode)));
+        EmbeddedServer server = new EmbeddedServer(new TestApiConfig(props));
+        server.start();
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port
+                        + TestApiConfig.get("api.friends.get") + "/export"
+                        + "?username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        try {
+            // 워밍업 (JIT, 커넥션 풀)
+            run(client, request, Math.min(2_000, requests), Math.min(200, concurrency));
+
+            Result result = run(client, request, requests, concurrency);
+
+            System.out.println("=== Thread mode load test ===");
+            System.out.println("mode        : " + mode);
+            System.out.println("requests    : " + requests + " (failed " + result.failed + ")");
+            System.out.println("concurrency : " + concurrency);
+            System.out.printf ("throughput  : %.1f req/s%n", requests / result.seconds);
+            System.out.printf ("p50         : %.2f ms%n", percentile(result.latenciesNs, 0.50) / 1e6);
+            System.out.printf ("p99         : %.2f ms%n", percentile(result.latenciesNs, 0.99) / 1e6);
+            System.out.printf ("max         : %.2f ms%n", result.latenciesNs[result.latenciesNs.length - 1] / 1e6);
+            DataSource ds = DataSourceRegistry.getInstance().write();
+            if (ds.isWrapperFor(PoolLimitedDataSource.class)) {
+                PoolLimitedDataSource limited = ds.unwrap(PoolLimitedDataSource.class);
+                System.out.println("pool permits: " + limited.getMaxPermits() + " (timeouts " + limited.getTimeouts() + ")");
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int requests, int concurrency) throws Exception {
+        long[] latenciesNs = new long[requests];
+        AtomicInteger failed = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                final int idx = i;
+                pool.submit(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<String> res = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (res.statusCode() != 200) {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    } finally {
+                        latenciesNs[idx] = System.nanoTime() - t0;
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latenciesNs);
+        return new Result(latenciesNs, failed.get(), seconds);
+    }
+
+    private record Result(long[] latenciesNs, int failed, double seconds) {
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(idx, 0)];
+    }
+}
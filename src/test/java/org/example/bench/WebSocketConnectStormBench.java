@@ -0,0 +1,146 @@
+package org.example.bench;
+
+import jakarta.websocket.*;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.example.chat.dao.ChatDAO;
+import org.example.chat.service.ChatService;
+import org.example.config.DataSoruceConfig;
+import org.example.config.DataSourceRegistry;
+import org.example.config.WebSocketRegistrar;
+import org.example.message.controller.MessageController;
+import org.example.message.dao.MessageDAO;
+import org.example.message.service.MessageService;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.*;
+
+/**
+ * WebSocket 접속 폭주(connect storm) 벤치마크
+ *
+ * 로컬 Jetty에 /ws/chat 만 띄우고 N개의 클라이언트를 동시에 접속시켜
+ * 초당 접속 수와 핸드셰이크 지연(p50/p99)을 측정합니다.
+ *
+ * 모드:
+ *   shared         : 서비스/풀을 한 번만 만들고 모든 엔드포인트에 주입 (현재 구조)
+ *   per-connection : 접속마다 db.properties 로딩 + 새 커넥션 풀 생성 (예전 구조 재현)
+ *
+ * 실행 (db.properties 필요):
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=org.example.bench.WebSocketConnectStormBench \
+ *       -Dexec.args="shared 2000 64"
+ */
+public class WebSocketConnectStormBench {
+
+    private static final String WS_PATH = "/ws/chat";
+
+    public static void main(String[] args) throws Exception {
+        String mode     = args.length > 0 ? args[0] : "shared";
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int port        = args.length > 3 ? Integer.parseInt(args[3]) : 18080;
+
+        Properties dbProps = DataSoruceConfig.loadProperties();
+        List<DataSourceRegistry> createdRegistries = Collections.synchronizedList(new ArrayList<>());
+
+        Server server = new Server(new InetSocketAddress("127.0.0.1", port));
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath("/");
+        server.setHandler(context);
+
+        if ("per-connection".equals(mode)) {
+            WebSocketRegistrar.register(context, WS_PATH, MessageController.class, () -> {
+                DataSourceRegistry registry = new DataSourceRegistry(dbProps);
+                createdRegistries.add(registry);
+                return new MessageController(newMessageService(registry));
+            });
+        } else {
+            DataSourceRegistry registry = new DataSourceRegistry(dbProps);
+            createdRegistries.add(registry);
+            MessageService shared = newMessageService(registry);
+            WebSocketRegistrar.register(context, WS_PATH, MessageController.class,
+                    () -> new MessageController(shared));
+        }
+        server.start();
+
+        try {
+            run(mode, URI.create("ws://127.0.0.1:" + port + WS_PATH + "?chatRoomId=1"), connections, concurrency);
+        } finally {
+            server.stop();
+            for (DataSourceRegistry registry : createdRegistries) {
+                registry.close();
+            }
+        }
+    }
+
+    private static MessageService newMessageService(DataSourceRegistry registry) {
+        ChatService chatService = new ChatService(new ChatDAO(registry.write()));
+        return new MessageService(new MessageDAO(registry.write(), registry.read()), chatService);
+    }
+
+    private static void run(String mode, URI uri, int connections, int concurrency) throws Exception {
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        List<Session> sessions = Collections.synchronizedList(new ArrayList<>());
+        long[] latenciesNs = new long[connections];
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            final int idx = i;
+            futures.add(pool.submit(() -> {
+                long t0 = System.nanoTime();
+                Session s = container.connectToServer(new NoopEndpoint(), ClientEndpointConfig.Builder.create().build(), uri);
+                latenciesNs[idx] = System.nanoTime() - t0;
+                sessions.add(s);
+                return null;
+            }));
+        }
+        int failed = 0;
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                failed++;
+            }
+        }
+        long elapsedNs = System.nanoTime() - start;
+        pool.shutdown();
+
+        for (Session s : sessions) {
+            try {
+                s.close();
+            } catch (Exception ignore) {
+            }
+        }
+
+        long[] ok = java.util.Arrays.stream(latenciesNs).filter(v -> v > 0).sorted().toArray();
+        double seconds = elapsedNs / 1e9;
+        System.out.println("=== WebSocket connect storm ===");
+        System.out.println("mode           : " + mode);
+        System.out.println("connections    : " + connections + " (failed " + failed + ")");
+        System.out.println("concurrency    : " + concurrency);
+        System.out.printf ("elapsed        : %.3f s%n", seconds);
+        System.out.printf ("throughput     : %.1f conn/s%n", ok.length / seconds);
+        if (ok.length > 0) {
+            System.out.printf("handshake p50  : %.2f ms%n", percentile(ok, 0.50) / 1e6);
+            System.out.printf("handshake p99  : %.2f ms%n", percentile(ok, 0.99) / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(idx, 0)];
+    }
+
+    public static class NoopEndpoint extends Endpoint {
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+        }
+    }
+}
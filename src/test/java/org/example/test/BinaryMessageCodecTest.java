@@ -0,0 +1,203 @@
+package org.example.test;
+
+import org.example.message.controller.BinaryMessageCodec;
+import org.example.message.dto.SendMessageReq;
+import org.example.message.dto.SendMessageRes;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BinaryMessageCodec(tog.bin.v1) 단위 테스트 (서버/DB 없이 실행)
+ *
+ * - SEND / MESSAGE 왕복: ASCII, 한글, surrogate pair(이모지), null 필드
+ * - 짝 없는 surrogate 는 String.getBytes(UTF_8) 와 같이 '?'
+ * - createdAt 은 밀리초 단위로 잘림
+ * - 잘린 프레임, 64비트를 넘는 varint, 프레임보다 긴 문자열, 임의 바이트는 IOException 으로만 실패
+ */
+public class BinaryMessageCodecTest {
+
+    private static SendMessageReq request(Long roomId, Long senderId, String contents) {
+        SendMessageReq req = new SendMessageReq();
+        req.setRoomId(roomId);
+        req.setSenderId(senderId);
+        req.setContents(contents);
+        return req;
+    }
+
+    private static SendMessageRes response(Long msgId, LocalDateTime createdAt, String contents) {
+        SendMessageRes res = new SendMessageRes();
+        res.setMsgId(msgId);
+        res.setChatRoomId(7L);
+        res.setSenderId(3L);
+        res.setCreatedAt(createdAt);
+        res.setContents(contents);
+        return res;
+    }
+
+    private static SendMessageReq roundTrip(SendMessageReq req) throws IOException {
+        return BinaryMessageCodec.decodeRequest(ByteBuffer.wrap(BinaryMessageCodec.encodeRequest(req)));
+    }
+
+    @Test
+    void requestRoundTripsText() throws IOException {
+        for (String contents : new String[]{"hello", "안녕하세요 👋", "😀🎉 surrogate pair", "", "é"}) {
+            SendMessageReq decoded = roundTrip(request(1L, 2L, contents));
+            assertEquals(1L, decoded.getRoomId());
+            assertEquals(2L, decoded.getSenderId());
+            assertEquals(contents, decoded.getContents());
+        }
+    }
+
+    @Test
+    void requestRoundTripsNullsAndLargeIds() throws IOException {
+        SendMessageReq decoded = roundTrip(request(null, null, null));
+        assertNull(decoded.getRoomId());
+        assertNull(decoded.getSenderId());
+        assertNull(decoded.getContents());
+
+        decoded = roundTrip(request(0L, Long.MAX_VALUE, "x"));
+        assertEquals(0L, decoded.getRoomId());
+        assertEquals(Long.MAX_VALUE, decoded.getSenderId());
+    }
+
+    @Test
+    void encodedTextMatchesJdkUtf8() throws IOException {
+        String text = "가😀aé€";
+        byte[] frame = BinaryMessageCodec.encodeRequest(request(null, null, text));
+        byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+        // 타입 1바이트 + null varint 2개 + 길이 varint 1바이트 뒤가 본문
+        assertArrayEquals(expected, Arrays.copyOfRange(frame, 4, frame.length));
+        assertEquals(expected.length + 1, frame[3]);
+    }
+
+    @Test
+    void loneSurrogateBecomesQuestionMark() throws IOException {
+        for (String text : new String[]{"a\uD83Db", "end\uD83D", "\uDE00start", "\uDE00\uD83D"}) {
+            SendMessageReq decoded = roundTrip(request(1L, 2L, text));
+            String viaJdk = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+            assertEquals(viaJdk, decoded.getContents(), "JDK 인코더와 같은 결과");
+            assertFalse(decoded.getContents().chars().anyMatch(c -> Character.isSurrogate((char) c)));
+        }
+    }
+
+    @Test
+    void responseRoundTripsAndTruncatesCreatedAtToMillis() throws IOException {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 6, 8, 12, 34, 56, 123_456_789);
+        SendMessageRes decoded = BinaryMessageCodec.decodeResponse(ByteBuffer.wrap(
+                BinaryMessageCodec.encodeResponse(response(99L, createdAt, "한글 😀"))));
+        assertEquals(99L, decoded.getMsgId());
+        assertEquals(7L, decoded.getChatRoomId());
+        assertEquals(3L, decoded.getSenderId());
+        assertEquals("한글 😀", decoded.getContents());
+        assertEquals(LocalDateTime.of(2025, 6, 8, 12, 34, 56, 123_000_000), decoded.getCreatedAt(),
+                "밀리초 미만은 버림");
+
+        // epoch 이전도 그대로 (단 -1ms 는 null 과 겹치는 값이라 쓰지 않음)
+        LocalDateTime beforeEpoch = LocalDateTime.of(1969, 12, 31, 23, 59, 58, 500_000_000);
+        decoded = BinaryMessageCodec.decodeResponse(ByteBuffer.wrap(
+                BinaryMessageCodec.encodeResponse(response(1L, beforeEpoch, null))));
+        assertEquals(beforeEpoch, decoded.getCreatedAt());
+        assertNull(decoded.getContents());
+
+        decoded = BinaryMessageCodec.decodeResponse(ByteBuffer.wrap(
+                BinaryMessageCodec.encodeResponse(response(null, null, "x"))));
+        assertNull(decoded.getMsgId());
+        assertNull(decoded.getCreatedAt());
+    }
+
+    @Test
+    void decodesFromReadOnlyAndOffsetBuffers() throws IOException {
+        byte[] frame = BinaryMessageCodec.encodeRequest(request(5L, 6L, "읽기 전용 버퍼"));
+        byte[] padded = new byte[frame.length + 3];
+        System.arraycopy(frame, 0, padded, 3, frame.length);
+        ByteBuffer offset = ByteBuffer.wrap(padded);
+        offset.position(3);
+        assertEquals("읽기 전용 버퍼", BinaryMessageCodec.decodeRequest(offset).getContents());
+        assertEquals("읽기 전용 버퍼",
+                BinaryMessageCodec.decodeRequest(ByteBuffer.wrap(frame).asReadOnlyBuffer()).getContents());
+    }
+
+    @Test
+    void errorFrameCarriesUtf8Message() {
+        byte[] frame = BinaryMessageCodec.encodeError("저장 실패");
+        byte[] text = "저장 실패".getBytes(StandardCharsets.UTF_8);
+        assertEquals(BinaryMessageCodec.ERROR, frame[0]);
+        assertEquals(text.length + 1, frame[1]);
+        assertArrayEquals(text, Arrays.copyOfRange(frame, 2, frame.length));
+    }
+
+    @Test
+    void truncatedFramesFailWithIOException() {
+        byte[] frame = BinaryMessageCodec.encodeResponse(response(123_456L, LocalDateTime.now(), "잘린 프레임"));
+        for (int len = 0; len < frame.length; len++) {
+            ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(frame, len));
+            assertThrows(IOException.class, () -> BinaryMessageCodec.decodeResponse(truncated), "len=" + len);
+        }
+    }
+
+    @Test
+    void rejectsWrongType() {
+        byte[] frame = BinaryMessageCodec.encodeRequest(request(1L, 2L, "x"));
+        assertThrows(IOException.class, () -> BinaryMessageCodec.decodeResponse(ByteBuffer.wrap(frame)));
+    }
+
+    @Test
+    void rejectsOversizedVarints() {
+        // roomId varint 가 11바이트 (계속 비트가 끝나지 않음)
+        byte[] tooLong = new byte[12];
+        tooLong[0] = BinaryMessageCodec.SEND;
+        Arrays.fill(tooLong, 1, 12, (byte) 0x80);
+        assertThrows(IOException.class, () -> BinaryMessageCodec.decodeRequest(ByteBuffer.wrap(tooLong)));
+
+        // 10바이트지만 64비트를 넘는 값
+        byte[] overflow = new byte[11];
+        overflow[0] = BinaryMessageCodec.SEND;
+        Arrays.fill(overflow, 1, 10, (byte) 0xFF);
+        overflow[10] = 0x7F;
+        assertThrows(IOException.class, () -> BinaryMessageCodec.decodeRequest(ByteBuffer.wrap(overflow)));
+    }
+
+    @Test
+    void rejectsStringLengthsBeyondFrame() {
+        // contents 길이 varint = 2^63 (+1 인코딩) → 음수 long, 예전에는 IndexOutOfBounds
+        byte[] huge = {BinaryMessageCodec.SEND, 0, 0,
+                (byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+                (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        assertThrows(IOException.class, () -> BinaryMessageCodec.decodeRequest(ByteBuffer.wrap(huge)));
+
+        byte[] longer = {BinaryMessageCodec.SEND, 0, 0, 100, 'a', 'b'};
+        assertThrows(IOException.class, () -> BinaryMessageCodec.decodeRequest(ByteBuffer.wrap(longer)));
+    }
+
+    @Test
+    void garbageNeverThrowsUncheckedExceptions() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            byte[] garbage = new byte[random.nextInt(40)];
+            random.nextBytes(garbage);
+            if (garbage.length > 0) {
+                garbage[0] = random.nextBoolean() ? BinaryMessageCodec.SEND : BinaryMessageCodec.MESSAGE;
+            }
+            ByteBuffer in = ByteBuffer.wrap(garbage);
+            try {
+                if (garbage.length > 0 && garbage[0] == BinaryMessageCodec.SEND) {
+                    BinaryMessageCodec.decodeRequest(in);
+                } else {
+                    BinaryMessageCodec.decodeResponse(in);
+                }
+            } catch (IOException expected) {
+                // 형식 오류는 IOException 으로만
+            } catch (RuntimeException e) {
+                fail("seed 42, i=" + i + ", frame=" + Arrays.toString(garbage) + ": " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.example.test;
+
+import org.example.friend.dao.FriendGraphIndex;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FriendGraphIndex 단위 테스트 (서버/DB 없이 실행)
+ *
+ * 작은 임의 그래프에서 함께 아는 친구/추천 결과를 단순 계산(brute force)과 비교합니다.
+ * - 교집합: 병합 경로와 이진 탐색 경로(크기 차이가 큰 경우), limit
+ * - 추천: 함께 아는 친구 수 내림차순 + 동점이면 id 오름차순, 나와 기존 친구는 제외
+ * - 적재 중 들어온 추가/삭제가 적재 결과에 순서대로 다시 적용되는지
+ */
+public class FriendGraphIndexTest {
+
+    private static final long SEED = 20250608L;
+
+    /**
+     * userId → 친구 id 집합 (정답 계산용)
+     */
+    private static Map<Long, TreeSet<Long>> randomGraph(Random random, int users, int maxDegree) {
+        Map<Long, TreeSet<Long>> graph = new HashMap<>();
+        for (long u = 1; u <= users; u++) {
+            TreeSet<Long> friends = new TreeSet<>();
+            int degree = random.nextInt(maxDegree + 1);
+            for (int i = 0; i < degree; i++) {
+                long f = 1 + random.nextInt(users);
+                if (f != u) {
+                    friends.add(f);
+                }
+            }
+            graph.put(u, friends);
+        }
+        return graph;
+    }
+
+    private static FriendGraphIndex load(Map<Long, TreeSet<Long>> graph) throws SQLException {
+        FriendGraphIndex index = new FriendGraphIndex(true, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        List<long[]> edges = new ArrayList<>();
+        graph.forEach((u, friends) -> friends.forEach(f -> edges.add(new long[]{u, f})));
+        // user_id 순서가 섞이고 중복이 있어도 같은 결과여야 함
+        Collections.shuffle(edges, new Random(SEED));
+        if (!edges.isEmpty()) {
+            edges.add(edges.get(0));
+        }
+        index.load(consumer -> edges.forEach(e -> consumer.accept(e[0], e[1])));
+        return index;
+    }
+
+    private static long[] toArray(TreeSet<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static TreeSet<Long> friendsOf(Map<Long, TreeSet<Long>> graph, long userId) {
+        return graph.getOrDefault(userId, new TreeSet<>());
+    }
+
+    private static List<long[]> bruteForceSuggestions(Map<Long, TreeSet<Long>> graph, long userId, int limit) {
+        TreeSet<Long> mine = friendsOf(graph, userId);
+        Map<Long, Integer> counts = new HashMap<>();
+        for (long friend : mine) {
+            for (long candidate : friendsOf(graph, friend)) {
+                if (candidate != userId && !mine.contains(candidate)) {
+                    counts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        List<long[]> all = new ArrayList<>();
+        counts.forEach((id, count) -> all.add(new long[]{id, count}));
+        all.sort(Comparator.<long[]>comparingLong(e -> -e[1]).thenComparingLong(e -> e[0]));
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    @Test
+    void mutualFriendsMatchBruteForce() throws SQLException {
+        Random random = new Random(SEED);
+        for (int round = 0; round < 50; round++) {
+            Map<Long, TreeSet<Long>> graph = randomGraph(random, 30, 12);
+            // 친구가 아주 많은 사용자 하나 (크기 비가 커서 이진 탐색 경로를 타도록)
+            TreeSet<Long> hub = graph.get(1L);
+            for (long f = 2; f <= 30; f++) {
+                hub.add(f);
+            }
+            for (long f = 1000; f < 1400; f++) {
+                hub.add(f);
+            }
+            FriendGraphIndex index = load(graph);
+
+            for (long u = 1; u <= 30; u++) {
+                for (long v = 1; v <= 30; v++) {
+                    TreeSet<Long> expected = new TreeSet<>(friendsOf(graph, u));
+                    expected.retainAll(friendsOf(graph, v));
+                    long[] all = toArray(expected);
+
+                    assertArrayEquals(all, index.mutualFriends(u, v, Integer.MAX_VALUE), "u=" + u + ", v=" + v);
+                    assertEquals(all.length, index.mutualCount(u, v));
+                    int limit = all.length / 2;
+                    assertArrayEquals(Arrays.copyOf(all, limit), index.mutualFriends(u, v, limit),
+                            "limit=" + limit + " 이면 앞에서부터");
+                }
+            }
+        }
+    }
+
+    @Test
+    void suggestionsMatchBruteForceOrder() throws SQLException {
+        Random random = new Random(SEED + 1);
+        for (int round = 0; round < 50; round++) {
+            // 사용자가 적고 친구가 많아 동점이 자주 생김
+            Map<Long, TreeSet<Long>> graph = randomGraph(random, 20, 8);
+            FriendGraphIndex index = load(graph);
+
+            for (long u = 1; u <= 20; u++) {
+                for (int limit : new int[]{1, 3, 100}) {
+                    List<long[]> expected = bruteForceSuggestions(graph, u, limit);
+                    List<FriendGraphIndex.Suggestion> actual = index.suggest(u, limit);
+                    assertEquals(expected.size(), actual.size(), "u=" + u + ", limit=" + limit);
+                    for (int i = 0; i < expected.size(); i++) {
+                        assertEquals(expected.get(i)[0], actual.get(i).getUserId(), "u=" + u + ", #" + i);
+                        assertEquals(expected.get(i)[1], actual.get(i).getMutualCount(), "u=" + u + ", #" + i);
+                    }
+                    for (FriendGraphIndex.Suggestion s : actual) {
+                        assertNotEquals(u, s.getUserId(), "자기 자신은 제외");
+                        assertFalse(friendsOf(graph, u).contains(s.getUserId()), "이미 친구인 사람은 제외");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void suggestionTiesAreOrderedByIdAndFriendsExcluded() throws SQLException {
+        // 1 → 2, 3, 4 / 2 → 1, 5, 6, 4 / 3 → 6, 5, 7 / 4 → 7, 2
+        Map<Long, TreeSet<Long>> graph = new HashMap<>();
+        graph.put(1L, new TreeSet<>(List.of(2L, 3L, 4L)));
+        graph.put(2L, new TreeSet<>(List.of(1L, 5L, 6L, 4L)));
+        graph.put(3L, new TreeSet<>(List.of(6L, 5L, 7L)));
+        graph.put(4L, new TreeSet<>(List.of(7L, 2L)));
+        FriendGraphIndex index = load(graph);
+
+        List<FriendGraphIndex.Suggestion> top = index.suggest(1L, 10);
+        // 5, 6, 7 모두 2명 → id 오름차순. 1(자신)과 2, 4(기존 친구)는 빠짐
+        assertEquals(List.of(5L, 6L, 7L), top.stream().map(FriendGraphIndex.Suggestion::getUserId).toList());
+        assertTrue(top.stream().allMatch(s -> s.getMutualCount() == 2));
+
+        assertEquals(List.of(5L, 6L), index.suggest(1L, 2).stream().map(FriendGraphIndex.Suggestion::getUserId).toList());
+        assertTrue(index.suggest(1L, 0).isEmpty());
+        assertTrue(index.suggest(99L, 5).isEmpty(), "친구가 없으면 추천도 없음");
+    }
+
+    @Test
+    void replaysChangesMadeDuringLoad() throws SQLException {
+        FriendGraphIndex index = new FriendGraphIndex(true, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        index.load(consumer -> {
+            consumer.accept(1, 2);
+            consumer.accept(1, 3);
+            // 적재 중: 이미 읽은 간선 삭제, 아직 읽지 않은 간선 추가, 스캔에 없는 간선 추가 후 삭제, 다시 추가
+            assertFalse(index.isReady());
+            index.removed(1, 2);
+            index.added(1, 4);
+            index.added(5, 6);
+            index.removed(5, 6);
+            index.added(5, 7);
+            consumer.accept(1, 4);
+            consumer.accept(8, 9);
+            index.removed(8, 9);
+            index.added(8, 9);
+        });
+
+        assertTrue(index.isReady());
+        assertArrayEquals(new long[]{3, 4}, index.friendsOf(1));
+        assertArrayEquals(new long[]{7}, index.friendsOf(5));
+        assertArrayEquals(new long[]{9}, index.friendsOf(8));
+        assertEquals(4, index.getEdgeCount());
+        assertEquals(3, index.getUserCount());
+
+        // 적재가 끝난 뒤에는 바로 반영
+        index.added(3, 1);
+        index.removed(1, 3);
+        assertArrayEquals(new long[]{4}, index.friendsOf(1));
+        assertArrayEquals(new long[]{1}, index.friendsOf(3));
+        assertEquals(4, index.getEdgeCount());
+    }
+
+    @Test
+    void failedLoadDiscardsPendingChanges() throws SQLException {
+        FriendGraphIndex index = new FriendGraphIndex(true, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        assertThrows(SQLException.class, () -> index.load(consumer -> {
+            consumer.accept(1, 2);
+            index.added(1, 3);
+            throw new SQLException("fake failure");
+        }));
+        assertFalse(index.isReady());
+
+        index.load(consumer -> consumer.accept(1, 2));
+        assertArrayEquals(new long[]{2}, index.friendsOf(1), "실패한 적재 중의 변경은 다시 적용하지 않음");
+    }
+}
@@ -24,6 +24,8 @@ import static org.junit.jupiter.api.Assertions.*;
  *     • 메모 저장 : POST /api/memo/save
  *         JSON body: { "ownerUsername", "friendUsername", "createdDate", "content" }
  *     • 메모 조회 : GET  /api/memo/get?owner={ownerUsername}&friend={friendUsername}&date={yyyy-MM-dd}
+ *     • 기간 조회 : GET  /api/memo/range?owner=..&friend=..&from={yyyy-MM-dd}&to={yyyy-MM-dd}
+ *     • 날짜 비트맵: GET  /api/memo/dates?owner=..&friend=..&month={yyyy-MM}
  *
  * 이 테스트는 회원가입이나 로그인 과정을 생략하며,
  * 실제 데이터베이스에 해당 owner와 friend 계정이 이미 등록되어 있다고 가정합니다.
@@ -35,6 +37,8 @@ public class MemoControllerTest {
     private static final String BASE_URL     = TestApiConfig.get("api.baseUrl");
     private static final String MEMO_SAVE    = TestApiConfig.get("api.memo.save");
     private static final String MEMO_GET     = TestApiConfig.get("api.memo.get");
+    private static final String MEMO_RANGE   = TestApiConfig.get("api.memo.range");
+    private static final String MEMO_DATES   = TestApiConfig.get("api.memo.dates");
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -115,7 +119,66 @@ public class MemoControllerTest {
         assertEquals(TEST_CONTENT, root.get("content").asText());
         assertEquals(TEST_DATE, root.get("createdDate").asText());
     }
-    /** 3) 특정 날짜 메모 조회 기능 테스트 (메모 없는 날짜) */
+    /** 3) 기간 메모 조회 기능 테스트 (한 달) */
+    @Test
+    @Order(3)
+    void testGetMemoRange() throws Exception {
+        sendPost(BASE_URL + MEMO_SAVE, objectMapper.writeValueAsString(Map.of(
+                "ownerUsername",  OWNER,
+                "friendUsername", FRIEND,
+                "createdDate",    TEST_DATE,
+                "content",        TEST_CONTENT
+        )));
+
+        String url = String.format(
+                "%s%s?owner=%s&friend=%s&from=%s&to=%s",
+                BASE_URL, MEMO_RANGE, OWNER, FRIEND, "2025-06-01", "2025-06-30"
+        );
+        HttpResponse res = sendGet(url);
+
+        System.out.println("[testGetMemoRange] Response Body: " + res.body);
+        assertEquals(200, res.statusCode);
+
+        JsonNode memos = objectMapper.readTree(res.body).get("memos");
+        assertTrue(memos.isArray());
+        boolean found = false;
+        for (JsonNode memo : memos) {
+            if (TEST_DATE.equals(memo.get("createdDate").asText())) {
+                assertEquals(TEST_CONTENT, memo.get("content").asText());
+                found = true;
+            }
+            assertNotEquals(TEST_DATE_NONE, memo.get("createdDate").asText());
+        }
+        assertTrue(found);
+
+        // from > to 는 400
+        HttpResponse bad = sendGet(String.format(
+                "%s%s?owner=%s&friend=%s&from=%s&to=%s",
+                BASE_URL, MEMO_RANGE, OWNER, FRIEND, "2025-06-30", "2025-06-01"));
+        assertEquals(400, bad.statusCode);
+    }
+
+    /** 4) 한 달 중 메모가 있는 날짜 비트맵 조회 테스트 */
+    @Test
+    @Order(4)
+    void testGetMemoDates() throws Exception {
+        String url = String.format(
+                "%s%s?owner=%s&friend=%s&month=%s",
+                BASE_URL, MEMO_DATES, OWNER, FRIEND, "2025-06"
+        );
+        HttpResponse res = sendGet(url);
+
+        System.out.println("[testGetMemoDates] Response Body: " + res.body);
+        assertEquals(200, res.statusCode);
+
+        JsonNode root = objectMapper.readTree(res.body);
+        assertEquals("2025-06", root.get("month").asText());
+        int bitmap = root.get("bitmap").asInt();
+        assertTrue((bitmap & (1 << (8 - 1))) != 0);    // TEST_DATE = 6월 8일
+        assertEquals(0, bitmap & (1 << (23 - 1)));     // TEST_DATE_NONE = 6월 23일
+    }
+
+    /** 5) 특정 날짜 메모 조회 기능 테스트 (메모 없는 날짜) */
 
     // -------------------------------------------------------------------
     // Helper Method: HTTP POST 요청 보내기
@@ -0,0 +1,146 @@
+package org.example.test;
+
+import org.example.memo.dao.MemoDAO;
+import org.example.memo.entity.Memo;
+import org.example.memo.service.MemoWriteCoalescer;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MemoWriteCoalescer 단위 테스트 (서버/DB 없이 실행)
+ *
+ * MemoDAO.upsertMemo 만 바꾼 가짜 DAO 로 DB 쓰기 횟수와 내용을 확인합니다.
+ * - 같은 창 안의 저장 합치기 (writes / coalesced / pending)
+ * - 창 끝 저장 실패 시 재시도, MAX_RETRIES 번 실패하면 버림
+ * - close() 때 남은 내용 저장, 이후 save 는 바로 저장
+ */
+public class MemoWriteCoalescerTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 6, 8);
+
+    /**
+     * upsertMemo 호출을 기록하는 가짜 DAO (failFrom 번째 호출부터 실패)
+     */
+    private static final class FakeMemoDAO extends MemoDAO {
+        final List<String> written = new CopyOnWriteArrayList<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final int failFrom;
+
+        FakeMemoDAO(int failFrom) {
+            super(null);
+            this.failFrom = failFrom;
+        }
+
+        @Override
+        public Memo upsertMemo(Memo entity) throws SQLException {
+            if (calls.incrementAndGet() >= failFrom) {
+                throw new SQLException("fake failure");
+            }
+            written.add(entity.getContent());
+            entity.setMemoId(42L);
+            return entity;
+        }
+    }
+
+    private static Memo memo(String content) {
+        return new Memo(null, 1L, 2L, content, DATE);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "시간 안에 조건을 만족하지 않았습니다.");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void coalescesSavesWithinWindowAndFlushesOnClose() throws Exception {
+        FakeMemoDAO dao = new FakeMemoDAO(Integer.MAX_VALUE);
+        MemoWriteCoalescer coalescer = new MemoWriteCoalescer(dao, 60_000);
+
+        MemoWriteCoalescer.Saved first = coalescer.save(memo("a"));
+        assertFalse(first.pending(), "창을 연 저장은 바로 DB 에 씀");
+        assertEquals(42L, first.memo().getMemoId());
+
+        for (String content : new String[]{"b", "c", "d"}) {
+            MemoWriteCoalescer.Saved saved = coalescer.save(memo(content));
+            assertTrue(saved.pending(), "창 안의 저장은 pending");
+            assertEquals(42L, saved.memo().getMemoId(), "memo_id 는 첫 저장 결과");
+        }
+        assertEquals(1, coalescer.getWrites());
+        assertEquals(3, coalescer.getCoalesced());
+        assertEquals("d", coalescer.pendingContent(1L, 2L, DATE));
+        assertEquals(List.of("a"), dao.written);
+
+        coalescer.close();
+        assertEquals(List.of("a", "d"), dao.written, "close 때 마지막 내용만 한 번 저장");
+        assertEquals(2, coalescer.getWrites());
+        assertEquals(0, coalescer.getOpenWindows());
+        assertNull(coalescer.pendingContent(1L, 2L, DATE));
+
+        MemoWriteCoalescer.Saved afterClose = coalescer.save(memo("e"));
+        assertFalse(afterClose.pending(), "close 이후 저장은 바로 DB 에 씀");
+        assertEquals(List.of("a", "d", "e"), dao.written);
+    }
+
+    @Test
+    void writesLastContentAtWindowEnd() throws Exception {
+        FakeMemoDAO dao = new FakeMemoDAO(Integer.MAX_VALUE);
+        MemoWriteCoalescer coalescer = new MemoWriteCoalescer(dao, 200);
+        try {
+            coalescer.save(memo("a"));
+            coalescer.save(memo("b"));
+            coalescer.save(memo("c"));
+
+            // 창 끝에 "c" 를 쓰고, 다음 창에서 새 내용이 없으면 창을 정리
+            awaitTrue(() -> coalescer.getOpenWindows() == 0);
+            assertEquals(List.of("a", "c"), dao.written);
+            assertEquals(2, coalescer.getWrites());
+            assertEquals(2, coalescer.getCoalesced());
+        } finally {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    void retriesFailedWindowWriteThenDrops() throws Exception {
+        // 첫 저장(창 열기)만 성공하고 창 끝 저장은 모두 실패
+        FakeMemoDAO dao = new FakeMemoDAO(2);
+        MemoWriteCoalescer coalescer = new MemoWriteCoalescer(dao, 200);
+        try {
+            coalescer.save(memo("a"));
+            coalescer.save(memo("b"));
+
+            awaitTrue(() -> coalescer.getOpenWindows() == 0);
+            assertEquals(3, coalescer.getFailures(), "MAX_RETRIES 번 시도 후 버림");
+            assertEquals(1 + 3, dao.calls.get());
+            assertEquals(List.of("a"), dao.written);
+            assertNull(coalescer.pendingContent(1L, 2L, DATE));
+        } finally {
+            coalescer.close();
+        }
+        assertEquals(4, dao.calls.get(), "버린 내용은 close 때 다시 쓰지 않음");
+    }
+
+    @Test
+    void failedFirstWriteLeavesNoWindow() {
+        FakeMemoDAO dao = new FakeMemoDAO(1);
+        MemoWriteCoalescer coalescer = new MemoWriteCoalescer(dao, 60_000);
+        try {
+            assertThrows(SQLException.class, () -> coalescer.save(memo("a")));
+            assertEquals(0, coalescer.getOpenWindows(), "실패한 창은 남기지 않음");
+            assertEquals(0, coalescer.getWrites());
+        } finally {
+            coalescer.close();
+        }
+    }
+}
@@ -95,6 +95,30 @@ public class MessageRestControllerTest {
         assertTrue(first.has("contents"));
     }
 
+    /** 3) 메시지 페이지 조회 테스트 (size / before 커서) */
+    @Test
+    @Order(3)
+    void testFetchMessagesPage() throws Exception {
+        String url = String.format("%s%s?roomId=%d&username=%s&size=%d",
+                baseUrl, fetchPath, 56L, "testUser_1", 1);
+
+        HttpResponse res = sendGet(url);
+        assertEquals(200, res.statusCode, "size 파라미터가 있어도 200을 반환해야 합니다.");
+
+        JsonNode arr = objectMapper.readTree(res.body);
+        assertTrue(arr.isArray(), "응답은 JSON 배열이어야 합니다.");
+        assertEquals(1, arr.size(), "size=1 이면 메시지 한 개만 반환되어야 합니다.");
+
+        // 방금 받은 메시지보다 오래된 페이지는 그 msgId 보다 작은 것만 포함
+        long newestId = arr.get(0).get("msgId").asLong();
+        String olderUrl = String.format("%s%s?roomId=%d&username=%s&before=%d",
+                baseUrl, fetchPath, 56L, "testUser_1", newestId);
+        JsonNode older = objectMapper.readTree(sendGet(olderUrl).body);
+        for (JsonNode m : older) {
+            assertTrue(m.get("msgId").asLong() < newestId, "before 커서보다 작은 msgId만 와야 합니다.");
+        }
+    }
+
     // -------------------------------------------------------------------
     //  HTTP 요청 헬퍼
     // -------------------------------------------------------------------